@@ -56,6 +56,13 @@ android {
         targetCompatibility = JavaVersion.VERSION_1_8
     }
 
+    testOptions {
+        unitTests.all {
+            // Benchmarks (Benchmark.assumeEnabled) nur mit ./gradlew test -Pbenchmark
+            it.systemProperty("benchmark", project.hasProperty("benchmark").toString())
+        }
+    }
+
     packaging {
         resources {
             excludes += "/META-INF/{AL2.0,LGPL2.1}"
@@ -108,6 +115,9 @@ dependencies {
     // MapCompose
     implementation("ovh.plrapps:mapcompose:3.1.0")
 
+    // HTTP Client (Tile-Downloads)
+    implementation("com.squareup.okhttp3:okhttp:4.12.0")
+
     // Animations
     implementation("androidx.compose.animation:animation")
 
@@ -118,9 +128,11 @@ dependencies {
     testImplementation("junit:junit:4.13.2")
     testImplementation("org.jetbrains.kotlinx:kotlinx-coroutines-test:1.9.0")
     testImplementation("app.cash.turbine:turbine:1.1.0")
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
 
     androidTestImplementation("androidx.test.ext:junit:1.2.1")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.6.1")
+    androidTestImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
     androidTestImplementation("androidx.compose.ui:ui-test-junit4")
 
     // Debug
@@ -0,0 +1,135 @@
+package com.example.trackerapp.data.tile
+
+import android.database.sqlite.SQLiteDatabase
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.After
+import org.junit.Assert.*
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.File
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Tests für die MBTiles-Datei auf echtem SQLite: TMS-Zeilen und Lesen während eines Schreibvorgangs
+ */
+@RunWith(AndroidJUnit4::class)
+class MbTilesStoreTest {
+
+    private lateinit var file: File
+    private lateinit var store: MbTilesStore
+
+    @Before
+    fun setUp() {
+        val context = InstrumentationRegistry.getInstrumentation().targetContext
+        file = File(context.cacheDir, "test-${System.nanoTime()}.mbtiles")
+        store = MbTilesStore(file, PROVIDER)
+    }
+
+    @After
+    fun tearDown() {
+        store.delete()
+    }
+
+    private fun key(zoom: Int, col: Int, row: Int) = TileKey(PROVIDER, zoom, col, row)
+
+    @Test
+    fun missingFile_isNotAvailable_andNotCreatedByReads() {
+        assertFalse(store.isAvailable)
+        assertNull(store.getTile(3, 1, 1))
+        assertFalse(store.hasTile(3, 1, 1))
+        assertFalse(file.exists())
+    }
+
+    @Test
+    fun putAndGet_roundTripsInXyz() {
+        store.putTiles(listOf(key(3, 2, 1) to byteArrayOf(1, 2, 3)))
+
+        assertTrue(store.isAvailable)
+        assertArrayEquals(byteArrayOf(1, 2, 3), store.getTile(3, 2, 1))
+        assertTrue(store.hasTile(3, 2, 1))
+        // Gespiegelte Zeile ist ein anderes Tile
+        assertNull(store.getTile(3, 2, 6))
+        assertEquals(1L, store.tileCount())
+    }
+
+    @Test
+    fun putTiles_storesRowsInTms() {
+        // Zoom 3: 8 Zeilen, XYZ-Zeile 1 (Norden) = TMS-Zeile 6
+        store.putTiles(listOf(key(3, 2, 1) to byteArrayOf(7)))
+        store.close()
+
+        SQLiteDatabase.openDatabase(file.path, null, SQLiteDatabase.OPEN_READONLY).use { db ->
+            db.rawQuery("SELECT zoom_level, tile_column, tile_row FROM tiles", null).use { cursor ->
+                assertTrue(cursor.moveToFirst())
+                assertEquals(3, cursor.getInt(0))
+                assertEquals(2, cursor.getInt(1))
+                assertEquals(6, cursor.getInt(2))
+                assertFalse(cursor.moveToNext())
+            }
+        }
+    }
+
+    @Test
+    fun putTiles_replacesExistingTile() {
+        store.putTiles(listOf(key(5, 4, 4) to byteArrayOf(1)))
+        store.putTiles(listOf(key(5, 4, 4) to byteArrayOf(2)))
+
+        assertArrayEquals(byteArrayOf(2), store.getTile(5, 4, 4))
+        assertEquals(1L, store.tileCount())
+    }
+
+    @Test
+    fun reads_doNotBlockOnOpenWriteTransaction() {
+        store.putTiles(listOf(key(4, 3, 3) to byteArrayOf(9)))
+
+        // Zweite Verbindung hält eine Schreib-Transaktion offen (wie ein laufender Batch)
+        val writer = SQLiteDatabase.openDatabase(
+            file.path,
+            null,
+            SQLiteDatabase.OPEN_READWRITE or SQLiteDatabase.ENABLE_WRITE_AHEAD_LOGGING
+        )
+        val reader = Executors.newSingleThreadExecutor()
+        writer.beginTransaction()
+        try {
+            writer.execSQL(
+                "INSERT INTO tiles (zoom_level, tile_column, tile_row, tile_data) VALUES (4, 5, 5, x'01')"
+            )
+
+            // WAL: Lesen liefert sofort den letzten Commit statt auf die Transaktion zu warten
+            val read = reader.submit<Pair<ByteArray?, Boolean>> {
+                store.getTile(4, 3, 3) to store.hasTile(4, 5, 10)
+            }
+            val (committed, uncommittedVisible) = read.get(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            assertArrayEquals(byteArrayOf(9), committed)
+            assertFalse(uncommittedVisible)
+
+            writer.setTransactionSuccessful()
+        } finally {
+            writer.endTransaction()
+            writer.close()
+            reader.shutdown()
+        }
+
+        // Nach dem Commit sichtbar (TMS-Zeile 5 = XYZ-Zeile 10 bei Zoom 4)
+        assertTrue(store.hasTile(4, 5, 10))
+    }
+
+    @Test
+    fun addRegionMetadata_mergesBoundsAndZoom() {
+        store.addRegionMetadata(TileRegion(north = 48.2, south = 48.1, east = 11.7, west = 11.5, minZoom = 10, maxZoom = 12))
+        store.addRegionMetadata(TileRegion(north = 48.3, south = 48.0, east = 11.6, west = 11.4, minZoom = 8, maxZoom = 11))
+
+        assertEquals("11.4,48.0,11.7,48.3", store.metadata("bounds"))
+        assertEquals("8", store.metadata("minzoom"))
+        assertEquals("12", store.metadata("maxzoom"))
+        assertEquals(PROVIDER, store.metadata("name"))
+    }
+
+    companion object {
+        private const val PROVIDER = "test"
+        private const val READ_TIMEOUT_SECONDS = 2L
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.trackerapp.data.tile
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import kotlinx.coroutines.runBlocking
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Assert.*
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Tests für den Region-Download gegen MockWebServer und eine echte MBTiles-Datei:
+ * Fortsetzen nach Abbruch (vorhandene Tiles überspringen) und Zählen fehlgeschlagener Tiles.
+ */
+@RunWith(AndroidJUnit4::class)
+class RegionDownloaderTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var provider: TileProvider
+    private lateinit var store: MbTilesStore
+
+    // Tiles (z/x/y) für die der Server 404 liefert
+    private val missing = ConcurrentHashMap.newKeySet<String>()
+
+    private val region = TileRegion(north = 48.2, south = 48.1, east = 11.7, west = 11.5, minZoom = 12, maxZoom = 13)
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val path = request.path.orEmpty().removePrefix("/").removeSuffix(".png")
+                return if (path in missing) {
+                    MockResponse().setResponseCode(404)
+                } else {
+                    MockResponse().setResponseCode(200).setBody(path)
+                }
+            }
+        }
+        server.start()
+        provider = TileProvider(
+            id = "mock",
+            urlTemplates = listOf("http://${server.hostName}:${server.port}/{z}/{x}/{y}.png")
+        )
+        val context = InstrumentationRegistry.getInstrumentation().targetContext
+        store = MbTilesStore(File(context.cacheDir, "region-${System.nanoTime()}.mbtiles"), provider.id)
+    }
+
+    @After
+    fun tearDown() {
+        store.delete()
+        server.shutdown()
+    }
+
+    private fun downloader() = RegionDownloader(HttpTileFetcher(), store, parallelDownloads = 4, batchSize = 8)
+
+    private fun allTiles() = region.tiles().map { (zoom, col, row) -> TileKey(provider.id, zoom, col, row) }.toList()
+
+    private fun path(key: TileKey) = "${key.zoom}/${key.col}/${key.row}"
+
+    @Test
+    fun download_storesEveryTileOfTheRegion() = runBlocking {
+        val tiles = allTiles()
+
+        val result = downloader().download(provider, region)
+
+        assertEquals(tiles.size.toLong(), result.total)
+        assertEquals(tiles.size.toLong(), result.downloaded)
+        assertEquals(0L, result.skipped)
+        assertEquals(0L, result.failed)
+        for (key in tiles) {
+            assertEquals(path(key), store.getTile(key.zoom, key.col, key.row)?.decodeToString())
+        }
+        assertEquals("13", store.metadata("maxzoom"))
+    }
+
+    @Test
+    fun resume_skipsTilesAlreadyStored() = runBlocking {
+        val tiles = allTiles()
+        // Abgebrochener erster Lauf: jedes zweite Tile ist schon gespeichert
+        val stored = tiles.filterIndexed { index, _ -> index % 2 == 0 }
+        store.putTiles(stored.map { it to "old".encodeToByteArray() })
+
+        val result = downloader().download(provider, region)
+
+        assertEquals(stored.size.toLong(), result.skipped)
+        assertEquals((tiles.size - stored.size).toLong(), result.downloaded)
+        assertEquals(tiles.size.toLong(), result.done)
+        // Nur die fehlenden Tiles wurden angefragt, vorhandene nicht überschrieben
+        assertEquals(tiles.size - stored.size, server.requestCount)
+        for (key in stored) {
+            assertEquals("old", store.getTile(key.zoom, key.col, key.row)?.decodeToString())
+        }
+        assertEquals(tiles.size.toLong(), store.tileCount())
+
+        // Zweiter Lauf: alles vorhanden, kein Request
+        val again = downloader().download(provider, region)
+        assertEquals(tiles.size.toLong(), again.skipped)
+        assertEquals(0L, again.downloaded)
+        assertEquals(tiles.size - stored.size, server.requestCount)
+    }
+
+    @Test
+    fun failedTiles_areCountedAndRetriedOnNextRun() = runBlocking {
+        val tiles = allTiles()
+        val failing = tiles.filterIndexed { index, _ -> index % 3 == 0 }
+        failing.forEach { missing += path(it) }
+
+        val result = downloader().download(provider, region)
+
+        assertEquals(failing.size.toLong(), result.failed)
+        assertEquals((tiles.size - failing.size).toLong(), result.downloaded)
+        assertEquals(tiles.size.toLong(), result.done)
+        for (key in failing) {
+            assertFalse(store.hasTile(key.zoom, key.col, key.row))
+        }
+
+        // Server liefert wieder: nur die fehlgeschlagenen Tiles werden nachgeladen
+        missing.clear()
+        val retry = downloader().download(provider, region)
+        assertEquals(0L, retry.failed)
+        assertEquals(failing.size.toLong(), retry.downloaded)
+        assertEquals((tiles.size - failing.size).toLong(), retry.skipped)
+        assertEquals(tiles.size.toLong(), store.tileCount())
+    }
+
+    @Test
+    fun progress_isReportedPerBatchAndAtTheEnd() = runBlocking {
+        val reported = mutableListOf<RegionDownloader.Progress>()
+
+        val result = downloader().download(provider, region) { reported += it }
+
+        assertTrue(reported.size > 1)
+        assertEquals(result, reported.last())
+        assertTrue(reported.zipWithNext().all { (a, b) -> b.done >= a.done })
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.trackerapp.data.tile
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Color
+import android.os.Debug
+import android.util.Log
+import androidx.compose.foundation.layout.fillMaxSize
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableStateOf
+import androidx.compose.runtime.setValue
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.test.junit4.createComposeRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.presentation.map.MapConstants
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.*
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import ovh.plrapps.mapcompose.api.addLayer
+import ovh.plrapps.mapcompose.api.scale
+import ovh.plrapps.mapcompose.api.scrollTo
+import ovh.plrapps.mapcompose.core.TileStreamProvider
+import ovh.plrapps.mapcompose.ui.MapUI
+import ovh.plrapps.mapcompose.ui.state.MapState
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Speicher-Benchmark für das Dekodieren von Tiles
+ *
+ * Schwenkt einen festen Pfad über die Karte (Zoom 15, 5×8 sichtbare Tiles) und dekodiert
+ * jedes neu sichtbare Tile:
+ * - naiv: neue ARGB_8888-Bitmap pro Tile, nicht mehr sichtbare dem GC überlassen
+ * - gepoolt: [TileBitmapDecoder] mit RGB_565, Bitmap-Pool und Speichergrenze
+ *
+ * Die Tiles der Basiskarte dekodiert MapCompose selbst, nicht der [TileBitmapDecoder].
+ * Deshalb misst [panScriptedPath_mapCompose] denselben Pfad über eine echte [MapUI] mit
+ * einer MapState nur mit Basiskarte, einmal mit ARGB_8888 (Standard, so läuft die App) und
+ * einmal mit `highFidelityColors(false)` (RGB_565).
+ *
+ * Gibt Peak-Heap (Java + Native, Bitmaps liegen ab API 26 nativ) und GC-Anzahl aus:
+ * adb logcat -s TileMemoryBenchmark
+ */
+@RunWith(AndroidJUnit4::class)
+class TileMemoryBenchmark {
+
+    @get:Rule
+    val composeRule = createComposeRule()
+
+    private data class Stats(val peakBytes: Long, val gcCount: Long, val millis: Long)
+
+    // Verschiedene Tile-Inhalte, damit der Decoder echte PNGs verarbeitet
+    private val payloads = List(PAYLOAD_VARIANTS) { variant -> syntheticTile(variant) }
+
+    private fun payloadFor(key: TileKey) = payloads[Math.floorMod(key.col * 31 + key.row, PAYLOAD_VARIANTS)]
+
+    /**
+     * Sichtbare Tiles pro Schritt: Zickzack über 40 Tiles nach Osten und zurück
+     */
+    private fun scriptedPan(): List<List<TileKey>> = (0 until STEPS).map { step ->
+        val originCol = 17_000 + step % 80 - maxOf(0, step % 80 - 40) * 2
+        val originRow = 11_000 + step / 20
+        (0 until VISIBLE_ROWS).flatMap { dy ->
+            (0 until VISIBLE_COLS).map { dx -> TileKey("bench", 15, originCol + dx, originRow + dy) }
+        }
+    }
+
+    @Test
+    fun panScriptedPath_naiveVsPooled() {
+        val path = scriptedPan()
+
+        val naive = measure {
+            val visible = HashMap<TileKey, Bitmap>()
+            for (tiles in path) {
+                for (key in tiles) {
+                    visible.getOrPut(key) {
+                        val data = payloadFor(key)
+                        BitmapFactory.decodeByteArray(data, 0, data.size)
+                    }
+                }
+                visible.keys.retainAll(tiles.toSet())
+                sample()
+            }
+        }
+
+        val pool = TileBitmapPool(AppConstants.Tiles.BITMAP_POOL_MAX_BYTES)
+        val cache = DecodedTileCache(AppConstants.Tiles.DECODED_CACHE_MAX_BYTES, pool)
+        val decoder = TileBitmapDecoder(pool, cache)
+        val pooled = measure {
+            for (tiles in path) {
+                for (key in tiles) {
+                    decoder.withTile(key, { payloadFor(key) }) { it.width }
+                }
+                sample()
+            }
+        }
+
+        Log.i(TAG, "naive : peak=${naive.peakBytes / 1024} KB gc=${naive.gcCount} time=${naive.millis} ms")
+        Log.i(TAG, "pooled: peak=${pooled.peakBytes / 1024} KB gc=${pooled.gcCount} time=${pooled.millis} ms")
+        Log.i(TAG, "decoded cache=${cache.sizeBytes / 1024} KB (${cache.count} tiles), pool=${pool.sizeBytes / 1024} KB")
+
+        assertTrue(cache.sizeBytes <= AppConstants.Tiles.DECODED_CACHE_MAX_BYTES)
+        assertTrue(pool.sizeBytes <= AppConstants.Tiles.BITMAP_POOL_MAX_BYTES)
+    }
+
+    @Test
+    fun panScriptedPath_mapCompose() {
+        val path = scriptedPan()
+        var current by mutableStateOf<MapState?>(null)
+        composeRule.setContent {
+            current?.let { MapUI(modifier = Modifier.fillMaxSize(), state = it) }
+        }
+
+        val results = listOf(true, false).associateWith { highFidelity ->
+            val served = AtomicInteger()
+            val provider = TileStreamProvider { row, col, zoomLvl ->
+                served.incrementAndGet()
+                ByteArrayInputStream(payloadFor(TileKey("bench", zoomLvl, col, row)))
+            }
+            // Wie MapEngine, aber nur die Basiskarte (Overlays brauchen Alpha)
+            val state = MapState(
+                levelCount = MapConstants.ZOOM_LEVELS,
+                fullWidth = MapConstants.MAP_SIZE_LEVEL_0,
+                fullHeight = MapConstants.MAP_SIZE_LEVEL_0,
+                workerCount = AppConstants.Tiles.MAP_WORKERS
+            ) {
+                highFidelityColors(highFidelity)
+            }.apply {
+                addLayer(tileStreamProvider = provider)
+            }
+            composeRule.runOnIdle {
+                state.scale = ZOOM_15_SCALE
+                current = state
+            }
+
+            val stats = measure {
+                for (tiles in path) {
+                    val center = tiles[tiles.size / 2]
+                    val n = (1 shl center.zoom).toDouble()
+                    runBlocking(Dispatchers.Main) { state.scrollTo((center.col + 0.5) / n, (center.row + 0.5) / n) }
+                    awaitTiles(served)
+                    sample()
+                }
+            }
+            composeRule.runOnIdle { current = null }
+            state.shutdown()
+            stats to served.get()
+        }
+
+        for ((highFidelity, result) in results) {
+            val (stats, tiles) = result
+            val label = if (highFidelity) "mapcompose ARGB_8888" else "mapcompose RGB_565 "
+            Log.i(TAG, "$label: peak=${stats.peakBytes / 1024} KB gc=${stats.gcCount} time=${stats.millis} ms tiles=$tiles")
+        }
+        assertTrue(results.values.all { (_, tiles) -> tiles > 0 })
+    }
+
+    /**
+     * Wartet bis MapCompose keine Tiles mehr anfordert (höchstens [SETTLE_TIMEOUT_MS])
+     */
+    private fun awaitTiles(served: AtomicInteger) {
+        composeRule.waitForIdle()
+        val deadline = System.currentTimeMillis() + SETTLE_TIMEOUT_MS
+        var last = -1
+        while (System.currentTimeMillis() < deadline) {
+            val now = served.get()
+            if (now == last) return
+            last = now
+            Thread.sleep(SETTLE_POLL_MS)
+        }
+    }
+
+    private var peak = 0L
+
+    private fun sample() {
+        val runtime = Runtime.getRuntime()
+        val used = runtime.totalMemory() - runtime.freeMemory() + Debug.getNativeHeapAllocatedSize()
+        peak = maxOf(peak, used)
+    }
+
+    private fun measure(block: () -> Unit): Stats {
+        Runtime.getRuntime().gc()
+        peak = 0L
+        val gcBefore = gcCount()
+        val start = System.nanoTime()
+        block()
+        val millis = (System.nanoTime() - start) / 1_000_000
+        return Stats(peak, gcCount() - gcBefore, millis)
+    }
+
+    private fun gcCount(): Long = Debug.getRuntimeStat("art.gc.gc-count")?.toLongOrNull() ?: -1L
+
+    private fun syntheticTile(variant: Int): ByteArray {
+        val bitmap = Bitmap.createBitmap(256, 256, Bitmap.Config.ARGB_8888)
+        for (y in 0 until 256 step 8) {
+            for (x in 0 until 256 step 8) {
+                val shade = (x + y + variant * 17) % 255
+                val color = Color.rgb(shade, 200 - shade / 2, 120 + variant * 5)
+                for (dy in 0 until 8) for (dx in 0 until 8) bitmap.setPixel(x + dx, y + dy, color)
+            }
+        }
+        // Deckend wie echte Raster-Tiles (PNG ohne Alpha-Kanal)
+        bitmap.setHasAlpha(false)
+        val out = ByteArrayOutputStream()
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)
+        bitmap.recycle()
+        return out.toByteArray()
+    }
+
+    companion object {
+        private const val TAG = "TileMemoryBenchmark"
+        private const val STEPS = 400
+        private const val VISIBLE_COLS = 5
+        private const val VISIBLE_ROWS = 8
+        private const val PAYLOAD_VARIANTS = 16
+
+        // tileZoomForScale: scale 2^(15 - 18) = Zoom 15
+        private const val ZOOM_15_SCALE = 0.125
+        private const val SETTLE_POLL_MS = 20L
+        private const val SETTLE_TIMEOUT_MS = 500L
+    }
+}
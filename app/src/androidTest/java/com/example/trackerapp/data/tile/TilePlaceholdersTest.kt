@@ -0,0 +1,196 @@
+package com.example.trackerapp.data.tile
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Canvas
+import android.graphics.Color
+import android.graphics.Paint
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.Assert.*
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Pixel-Tests für Platzhalter aus anderen Zoom-Leveln (echtes Canvas und JPEG)
+ *
+ * Geprüft wird die Mitte jeder Zelle mit Toleranz: JPEG und RGB_565 verändern die Farben
+ * leicht, an den Rändern verschmiert die Skalierung.
+ */
+@RunWith(AndroidJUnit4::class)
+class TilePlaceholdersTest {
+
+    private val tiles = HashMap<TileKey, ByteArray>()
+
+    private val pool = TileBitmapPool(1024L * 1024)
+
+    private val placeholders = TilePlaceholders(
+        decoder = TileBitmapDecoder(pool, DecodedTileCache(4L * 1024 * 1024, pool)),
+        localTile = { tiles[it] }
+    )
+
+    @Test
+    fun ancestor_oneLevelUp_cropsTheMatchingQuadrant() {
+        // Vorfahr auf Zoom 9 in 2×2 Viertel eingefärbt
+        tiles[TileKey(PROVIDER, 9, 100, 200)] = gridTile(2, QUADRANT_COLORS)
+
+        for (dy in 0..1) {
+            for (dx in 0..1) {
+                val key = TileKey(PROVIDER, 10, 200 + dx, 400 + dy)
+                val placeholder = decode(placeholders.synthesize(key))
+                // Ganzes Tile hat die Farbe seines Viertels
+                assertColor(QUADRANT_COLORS[dy * 2 + dx], placeholder, 128, 128)
+                assertColor(QUADRANT_COLORS[dy * 2 + dx], placeholder, 32, 224)
+            }
+        }
+    }
+
+    @Test
+    fun ancestor_twoLevelsUp_cropsTheMatchingSixteenth() {
+        val colors = List(16) { Color.rgb((it % 4) * 80, (it / 4) * 80, 160) }
+        tiles[TileKey(PROVIDER, 8, 50, 100)] = gridTile(4, colors)
+
+        // Zoom 10: Spalte 200 + 3, Zeile 400 + 1 → Zelle (3, 1) des Vorfahren
+        val placeholder = decode(placeholders.synthesize(TileKey(PROVIDER, 10, 203, 401)))
+
+        assertColor(colors[1 * 4 + 3], placeholder, 128, 128)
+    }
+
+    @Test
+    fun ancestor_nearestLevelWins() {
+        tiles[TileKey(PROVIDER, 8, 50, 100)] = gridTile(1, listOf(Color.BLUE))
+        tiles[TileKey(PROVIDER, 9, 100, 200)] = gridTile(1, listOf(Color.RED))
+
+        val placeholder = decode(placeholders.synthesize(TileKey(PROVIDER, 10, 200, 400)))
+
+        assertColor(Color.RED, placeholder, 128, 128)
+    }
+
+    @Test
+    fun children_areDownscaledIntoTheirQuadrants() {
+        for (dy in 0..1) {
+            for (dx in 0..1) {
+                tiles[TileKey(PROVIDER, 11, 400 + dx, 800 + dy)] = gridTile(1, listOf(QUADRANT_COLORS[dy * 2 + dx]))
+            }
+        }
+
+        val placeholder = decode(placeholders.synthesize(TileKey(PROVIDER, 10, 200, 400)))
+
+        assertColor(QUADRANT_COLORS[0], placeholder, 64, 64)
+        assertColor(QUADRANT_COLORS[1], placeholder, 192, 64)
+        assertColor(QUADRANT_COLORS[2], placeholder, 64, 192)
+        assertColor(QUADRANT_COLORS[3], placeholder, 192, 192)
+    }
+
+    @Test
+    fun children_drawnOverAncestor_missingChildKeepsAncestor() {
+        tiles[TileKey(PROVIDER, 9, 100, 200)] = gridTile(1, listOf(Color.BLUE))
+        // Nur das Kind unten rechts ist vorhanden
+        tiles[TileKey(PROVIDER, 11, 401, 801)] = gridTile(1, listOf(Color.RED))
+
+        val placeholder = decode(placeholders.synthesize(TileKey(PROVIDER, 10, 200, 400)))
+
+        assertColor(Color.BLUE, placeholder, 64, 64)
+        assertColor(Color.BLUE, placeholder, 192, 64)
+        assertColor(Color.BLUE, placeholder, 64, 192)
+        assertColor(Color.RED, placeholder, 192, 192)
+    }
+
+    @Test
+    fun nothingLocal_returnsNull() {
+        assertNull(placeholders.synthesize(TileKey(PROVIDER, 10, 200, 400)))
+    }
+
+    @Test
+    fun repository_synthesizesOncePerPendingTile() {
+        // Server hält das echte Tile zurück, bis der Test es freigibt
+        val release = CountDownLatch(1)
+        val server = MockWebServer()
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                release.await(5, TimeUnit.SECONDS)
+                return MockResponse().setResponseCode(200).setBody("fresh")
+            }
+        }
+        server.start()
+        val provider = TileProvider(PROVIDER, listOf("http://${server.hostName}:${server.port}/{z}/{x}/{y}.png"))
+        val cache = TileCache(MemoryTileCache(1024 * 1024), null, Long.MAX_VALUE)
+        val repository = TileRepository(cache, placeholdersEnabled = true)
+        try {
+            cache.put(TileKey(PROVIDER, 9, 100, 200), gridTile(2, QUADRANT_COLORS))
+
+            // Mehrmaliges Neuladen der Karte, solange das Tile noch unterwegs ist
+            val first = repository.loadTileBlocking(provider, 10, 201, 401)
+            val second = repository.loadTileBlocking(provider, 10, 201, 401)
+
+            assertNotNull(first)
+            assertSame(first, second)
+            assertEquals(2L, repository.metrics.placeholderTiles.get())
+            assertEquals(1L, repository.metrics.synthesizedPlaceholders.get())
+            assertColor(QUADRANT_COLORS[3], decode(first), 128, 128)
+
+            // Echtes Tile da: ersetzt den Platzhalter
+            release.countDown()
+            val deadline = System.currentTimeMillis() + 3_000
+            var loaded = repository.loadTileBlocking(provider, 10, 201, 401)
+            while (loaded.contentEquals(first) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20)
+                loaded = repository.loadTileBlocking(provider, 10, 201, 401)
+            }
+            assertEquals("fresh", loaded?.decodeToString())
+            assertEquals(1L, repository.metrics.synthesizedPlaceholders.get())
+        } finally {
+            release.countDown()
+            server.shutdown()
+        }
+    }
+
+    /**
+     * Deckendes PNG, in [cells]×[cells] gleich große Zellen mit [colors] (zeilenweise)
+     */
+    private fun gridTile(cells: Int, colors: List<Int>): ByteArray {
+        val bitmap = Bitmap.createBitmap(TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888)
+        val canvas = Canvas(bitmap)
+        val paint = Paint()
+        val size = TILE_SIZE / cells.toFloat()
+        for (row in 0 until cells) {
+            for (col in 0 until cells) {
+                paint.color = colors[row * cells + col]
+                canvas.drawRect(col * size, row * size, (col + 1) * size, (row + 1) * size, paint)
+            }
+        }
+        bitmap.setHasAlpha(false)
+        val out = ByteArrayOutputStream()
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)
+        bitmap.recycle()
+        return out.toByteArray()
+    }
+
+    private fun decode(data: ByteArray?): Bitmap {
+        assertNotNull("no placeholder", data)
+        return BitmapFactory.decodeByteArray(data, 0, data!!.size)
+    }
+
+    private fun assertColor(expected: Int, bitmap: Bitmap, x: Int, y: Int) {
+        val actual = bitmap.getPixel(x, y)
+        val message = "pixel ($x, $y): expected #%06X, was #%06X".format(expected and 0xFFFFFF, actual and 0xFFFFFF)
+        assertEquals(message, Color.red(expected).toDouble(), Color.red(actual).toDouble(), TOLERANCE)
+        assertEquals(message, Color.green(expected).toDouble(), Color.green(actual).toDouble(), TOLERANCE)
+        assertEquals(message, Color.blue(expected).toDouble(), Color.blue(actual).toDouble(), TOLERANCE)
+    }
+
+    companion object {
+        private const val PROVIDER = "test"
+        private const val TILE_SIZE = 256
+        private const val TOLERANCE = 16.0
+
+        // Oben links, oben rechts, unten links, unten rechts
+        private val QUADRANT_COLORS = listOf(Color.RED, Color.GREEN, Color.BLUE, Color.YELLOW)
+    }
+}
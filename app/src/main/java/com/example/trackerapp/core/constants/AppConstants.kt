@@ -35,9 +35,7 @@ object AppConstants {
      * Map-related constants
      */
     object Map {
-        // Map dimensions (Web Mercator)
-        const val MAP_SIZE = 262144 // 2^18 pixels
-        const val ZOOM_LEVELS = 18
+        // Map coordinates are normalized Web Mercator (0..1), see core.utils.MercatorProjection
 
         // Zoom limits
         const val MIN_SCALE = 0.01 // 1%
@@ -57,6 +55,201 @@ object AppConstants {
         const val OSM_COPYRIGHT_URL = "https://www.openstreetmap.org/copyright"
     }
 
+    /**
+     * Tile cache constants
+     */
+    object Tiles {
+        // Memory cache: share of the VM heap, hard upper bound
+        const val MEMORY_CACHE_HEAP_FRACTION = 8 // 1/8 of max heap
+        const val MEMORY_CACHE_MAX_BYTES = 32L * 1024 * 1024 // 32 MB
+
+        // Disk cache
+        const val DISK_CACHE_DIR = "tiles"
+        const val DISK_CACHE_MAX_BYTES = 200L * 1024 * 1024 // 200 MB
+
+        // Tiles older than this are refetched (OSM tile usage policy: 7 days)
+        const val CACHE_TTL_MS = 7L * 24 * 60 * 60 * 1000
+
+        // Max. parallel tile downloads (independent of MapCompose workerCount)
+        const val MAX_PARALLEL_REQUESTS = 8
+        const val MAX_REQUESTS_PER_HOST = 6
+
+        // HTTP client
+        const val CONNECT_TIMEOUT_MS = 5000L // 5 seconds
+        const val READ_TIMEOUT_MS = 10000L // 10 seconds
+        const val KEEP_ALIVE_MS = 5L * 60 * 1000 // 5 minutes
+
+        // Server selection: circuit breaker per tile host
+        const val BREAKER_FAILURE_THRESHOLD = 3 // consecutive failures until open
+        const val BREAKER_BASE_COOLDOWN_MS = 15_000L // 15 seconds, doubled per failed probe
+        const val BREAKER_MAX_COOLDOWN_MS = 5L * 60 * 1000 // 5 minutes
+        const val LATENCY_EWMA_ALPHA = 0.3
+
+        // Offline regions (MBTiles in filesDir, not evicted like the cache)
+        const val OFFLINE_DIR = "offline"
+        const val REGION_MAX_TILES = 20_000L // bulk downloads are limited by the tile usage policies
+        const val REGION_WRITE_BATCH_SIZE = 64
+        const val REGION_EXTRA_ZOOM_LEVELS = 3 // "save visible area": current zoom + this many levels
+
+        // Highest zoom level served by the tile servers
+        const val MAX_ZOOM = 18
+
+        // Predictive prefetch (low priority, only while no map requests are running)
+        const val PREFETCH_WORKERS = 2
+        const val PREFETCH_BYTES_PER_SECOND = 256L * 1024 // 256 KB/s
+        const val PREFETCH_BURST_BYTES = 1024L * 1024 // 1 MB
+        const val PREFETCH_LOOK_AHEAD_SECONDS = 60
+        const val PREFETCH_MIN_SPEED = 1f // m/s, below this only the surroundings
+        const val PREFETCH_RADIUS = 1 // tiles around each predicted point
+        const val PREFETCH_MAX_TILES = 64
+        const val PREFETCH_MAX_PATH_TILES = 256
+        const val PREFETCH_PATH_MARGIN = 2 // tiles around the viewport along a displayed path
+        const val PREFETCH_IDLE_POLL_MS = 50L
+
+        // Cancellation of tiles that left the viewport
+        const val VIEWPORT_CANCEL_MARGIN = 1 // tiles around the viewport that keep loading
+        const val VIEWPORT_SETTLE_MS = 100L
+
+        // Decoded tile bitmaps (placeholders, overlays)
+        const val DECODED_CACHE_MAX_BYTES = 16L * 1024 * 1024 // 16 MB = 128 tiles ARGB / 256 tiles RGB_565
+        const val BITMAP_POOL_MAX_BYTES = 4L * 1024 * 1024 // 4 MB
+
+        // Placeholders from other zoom levels while the real tile loads
+        const val PLACEHOLDER_MAX_ANCESTOR_LEVELS = 4
+        const val PLACEHOLDER_RELOAD_MS = 250L // max. one map reload per interval
+
+        // MapCompose workers per retained MapState (they only wait on the repository)
+        const val MAP_WORKERS = MAX_PARALLEL_REQUESTS
+
+        // Vector tiles from a local MBTiles package (format=pbf), rasterized on the device
+        const val VECTOR_PACKAGE_FILE = "vector.mbtiles" // in OFFLINE_DIR
+        const val VECTOR_RENDER_WORKERS = 2
+        const val VECTOR_DEFAULT_MAX_ZOOM = 14 // if the package has no maxzoom metadata
+        const val VECTOR_DECODED_TILES = 16 // decoded source tiles kept for overzoom
+        const val VECTOR_CACHE_DIR = "vector_tiles"
+        const val VECTOR_MEMORY_CACHE_MAX_BYTES = 8L * 1024 * 1024 // 8 MB
+        const val VECTOR_DISK_CACHE_MAX_BYTES = 100L * 1024 * 1024 // 100 MB
+    }
+
+    /**
+     * Recorded path rendering constants
+     */
+    object Path {
+        // Level of detail: allowed deviation on screen, vertex budget per zoom level
+        const val LOD_TOLERANCE_PX = 0.5
+        const val LOD_MAX_VERTICES = 8_000
+        const val LOD_CHUNK_SIZE = 16_384 // points per sealed chunk, only the last one is rebuilt on append
+        const val HISTORY_BATCH_SIZE = 10_000 // locations per query while loading the recorded path
+
+        // Polyline style
+        const val LINE_WIDTH_DP = 4
+        const val LINE_COLOR = 0xFF1E88E5.toInt()
+
+        // Pre-rasterized overlay tiles (below OVERLAY_MIN_ZOOM the LOD polyline is drawn)
+        const val OVERLAY_MIN_ZOOM = 12
+        const val OVERLAY_INDEX_ZOOM = 14 // grid of the segment index
+        const val OVERLAY_LINE_WIDTH_PX = 6f
+        const val OVERLAY_RENDER_WORKERS = 2
+        const val OVERLAY_CACHE_DIR = "path_tiles"
+        const val OVERLAY_MEMORY_CACHE_MAX_BYTES = 8L * 1024 * 1024 // 8 MB
+        const val OVERLAY_DISK_CACHE_MAX_BYTES = 50L * 1024 * 1024 // 50 MB
+    }
+
+    /**
+     * Stored location marker constants
+     */
+    object Markers {
+        const val MIN_ZOOM = 15 // below this the map is too dense for single markers
+        const val VIEWPORT_PADDING = 0.5 // fraction of the viewport queried beyond each edge
+        const val QUERY_LIMIT = 5_000 // newest locations loaded per viewport query
+        const val CELL_PX = 32 // at most one marker per cell of this size on screen
+        const val MAX_LIVE = 300 // markers on the map at once
+        const val DOT_SIZE_DP = 10
+
+        // Below MIN_ZOOM: clusters from a per-zoom grid
+        const val CLUSTER_CELL_SHIFT = 2 // 2^-2 tiles = 64 px cells
+        const val CLUSTER_BATCH_SIZE = 5_000 // locations per step while building the grid
+        const val CLUSTER_MIN_SIZE_DP = 28
+        const val CLUSTER_MAX_SIZE_DP = 48
+    }
+
+    /**
+     * Visit heatmap constants
+     */
+    object Heatmap {
+        const val MIN_ZOOM = 3
+        const val CELL_SHIFT = 6 // 2^6 = 64 grid cells per tile side
+        const val MAX_LEVEL = 20 // finest grid, ~38 m cells at the equator
+        const val MAX_DWELL_GAP_MS = 10L * 60 * 1000 // longer gaps between fixes do not count as dwell time
+        const val INDEX_BATCH_SIZE = 2_000 // locations per indexing transaction
+
+        // Full color at this much dwell time / this many fixes per cell (log scale below)
+        const val SATURATION_DWELL_MS = 24L * 60 * 60 * 1000 // 24 hours
+        const val SATURATION_COUNT = 1_000
+
+        const val RENDER_WORKERS = 2
+        const val CACHE_DIR = "heatmap_tiles"
+        const val MEMORY_CACHE_MAX_BYTES = 8L * 1024 * 1024 // 8 MB
+        const val DISK_CACHE_MAX_BYTES = 50L * 1024 * 1024 // 50 MB
+    }
+
+    /**
+     * Live track statistics
+     */
+    object Stats {
+        const val MOVING_SPEED_MPS = 0.5 // slower segments count as stopped (no distance)
+        const val MAX_ACCURACY_M = 50f // less accurate fixes are skipped
+        const val MAX_GAP_MS = 5L * 60 * 1000 // longer gaps between fixes count as neither time nor distance
+        const val ELEVATION_HYSTERESIS_M = 5.0 // altitude has to change this much before gain/loss counts
+        const val SPEED_SMOOTHING_MS = 30_000L // time constant of the current speed / pace
+        const val CHECKPOINT_INTERVAL_MS = 60_000L // the running session is saved at least this often (fix time)
+    }
+
+    /**
+     * Trip segmentation (trips and stops)
+     */
+    object Trips {
+        const val STOP_RADIUS_M = 100.0 // fixes within this radius count as one place
+        const val MIN_STOP_MS = 5L * 60 * 1000 // staying this long within the radius is a stop
+        const val MAX_GAP_MS = 10L * 60 * 1000 // longer gaps end the current segment
+        const val MIN_TRIP_DISTANCE_M = 250.0 // shorter trips are merged into the following stop (kept if a gap follows)
+        const val MAX_SPEED_MPS = 70.0 // faster jumps between fixes are GPS outliers (~250 km/h)
+        const val INDEX_BATCH_SIZE = 2_000 // locations per segmentation transaction
+        const val LIST_LIMIT = 50 // trips shown in the list
+    }
+
+    /**
+     * Significant places (clustered stops)
+     */
+    object Places {
+        const val RADIUS_M = 150.0 // stops closer than this to a place center belong to the place
+        const val INDEX_BATCH_SIZE = 500 // stops per clustering transaction
+        const val LIST_LIMIT = 10 // places shown in the list
+    }
+
+    /**
+     * Frequent routes (clustered trips)
+     */
+    object FrequentRoutes {
+        const val MAX_FRECHET_M = 200.0 // trips within this discrete Frechet distance share a route
+        const val SHAPE_POINTS = 48 // points of the resampled trip shape
+        const val MIN_TRIPS = 2 // trips before a route counts as frequent
+        const val INDEX_BATCH_SIZE = 50 // trips per matching transaction
+        const val LIST_LIMIT = 10 // routes shown in the list
+    }
+
+    /**
+     * Local geofence evaluation
+     */
+    object Geofences {
+        const val CELL_DEGREES = 0.01 // grid cell of the fence index (~1.1 km north-south)
+        const val MAX_CELLS_PER_FENCE = 1024 // larger fences are checked for every fix instead
+        const val EXIT_MARGIN_M = 30.0 // hysteresis: exit only this far outside the fence
+        const val DWELL_MS = 5 * 60 * 1000L // inside this long before a dwell event
+        const val MAX_ACCURACY_M = 100f // fixes less accurate than this are not evaluated
+        const val EVENT_LIST_LIMIT = 20 // events shown in the UI
+    }
+
     /**
      * Animation durations (in milliseconds)
      */
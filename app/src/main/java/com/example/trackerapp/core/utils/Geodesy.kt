@@ -0,0 +1,283 @@
+package com.example.trackerapp.core.utils
+
+import kotlin.math.PI
+import kotlin.math.abs
+import kotlin.math.asin
+import kotlin.math.atan
+import kotlin.math.atan2
+import kotlin.math.cos
+import kotlin.math.sin
+import kotlin.math.sqrt
+import kotlin.math.tan
+
+/**
+ * Distances and bearings on the earth, pure Kotlin (no android.location, no allocation)
+ *
+ * Three accuracy levels ([Mode]):
+ * - [Mode.FAST]: equirectangular (flat earth around the mean latitude) for segments shorter
+ *   than [FAST_PATH_MAX_METERS], haversine above. Up to [FAST_PATH_MAX_METERS] and below
+ *   [FAST_PATH_MAX_LATITUDE] the relative error against haversine stays below 1e-5 (1 cm per
+ *   km; the error grows with the square of the segment length). One cos and one sqrt instead
+ *   of the five trig calls of haversine, about 4x faster.
+ * - [Mode.SPHERICAL]: haversine on a sphere of [EARTH_RADIUS]. Differs from the ellipsoid by
+ *   up to ~0.6% depending on latitude and direction.
+ * - [Mode.ELLIPSOIDAL]: Vincenty's inverse formula on WGS84, sub-millimetre accurate. The
+ *   same method android.location.Location.distanceBetween uses. Falls back to haversine for
+ *   nearly antipodal points where the iteration does not converge.
+ *
+ * Batch functions ([pathLength], [segmentLengthsInto], [distancesInto]) take primitive arrays
+ * so long tracks can be measured without one object per point.
+ */
+object Geodesy {
+
+    /**
+     * Accuracy/speed trade-off of a distance computation
+     */
+    enum class Mode { FAST, SPHERICAL, ELLIPSOIDAL }
+
+    /**
+     * Mean earth radius in metres (sphere for [Mode.FAST] and [Mode.SPHERICAL])
+     */
+    const val EARTH_RADIUS = 6_371_000.0
+
+    /**
+     * Longest segment measured with the equirectangular approximation in [Mode.FAST]
+     */
+    const val FAST_PATH_MAX_METERS = 10_000.0
+
+    /**
+     * Above this latitude [Mode.FAST] always uses haversine (meridians converge too quickly)
+     */
+    const val FAST_PATH_MAX_LATITUDE = 80.0
+
+    // WGS84
+    private const val WGS84_A = 6_378_137.0
+    private const val WGS84_F = 1 / 298.257223563
+    private const val WGS84_B = (1 - WGS84_F) * WGS84_A
+
+    private const val DEG_TO_RAD = PI / 180.0
+    private const val RAD_TO_DEG = 180.0 / PI
+    private const val METERS_PER_RADIAN = EARTH_RADIUS
+
+    // Segment length in radians below which the flat-earth result is used
+    private const val FAST_PATH_MAX_RADIANS = FAST_PATH_MAX_METERS / EARTH_RADIUS
+
+    private const val VINCENTY_MAX_ITERATIONS = 100
+    private const val VINCENTY_EPSILON = 1e-12
+
+    /**
+     * Distance in metres between two points
+     */
+    fun distance(
+        lat1: Double,
+        lon1: Double,
+        lat2: Double,
+        lon2: Double,
+        mode: Mode = Mode.SPHERICAL
+    ): Double = when (mode) {
+        Mode.FAST -> fast(lat1, lon1, lat2, lon2)
+        Mode.SPHERICAL -> haversine(lat1, lon1, lat2, lon2)
+        Mode.ELLIPSOIDAL -> vincenty(lat1, lon1, lat2, lon2, wantBearing = false)
+    }
+
+    /**
+     * Great-circle distance in metres (haversine)
+     */
+    fun haversine(lat1: Double, lon1: Double, lat2: Double, lon2: Double): Double {
+        val phi1 = lat1 * DEG_TO_RAD
+        val phi2 = lat2 * DEG_TO_RAD
+        val sinDLat = sin((phi2 - phi1) / 2)
+        val sinDLon = sin((lon2 - lon1) * DEG_TO_RAD / 2)
+        val a = sinDLat * sinDLat + cos(phi1) * cos(phi2) * sinDLon * sinDLon
+        return 2 * EARTH_RADIUS * asin(sqrt(a.coerceIn(0.0, 1.0)))
+    }
+
+    /**
+     * Flat-earth distance in metres around the mean latitude
+     *
+     * Only accurate for short segments, see [Mode.FAST].
+     */
+    fun equirectangular(lat1: Double, lon1: Double, lat2: Double, lon2: Double): Double =
+        equirectangularRadians(lat1, lon1, lat2, lon2) * METERS_PER_RADIAN
+
+    /**
+     * Equirectangular below [FAST_PATH_MAX_METERS], haversine otherwise
+     */
+    fun fast(lat1: Double, lon1: Double, lat2: Double, lon2: Double): Double {
+        if (abs(lat1) < FAST_PATH_MAX_LATITUDE && abs(lat2) < FAST_PATH_MAX_LATITUDE) {
+            val radians = equirectangularRadians(lat1, lon1, lat2, lon2)
+            if (radians < FAST_PATH_MAX_RADIANS) return radians * METERS_PER_RADIAN
+        }
+        return haversine(lat1, lon1, lat2, lon2)
+    }
+
+    /**
+     * Distance in metres on the WGS84 ellipsoid (Vincenty)
+     */
+    fun ellipsoidal(lat1: Double, lon1: Double, lat2: Double, lon2: Double): Double =
+        vincenty(lat1, lon1, lat2, lon2, wantBearing = false)
+
+    /**
+     * Initial bearing in degrees (-180..180, 0 = north) on the WGS84 ellipsoid
+     *
+     * Same convention as android.location.Location.bearingTo.
+     */
+    fun ellipsoidalBearing(lat1: Double, lon1: Double, lat2: Double, lon2: Double): Double =
+        vincenty(lat1, lon1, lat2, lon2, wantBearing = true)
+
+    /**
+     * Initial great-circle bearing in degrees (0..360, 0 = north)
+     */
+    fun bearing(lat1: Double, lon1: Double, lat2: Double, lon2: Double): Double {
+        val phi1 = lat1 * DEG_TO_RAD
+        val phi2 = lat2 * DEG_TO_RAD
+        val dLambda = (lon2 - lon1) * DEG_TO_RAD
+        val y = sin(dLambda) * cos(phi2)
+        val x = cos(phi1) * sin(phi2) - sin(phi1) * cos(phi2) * cos(dLambda)
+        return (atan2(y, x) * RAD_TO_DEG + 360.0) % 360.0
+    }
+
+    /**
+     * Point reached after [distance] metres along the great circle with initial [bearing]
+     *
+     * @return Latitude and longitude (-180..180) in degrees
+     */
+    fun destination(lat: Double, lon: Double, bearing: Double, distance: Double): Pair<Double, Double> {
+        val delta = distance / EARTH_RADIUS
+        val theta = bearing * DEG_TO_RAD
+        val phi1 = lat * DEG_TO_RAD
+        val lambda1 = lon * DEG_TO_RAD
+
+        val phi2 = asin(sin(phi1) * cos(delta) + cos(phi1) * sin(delta) * cos(theta))
+        val lambda2 = lambda1 + atan2(
+            sin(theta) * sin(delta) * cos(phi1),
+            cos(delta) - sin(phi1) * sin(phi2)
+        )
+        return phi2 * RAD_TO_DEG to ((lambda2 * RAD_TO_DEG + 540) % 360 - 180)
+    }
+
+    /**
+     * Length in metres of the polyline `latitudes[from until to]` / `longitudes[from until to]`
+     */
+    fun pathLength(
+        latitudes: DoubleArray,
+        longitudes: DoubleArray,
+        mode: Mode = Mode.FAST,
+        from: Int = 0,
+        to: Int = latitudes.size
+    ): Double {
+        require(latitudes.size == longitudes.size) { "latitudes and longitudes differ in size" }
+        var length = 0.0
+        for (i in from + 1 until to) {
+            length += distance(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i], mode)
+        }
+        return length
+    }
+
+    /**
+     * Writes the length of segment i -> i + 1 to `out[i]` for i in `from until to - 1`
+     */
+    fun segmentLengthsInto(
+        latitudes: DoubleArray,
+        longitudes: DoubleArray,
+        out: DoubleArray,
+        mode: Mode = Mode.FAST,
+        from: Int = 0,
+        to: Int = latitudes.size
+    ) {
+        require(latitudes.size == longitudes.size) { "latitudes and longitudes differ in size" }
+        require(out.size >= to - 1) { "output array too small" }
+        for (i in from until to - 1) {
+            out[i] = distance(latitudes[i], longitudes[i], latitudes[i + 1], longitudes[i + 1], mode)
+        }
+    }
+
+    /**
+     * Writes the distance from ([latitude], [longitude]) to every point into [out]
+     */
+    fun distancesInto(
+        latitude: Double,
+        longitude: Double,
+        latitudes: DoubleArray,
+        longitudes: DoubleArray,
+        out: DoubleArray,
+        mode: Mode = Mode.FAST
+    ) {
+        require(latitudes.size == longitudes.size) { "latitudes and longitudes differ in size" }
+        require(out.size >= latitudes.size) { "output array too small" }
+        for (i in latitudes.indices) {
+            out[i] = distance(latitude, longitude, latitudes[i], longitudes[i], mode)
+        }
+    }
+
+    private fun equirectangularRadians(lat1: Double, lon1: Double, lat2: Double, lon2: Double): Double {
+        var dLon = lon2 - lon1
+        // Across the antimeridian
+        if (dLon > 180.0) dLon -= 360.0 else if (dLon < -180.0) dLon += 360.0
+        val x = dLon * DEG_TO_RAD * cos((lat1 + lat2) * (DEG_TO_RAD / 2))
+        val y = (lat2 - lat1) * DEG_TO_RAD
+        return sqrt(x * x + y * y)
+    }
+
+    /**
+     * Vincenty's inverse formula
+     *
+     * @return Distance in metres, or the initial bearing in degrees (-180..180) if [wantBearing]
+     */
+    private fun vincenty(lat1: Double, lon1: Double, lat2: Double, lon2: Double, wantBearing: Boolean): Double {
+        val l = (lon2 - lon1) * DEG_TO_RAD
+        val u1 = atan((1 - WGS84_F) * tan(lat1 * DEG_TO_RAD))
+        val u2 = atan((1 - WGS84_F) * tan(lat2 * DEG_TO_RAD))
+        val sinU1 = sin(u1)
+        val cosU1 = cos(u1)
+        val sinU2 = sin(u2)
+        val cosU2 = cos(u2)
+
+        var lambda = l
+        var sinLambda: Double
+        var cosLambda: Double
+        var sinSigma: Double
+        var cosSigma: Double
+        var sigma: Double
+        var cosSqAlpha: Double
+        var cos2SigmaM: Double
+        var iterations = 0
+        while (true) {
+            sinLambda = sin(lambda)
+            cosLambda = cos(lambda)
+            val t1 = cosU2 * sinLambda
+            val t2 = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda
+            sinSigma = sqrt(t1 * t1 + t2 * t2)
+            // Same point
+            if (sinSigma == 0.0) return 0.0
+            cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda
+            sigma = atan2(sinSigma, cosSigma)
+            val sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma
+            cosSqAlpha = 1 - sinAlpha * sinAlpha
+            // On the equator cosSqAlpha is 0
+            cos2SigmaM = if (cosSqAlpha != 0.0) cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha else 0.0
+            val c = WGS84_F / 16 * cosSqAlpha * (4 + WGS84_F * (4 - 3 * cosSqAlpha))
+            val previous = lambda
+            lambda = l + (1 - c) * WGS84_F * sinAlpha *
+                (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)))
+            if (abs(lambda - previous) < VINCENTY_EPSILON) break
+            if (++iterations >= VINCENTY_MAX_ITERATIONS) {
+                // Nearly antipodal: no convergence, the sphere is close enough there
+                if (!wantBearing) return haversine(lat1, lon1, lat2, lon2)
+                val degrees = bearing(lat1, lon1, lat2, lon2)
+                return if (degrees > 180.0) degrees - 360.0 else degrees
+            }
+        }
+
+        if (wantBearing) {
+            return atan2(cosU2 * sinLambda, cosU1 * sinU2 - sinU1 * cosU2 * cosLambda) * RAD_TO_DEG
+        }
+
+        val uSq = cosSqAlpha * (WGS84_A * WGS84_A - WGS84_B * WGS84_B) / (WGS84_B * WGS84_B)
+        val a = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)))
+        val b = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)))
+        val deltaSigma = b * sinSigma * (cos2SigmaM + b / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM) -
+            b / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)))
+        return WGS84_B * a * (sigma - deltaSigma)
+    }
+}
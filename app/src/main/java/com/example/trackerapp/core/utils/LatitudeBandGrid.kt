@@ -0,0 +1,71 @@
+package com.example.trackerapp.core.utils
+
+import kotlin.math.cos
+import kotlin.math.floor
+
+/**
+ * Hash grid in degrees whose cells are at least [cellMeters] wide up to [MAX_LATITUDE]
+ *
+ * Rows are latitude bands [cellMeters] high. Within a row the column width is converted at
+ * the band's poleward edge (its narrowest point), so a cell is never narrower than
+ * [cellMeters] and the 3 x 3 cells around a point contain everything within [cellMeters].
+ * Beyond [MAX_LATITUDE] the conversion is clamped instead of growing without bound (cells
+ * there may be narrower, which only matters within ~100 km of the poles).
+ *
+ * Only computes cell keys; the map of cells stays with the caller.
+ */
+class LatitudeBandGrid(val cellMeters: Double) {
+
+    val cellDegrees: Double = cellMeters / METERS_PER_DEGREE
+
+    fun row(latitude: Double): Long = floor(latitude / cellDegrees).toLong()
+
+    fun column(longitude: Double, row: Long): Long {
+        val edge = maxOf(Math.abs(row * cellDegrees), Math.abs((row + 1) * cellDegrees)).coerceAtMost(MAX_LATITUDE)
+        return floor(longitude * cos(Math.toRadians(edge)) / cellDegrees).toLong()
+    }
+
+    /**
+     * Key of the cell containing the point
+     */
+    fun keyOf(latitude: Double, longitude: Double): Long {
+        val row = row(latitude)
+        return key(row, column(longitude, row))
+    }
+
+    /**
+     * Calls [action] with the keys of the 3 x 3 cells around the point
+     */
+    inline fun forEachNeighbour(latitude: Double, longitude: Double, action: (key: Long) -> Unit) {
+        val row = row(latitude)
+        for (r in row - 1..row + 1) {
+            val column = column(longitude, r)
+            for (c in column - 1..column + 1) action(key(r, c))
+        }
+    }
+
+    companion object {
+        const val METERS_PER_DEGREE = Geodesy.EARTH_RADIUS * Math.PI / 180.0
+        const val MAX_LATITUDE = 89.0
+
+        /**
+         * Packs a row and a column into one map key
+         */
+        fun key(row: Long, column: Long): Long = (row shl 32) or (column and 0xFFFFFFFFL)
+
+        /**
+         * [meters] north-south in degrees of latitude
+         */
+        fun latitudeDegrees(meters: Double): Double = meters / METERS_PER_DEGREE
+
+        /**
+         * [meters] east-west in degrees of longitude, at the poleward of the two latitudes
+         *
+         * Used as a margin around a bounding box: wide enough anywhere between the latitudes.
+         */
+        fun longitudeDegrees(meters: Double, latitudeA: Double, latitudeB: Double): Double {
+            val widest = maxOf(Math.abs(latitudeA), Math.abs(latitudeB)).coerceAtMost(MAX_LATITUDE)
+            return latitudeDegrees(meters) / cos(Math.toRadians(widest))
+        }
+    }
+}
@@ -1,46 +1,23 @@
 package com.example.trackerapp.core.utils
 
 import android.location.Location
-import kotlin.math.atan2
-import kotlin.math.cos
 import kotlin.math.ln
-import kotlin.math.sin
-import kotlin.math.sqrt
-import kotlin.math.tan
 
 /**
  * Extension functions for Location handling
  */
 
 /**
- * Calculates distance between this location and another location in meters
+ * Calculates distance between this location and another location in meters (WGS84 ellipsoid)
  */
-fun Location.distanceTo(other: Location): Float {
-    val results = FloatArray(1)
-    Location.distanceBetween(
-        this.latitude,
-        this.longitude,
-        other.latitude,
-        other.longitude,
-        results
-    )
-    return results[0]
-}
+fun Location.distanceTo(other: Location): Float =
+    Geodesy.ellipsoidal(latitude, longitude, other.latitude, other.longitude).toFloat()
 
 /**
  * Calculates bearing from this location to another location in degrees
  */
-fun Location.bearingTo(other: Location): Float {
-    val results = FloatArray(2)
-    Location.distanceBetween(
-        this.latitude,
-        this.longitude,
-        other.latitude,
-        other.longitude,
-        results
-    )
-    return results[1]
-}
+fun Location.bearingTo(other: Location): Float =
+    Geodesy.ellipsoidalBearing(latitude, longitude, other.latitude, other.longitude).toFloat()
 
 /**
  * Checks if location has good accuracy (< 50 meters)
@@ -94,16 +71,14 @@ data class MercatorPoint(val x: Double, val y: Double)
 /**
  * Converts latitude/longitude to Web Mercator coordinates
  *
- * @param mapSize The size of the map in pixels (typically 2^zoom * 256)
+ * Shorthand for [MercatorProjection.project]; prefer the scalar or batch functions of
+ * [MercatorProjection] in loops.
+ *
+ * @param mapSize The size of the map in pixels (typically 2^zoom * 256, 1 = normalized)
  * @return MercatorPoint with x,y coordinates in map pixel space
  */
-fun latLonToMercator(lat: Double, lon: Double, mapSize: Int): MercatorPoint {
-    val x = (lon + 180.0) / 360.0 * mapSize
-    val latRad = Math.toRadians(lat)
-    val mercatorN = ln(tan(Math.PI / 4 + latRad / 2))
-    val y = (1.0 - mercatorN / Math.PI) / 2.0 * mapSize
-    return MercatorPoint(x, y)
-}
+fun latLonToMercator(lat: Double, lon: Double, mapSize: Int): MercatorPoint =
+    MercatorProjection.project(lat, lon, mapSize.toDouble())
 
 /**
  * Calculates zoom level based on accuracy to fit the uncertainty circle
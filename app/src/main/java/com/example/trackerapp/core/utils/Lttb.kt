@@ -0,0 +1,156 @@
+package com.example.trackerapp.core.utils
+
+import kotlin.math.abs
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling for line charts
+ *
+ * Keeps the first and last point and one point per bucket: the one forming the largest
+ * triangle with the point chosen in the previous bucket and the average of the next bucket.
+ * Peaks and dips survive, unlike with averaging or every-nth sampling. Works on primitive
+ * arrays and returns indices into them; `xs` must be ascending.
+ */
+object Lttb {
+
+    /**
+     * Indices of at most [threshold] points of `xs[0 until n]` / `ys[0 until n]`
+     *
+     * Returns all indices when `n <= threshold`.
+     */
+    fun downsample(xs: DoubleArray, ys: DoubleArray, threshold: Int, n: Int = xs.size): IntArray {
+        require(xs.size >= n && ys.size >= n) { "arrays smaller than n" }
+        require(threshold >= 3) { "threshold must be at least 3" }
+        if (n <= threshold) return IntArray(n) { it }
+
+        val out = IntArray(threshold)
+        val bucket = (n - 2).toDouble() / (threshold - 2)
+        var a = 0
+        for (k in 0 until threshold - 2) {
+            val from = 1 + (k * bucket).toInt()
+            val to = 1 + ((k + 1) * bucket).toInt()
+            val nextFrom = to
+            val nextTo = minOf(1 + ((k + 2) * bucket).toInt(), n - 1)
+            a = largestTriangle(xs, ys, a, from, to, nextFrom, nextTo, n)
+            out[k + 1] = a
+        }
+        out[threshold - 1] = n - 1
+        return out
+    }
+
+    /**
+     * Index in `from until to` with the largest triangle between point [a] and the average
+     * of `nextFrom until nextTo` (the last point `n - 1` when that range is empty)
+     */
+    internal fun largestTriangle(
+        xs: DoubleArray,
+        ys: DoubleArray,
+        a: Int,
+        from: Int,
+        to: Int,
+        nextFrom: Int,
+        nextTo: Int,
+        n: Int
+    ): Int {
+        var avgX: Double
+        var avgY: Double
+        if (nextTo > nextFrom) {
+            avgX = 0.0
+            avgY = 0.0
+            for (i in nextFrom until nextTo) {
+                avgX += xs[i]
+                avgY += ys[i]
+            }
+            avgX /= nextTo - nextFrom
+            avgY /= nextTo - nextFrom
+        } else {
+            avgX = xs[n - 1]
+            avgY = ys[n - 1]
+        }
+
+        val ax = xs[a]
+        val ay = ys[a]
+        var best = from
+        var bestArea = -1.0
+        for (i in from until to) {
+            // Doubled area, the factor does not change the maximum
+            val area = abs((ax - avgX) * (ys[i] - ay) - (ax - xs[i]) * (avgY - ay))
+            if (area > bestArea) {
+                bestArea = area
+                best = i
+            }
+        }
+        return best
+    }
+}
+
+/**
+ * [Lttb] for a series that only grows at the end
+ *
+ * Uses buckets of a fixed [bucketSize] instead of a fixed bucket count. Appending points then
+ * only changes the last two buckets, so [update] after an append costs O(new points + bucket
+ * size) instead of O(n). When the series outgrows [threshold] points, the bucket size doubles
+ * and everything is recomputed once (amortized O(1) per appended point, like a growing
+ * array). The result therefore has between about `threshold / 2` and [threshold] points.
+ *
+ * Not thread-safe.
+ */
+class IncrementalLttb(private val threshold: Int) {
+
+    init {
+        require(threshold >= 3) { "threshold must be at least 3" }
+    }
+
+    /**
+     * Points per bucket (0 while the series fits into [threshold])
+     */
+    var bucketSize = 0
+        private set
+
+    private var selected = IntArray(0)
+    private var buckets = 0
+
+    /**
+     * Indices to draw for `xs[0 until n]` / `ys[0 until n]`
+     *
+     * The first `n` values must be the ones passed on the previous call plus appended points;
+     * call [reset] when the series changed otherwise.
+     */
+    fun update(xs: DoubleArray, ys: DoubleArray, n: Int = xs.size): IntArray {
+        require(xs.size >= n && ys.size >= n) { "arrays smaller than n" }
+        if (n <= threshold) {
+            reset()
+            return IntArray(n) { it }
+        }
+
+        val interior = n - 2
+        var from = maxOf(0, buckets - 2)
+        if (bucketSize == 0) {
+            bucketSize = (interior + threshold - 3) / (threshold - 2)
+            from = 0
+        }
+        while ((interior + bucketSize - 1) / bucketSize > threshold - 2) {
+            bucketSize *= 2
+            from = 0
+        }
+
+        buckets = (interior + bucketSize - 1) / bucketSize
+        if (selected.size < buckets) selected = selected.copyOf(threshold)
+        for (k in from until buckets) {
+            val a = if (k == 0) 0 else selected[k - 1]
+            val start = 1 + k * bucketSize
+            val end = minOf(start + bucketSize, n - 1)
+            val nextEnd = minOf(end + bucketSize, n - 1)
+            selected[k] = Lttb.largestTriangle(xs, ys, a, start, end, end, nextEnd, n)
+        }
+
+        val out = IntArray(buckets + 2)
+        System.arraycopy(selected, 0, out, 1, buckets)
+        out[buckets + 1] = n - 1
+        return out
+    }
+
+    fun reset() {
+        bucketSize = 0
+        buckets = 0
+    }
+}
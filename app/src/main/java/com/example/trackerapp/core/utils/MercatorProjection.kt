@@ -0,0 +1,114 @@
+package com.example.trackerapp.core.utils
+
+import kotlin.math.PI
+import kotlin.math.atan
+import kotlin.math.exp
+import kotlin.math.ln
+import kotlin.math.tan
+
+/**
+ * Web Mercator projection used by every map component
+ *
+ * Coordinates are normalized to 0..1 over the whole world (x to the east, y to the south),
+ * which is what MapCompose uses. Multiply by `256 * 2^zoom` for pixels or by `2^zoom` for
+ * tile indices. Latitudes are clamped to [MAX_LATITUDE] so that y stays finite.
+ *
+ * - Scalar: [x], [y], [latitude], [longitude] - no allocation
+ * - Batch: [projectInto], [unprojectInto] - primitive arrays in and out, no per-point objects
+ * - [project] returns a [MercatorPoint] for call sites that want a value object
+ */
+object MercatorProjection {
+
+    /**
+     * Latitude at which the projected world becomes square (y = 0 and y = 1)
+     */
+    const val MAX_LATITUDE = 85.05112878
+
+    private const val DEG_TO_RAD = PI / 180.0
+    private const val RAD_TO_DEG = 180.0 / PI
+
+    /**
+     * Normalized x of a longitude
+     */
+    fun x(longitude: Double): Double = (longitude + 180.0) / 360.0
+
+    /**
+     * Normalized y of a latitude
+     */
+    fun y(latitude: Double): Double {
+        val phi = latitude.coerceIn(-MAX_LATITUDE, MAX_LATITUDE) * DEG_TO_RAD
+        return (1.0 - ln(tan(PI / 4 + phi / 2)) / PI) / 2.0
+    }
+
+    /**
+     * Longitude of a normalized x
+     */
+    fun longitude(x: Double): Double = x * 360.0 - 180.0
+
+    /**
+     * Latitude of a normalized y
+     */
+    fun latitude(y: Double): Double = (2 * atan(exp(PI * (1 - 2 * y))) - PI / 2) * RAD_TO_DEG
+
+    /**
+     * Projects a single coordinate, scaled to [mapSize] (1 = normalized)
+     */
+    fun project(latitude: Double, longitude: Double, mapSize: Double = 1.0): MercatorPoint =
+        MercatorPoint(x(longitude) * mapSize, y(latitude) * mapSize)
+
+    /**
+     * Projects `latitudes[from until to]` / `longitudes[from until to]` into [xs] / [ys]
+     *
+     * Output arrays are indexed like the input arrays.
+     */
+    fun projectInto(
+        latitudes: DoubleArray,
+        longitudes: DoubleArray,
+        xs: DoubleArray,
+        ys: DoubleArray,
+        from: Int = 0,
+        to: Int = latitudes.size
+    ) {
+        require(latitudes.size == longitudes.size) { "latitudes and longitudes differ in size" }
+        require(xs.size >= to && ys.size >= to) { "output arrays too small" }
+        for (i in from until to) {
+            xs[i] = x(longitudes[i])
+            ys[i] = y(latitudes[i])
+        }
+    }
+
+    /**
+     * Inverse of [projectInto]
+     */
+    fun unprojectInto(
+        xs: DoubleArray,
+        ys: DoubleArray,
+        latitudes: DoubleArray,
+        longitudes: DoubleArray,
+        from: Int = 0,
+        to: Int = xs.size
+    ) {
+        require(xs.size == ys.size) { "xs and ys differ in size" }
+        require(latitudes.size >= to && longitudes.size >= to) { "output arrays too small" }
+        for (i in from until to) {
+            latitudes[i] = latitude(ys[i])
+            longitudes[i] = longitude(xs[i])
+        }
+    }
+
+    /**
+     * Tile column containing a longitude at [zoom]
+     */
+    fun column(longitude: Double, zoom: Int): Int {
+        val n = 1 shl zoom
+        return (x(longitude) * n).toInt().coerceIn(0, n - 1)
+    }
+
+    /**
+     * Tile row containing a latitude at [zoom]
+     */
+    fun row(latitude: Double, zoom: Int): Int {
+        val n = 1 shl zoom
+        return (y(latitude) * n).toInt().coerceIn(0, n - 1)
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.trackerapp.core.utils
+
+/**
+ * Projected coordinates of a track, in track order
+ *
+ * Treat the arrays as read-only: they are shared with the cache.
+ */
+class ProjectedTrack internal constructor(
+    val ids: LongArray,
+    val xs: DoubleArray,
+    val ys: DoubleArray
+) {
+    val size: Int
+        get() = ids.size
+}
+
+/**
+ * Per-track cache of [MercatorProjection] results
+ *
+ * Tracks only grow at the end while recording. When a track is requested again and only grew
+ * ([TrackGrowth]), only the new points are projected (the known ones are copied, no
+ * trigonometry); any other change projects the whole track again.
+ * Keeps at most [maxTracks] tracks (least recently used are dropped). Thread-safe.
+ */
+class ProjectedTrackCache(private val maxTracks: Int = 4) {
+
+    private val tracks = object : LinkedHashMap<String, ProjectedTrack>(maxTracks, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, ProjectedTrack>?): Boolean =
+            size > maxTracks
+    }
+
+    /**
+     * Projected coordinates of the track [key]
+     *
+     * @param ids Location ids in track order (used to detect appends)
+     * @param size Number of points to use; the arrays may be longer (e.g. a growing buffer)
+     */
+    @Synchronized
+    fun project(
+        key: String,
+        ids: LongArray,
+        latitudes: DoubleArray,
+        longitudes: DoubleArray,
+        size: Int = ids.size
+    ): ProjectedTrack {
+        require(size <= ids.size && size <= latitudes.size && size <= longitudes.size) { "track arrays too short" }
+        val n = size
+        val cached = tracks[key]
+        if (cached != null && cached.size == n && TrackGrowth.startsWith(ids, cached.ids)) return cached
+
+        val reuse = cached != null && cached.size < n && TrackGrowth.startsWith(ids, cached.ids)
+        val from = if (reuse) cached!!.size else 0
+        // New arrays even when appending: earlier results stay valid for their readers
+        val projected = ProjectedTrack(
+            ids = ids.copyOf(n),
+            xs = if (reuse) cached!!.xs.copyOf(n) else DoubleArray(n),
+            ys = if (reuse) cached!!.ys.copyOf(n) else DoubleArray(n)
+        )
+        MercatorProjection.projectInto(latitudes, longitudes, projected.xs, projected.ys, from, n)
+        tracks[key] = projected
+        return projected
+    }
+
+    @Synchronized
+    fun invalidate(key: String) {
+        tracks.remove(key)
+    }
+
+    @Synchronized
+    fun clear() {
+        tracks.clear()
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.trackerapp.core.utils
+
+import kotlin.math.roundToLong
+
+/**
+ * Formatting of track statistics for the UI and the tracking notification
+ */
+object StatsFormatter {
+
+    /**
+     * Example: 850 m, 3.42 km
+     */
+    fun formatDistance(meters: Double): String =
+        if (meters < 1000) "${meters.toInt()} m" else "%.2f km".format(meters / 1000)
+
+    /**
+     * Example: 25:13, 1:05:03
+     */
+    fun formatDuration(ms: Long): String {
+        val totalSeconds = ms / 1000
+        val hours = totalSeconds / 3600
+        val minutes = totalSeconds / 60 % 60
+        val seconds = totalSeconds % 60
+        return if (hours > 0) "%d:%02d:%02d".format(hours, minutes, seconds) else "%d:%02d".format(minutes, seconds)
+    }
+
+    /**
+     * Example: 5:12 /km, "–" when standing still
+     */
+    fun formatPace(secondsPerKm: Double?): String {
+        if (secondsPerKm == null || secondsPerKm.isInfinite() || secondsPerKm.isNaN()) return "–"
+        val seconds = secondsPerKm.roundToLong()
+        return "%d:%02d /km".format(seconds / 60, seconds % 60)
+    }
+
+    /**
+     * Example: 12.3 km/h
+     */
+    fun formatSpeed(metersPerSecond: Double): String = "%.1f km/h".format(metersPerSecond * 3.6)
+}
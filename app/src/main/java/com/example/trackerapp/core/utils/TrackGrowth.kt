@@ -0,0 +1,28 @@
+package com.example.trackerapp.core.utils
+
+/**
+ * Detects that a track only grew at the end since it was last processed
+ *
+ * Incremental track caches ([ProjectedTrackCache], the profile cache, the path LOD) use this
+ * to process only the new points. They all rely on one assumption: location ids only grow
+ * and rows are never inserted, replaced or reordered in the middle of a recorded track, new
+ * fixes are only appended. Under that assumption the known part is unchanged when its
+ * first, last and middle ids are, which is an O(1) check instead of comparing every id.
+ * Anything that breaks the assumption (deleting the history, an import) changes at least
+ * one of those ids in practice, and the caller starts over from scratch.
+ */
+object TrackGrowth {
+
+    /**
+     * Does [ids] start with the first [knownSize] ids of [knownIds]?
+     *
+     * True as well when nothing was appended (same size, unchanged).
+     */
+    fun startsWith(ids: LongArray, knownIds: LongArray, knownSize: Int = knownIds.size): Boolean {
+        if (knownSize == 0) return true
+        if (ids.size < knownSize) return false
+        return knownIds[0] == ids[0] &&
+            knownIds[knownSize - 1] == ids[knownSize - 1] &&
+            knownIds[knownSize / 2] == ids[knownSize / 2]
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.trackerapp.data.cluster
+
+import com.example.trackerapp.core.constants.AppConstants
+import kotlin.math.floor
+
+/**
+ * Hierarchisches Raster für das Clustern von Locations bei kleinem Zoom
+ *
+ * Pro Zoom-Level ein Raster mit Zellen von 2^-[cellShift] Tiles (Standard: 64 px). Jede
+ * Zelle kennt Anzahl und Schwerpunkt ihrer Punkte. Die Raster sind verschachtelt
+ * (eine Zelle = 2 x 2 Zellen des nächsten Levels), wie bei Supercluster - aber als feste
+ * Zellen, dadurch inkrementell: [add] aktualisiert eine Zelle pro Level, O(Levels).
+ *
+ * [clustersIn] liest nur die Zellen im Ausschnitt: O(sichtbare Zellen), unabhängig von der
+ * Anzahl der Punkte.
+ *
+ * Koordinaten sind MapCompose-Koordinaten (0..1). Nicht thread-safe.
+ */
+class ClusterGrid(
+    private val minZoom: Int = 0,
+    private val maxZoom: Int = AppConstants.Markers.MIN_ZOOM - 1,
+    private val cellShift: Int = AppConstants.Markers.CLUSTER_CELL_SHIFT
+) {
+    /**
+     * Cluster einer Zelle
+     *
+     * @property key Eindeutig über alle Zoom-Level
+     * @property x Schwerpunkt
+     * @property y Schwerpunkt
+     */
+    data class Cluster(val key: Long, val count: Int, val x: Double, val y: Double)
+
+    private class Cell {
+        var count = 0
+        var sumX = 0.0
+        var sumY = 0.0
+    }
+
+    private val levels = Array(maxZoom - minZoom + 1) { HashMap<Long, Cell>() }
+
+    /**
+     * Anzahl Punkte im Raster
+     */
+    var size = 0
+        private set
+
+    fun add(x: Double, y: Double) {
+        for (zoom in minZoom..maxZoom) {
+            val cells = cellsPerSide(zoom)
+            val cx = floor(x * cells).toLong().coerceIn(0, cells - 1L)
+            val cy = floor(y * cells).toLong().coerceIn(0, cells - 1L)
+            val cell = levels[zoom - minZoom].getOrPut(cellKey(cx, cy)) { Cell() }
+            cell.count++
+            cell.sumX += x
+            cell.sumY += y
+        }
+        size++
+    }
+
+    /**
+     * Cluster im Ausschnitt eines Zoom-Levels (Zoom wird auf den Bereich des Rasters begrenzt)
+     */
+    fun clustersIn(zoom: Int, left: Double, top: Double, right: Double, bottom: Double): List<Cluster> {
+        val z = zoom.coerceIn(minZoom, maxZoom)
+        val cells = cellsPerSide(z)
+        val level = levels[z - minZoom]
+        val colMin = floor(left * cells).toLong().coerceIn(0, cells - 1L)
+        val colMax = floor(right * cells).toLong().coerceIn(0, cells - 1L)
+        val rowMin = floor(top * cells).toLong().coerceIn(0, cells - 1L)
+        val rowMax = floor(bottom * cells).toLong().coerceIn(0, cells - 1L)
+
+        val result = ArrayList<Cluster>()
+        // Mehr sichtbare Zellen als belegte (Welt-Ansicht): belegte durchgehen
+        if ((colMax - colMin + 1) * (rowMax - rowMin + 1) > level.size) {
+            for ((key, cell) in level) {
+                val cx = key ushr 32
+                val cy = key and 0xFFFFFFFFL
+                if (cx in colMin..colMax && cy in rowMin..rowMax) result += cluster(z, key, cell)
+            }
+            return result
+        }
+        for (cy in rowMin..rowMax) {
+            for (cx in colMin..colMax) {
+                val key = cellKey(cx, cy)
+                level[key]?.let { result += cluster(z, key, it) }
+            }
+        }
+        return result
+    }
+
+    fun clear() {
+        levels.forEach { it.clear() }
+        size = 0
+    }
+
+    private fun cluster(zoom: Int, key: Long, cell: Cell): Cluster {
+        // Zoom in den obersten Bits: gleiche Zelle auf anderem Level ist ein anderer Cluster
+        val clusterKey = (zoom.toLong() shl 58) or key
+        return Cluster(clusterKey, cell.count, cell.sumX / cell.count, cell.sumY / cell.count)
+    }
+
+    private fun cellsPerSide(zoom: Int): Long = 1L shl (zoom + cellShift)
+
+    private fun cellKey(cx: Long, cy: Long): Long = (cx shl 32) or cy
+}
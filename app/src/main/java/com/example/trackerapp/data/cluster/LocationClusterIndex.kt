@@ -0,0 +1,94 @@
+package com.example.trackerapp.data.cluster
+
+import android.content.Context
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.MercatorProjection
+import com.example.trackerapp.data.local.AppDatabase
+import com.example.trackerapp.data.local.dao.LocationDao
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+
+/**
+ * Cluster aller gespeicherten Locations im Speicher ([ClusterGrid])
+ *
+ * - Einmal im Hintergrund aufgebaut (Locations in Batches, nur ID und Position), danach
+ *   bei neuen Locations nur ab der zuletzt übernommenen ID fortgeschrieben ([catchUp])
+ * - Ist die zuletzt übernommene Location gelöscht oder gibt es weniger Locations als im
+ *   Raster (ältere gelöscht), wird neu aufgebaut
+ * - [version] zählt jede Änderung, damit die Karte ihre Cluster neu abfragt
+ *
+ * Singleton wie [AppDatabase]: der Aufbau passiert einmal pro Prozess, nicht pro Screen.
+ */
+class LocationClusterIndex private constructor(private val locationDao: LocationDao) {
+
+    private val mutex = Mutex()
+    private val lock = Any()
+    private val grid = ClusterGrid()
+    private var lastId = 0L
+
+    private val _version = MutableStateFlow(0L)
+
+    /**
+     * Wird nach jeder Änderung am Raster erhöht
+     */
+    val version: StateFlow<Long> = _version.asStateFlow()
+
+    /**
+     * Cluster im Ausschnitt (MapCompose-Koordinaten), O(sichtbare Zellen)
+     */
+    fun clustersIn(zoom: Int, left: Double, top: Double, right: Double, bottom: Double): List<ClusterGrid.Cluster> {
+        return synchronized(lock) { grid.clustersIn(zoom, left, top, right, bottom) }
+    }
+
+    /**
+     * Übernimmt alle Locations nach der zuletzt übernommenen ID
+     *
+     * Gleichzeitige Aufrufe laufen nacheinander. Ein abgebrochener Aufbau setzt beim nächsten
+     * Aufruf fort.
+     */
+    suspend fun catchUp() = mutex.withLock {
+        val indexed = synchronized(lock) { grid.size }
+        val deleted = lastId > 0 &&
+            (locationDao.getLocationPoint(lastId) == null || locationDao.countLocations() < indexed)
+        if (deleted) {
+            synchronized(lock) {
+                grid.clear()
+                lastId = 0L
+            }
+            _version.value++
+        }
+
+        while (true) {
+            val batch = locationDao.getLocationsAfter(lastId, AppConstants.Markers.CLUSTER_BATCH_SIZE)
+            if (batch.isEmpty()) break
+            val xs = DoubleArray(batch.size)
+            val ys = DoubleArray(batch.size)
+            withContext(Dispatchers.Default) {
+                val latitudes = DoubleArray(batch.size) { batch[it].latitude }
+                val longitudes = DoubleArray(batch.size) { batch[it].longitude }
+                MercatorProjection.projectInto(latitudes, longitudes, xs, ys)
+            }
+            synchronized(lock) {
+                for (i in batch.indices) grid.add(xs[i], ys[i])
+                lastId = batch.last().id
+            }
+            _version.value++
+        }
+    }
+
+    companion object {
+        @Volatile
+        private var INSTANCE: LocationClusterIndex? = null
+
+        fun getInstance(context: Context): LocationClusterIndex {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: LocationClusterIndex(AppDatabase.getDatabase(context).locationDao()).also { INSTANCE = it }
+            }
+        }
+    }
+}
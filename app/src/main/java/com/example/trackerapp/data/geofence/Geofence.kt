@@ -0,0 +1,142 @@
+package com.example.trackerapp.data.geofence
+
+import com.example.trackerapp.core.utils.Geodesy
+import com.example.trackerapp.core.utils.LatitudeBandGrid
+import kotlin.math.cos
+import kotlin.math.sqrt
+
+/**
+ * Geofence: Kreis oder Polygon
+ *
+ * Jede Form kennt ihre Bounding Box (für den Index) und den exakten Test ([contains]).
+ * [distanceOutside] liefert den Abstand zur Grenze für die Hysterese beim Verlassen.
+ */
+sealed class Geofence {
+    abstract val id: Long
+
+    abstract val minLatitude: Double
+    abstract val maxLatitude: Double
+    abstract val minLongitude: Double
+    abstract val maxLongitude: Double
+
+    /**
+     * Liegt der Punkt in der Geofence?
+     */
+    abstract fun contains(latitude: Double, longitude: Double): Boolean
+
+    /**
+     * Abstand des Punkts zur Geofence in Metern (0 wenn innerhalb)
+     */
+    abstract fun distanceOutside(latitude: Double, longitude: Double): Double
+
+    /**
+     * Gleiche Form und Lage wie [other] (die ID zählt nicht)
+     */
+    abstract fun sameShape(other: Geofence): Boolean
+
+    /**
+     * Kreis um einen Mittelpunkt
+     */
+    class Circle(
+        override val id: Long,
+        val latitude: Double,
+        val longitude: Double,
+        val radius: Double
+    ) : Geofence() {
+        private val latitudeSpan = LatitudeBandGrid.latitudeDegrees(radius)
+        private val longitudeSpan = LatitudeBandGrid.longitudeDegrees(radius, latitude - latitudeSpan, latitude + latitudeSpan)
+
+        override val minLatitude = latitude - latitudeSpan
+        override val maxLatitude = latitude + latitudeSpan
+        override val minLongitude = longitude - longitudeSpan
+        override val maxLongitude = longitude + longitudeSpan
+
+        override fun contains(latitude: Double, longitude: Double): Boolean =
+            Geodesy.fast(this.latitude, this.longitude, latitude, longitude) <= radius
+
+        override fun distanceOutside(latitude: Double, longitude: Double): Double =
+            maxOf(0.0, Geodesy.fast(this.latitude, this.longitude, latitude, longitude) - radius)
+
+        override fun sameShape(other: Geofence): Boolean =
+            other is Circle && other.latitude == latitude && other.longitude == longitude && other.radius == radius
+    }
+
+    /**
+     * Polygon (Ecken in Reihenfolge, ohne Wiederholung der ersten Ecke)
+     *
+     * Gerechnet wird in der Ebene (Grad bzw. lokal in Metern) - für Geofences bis einige
+     * Kilometer genau genug.
+     */
+    class Polygon(
+        override val id: Long,
+        val latitudes: DoubleArray,
+        val longitudes: DoubleArray
+    ) : Geofence() {
+        init {
+            require(latitudes.size == longitudes.size) { "latitudes and longitudes differ in size" }
+            require(latitudes.size >= 3) { "polygon needs at least 3 vertices" }
+        }
+
+        override val minLatitude = latitudes.min()
+        override val maxLatitude = latitudes.max()
+        override val minLongitude = longitudes.min()
+        override val maxLongitude = longitudes.max()
+
+        /**
+         * Ray Casting: Anzahl Kanten, die ein Strahl nach Osten schneidet
+         *
+         * Punkte genau auf einer Kante können auf beiden Seiten landen; die Hysterese beim
+         * Verlassen fängt das ab.
+         */
+        override fun contains(latitude: Double, longitude: Double): Boolean {
+            if (latitude < minLatitude || latitude > maxLatitude || longitude < minLongitude || longitude > maxLongitude) {
+                return false
+            }
+            var inside = false
+            var j = latitudes.size - 1
+            for (i in latitudes.indices) {
+                val latI = latitudes[i]
+                val latJ = latitudes[j]
+                if ((latI > latitude) != (latJ > latitude)) {
+                    val crossing = longitudes[i] + (latitude - latI) / (latJ - latI) * (longitudes[j] - longitudes[i])
+                    if (longitude < crossing) inside = !inside
+                }
+                j = i
+            }
+            return inside
+        }
+
+        override fun distanceOutside(latitude: Double, longitude: Double): Double {
+            if (contains(latitude, longitude)) return 0.0
+            return boundaryDistance(latitude, longitude)
+        }
+
+        override fun sameShape(other: Geofence): Boolean =
+            other is Polygon && other.latitudes.contentEquals(latitudes) && other.longitudes.contentEquals(longitudes)
+
+        /**
+         * Kleinster Abstand zu einer Kante, lokal um den Punkt in Metern
+         */
+        private fun boundaryDistance(latitude: Double, longitude: Double): Double {
+            val metersPerLongitude = LatitudeBandGrid.METERS_PER_DEGREE * cos(Math.toRadians(latitude))
+            var best = Double.POSITIVE_INFINITY
+            var j = latitudes.size - 1
+            for (i in latitudes.indices) {
+                val ax = (longitudes[j] - longitude) * metersPerLongitude
+                val ay = (latitudes[j] - latitude) * LatitudeBandGrid.METERS_PER_DEGREE
+                val bx = (longitudes[i] - longitude) * metersPerLongitude
+                val by = (latitudes[i] - latitude) * LatitudeBandGrid.METERS_PER_DEGREE
+                val dx = bx - ax
+                val dy = by - ay
+                val lengthSquared = dx * dx + dy * dy
+                val t = if (lengthSquared > 0.0) ((-ax * dx - ay * dy) / lengthSquared).coerceIn(0.0, 1.0) else 0.0
+                val px = ax + t * dx
+                val py = ay + t * dy
+                val d = px * px + py * py
+                if (d < best) best = d
+                j = i
+            }
+            return sqrt(best)
+        }
+    }
+}
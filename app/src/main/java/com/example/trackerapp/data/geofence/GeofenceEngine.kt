@@ -0,0 +1,128 @@
+package com.example.trackerapp.data.geofence
+
+import com.example.trackerapp.core.constants.AppConstants
+
+/**
+ * Wertet Fixes gegen beliebig viele Geofences aus (ohne die 100-Geofence-Grenze der
+ * Plattform-API)
+ *
+ * Pro Fix ([evaluate]):
+ * - Betreten: Kandidaten aus der Zelle des Punkts ([GeofenceIndex]), Bounding Box, dann
+ *   exakter Test ([Geofence.contains])
+ * - Verlassen: nur die Geofences, in denen man gerade ist (meist 0 - 2); erst wenn der Punkt
+ *   mehr als [exitMargin] Meter außerhalb liegt (Hysterese gegen GPS-Rauschen an der Grenze)
+ * - Aufenthalt: einmal pro Besuch nach [dwellMs] durchgehend innerhalb
+ *
+ * Kosten hängen von der Dichte der Geofences am Ort ab, nicht von ihrer Anzahl. Der Zustand
+ * (wo man gerade ist) liegt nur im Speicher. Nicht thread-safe.
+ */
+class GeofenceEngine(
+    private val exitMargin: Double = AppConstants.Geofences.EXIT_MARGIN_M,
+    private val dwellMs: Long = AppConstants.Geofences.DWELL_MS
+) {
+    enum class Transition { ENTER, EXIT, DWELL }
+
+    /**
+     * Übergang an einer Geofence
+     */
+    data class Event(
+        val fenceId: Long,
+        val transition: Transition,
+        val timestamp: Long,
+        val latitude: Double,
+        val longitude: Double
+    )
+
+    private class Visit(val fence: Geofence, val enterTime: Long, var dwellReported: Boolean = false)
+
+    private val index = GeofenceIndex(margin = exitMargin)
+    private val inside = LinkedHashMap<Long, Visit>()
+    private val candidates = ArrayList<Geofence>()
+
+    /**
+     * Anzahl Geofences
+     */
+    val size: Int
+        get() = index.size
+
+    /**
+     * IDs der Geofences, in denen man gerade ist
+     */
+    val insideIds: Set<Long>
+        get() = inside.keys
+
+    /**
+     * Fügt eine Geofence hinzu oder ersetzt sie
+     *
+     * Eine ersetzte Geofence gilt als verlassen, beim nächsten Fix wird neu geprüft.
+     */
+    fun add(fence: Geofence) {
+        index.add(fence)
+        inside.remove(fence.id)
+    }
+
+    /**
+     * Entfernt eine Geofence (ohne Ereignis)
+     */
+    fun remove(id: Long) {
+        index.remove(id)
+        inside.remove(id)
+    }
+
+    fun clear() {
+        index.clear()
+        inside.clear()
+    }
+
+    /**
+     * Ersetzt alle Geofences durch [fences]
+     *
+     * Unveränderte Geofences (gleiche ID und [Geofence.sameShape]) behalten ihren Zustand:
+     * ein laufender Besuch geht weiter, ohne erneutes Betreten. Geänderte gelten als verlassen
+     * (wie bei [add]), nicht mehr enthaltene werden ohne Ereignis entfernt.
+     */
+    fun replaceAll(fences: Collection<Geofence>) {
+        val keep = HashSet<Long>(fences.size * 2)
+        for (fence in fences) {
+            keep += fence.id
+            val existing = index[fence.id]
+            if (existing == null || !existing.sameShape(fence)) add(fence)
+        }
+        for (id in index.ids.filter { it !in keep }) remove(id)
+    }
+
+    /**
+     * Wertet einen Fix aus
+     *
+     * @param events Nimmt die Übergänge auf
+     */
+    fun evaluate(timestamp: Long, latitude: Double, longitude: Double, events: MutableList<Event>) {
+        // Verlassen und Aufenthalt: nur aktuelle Besuche
+        if (inside.isNotEmpty()) {
+            val iterator = inside.values.iterator()
+            while (iterator.hasNext()) {
+                val visit = iterator.next()
+                if (visit.fence.distanceOutside(latitude, longitude) > exitMargin) {
+                    iterator.remove()
+                    events += Event(visit.fence.id, Transition.EXIT, timestamp, latitude, longitude)
+                } else if (!visit.dwellReported && timestamp - visit.enterTime >= dwellMs) {
+                    visit.dwellReported = true
+                    events += Event(visit.fence.id, Transition.DWELL, timestamp, latitude, longitude)
+                }
+            }
+        }
+
+        // Betreten: Kandidaten aus dem Index
+        candidates.clear()
+        index.candidates(latitude, longitude, candidates)
+        for (fence in candidates) {
+            if (fence.id in inside) continue
+            if (latitude < fence.minLatitude || latitude > fence.maxLatitude ||
+                longitude < fence.minLongitude || longitude > fence.maxLongitude
+            ) continue
+            if (!fence.contains(latitude, longitude)) continue
+            inside[fence.id] = Visit(fence, timestamp)
+            events += Event(fence.id, Transition.ENTER, timestamp, latitude, longitude)
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.trackerapp.data.geofence
+
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.LatitudeBandGrid
+import kotlin.math.floor
+
+/**
+ * Raster über die Bounding Boxes der Geofences
+ *
+ * Jede Geofence wird in alle Zellen eingetragen, die ihre um [margin] Meter erweiterte
+ * Bounding Box überdeckt. Eine Abfrage liest nur die Zelle des Punkts - unabhängig von der
+ * Gesamtzahl der Geofences. Geofences über mehr als [maxCellsPerFence] Zellen (sehr groß)
+ * kommen in eine eigene Liste, die bei jeder Abfrage geprüft wird.
+ *
+ * Nicht thread-safe.
+ */
+class GeofenceIndex(
+    private val cellDegrees: Double = AppConstants.Geofences.CELL_DEGREES,
+    private val margin: Double = AppConstants.Geofences.EXIT_MARGIN_M,
+    private val maxCellsPerFence: Int = AppConstants.Geofences.MAX_CELLS_PER_FENCE
+) {
+    private val cells = HashMap<Long, MutableList<Geofence>>()
+    private val large = ArrayList<Geofence>()
+    private val fences = HashMap<Long, Geofence>()
+
+    val size: Int
+        get() = fences.size
+
+    operator fun get(id: Long): Geofence? = fences[id]
+
+    /**
+     * IDs aller Geofences
+     */
+    val ids: Set<Long>
+        get() = fences.keys
+
+    /**
+     * Fügt eine Geofence hinzu (ersetzt eine vorhandene mit gleicher ID)
+     */
+    fun add(fence: Geofence) {
+        remove(fence.id)
+        fences[fence.id] = fence
+        forEachCell(fence, { large += fence }) { key ->
+            cells.getOrPut(key) { ArrayList(2) } += fence
+        }
+    }
+
+    fun remove(id: Long) {
+        val fence = fences.remove(id) ?: return
+        if (large.remove(fence)) return
+        forEachCell(fence, {}) { key ->
+            val list = cells[key] ?: return@forEachCell
+            list.remove(fence)
+            if (list.isEmpty()) cells.remove(key)
+        }
+    }
+
+    fun clear() {
+        cells.clear()
+        large.clear()
+        fences.clear()
+    }
+
+    /**
+     * Geofences, deren erweiterte Bounding Box den Punkt enthalten kann
+     *
+     * @param out Nimmt die Kandidaten auf (wird nicht geleert)
+     */
+    fun candidates(latitude: Double, longitude: Double, out: MutableList<Geofence>) {
+        cells[LatitudeBandGrid.key(cell(latitude), cell(longitude))]?.let { out.addAll(it) }
+        out.addAll(large)
+    }
+
+    private inline fun forEachCell(fence: Geofence, tooLarge: () -> Unit, action: (Long) -> Unit) {
+        val latMargin = LatitudeBandGrid.latitudeDegrees(margin)
+        val lonMargin = LatitudeBandGrid.longitudeDegrees(margin, fence.minLatitude, fence.maxLatitude)
+        val top = cell(fence.minLatitude - latMargin)
+        val bottom = cell(fence.maxLatitude + latMargin)
+        val left = cell(fence.minLongitude - lonMargin)
+        val right = cell(fence.maxLongitude + lonMargin)
+        if ((bottom - top + 1) * (right - left + 1) > maxCellsPerFence) {
+            tooLarge()
+            return
+        }
+        for (row in top..bottom) {
+            for (column in left..right) action(LatitudeBandGrid.key(row, column))
+        }
+    }
+
+    private fun cell(degrees: Double): Long = floor(degrees / cellDegrees).toLong()
+}
@@ -0,0 +1,160 @@
+package com.example.trackerapp.data.geofence
+
+import android.content.Context
+import androidx.room.InvalidationTracker
+import androidx.room.withTransaction
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.data.local.AppDatabase
+import com.example.trackerapp.data.local.entity.GeofenceEntity
+import com.example.trackerapp.data.local.entity.GeofenceEventEntity
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import java.nio.ByteBuffer
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Geofence-Auswertung im Ingestion-Pfad (LocationService)
+ *
+ * - Die Geofences werden beim ersten Fix aus der Tabelle in eine [GeofenceEngine] geladen;
+ *   danach kostet ein Fix nur die Auswertung im Speicher (Mikrosekunden).
+ * - Jede Änderung der Tabelle (über [setFences], [importPlaces] oder direkt über das DAO)
+ *   meldet Rooms InvalidationTracker; der nächste Fix lädt die Geofences dann neu
+ *   ([GeofenceEngine.replaceAll]).
+ * - Fixes ungenauer als [AppConstants.Geofences.MAX_ACCURACY_M] werden übersprungen.
+ * - Übergänge werden in geofence_events gespeichert.
+ *
+ * Der Zustand (in welchen Geofences man gerade ist) liegt nur im Speicher: nach einem
+ * Neustart des Prozesses beginnen laufende Besuche neu. Beim Neuladen bleibt er für
+ * unveränderte Geofences erhalten.
+ *
+ * Singleton wie [AppDatabase]: LocationService und UI teilen sich eine Instanz.
+ */
+class GeofenceMonitor private constructor(private val database: AppDatabase) {
+
+    private val mutex = Mutex()
+    private val engine = GeofenceEngine()
+
+    // Zählt Änderungen der Tabelle; die Engine ist aktuell, solange loadedVersion gleich ist
+    private val fencesVersion = AtomicLong()
+    private var loadedVersion = -1L
+
+    init {
+        database.invalidationTracker.addObserver(object : InvalidationTracker.Observer(GEOFENCES_TABLE) {
+            override fun onInvalidated(tables: Set<String>) {
+                fencesVersion.incrementAndGet()
+            }
+        })
+    }
+
+    /**
+     * Wertet einen Fix aus und speichert die Übergänge
+     *
+     * @return Übergänge durch diesen Fix
+     */
+    suspend fun onLocation(
+        timestamp: Long,
+        latitude: Double,
+        longitude: Double,
+        accuracy: Float? = null
+    ): List<GeofenceEngine.Event> = mutex.withLock {
+        if (accuracy != null && accuracy > AppConstants.Geofences.MAX_ACCURACY_M) return emptyList()
+
+        // Version vor dem Lesen: eine Änderung währenddessen lädt beim nächsten Fix erneut
+        val version = fencesVersion.get()
+        if (version != loadedVersion) {
+            engine.replaceAll(database.geofenceDao().getAll().map { it.toGeofence() })
+            loadedVersion = version
+        }
+        if (engine.size == 0) return emptyList()
+
+        val events = ArrayList<GeofenceEngine.Event>(0)
+        engine.evaluate(timestamp, latitude, longitude, events)
+        if (events.isNotEmpty()) {
+            database.geofenceDao().insertEvents(events.map { it.toEntity() })
+        }
+        events
+    }
+
+    /**
+     * Ersetzt alle Geofences (z.B. Import der Kundenstandorte)
+     */
+    suspend fun setFences(fences: List<GeofenceEntity>) = mutex.withLock {
+        database.withTransaction {
+            database.geofenceDao().deleteAll()
+            database.geofenceDao().insertAll(fences)
+        }
+        // Nicht auf den InvalidationTracker warten: schon der nächste Fix sieht die neuen Geofences
+        fencesVersion.incrementAndGet()
+    }
+
+    /**
+     * Überwacht die wiederkehrenden Orte als Kreis-Geofences (ersetzt alle Geofences)
+     *
+     * @param radius Radius um den Mittelpunkt des Orts in Metern
+     * @return Anzahl der Geofences
+     */
+    suspend fun importPlaces(radius: Double = AppConstants.Places.RADIUS_M): Int {
+        val fences = database.placeDao().getAll().map { place ->
+            // ID des Orts: erneuter Import lässt unveränderte Orte samt laufendem Besuch bestehen
+            GeofenceEntity(
+                id = place.id,
+                name = "Ort ${place.id}",
+                type = GeofenceEntity.TYPE_CIRCLE,
+                latitude = place.latitude,
+                longitude = place.longitude,
+                radius = radius
+            )
+        }
+        setFences(fences)
+        return fences.size
+    }
+
+    private fun GeofenceEntity.toGeofence(): Geofence = when (type) {
+        GeofenceEntity.TYPE_POLYGON -> {
+            val buffer = ByteBuffer.wrap(requireNotNull(vertices) { "polygon $id without vertices" })
+            val count = buffer.remaining() / 16
+            val latitudes = DoubleArray(count)
+            val longitudes = DoubleArray(count)
+            for (i in 0 until count) {
+                latitudes[i] = buffer.getDouble()
+                longitudes[i] = buffer.getDouble()
+            }
+            Geofence.Polygon(id, latitudes, longitudes)
+        }
+        else -> Geofence.Circle(id, latitude, longitude, radius)
+    }
+
+    private fun GeofenceEngine.Event.toEntity() = GeofenceEventEntity(
+        fenceId = fenceId,
+        transition = transition.name,
+        timestamp = timestamp,
+        latitude = latitude,
+        longitude = longitude
+    )
+
+    companion object {
+        private const val GEOFENCES_TABLE = "geofences"
+
+        @Volatile
+        private var INSTANCE: GeofenceMonitor? = null
+
+        fun getInstance(context: Context): GeofenceMonitor {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: GeofenceMonitor(AppDatabase.getDatabase(context)).also { INSTANCE = it }
+            }
+        }
+
+        /**
+         * Speicherformat der Polygon-Ecken (GeofenceEntity.vertices)
+         */
+        fun encodeVertices(latitudes: DoubleArray, longitudes: DoubleArray): ByteArray {
+            require(latitudes.size == longitudes.size) { "latitudes and longitudes differ in size" }
+            val buffer = ByteBuffer.allocate(latitudes.size * 16)
+            for (i in latitudes.indices) {
+                buffer.putDouble(latitudes[i])
+                buffer.putDouble(longitudes[i])
+            }
+            return buffer.array()
+        }
+    }
+}
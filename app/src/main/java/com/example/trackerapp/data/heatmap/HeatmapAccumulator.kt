@@ -0,0 +1,75 @@
+package com.example.trackerapp.data.heatmap
+
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.MercatorProjection
+
+/**
+ * Summiert einen Batch neuer Locations zu Zell-Änderungen auf allen Rasterstufen
+ *
+ * - Jede Location zählt einmal in ihrer Zelle ([Cell.count])
+ * - Die Zeit bis zur nächsten Location zählt als Aufenthalt in der Zelle der früheren
+ *   ([Cell.dwellMs]); Lücken über [maxGapMs] zählen nicht (Tracking war aus)
+ *
+ * Locations in Einfüge-Reihenfolge übergeben. Über Batch-Grenzen hinweg liefert
+ * [startAfter] die zuletzt verarbeitete Location, damit ihr Aufenthalt nicht verloren geht.
+ */
+class HeatmapAccumulator(
+    private val levels: IntArray = HeatmapGrid.LEVELS,
+    private val maxGapMs: Long = AppConstants.Heatmap.MAX_DWELL_GAP_MS
+) {
+    /**
+     * Änderung einer Zelle (Werte sind Zuwächse)
+     */
+    class Cell(val level: Int, val x: Int, val y: Int) {
+        var count = 0
+        var dwellMs = 0L
+    }
+
+    private val cells = HashMap<Long, Cell>()
+
+    // Zellen der vorherigen Location pro Stufe (gleiche Reihenfolge wie levels)
+    private val previousX = IntArray(levels.size)
+    private val previousY = IntArray(levels.size)
+    private var previousTimestamp = 0L
+    private var hasPrevious = false
+
+    /**
+     * Setzt die zuletzt verarbeitete Location, ohne sie zu zählen
+     */
+    fun startAfter(latitude: Double, longitude: Double, timestamp: Long) {
+        remember(latitude, longitude, timestamp)
+    }
+
+    fun add(latitude: Double, longitude: Double, timestamp: Long) {
+        if (hasPrevious) {
+            val gap = timestamp - previousTimestamp
+            if (gap in 1..maxGapMs) {
+                for (i in levels.indices) cell(levels[i], previousX[i], previousY[i]).dwellMs += gap
+            }
+        }
+        remember(latitude, longitude, timestamp)
+        for (i in levels.indices) cell(levels[i], previousX[i], previousY[i]).count++
+    }
+
+    /**
+     * Alle geänderten Zellen seit dem Anlegen
+     */
+    fun cells(): Collection<Cell> = cells.values
+
+    private fun remember(latitude: Double, longitude: Double, timestamp: Long) {
+        val x = MercatorProjection.x(longitude)
+        val y = MercatorProjection.y(latitude)
+        for (i in levels.indices) {
+            val size = 1 shl levels[i]
+            previousX[i] = (x * size).toInt().coerceIn(0, size - 1)
+            previousY[i] = (y * size).toInt().coerceIn(0, size - 1)
+        }
+        previousTimestamp = timestamp
+        hasPrevious = true
+    }
+
+    private fun cell(level: Int, x: Int, y: Int): Cell {
+        val key = (level.toLong() shl 58) or (x.toLong() shl 29) or y.toLong()
+        return cells.getOrPut(key) { Cell(level, x, y) }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.trackerapp.data.heatmap
+
+import com.example.trackerapp.core.constants.AppConstants
+import kotlin.math.ln1p
+
+/**
+ * Rasterstufen und Farbskala der Heatmap
+ *
+ * Ein Overlay-Tile auf Zoom z zeigt die Zellen der Stufe z + [AppConstants.Heatmap.CELL_SHIFT]
+ * (64 x 64 Zellen pro Tile), höchstens [AppConstants.Heatmap.MAX_LEVEL] - darüber werden die
+ * Zellen einfach größer gezeichnet.
+ */
+object HeatmapGrid {
+
+    /**
+     * Alle Rasterstufen, die fortgeschrieben werden (eine pro Tile-Zoom-Level, ohne Duplikate)
+     */
+    val LEVELS: IntArray = (AppConstants.Heatmap.MIN_ZOOM..AppConstants.Tiles.MAX_ZOOM)
+        .map { levelFor(it) }
+        .distinct()
+        .toIntArray()
+
+    /**
+     * Rasterstufe für ein Tile-Zoom-Level
+     */
+    fun levelFor(zoom: Int): Int = minOf(zoom + AppConstants.Heatmap.CELL_SHIFT, AppConstants.Heatmap.MAX_LEVEL)
+
+    /**
+     * Intensität einer Zelle (0..1, logarithmisch bis zur Sättigung)
+     */
+    fun intensity(count: Int, dwellMs: Long, metric: HeatmapMetric): Double {
+        val value = when (metric) {
+            HeatmapMetric.COUNT -> ln1p(count.toDouble()) / ln1p(AppConstants.Heatmap.SATURATION_COUNT.toDouble())
+            // In Minuten, damit einzelne Sekunden nicht schon sichtbar färben
+            HeatmapMetric.DWELL -> ln1p(dwellMs / 60_000.0) / ln1p(AppConstants.Heatmap.SATURATION_DWELL_MS / 60_000.0)
+        }
+        return value.coerceIn(0.0, 1.0)
+    }
+
+    /**
+     * ARGB-Farbe für eine Intensität: blau → grün → gelb → rot, zunehmend deckend
+     */
+    fun color(intensity: Double): Int {
+        val t = intensity.coerceIn(0.0, 1.0)
+        val scaled = t * (RAMP.size - 1)
+        val index = minOf(scaled.toInt(), RAMP.size - 2)
+        val fraction = scaled - index
+        val from = RAMP[index]
+        val to = RAMP[index + 1]
+        fun channel(shift: Int): Int {
+            val a = (from shr shift) and 0xFF
+            val b = (to shr shift) and 0xFF
+            return (a + (b - a) * fraction).toInt() and 0xFF
+        }
+        val alpha = (MIN_ALPHA + (MAX_ALPHA - MIN_ALPHA) * t).toInt()
+        return (alpha shl 24) or (channel(16) shl 16) or (channel(8) shl 8) or channel(0)
+    }
+
+    private val RAMP = intArrayOf(0x1E88E5, 0x43A047, 0xFDD835, 0xE53935)
+    private const val MIN_ALPHA = 90
+    private const val MAX_ALPHA = 200
+}
@@ -0,0 +1,117 @@
+package com.example.trackerapp.data.heatmap
+
+import android.content.Context
+import androidx.room.withTransaction
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.data.local.AppDatabase
+import com.example.trackerapp.data.local.entity.CheckpointEntity
+import com.example.trackerapp.data.local.entity.HeatCellEntity
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.asSharedFlow
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+
+/**
+ * Schreibt das Heatmap-Raster fort, wenn neue Locations gespeichert werden
+ *
+ * Verarbeitet nur Locations nach dem Checkpoint (zuletzt verarbeitete ID), in Batches von
+ * [AppConstants.Heatmap.INDEX_BATCH_SIZE] pro Transaktion - Zellen und Checkpoint ändern
+ * sich gemeinsam. Die History wird nur beim allerersten Lauf (oder nach einem Reset) einmal
+ * komplett gelesen, danach nie wieder.
+ *
+ * Reset: Ist die Location des Checkpoints gelöscht (z.B. "Alle löschen"), wird das Raster
+ * verworfen und neu aufgebaut. Einzelne gelöschte ältere Locations bleiben im Raster.
+ *
+ * Singleton wie [AppDatabase]: LocationService und Karte teilen sich eine Instanz.
+ */
+class HeatmapIndexer private constructor(private val database: AppDatabase) {
+
+    /**
+     * Geänderte Zellen eines Batches
+     *
+     * @property reset Raster wurde komplett verworfen
+     * @property lastId Checkpoint nach dem Batch
+     */
+    class Update(
+        val cells: Collection<HeatmapAccumulator.Cell>,
+        val reset: Boolean,
+        val lastId: Long
+    )
+
+    private val mutex = Mutex()
+
+    // Nicht verwerfen: jede verpasste Änderung hinterließe veraltete Overlay-Tiles
+    private val _updates = MutableSharedFlow<Update>(extraBufferCapacity = 16)
+
+    /**
+     * Änderungen am Raster (für das Invalidieren gecachter Tiles)
+     */
+    val updates: SharedFlow<Update> = _updates.asSharedFlow()
+
+    /**
+     * ID der zuletzt verarbeiteten Location (0 = noch nichts)
+     */
+    suspend fun lastProcessedId(): Long = database.checkpointDao().getLastId(CHECKPOINT) ?: 0L
+
+    /**
+     * Verarbeitet alle Locations nach dem Checkpoint
+     *
+     * Gleichzeitige Aufrufe laufen nacheinander. Nach jedem Batch wird [updates] gemeldet.
+     */
+    suspend fun catchUp() = mutex.withLock {
+        val locationDao = database.locationDao()
+        val heatmapDao = database.heatmapDao()
+
+        var lastId = lastProcessedId()
+        var previous = if (lastId > 0) locationDao.getLocationPoint(lastId) else null
+        if (lastId > 0 && previous == null) {
+            database.withTransaction {
+                heatmapDao.deleteAll()
+                database.checkpointDao().set(CheckpointEntity(CHECKPOINT, 0L))
+            }
+            lastId = 0L
+            _updates.emit(Update(emptyList(), reset = true, lastId = 0L))
+        }
+
+        while (true) {
+            val batch = locationDao.getLocationsAfter(lastId, AppConstants.Heatmap.INDEX_BATCH_SIZE)
+            if (batch.isEmpty()) break
+
+            val cells = withContext(Dispatchers.Default) {
+                val accumulator = HeatmapAccumulator()
+                previous?.let { accumulator.startAfter(it.latitude, it.longitude, it.timestamp) }
+                for (point in batch) accumulator.add(point.latitude, point.longitude, point.timestamp)
+                accumulator.cells()
+            }
+            val batchLastId = batch.last().id
+            database.withTransaction {
+                for (cell in cells) {
+                    val updated = heatmapDao.addToCell(cell.level, cell.x, cell.y, cell.count, cell.dwellMs)
+                    if (updated == 0) {
+                        heatmapDao.insertCell(HeatCellEntity(cell.level, cell.x, cell.y, cell.count, cell.dwellMs))
+                    }
+                }
+                database.checkpointDao().set(CheckpointEntity(CHECKPOINT, batchLastId))
+            }
+            lastId = batchLastId
+            previous = batch.last()
+            _updates.emit(Update(cells, reset = false, lastId = batchLastId))
+        }
+    }
+
+    companion object {
+        private const val CHECKPOINT = "heatmap"
+
+        @Volatile
+        private var INSTANCE: HeatmapIndexer? = null
+
+        fun getInstance(context: Context): HeatmapIndexer {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: HeatmapIndexer(AppDatabase.getDatabase(context)).also { INSTANCE = it }
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.trackerapp.data.heatmap
+
+/**
+ * Was die Heatmap einfärbt
+ */
+enum class HeatmapMetric {
+    /** Anzahl gespeicherter Locations pro Zelle */
+    COUNT,
+
+    /** Aufenthaltsdauer pro Zelle */
+    DWELL
+}
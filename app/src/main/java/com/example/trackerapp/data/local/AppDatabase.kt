@@ -4,9 +4,25 @@ import android.content.Context
 import androidx.room.Database
 import androidx.room.Room
 import androidx.room.RoomDatabase
+import androidx.room.migration.Migration
 import androidx.sqlite.db.SupportSQLiteDatabase
+import com.example.trackerapp.data.local.dao.CheckpointDao
+import com.example.trackerapp.data.local.dao.GeofenceDao
+import com.example.trackerapp.data.local.dao.HeatmapDao
 import com.example.trackerapp.data.local.dao.LocationDao
+import com.example.trackerapp.data.local.dao.PlaceDao
+import com.example.trackerapp.data.local.dao.RouteDao
+import com.example.trackerapp.data.local.dao.TrackSessionDao
+import com.example.trackerapp.data.local.dao.TripDao
+import com.example.trackerapp.data.local.entity.CheckpointEntity
+import com.example.trackerapp.data.local.entity.GeofenceEntity
+import com.example.trackerapp.data.local.entity.GeofenceEventEntity
+import com.example.trackerapp.data.local.entity.HeatCellEntity
 import com.example.trackerapp.data.local.entity.LocationEntity
+import com.example.trackerapp.data.local.entity.PlaceEntity
+import com.example.trackerapp.data.local.entity.RouteEntity
+import com.example.trackerapp.data.local.entity.TrackSessionEntity
+import com.example.trackerapp.data.local.entity.TripSegmentEntity
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
@@ -24,10 +40,27 @@ import kotlinx.coroutines.launch
  *
  * Version History:
  * - Version 1: Initial schema mit LocationEntity
+ * - Version 2: Index auf (latitude, longitude) für Karten-Ausschnitte
+ * - Version 3: Heatmap-Raster (heat_cells) und Checkpoints inkrementeller Auswertungen
+ * - Version 4: Statistik abgeschlossener Tracking-Sessions (track_sessions)
+ * - Version 5: Trip-Segmente (trip_segments)
+ * - Version 6: Wiederkehrende Orte (places)
+ * - Version 7: Wiederkehrende Routen (routes) und Zuordnung der Trips (trip_segments.routeId)
+ * - Version 8: Geofences und ihre Ereignisse (geofences, geofence_events)
  */
 @Database(
-    entities = [LocationEntity::class],
-    version = 1,
+    entities = [
+        LocationEntity::class,
+        HeatCellEntity::class,
+        CheckpointEntity::class,
+        TrackSessionEntity::class,
+        TripSegmentEntity::class,
+        PlaceEntity::class,
+        RouteEntity::class,
+        GeofenceEntity::class,
+        GeofenceEventEntity::class
+    ],
+    version = 8,
     exportSchema = true  // Für Testing & Migrations
 )
 abstract class AppDatabase : RoomDatabase() {
@@ -37,6 +70,20 @@ abstract class AppDatabase : RoomDatabase() {
      */
     abstract fun locationDao(): LocationDao
 
+    abstract fun heatmapDao(): HeatmapDao
+
+    abstract fun checkpointDao(): CheckpointDao
+
+    abstract fun trackSessionDao(): TrackSessionDao
+
+    abstract fun tripDao(): TripDao
+
+    abstract fun placeDao(): PlaceDao
+
+    abstract fun routeDao(): RouteDao
+
+    abstract fun geofenceDao(): GeofenceDao
+
     companion object {
         // Volatile = Änderungen sofort für alle Threads sichtbar
         @Volatile
@@ -64,6 +111,124 @@ abstract class AppDatabase : RoomDatabase() {
             }
         }
 
+        /**
+         * Version 1 → 2: Index für Ausschnitt-Abfragen (getLocationsInBounds)
+         */
+        val MIGRATION_1_2 = object : Migration(1, 2) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_locations_latitude_longitude` " +
+                        "ON `locations` (`latitude`, `longitude`)"
+                )
+            }
+        }
+
+        /**
+         * Version 2 → 3: Heatmap-Raster und Checkpoints
+         */
+        val MIGRATION_2_3 = object : Migration(2, 3) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `heat_cells` (`level` INTEGER NOT NULL, `x` INTEGER NOT NULL, " +
+                        "`y` INTEGER NOT NULL, `count` INTEGER NOT NULL, `dwellMs` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`level`, `x`, `y`))"
+                )
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `checkpoints` (`name` TEXT NOT NULL, `lastId` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`name`))"
+                )
+            }
+        }
+
+        /**
+         * Version 3 → 4: Statistik abgeschlossener Tracking-Sessions
+         */
+        val MIGRATION_3_4 = object : Migration(3, 4) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `track_sessions` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "`startTime` INTEGER NOT NULL, `endTime` INTEGER NOT NULL, `distanceMeters` REAL NOT NULL, " +
+                        "`movingMs` INTEGER NOT NULL, `stoppedMs` INTEGER NOT NULL, `maxSpeed` REAL NOT NULL, " +
+                        "`elevationGain` REAL NOT NULL, `elevationLoss` REAL NOT NULL, `fixCount` INTEGER NOT NULL)"
+                )
+            }
+        }
+
+        /**
+         * Version 4 → 5: Trip-Segmente mit Index auf (type, startTime)
+         */
+        val MIGRATION_4_5 = object : Migration(4, 5) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `trip_segments` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "`type` TEXT NOT NULL, `startLocationId` INTEGER NOT NULL, `endLocationId` INTEGER NOT NULL, " +
+                        "`startTime` INTEGER NOT NULL, `endTime` INTEGER NOT NULL, `pointCount` INTEGER NOT NULL, " +
+                        "`distanceMeters` REAL NOT NULL, `startLatitude` REAL NOT NULL, `startLongitude` REAL NOT NULL, " +
+                        "`endLatitude` REAL NOT NULL, `endLongitude` REAL NOT NULL, `centerLatitude` REAL NOT NULL, " +
+                        "`centerLongitude` REAL NOT NULL)"
+                )
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_trip_segments_type_startTime` " +
+                        "ON `trip_segments` (`type`, `startTime`)"
+                )
+            }
+        }
+
+        /**
+         * Version 5 → 6: Wiederkehrende Orte mit Index auf totalDwellMs
+         */
+        val MIGRATION_5_6 = object : Migration(5, 6) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `places` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "`latitude` REAL NOT NULL, `longitude` REAL NOT NULL, `visitCount` INTEGER NOT NULL, " +
+                        "`totalDwellMs` INTEGER NOT NULL, `firstVisit` INTEGER NOT NULL, `lastVisit` INTEGER NOT NULL)"
+                )
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_places_totalDwellMs` ON `places` (`totalDwellMs`)"
+                )
+            }
+        }
+
+        /**
+         * Version 6 → 7: Routen mit Index auf tripCount, Route pro Trip
+         */
+        val MIGRATION_6_7 = object : Migration(6, 7) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `routes` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "`startLatitude` REAL NOT NULL, `startLongitude` REAL NOT NULL, `endLatitude` REAL NOT NULL, " +
+                        "`endLongitude` REAL NOT NULL, `distanceMeters` REAL NOT NULL, `tripCount` INTEGER NOT NULL, " +
+                        "`totalDurationMs` INTEGER NOT NULL, `lastTripTime` INTEGER NOT NULL, `shape` BLOB NOT NULL)"
+                )
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_routes_tripCount` ON `routes` (`tripCount`)"
+                )
+                db.execSQL("ALTER TABLE `trip_segments` ADD COLUMN `routeId` INTEGER")
+            }
+        }
+
+        /**
+         * Version 7 → 8: Geofences und Ereignisse mit Index auf timestamp
+         */
+        val MIGRATION_7_8 = object : Migration(7, 8) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `geofences` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "`name` TEXT NOT NULL, `type` TEXT NOT NULL, `latitude` REAL NOT NULL, " +
+                        "`longitude` REAL NOT NULL, `radius` REAL NOT NULL, `vertices` BLOB)"
+                )
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `geofence_events` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "`fenceId` INTEGER NOT NULL, `transition` TEXT NOT NULL, `timestamp` INTEGER NOT NULL, " +
+                        "`latitude` REAL NOT NULL, `longitude` REAL NOT NULL)"
+                )
+                db.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_geofence_events_timestamp` ON `geofence_events` (`timestamp`)"
+                )
+            }
+        }
+
         /**
          * Baut die Database
          */
@@ -75,6 +240,9 @@ abstract class AppDatabase : RoomDatabase() {
                 context.applicationContext,
                 AppDatabase::class.java,
                 "tracker_database"
+            ).addMigrations(
+                MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5,
+                MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8
             )
 
             // Pre-populate mit Test-Daten (optional)
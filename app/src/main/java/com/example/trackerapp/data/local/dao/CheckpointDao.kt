@@ -0,0 +1,28 @@
+package com.example.trackerapp.data.local.dao
+
+import androidx.room.*
+import com.example.trackerapp.data.local.entity.CheckpointEntity
+
+/**
+ * Data Access Object für Checkpoints inkrementeller Auswertungen
+ */
+@Dao
+interface CheckpointDao {
+
+    /**
+     * Holt die zuletzt verarbeitete Location-ID
+     *
+     * @param name Name der Auswertung
+     * @return ID oder null wenn noch nichts verarbeitet wurde
+     */
+    @Query("SELECT lastId FROM checkpoints WHERE name = :name")
+    suspend fun getLastId(name: String): Long?
+
+    /**
+     * Speichert den Fortschritt
+     *
+     * @param checkpoint Name und zuletzt verarbeitete ID
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun set(checkpoint: CheckpointEntity)
+}
@@ -0,0 +1,55 @@
+package com.example.trackerapp.data.local.dao
+
+import androidx.room.*
+import com.example.trackerapp.data.local.entity.GeofenceEntity
+import com.example.trackerapp.data.local.entity.GeofenceEventEntity
+import kotlinx.coroutines.flow.Flow
+
+/**
+ * Data Access Object für Geofences und ihre Ereignisse
+ */
+@Dao
+interface GeofenceDao {
+
+    /**
+     * Alle Geofences (Aufbau des Index)
+     */
+    @Query("SELECT * FROM geofences")
+    suspend fun getAll(): List<GeofenceEntity>
+
+    /**
+     * Anzahl Geofences (reaktiv)
+     */
+    @Query("SELECT COUNT(*) FROM geofences")
+    fun getCount(): Flow<Int>
+
+    /**
+     * Speichert Geofences (ersetzt vorhandene mit gleicher ID)
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertAll(fences: List<GeofenceEntity>)
+
+    /**
+     * Löscht eine Geofence
+     */
+    @Query("DELETE FROM geofences WHERE id = :id")
+    suspend fun deleteById(id: Long)
+
+    /**
+     * Löscht alle Geofences
+     */
+    @Query("DELETE FROM geofences")
+    suspend fun deleteAll()
+
+    /**
+     * Speichert Übergänge
+     */
+    @Insert
+    suspend fun insertEvents(events: List<GeofenceEventEntity>)
+
+    /**
+     * Neueste Übergänge (reaktiv)
+     */
+    @Query("SELECT * FROM geofence_events ORDER BY timestamp DESC LIMIT :limit")
+    fun getRecentEvents(limit: Int): Flow<List<GeofenceEventEntity>>
+}
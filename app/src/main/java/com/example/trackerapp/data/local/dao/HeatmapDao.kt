@@ -0,0 +1,45 @@
+package com.example.trackerapp.data.local.dao
+
+import androidx.room.*
+import com.example.trackerapp.data.local.entity.HeatCellEntity
+
+/**
+ * Data Access Object für das Heatmap-Raster
+ */
+@Dao
+interface HeatmapDao {
+
+    /**
+     * Holt die Zellen einer Rasterstufe in einem Rechteck (Grenzen inklusive)
+     *
+     * Nutzt den Primärschlüssel (level, x, y).
+     */
+    @Query(
+        "SELECT * FROM heat_cells WHERE level = :level " +
+            "AND x BETWEEN :xMin AND :xMax AND y BETWEEN :yMin AND :yMax"
+    )
+    suspend fun getCells(level: Int, xMin: Int, xMax: Int, yMin: Int, yMax: Int): List<HeatCellEntity>
+
+    /**
+     * Addiert auf eine bestehende Zelle
+     *
+     * @return Anzahl geänderter Zeilen (0 = Zelle gibt es noch nicht)
+     */
+    @Query(
+        "UPDATE heat_cells SET count = count + :count, dwellMs = dwellMs + :dwellMs " +
+            "WHERE level = :level AND x = :x AND y = :y"
+    )
+    suspend fun addToCell(level: Int, x: Int, y: Int, count: Int, dwellMs: Long): Int
+
+    /**
+     * Legt eine neue Zelle an
+     */
+    @Insert
+    suspend fun insertCell(cell: HeatCellEntity)
+
+    /**
+     * Löscht das ganze Raster (z.B. wenn die History gelöscht wurde)
+     */
+    @Query("DELETE FROM heat_cells")
+    suspend fun deleteAll()
+}
@@ -2,6 +2,8 @@ package com.example.trackerapp.data.local.dao
 
 import androidx.room.*
 import com.example.trackerapp.data.local.entity.LocationEntity
+import com.example.trackerapp.data.local.entity.LocationPoint
+import com.example.trackerapp.data.local.entity.TrackPoint
 import kotlinx.coroutines.flow.Flow
 
 /**
@@ -100,6 +102,73 @@ interface LocationDao {
     @Query("SELECT * FROM locations ORDER BY timestamp DESC LIMIT :limit")
     fun getRecentLocations(limit: Int = 100): Flow<List<LocationEntity>>
 
+    /**
+     * Holt die neuesten Locations in einem Ausschnitt (für Karten-Marker)
+     *
+     * Nur ID, Koordinaten und Zeitstempel. Nutzt den Index auf (latitude, longitude).
+     *
+     * @param south Südlichster Breitengrad
+     * @param north Nördlichster Breitengrad
+     * @param west Westlichster Längengrad
+     * @param east Östlichster Längengrad
+     * @param limit Maximale Anzahl
+     * @return Locations im Ausschnitt, neueste zuerst
+     */
+    @Query(
+        "SELECT id, latitude, longitude, timestamp FROM locations " +
+            "WHERE latitude BETWEEN :south AND :north AND longitude BETWEEN :west AND :east " +
+            "ORDER BY timestamp DESC LIMIT :limit"
+    )
+    suspend fun getLocationsInBounds(
+        south: Double,
+        north: Double,
+        west: Double,
+        east: Double,
+        limit: Int
+    ): List<LocationPoint>
+
+    /**
+     * Holt Locations nach einer ID in Einfüge-Reihenfolge (für inkrementelle Auswertungen)
+     *
+     * @param afterId Zuletzt verarbeitete ID (0 = von Anfang an)
+     * @param limit Maximale Anzahl pro Batch
+     * @return Locations mit id > afterId, aufsteigend nach ID
+     */
+    @Query("SELECT id, latitude, longitude, timestamp FROM locations WHERE id > :afterId ORDER BY id ASC LIMIT :limit")
+    suspend fun getLocationsAfter(afterId: Long, limit: Int): List<LocationPoint>
+
+    /**
+     * Wie [getLocationsAfter], mit Höhe und Geschwindigkeit (für Pfad und Profile)
+     *
+     * @param afterId Zuletzt verarbeitete ID (0 = von Anfang an)
+     * @param limit Maximale Anzahl pro Batch
+     * @return Locations mit id > afterId, aufsteigend nach ID
+     */
+    @Query(
+        "SELECT id, latitude, longitude, timestamp, altitude, speed FROM locations " +
+            "WHERE id > :afterId ORDER BY id ASC LIMIT :limit"
+    )
+    suspend fun getTrackPointsAfter(afterId: Long, limit: Int): List<TrackPoint>
+
+    /**
+     * Holt die Locations eines ID-Bereichs (z.B. die Punkte eines Trip-Segments)
+     *
+     * @param fromId Erste ID (inklusive)
+     * @param toId Letzte ID (inklusive)
+     * @return Locations aufsteigend nach ID
+     */
+    @Query("SELECT id, latitude, longitude, timestamp FROM locations WHERE id BETWEEN :fromId AND :toId ORDER BY id ASC")
+    suspend fun getLocationPointsBetween(fromId: Long, toId: Long): List<LocationPoint>
+
+    /**
+     * Holt eine Location anhand der ID (nur Position und Zeitstempel)
+     *
+     * @param id ID der Location
+     * @return LocationPoint oder null wenn gelöscht
+     */
+    @Query("SELECT id, latitude, longitude, timestamp FROM locations WHERE id = :id")
+    suspend fun getLocationPoint(id: Long): LocationPoint?
+
     /**
      * Zählt die Anzahl aller Locations
      *
@@ -108,6 +177,14 @@ interface LocationDao {
     @Query("SELECT COUNT(*) FROM locations")
     fun getLocationCount(): Flow<Int>
 
+    /**
+     * Zählt die Locations einmalig (z.B. um gelöschte Locations zu erkennen)
+     *
+     * @return Anzahl aller Locations
+     */
+    @Query("SELECT COUNT(*) FROM locations")
+    suspend fun countLocations(): Int
+
     /**
      * Holt die letzte gespeicherte Location
      *
@@ -0,0 +1,50 @@
+package com.example.trackerapp.data.local.dao
+
+import androidx.room.*
+import com.example.trackerapp.data.local.entity.PlaceEntity
+import kotlinx.coroutines.flow.Flow
+
+/**
+ * Data Access Object für wiederkehrende Orte
+ */
+@Dao
+interface PlaceDao {
+
+    /**
+     * Alle Orte (Aufbau des Clusterers beim Start)
+     */
+    @Query("SELECT * FROM places")
+    suspend fun getAll(): List<PlaceEntity>
+
+    /**
+     * Speichert einen neuen Ort
+     *
+     * @return Generierte ID
+     */
+    @Insert
+    suspend fun insert(place: PlaceEntity): Long
+
+    /**
+     * Aktualisiert geänderte Orte
+     */
+    @Update
+    suspend fun updateAll(places: List<PlaceEntity>)
+
+    /**
+     * Löscht zusammengelegte Orte
+     */
+    @Query("DELETE FROM places WHERE id IN (:ids)")
+    suspend fun deleteByIds(ids: List<Long>)
+
+    /**
+     * Orte mit der längsten Aufenthaltsdauer (reaktiv)
+     */
+    @Query("SELECT * FROM places ORDER BY totalDwellMs DESC LIMIT :limit")
+    fun getTopPlaces(limit: Int): Flow<List<PlaceEntity>>
+
+    /**
+     * Löscht alle Orte (Neuaufbau)
+     */
+    @Query("DELETE FROM places")
+    suspend fun deleteAll()
+}
@@ -0,0 +1,46 @@
+package com.example.trackerapp.data.local.dao
+
+import androidx.room.*
+import com.example.trackerapp.data.local.entity.RouteEntity
+import kotlinx.coroutines.flow.Flow
+
+/**
+ * Data Access Object für wiederkehrende Routen
+ */
+@Dao
+interface RouteDao {
+
+    /**
+     * Alle Routen (Aufbau des Matchers beim Start)
+     */
+    @Query("SELECT * FROM routes")
+    suspend fun getAll(): List<RouteEntity>
+
+    /**
+     * Speichert eine neue Route
+     *
+     * @return Generierte ID
+     */
+    @Insert
+    suspend fun insert(route: RouteEntity): Long
+
+    /**
+     * Aktualisiert geänderte Routen
+     */
+    @Update
+    suspend fun updateAll(routes: List<RouteEntity>)
+
+    /**
+     * Häufigste Routen (reaktiv)
+     *
+     * @param minTrips Mindestanzahl Trips
+     */
+    @Query("SELECT * FROM routes WHERE tripCount >= :minTrips ORDER BY tripCount DESC, lastTripTime DESC LIMIT :limit")
+    fun getFrequentRoutes(minTrips: Int, limit: Int): Flow<List<RouteEntity>>
+
+    /**
+     * Löscht alle Routen (Neuaufbau)
+     */
+    @Query("DELETE FROM routes")
+    suspend fun deleteAll()
+}
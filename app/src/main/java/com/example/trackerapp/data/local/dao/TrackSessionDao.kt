@@ -0,0 +1,35 @@
+package com.example.trackerapp.data.local.dao
+
+import androidx.room.*
+import com.example.trackerapp.data.local.entity.TrackSessionEntity
+import kotlinx.coroutines.flow.Flow
+
+/**
+ * Data Access Object für Tracking-Sessions
+ *
+ * Die laufende Session wird regelmäßig gesichert (siehe TrackSessionRecorder): erst per
+ * [insert], danach per [update] derselben Zeile.
+ */
+@Dao
+interface TrackSessionDao {
+
+    /**
+     * Speichert eine neue Session
+     *
+     * @return ID der Session
+     */
+    @Insert
+    suspend fun insert(session: TrackSessionEntity): Long
+
+    /**
+     * Überschreibt eine gespeicherte Session mit dem neuen Stand
+     */
+    @Update
+    suspend fun update(session: TrackSessionEntity)
+
+    /**
+     * Zuletzt gespeicherte Session (reaktiv), während des Trackings der letzte gesicherte Stand
+     */
+    @Query("SELECT * FROM track_sessions ORDER BY endTime DESC LIMIT 1")
+    fun getLatestSession(): Flow<TrackSessionEntity?>
+}
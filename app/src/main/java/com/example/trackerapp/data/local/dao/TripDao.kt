@@ -0,0 +1,62 @@
+package com.example.trackerapp.data.local.dao
+
+import androidx.room.*
+import com.example.trackerapp.data.local.entity.TripSegmentEntity
+import kotlinx.coroutines.flow.Flow
+
+/**
+ * Data Access Object für Trip-Segmente (Fahrten und Aufenthalte)
+ */
+@Dao
+interface TripDao {
+
+    /**
+     * Speichert abgeschlossene Segmente
+     */
+    @Insert
+    suspend fun insertAll(segments: List<TripSegmentEntity>)
+
+    /**
+     * Neueste Segmente eines Typs (reaktiv), über den Index auf (type, startTime)
+     *
+     * @param type TripSegmentEntity.TYPE_TRIP oder TYPE_STOP
+     */
+    @Query("SELECT * FROM trip_segments WHERE type = :type ORDER BY startTime DESC LIMIT :limit")
+    fun getRecentSegments(type: String, limit: Int): Flow<List<TripSegmentEntity>>
+
+    /**
+     * Segmente, die im Zeitraum beginnen
+     */
+    @Query("SELECT * FROM trip_segments WHERE startTime BETWEEN :startTime AND :endTime ORDER BY startTime ASC")
+    suspend fun getSegmentsBetween(startTime: Long, endTime: Long): List<TripSegmentEntity>
+
+    /**
+     * Segmente eines Typs nach einer ID, aufsteigend (inkrementelle Auswertungen)
+     */
+    @Query("SELECT * FROM trip_segments WHERE type = :type AND id > :afterId ORDER BY id ASC LIMIT :limit")
+    suspend fun getSegmentsAfter(type: String, afterId: Long, limit: Int): List<TripSegmentEntity>
+
+    /**
+     * Holt ein Segment (null wenn gelöscht)
+     */
+    @Query("SELECT * FROM trip_segments WHERE id = :id")
+    suspend fun getSegment(id: Long): TripSegmentEntity?
+
+    /**
+     * Ordnet einen Trip einer Route zu
+     */
+    @Query("UPDATE trip_segments SET routeId = :routeId WHERE id = :id")
+    suspend fun setRoute(id: Long, routeId: Long)
+
+    /**
+     * Entfernt alle Routen-Zuordnungen (Neuaufbau der Routen)
+     */
+    @Query("UPDATE trip_segments SET routeId = NULL")
+    suspend fun clearRoutes()
+
+    /**
+     * Löscht alle Segmente (Neuaufbau)
+     */
+    @Query("DELETE FROM trip_segments")
+    suspend fun deleteAll()
+}
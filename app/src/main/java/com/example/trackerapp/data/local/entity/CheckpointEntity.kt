@@ -0,0 +1,17 @@
+package com.example.trackerapp.data.local.entity
+
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * Fortschritt einer inkrementellen Auswertung der Locations
+ *
+ * @property name Name der Auswertung (z.B. "heatmap")
+ * @property lastId ID der zuletzt verarbeiteten Location
+ */
+@Entity(tableName = "checkpoints")
+data class CheckpointEntity(
+    @PrimaryKey
+    val name: String,
+    val lastId: Long
+)
@@ -0,0 +1,29 @@
+package com.example.trackerapp.data.local.entity
+
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * Geofence (z.B. Kundenstandort), ausgewertet vom GeofenceMonitor
+ *
+ * @property type [TYPE_CIRCLE] oder [TYPE_POLYGON]
+ * @property latitude Mittelpunkt (Kreis) bzw. erste Ecke (Polygon)
+ * @property radius Radius in Metern (nur Kreis)
+ * @property vertices Ecken als Breiten-/Längengrad-Paare (Double, big-endian), nur Polygon
+ */
+@Entity(tableName = "geofences")
+data class GeofenceEntity(
+    @PrimaryKey(autoGenerate = true)
+    val id: Long = 0,
+    val name: String,
+    val type: String,
+    val latitude: Double,
+    val longitude: Double,
+    val radius: Double = 0.0,
+    val vertices: ByteArray? = null
+) {
+    companion object {
+        const val TYPE_CIRCLE = "CIRCLE"
+        const val TYPE_POLYGON = "POLYGON"
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.trackerapp.data.local.entity
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * Übergang an einer Geofence (Betreten, Verlassen, Aufenthalt)
+ *
+ * @property transition ENTER, EXIT oder DWELL (GeofenceEngine.Transition)
+ * @property latitude Position des auslösenden Fixes
+ *
+ * Index auf timestamp für die neuesten Ereignisse.
+ */
+@Entity(
+    tableName = "geofence_events",
+    indices = [Index(value = ["timestamp"])]
+)
+data class GeofenceEventEntity(
+    @PrimaryKey(autoGenerate = true)
+    val id: Long = 0,
+    val fenceId: Long,
+    val transition: String,
+    val timestamp: Long,
+    val latitude: Double,
+    val longitude: Double
+)
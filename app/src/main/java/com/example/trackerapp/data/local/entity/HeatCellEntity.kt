@@ -0,0 +1,27 @@
+package com.example.trackerapp.data.local.entity
+
+import androidx.room.Entity
+
+/**
+ * Zelle des Heatmap-Rasters
+ *
+ * Aufsummierte Besuche pro Zelle, für jede Rasterstufe getrennt. Wird beim Einfügen neuer
+ * Locations fortgeschrieben (siehe HeatmapIndexer), nie aus der ganzen History neu berechnet.
+ *
+ * @property level Rasterstufe: 2^level Zellen pro Kartenbreite (wie ein Tile-Zoom-Level)
+ * @property x Spalte der Zelle
+ * @property y Zeile der Zelle
+ * @property count Anzahl Locations in der Zelle
+ * @property dwellMs Aufenthaltsdauer in der Zelle in Millisekunden
+ */
+@Entity(
+    tableName = "heat_cells",
+    primaryKeys = ["level", "x", "y"]
+)
+data class HeatCellEntity(
+    val level: Int,
+    val x: Int,
+    val y: Int,
+    val count: Int,
+    val dwellMs: Long
+)
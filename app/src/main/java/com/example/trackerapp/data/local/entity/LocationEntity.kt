@@ -1,6 +1,7 @@
 package com.example.trackerapp.data.local.entity
 
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 
 /**
@@ -18,8 +19,13 @@ import androidx.room.PrimaryKey
  * @property speed Geschwindigkeit in m/s (optional)
  * @property bearing Richtung in Grad (0-360, optional)
  * @property timestamp Unix-Zeitstempel in Millisekunden
+ *
+ * Index auf (latitude, longitude) für Ausschnitt-Abfragen der Karte (seit Version 2).
  */
-@Entity(tableName = "locations")
+@Entity(
+    tableName = "locations",
+    indices = [Index(value = ["latitude", "longitude"])]
+)
 data class LocationEntity(
     @PrimaryKey(autoGenerate = true)
     val id: Long = 0,
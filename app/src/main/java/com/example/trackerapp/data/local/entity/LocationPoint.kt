@@ -0,0 +1,19 @@
+package com.example.trackerapp.data.local.entity
+
+/**
+ * Schlanke Sicht auf eine gespeicherte Location (Room-Projektion)
+ *
+ * Für Abfragen, die nur die Position brauchen (z.B. Karten-Marker) - spart das Laden
+ * der optionalen Felder.
+ *
+ * @property id ID der Location
+ * @property latitude Breitengrad
+ * @property longitude Längengrad
+ * @property timestamp Unix-Zeitstempel in Millisekunden
+ */
+data class LocationPoint(
+    val id: Long,
+    val latitude: Double,
+    val longitude: Double,
+    val timestamp: Long
+)
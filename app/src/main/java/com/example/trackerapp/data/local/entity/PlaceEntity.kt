@@ -0,0 +1,29 @@
+package com.example.trackerapp.data.local.entity
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * Wiederkehrender Ort aus geclusterten Aufenthalten (siehe PlaceIndexer)
+ *
+ * @property latitude Mittelpunkt, nach Besuchen gewichtet
+ * @property visitCount Anzahl Aufenthalte
+ * @property totalDwellMs Summe der Aufenthaltsdauern
+ *
+ * Index auf totalDwellMs für die Liste der wichtigsten Orte.
+ */
+@Entity(
+    tableName = "places",
+    indices = [Index(value = ["totalDwellMs"])]
+)
+data class PlaceEntity(
+    @PrimaryKey(autoGenerate = true)
+    val id: Long = 0,
+    val latitude: Double,
+    val longitude: Double,
+    val visitCount: Int,
+    val totalDwellMs: Long,
+    val firstVisit: Long,
+    val lastVisit: Long
+)
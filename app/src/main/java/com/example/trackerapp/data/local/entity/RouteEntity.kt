@@ -0,0 +1,35 @@
+package com.example.trackerapp.data.local.entity
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * Wiederkehrende Route aus gruppierten Trips (siehe RouteIndexer)
+ *
+ * Die zugehörigen Trips verweisen über [TripSegmentEntity.routeId] auf die Route.
+ *
+ * @property distanceMeters Länge des ersten Trips
+ * @property tripCount Anzahl Trips auf dieser Route
+ * @property totalDurationMs Summe der Fahrzeiten (Durchschnitt = totalDurationMs / tripCount)
+ * @property shape Vereinfachte Form des ersten Trips (RouteShape.toBytes), Vergleichsbasis
+ *
+ * Index auf tripCount für die Liste der häufigsten Routen.
+ */
+@Entity(
+    tableName = "routes",
+    indices = [Index(value = ["tripCount"])]
+)
+data class RouteEntity(
+    @PrimaryKey(autoGenerate = true)
+    val id: Long = 0,
+    val startLatitude: Double,
+    val startLongitude: Double,
+    val endLatitude: Double,
+    val endLongitude: Double,
+    val distanceMeters: Double,
+    val tripCount: Int,
+    val totalDurationMs: Long,
+    val lastTripTime: Long,
+    val shape: ByteArray
+)
@@ -0,0 +1,22 @@
+package com.example.trackerapp.data.local.entity
+
+/**
+ * Sicht auf eine gespeicherte Location für Pfad und Profile (Room-Projektion)
+ *
+ * Wie [LocationPoint], zusätzlich Höhe und Geschwindigkeit für die Profile.
+ *
+ * @property id ID der Location
+ * @property latitude Breitengrad
+ * @property longitude Längengrad
+ * @property timestamp Unix-Zeitstempel in Millisekunden
+ * @property altitude Höhe in Metern (optional)
+ * @property speed Geschwindigkeit in m/s (optional)
+ */
+data class TrackPoint(
+    val id: Long,
+    val latitude: Double,
+    val longitude: Double,
+    val timestamp: Long,
+    val altitude: Double?,
+    val speed: Float?
+)
@@ -0,0 +1,44 @@
+package com.example.trackerapp.data.local.entity
+
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+import com.example.trackerapp.data.stats.TrackStats
+
+/**
+ * Statistik einer Tracking-Session
+ *
+ * Wird während des Trackings regelmäßig und beim Stoppen gespeichert (siehe
+ * TrackSessionRecorder), Werte wie in [TrackStats].
+ *
+ * @property id Auto-incrementierte Primary Key
+ * @property startTime Zeitstempel des ersten Fixes
+ * @property endTime Zeitstempel des letzten Fixes
+ */
+@Entity(tableName = "track_sessions")
+data class TrackSessionEntity(
+    @PrimaryKey(autoGenerate = true)
+    val id: Long = 0,
+    val startTime: Long,
+    val endTime: Long,
+    val distanceMeters: Double,
+    val movingMs: Long,
+    val stoppedMs: Long,
+    val maxSpeed: Double,
+    val elevationGain: Double,
+    val elevationLoss: Double,
+    val fixCount: Int
+) {
+    companion object {
+        fun from(stats: TrackStats) = TrackSessionEntity(
+            startTime = stats.startTime,
+            endTime = stats.endTime,
+            distanceMeters = stats.distanceMeters,
+            movingMs = stats.movingMs,
+            stoppedMs = stats.stoppedMs,
+            maxSpeed = stats.maxSpeed,
+            elevationGain = stats.elevationGain,
+            elevationLoss = stats.elevationLoss,
+            fixCount = stats.fixCount
+        )
+    }
+}
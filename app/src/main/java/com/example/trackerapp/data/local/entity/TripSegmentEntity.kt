@@ -0,0 +1,46 @@
+package com.example.trackerapp.data.local.entity
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * Fahrt oder Aufenthalt aus der automatischen Segmentierung (siehe TripIndexer)
+ *
+ * Enthält alles für Listen (Zeiten, Strecke, Start/Ende), damit keine Rohpunkte gelesen
+ * werden müssen. Die Punkte eines Segments sind die Locations von [startLocationId] bis
+ * [endLocationId]; aufeinanderfolgende Segmente teilen sich den Grenzpunkt.
+ *
+ * @property type [TYPE_TRIP] oder [TYPE_STOP]
+ * @property centerLatitude Schwerpunkt bei Stops, Mittelpunkt von Start und Ende bei Trips
+ * @property routeId Route des Trips (RouteEntity), null bis zur Zuordnung und bei Stops
+ *
+ * Index auf (type, startTime) für Listen nach Typ, neueste zuerst.
+ */
+@Entity(
+    tableName = "trip_segments",
+    indices = [Index(value = ["type", "startTime"])]
+)
+data class TripSegmentEntity(
+    @PrimaryKey(autoGenerate = true)
+    val id: Long = 0,
+    val type: String,
+    val startLocationId: Long,
+    val endLocationId: Long,
+    val startTime: Long,
+    val endTime: Long,
+    val pointCount: Int,
+    val distanceMeters: Double,
+    val startLatitude: Double,
+    val startLongitude: Double,
+    val endLatitude: Double,
+    val endLongitude: Double,
+    val centerLatitude: Double,
+    val centerLongitude: Double,
+    val routeId: Long? = null
+) {
+    companion object {
+        const val TYPE_TRIP = "TRIP"
+        const val TYPE_STOP = "STOP"
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.trackerapp.data.path
+
+import com.example.trackerapp.core.utils.Geodesy
+import com.example.trackerapp.data.local.entity.TrackPoint
+
+/**
+ * Aufgezeichneter Pfad als wachsende primitive Arrays (Pfad-Reihenfolge = aufsteigende ID)
+ *
+ * - Nur Anhängen: [append] schreibt hinter das bisherige Ende und legt die Arrays beim
+ *   Wachsen neu an. Ein [Snapshot] bleibt deshalb ohne Kopie gültig, auch wenn danach
+ *   weitere Punkte angehängt werden (er liest nur seine ersten [Snapshot.size] Einträge).
+ * - Strecke und Mittelpunkt werden beim Anhängen fortlaufend mitgeführt: neue Punkte
+ *   kosten O(neue Punkte), nicht O(Pfad)
+ *
+ * Nicht thread-safe: es schreibt nur ein Aufrufer ([RecordedPath] unter seinem Mutex),
+ * gelesen werden die Snapshots.
+ */
+class PathBuffer {
+
+    /**
+     * Stand des Pfads nach einem [append]
+     *
+     * Die Arrays können länger als [size] sein und werden mit dem Buffer geteilt: nur die
+     * ersten [size] Einträge lesen, nichts verändern.
+     *
+     * @property altitudes Höhe in Metern, NaN wenn nicht vorhanden
+     * @property speeds Geschwindigkeit in m/s, NaN wenn nicht vorhanden
+     * @property distance Länge des Pfads in Metern ([Geodesy.Mode.FAST])
+     */
+    class Snapshot internal constructor(
+        val ids: LongArray,
+        val timestamps: LongArray,
+        val latitudes: DoubleArray,
+        val longitudes: DoubleArray,
+        val altitudes: DoubleArray,
+        val speeds: DoubleArray,
+        val size: Int,
+        val distance: Double,
+        private val latitudeSum: Double,
+        private val longitudeSum: Double
+    ) {
+        val centerLatitude: Double
+            get() = if (size == 0) 0.0 else latitudeSum / size
+
+        val centerLongitude: Double
+            get() = if (size == 0) 0.0 else longitudeSum / size
+    }
+
+    private var ids = LongArray(0)
+    private var timestamps = LongArray(0)
+    private var latitudes = DoubleArray(0)
+    private var longitudes = DoubleArray(0)
+    private var altitudes = DoubleArray(0)
+    private var speeds = DoubleArray(0)
+
+    var size = 0
+        private set
+
+    private var distance = 0.0
+    private var latitudeSum = 0.0
+    private var longitudeSum = 0.0
+
+    /**
+     * ID des letzten Punkts, 0 wenn leer
+     */
+    val lastId: Long
+        get() = if (size == 0) 0L else ids[size - 1]
+
+    /**
+     * Hängt [points] (aufsteigende IDs, alle nach [lastId]) an
+     */
+    fun append(points: List<TrackPoint>): Snapshot {
+        val n = size + points.size
+        if (ids.size < n) {
+            // Wachsen wie eine ArrayList: Anhängen bleibt amortisiert O(1)
+            val capacity = maxOf(n, ids.size * 2)
+            ids = ids.copyOf(capacity)
+            timestamps = timestamps.copyOf(capacity)
+            latitudes = latitudes.copyOf(capacity)
+            longitudes = longitudes.copyOf(capacity)
+            altitudes = altitudes.copyOf(capacity)
+            speeds = speeds.copyOf(capacity)
+        }
+        for ((offset, point) in points.withIndex()) {
+            val i = size + offset
+            ids[i] = point.id
+            timestamps[i] = point.timestamp
+            latitudes[i] = point.latitude
+            longitudes[i] = point.longitude
+            altitudes[i] = point.altitude ?: Double.NaN
+            speeds[i] = point.speed?.toDouble() ?: Double.NaN
+            latitudeSum += point.latitude
+            longitudeSum += point.longitude
+        }
+        // Strecke ab dem letzten bekannten Punkt
+        distance += Geodesy.pathLength(latitudes, longitudes, Geodesy.Mode.FAST, from = maxOf(size - 1, 0), to = n)
+        size = n
+        return snapshot()
+    }
+
+    fun snapshot(): Snapshot = Snapshot(
+        ids, timestamps, latitudes, longitudes, altitudes, speeds, size, distance, latitudeSum, longitudeSum
+    )
+}
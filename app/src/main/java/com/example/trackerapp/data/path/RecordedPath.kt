@@ -0,0 +1,78 @@
+package com.example.trackerapp.data.path
+
+import android.content.Context
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.data.local.AppDatabase
+import com.example.trackerapp.data.local.dao.LocationDao
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+
+/**
+ * Die aufgezeichnete History als [PathBuffer] für den PathScreen
+ *
+ * - [catchUp] lädt nur Locations nach der zuletzt übernommenen ID (in Batches, nur die
+ *   Spalten für Pfad und Profile) und hängt sie an - statt bei jedem neuen Punkt die ganze
+ *   History als Entities zu laden
+ * - Ist die zuletzt übernommene Location gelöscht oder sind es weniger Locations geworden,
+ *   wird neu aufgebaut
+ * - [path] liefert den Stand nach jedem [catchUp]; die Caches der Karte
+ *   ([com.example.trackerapp.core.utils.ProjectedTrackCache],
+ *   [com.example.trackerapp.data.profile.ProfileSeriesCache]) übernehmen daraus nur die
+ *   neuen Punkte
+ *
+ * Singleton wie [com.example.trackerapp.data.cluster.LocationClusterIndex]: der Aufbau
+ * passiert einmal pro Prozess, nicht bei jedem Öffnen des Screens.
+ */
+class RecordedPath private constructor(private val locationDao: LocationDao) {
+
+    private val mutex = Mutex()
+    private var buffer = PathBuffer()
+
+    private val _path = MutableStateFlow(buffer.snapshot())
+
+    /**
+     * Pfad nach dem letzten [catchUp] (leer bis zum ersten)
+     */
+    val path: StateFlow<PathBuffer.Snapshot> = _path.asStateFlow()
+
+    /**
+     * Übernimmt alle Locations nach der zuletzt übernommenen ID
+     *
+     * Gleichzeitige Aufrufe laufen nacheinander. [path] ändert sich einmal am Ende, nicht
+     * pro Batch (der erste Aufbau soll nicht jeden Zwischenstand projizieren).
+     */
+    suspend fun catchUp() = mutex.withLock {
+        val lastId = buffer.lastId
+        val deleted = lastId > 0 &&
+            (locationDao.getLocationPoint(lastId) == null || locationDao.countLocations() < buffer.size)
+        if (deleted) {
+            // Neue Arrays: bisherige Snapshots bleiben für ihre Leser gültig
+            buffer = PathBuffer()
+        }
+
+        var changed = deleted
+        while (true) {
+            val batch = locationDao.getTrackPointsAfter(buffer.lastId, AppConstants.Path.HISTORY_BATCH_SIZE)
+            if (batch.isEmpty()) break
+            withContext(Dispatchers.Default) { buffer.append(batch) }
+            changed = true
+        }
+        if (changed) _path.value = buffer.snapshot()
+    }
+
+    companion object {
+        @Volatile
+        private var INSTANCE: RecordedPath? = null
+
+        fun getInstance(context: Context): RecordedPath {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: RecordedPath(AppDatabase.getDatabase(context).locationDao()).also { INSTANCE = it }
+            }
+        }
+    }
+}
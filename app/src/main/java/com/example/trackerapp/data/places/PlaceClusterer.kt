@@ -0,0 +1,132 @@
+package com.example.trackerapp.data.places
+
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.Geodesy
+import com.example.trackerapp.core.utils.LatitudeBandGrid
+
+/**
+ * Fasst Aufenthalte (Stay-Points) zu wiederkehrenden Orten zusammen
+ *
+ * Statt DBSCAN über alle Rohpunkte (O(n²)) werden nur Stay-Points geclustert, jeder einzeln
+ * beim Eintreffen ([add]):
+ * - Orte liegen in einem Raster mit Zellen von [radius] Metern; gesucht wird nur in den 3 x 3
+ *   Nachbarzellen, O(1) pro Stay-Point bei fester Orts-Dichte
+ * - Liegt ein Ort näher als [radius], zählt der Aufenthalt dort (Mittelpunkt nach Besuchen
+ *   gewichtet), sonst entsteht ein neuer Ort
+ * - Rückt der Mittelpunkt dabei näher als [radius] an einen anderen Ort, werden beide
+ *   zusammengelegt (unabhängig von der Reihenfolge der Aufenthalte)
+ *
+ * Raster: [LatitudeBandGrid], Zellen überall mindestens [radius] breit. Nicht thread-safe.
+ */
+class PlaceClusterer(private val radius: Double = AppConstants.Places.RADIUS_M) {
+
+    /**
+     * Ort mit Besuchen
+     *
+     * @property id Datenbank-ID (0 = noch nicht gespeichert)
+     */
+    class Place(
+        var id: Long,
+        var latitude: Double,
+        var longitude: Double,
+        var visitCount: Int,
+        var dwellMs: Long,
+        var firstVisit: Long,
+        var lastVisit: Long
+    )
+
+    private val grid = LatitudeBandGrid(radius)
+    private val cells = HashMap<Long, MutableList<Place>>()
+
+    /**
+     * Anzahl Orte
+     */
+    var size = 0
+        private set
+
+    /**
+     * Übernimmt einen gespeicherten Ort (z.B. beim Start)
+     */
+    fun load(place: Place) {
+        insert(place)
+    }
+
+    /**
+     * Rechnet einen Aufenthalt ein
+     *
+     * @param merged Nimmt Orte auf, die dabei in den zurückgegebenen Ort aufgegangen sind
+     * @return Neuer oder geänderter Ort
+     */
+    fun add(latitude: Double, longitude: Double, startTime: Long, endTime: Long, merged: MutableList<Place>): Place {
+        val place = nearest(latitude, longitude, null)
+        if (place == null) {
+            return Place(0L, latitude, longitude, 1, endTime - startTime, startTime, endTime).also { insert(it) }
+        }
+
+        remove(place)
+        val n = place.visitCount.toDouble()
+        place.latitude = (place.latitude * n + latitude) / (n + 1)
+        place.longitude = (place.longitude * n + longitude) / (n + 1)
+        place.visitCount++
+        place.dwellMs += endTime - startTime
+        place.firstVisit = minOf(place.firstVisit, startTime)
+        place.lastVisit = maxOf(place.lastVisit, endTime)
+
+        while (true) {
+            val other = nearest(place.latitude, place.longitude, place) ?: break
+            remove(other)
+            val total = (place.visitCount + other.visitCount).toDouble()
+            place.latitude = (place.latitude * place.visitCount + other.latitude * other.visitCount) / total
+            place.longitude = (place.longitude * place.visitCount + other.longitude * other.visitCount) / total
+            place.visitCount += other.visitCount
+            place.dwellMs += other.dwellMs
+            place.firstVisit = minOf(place.firstVisit, other.firstVisit)
+            place.lastVisit = maxOf(place.lastVisit, other.lastVisit)
+            merged += other
+        }
+        insert(place)
+        return place
+    }
+
+    /**
+     * Alle Orte
+     */
+    fun places(): List<Place> = cells.values.flatten()
+
+    fun clear() {
+        cells.clear()
+        size = 0
+    }
+
+    /**
+     * Nächster Ort innerhalb von [radius], ohne [exclude]
+     */
+    private fun nearest(latitude: Double, longitude: Double, exclude: Place?): Place? {
+        var best: Place? = null
+        var bestDistance = radius
+        grid.forEachNeighbour(latitude, longitude) { key ->
+            val candidates = cells[key] ?: return@forEachNeighbour
+            for (candidate in candidates) {
+                if (candidate === exclude) continue
+                val d = Geodesy.fast(latitude, longitude, candidate.latitude, candidate.longitude)
+                if (d <= bestDistance) {
+                    best = candidate
+                    bestDistance = d
+                }
+            }
+        }
+        return best
+    }
+
+    private fun insert(place: Place) {
+        cells.getOrPut(grid.keyOf(place.latitude, place.longitude)) { ArrayList(1) } += place
+        size++
+    }
+
+    private fun remove(place: Place) {
+        val key = grid.keyOf(place.latitude, place.longitude)
+        val list = cells[key] ?: return
+        if (list.remove(place)) size--
+        if (list.isEmpty()) cells.remove(key)
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.trackerapp.data.places
+
+import android.content.Context
+import androidx.room.withTransaction
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.data.local.AppDatabase
+import com.example.trackerapp.data.local.entity.CheckpointEntity
+import com.example.trackerapp.data.local.entity.PlaceEntity
+import com.example.trackerapp.data.local.entity.TripSegmentEntity
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import java.util.IdentityHashMap
+
+/**
+ * Leitet wiederkehrende Orte aus den Aufenthalten der Trip-Segmentierung ab ([PlaceClusterer])
+ *
+ * - Stay-Points sind die Stops aus trip_segments (TripIndexer): die Rohpunkte sind dort
+ *   schon auf einen Schwerpunkt pro Aufenthalt reduziert, geclustert werden nur diese.
+ * - Neue Stops werden ab dem Checkpoint in Batches von [AppConstants.Places.INDEX_BATCH_SIZE]
+ *   verarbeitet; geänderte Orte und Checkpoint werden pro Batch gemeinsam gespeichert.
+ * - Die Orte bleiben im Speicher, nach einem Neustart des Prozesses werden sie einmal aus
+ *   der Tabelle geladen (Anzahl Orte, nicht Anzahl Punkte).
+ *
+ * Reset: ist der zuletzt verarbeitete Stop gelöscht (Segmente neu aufgebaut), werden alle
+ * Orte verworfen und aus den Stops neu berechnet.
+ *
+ * Singleton wie [AppDatabase]: LocationService und UI teilen sich eine Instanz.
+ */
+class PlaceIndexer private constructor(private val database: AppDatabase) {
+
+    private val mutex = Mutex()
+
+    // Zustand im Speicher, null bis zum ersten Aufruf im Prozess
+    private var clusterer: PlaceClusterer? = null
+    private var processedId = 0L
+
+    /**
+     * Verarbeitet alle Stops, die noch keinem Ort zugeordnet sind
+     *
+     * Gleichzeitige Aufrufe laufen nacheinander.
+     */
+    suspend fun catchUp() = mutex.withLock {
+        val tripDao = database.tripDao()
+        val placeDao = database.placeDao()
+        val checkpointDao = database.checkpointDao()
+
+        var current = clusterer
+        if (current == null) {
+            processedId = checkpointDao.getLastId(CHECKPOINT) ?: 0L
+            current = PlaceClusterer()
+            for (place in placeDao.getAll()) current.load(place.toPlace())
+            clusterer = current
+        }
+        if (processedId > 0 && tripDao.getSegment(processedId) == null) {
+            current = reset()
+        }
+
+        try {
+            while (true) {
+                val batch = tripDao.getSegmentsAfter(
+                    TripSegmentEntity.TYPE_STOP, processedId, AppConstants.Places.INDEX_BATCH_SIZE
+                )
+                if (batch.isEmpty()) break
+
+                val changed = IdentityHashMap<PlaceClusterer.Place, Unit>()
+                val merged = ArrayList<PlaceClusterer.Place>()
+                withContext(Dispatchers.Default) {
+                    for (stop in batch) {
+                        val place = current.add(
+                            stop.centerLatitude, stop.centerLongitude, stop.startTime, stop.endTime, merged
+                        )
+                        changed[place] = Unit
+                    }
+                    for (place in merged) changed.remove(place)
+                }
+                val batchLastId = batch.last().id
+                database.withTransaction {
+                    val deleted = merged.filter { it.id > 0 }.map { it.id }
+                    if (deleted.isNotEmpty()) placeDao.deleteByIds(deleted)
+                    val updated = ArrayList<PlaceEntity>()
+                    for (place in changed.keys) {
+                        if (place.id == 0L) place.id = placeDao.insert(place.toEntity()) else updated += place.toEntity()
+                    }
+                    if (updated.isNotEmpty()) placeDao.updateAll(updated)
+                    checkpointDao.set(CheckpointEntity(CHECKPOINT, batchLastId))
+                }
+                processedId = batchLastId
+            }
+        } catch (e: Throwable) {
+            // Zustand im Speicher passt nicht mehr zur Tabelle: beim nächsten Aufruf neu laden
+            clusterer = null
+            throw e
+        }
+    }
+
+    private suspend fun reset(): PlaceClusterer {
+        database.withTransaction {
+            database.placeDao().deleteAll()
+            database.checkpointDao().set(CheckpointEntity(CHECKPOINT, 0L))
+        }
+        processedId = 0L
+        return PlaceClusterer().also { clusterer = it }
+    }
+
+    private fun PlaceEntity.toPlace() = PlaceClusterer.Place(
+        id = id,
+        latitude = latitude,
+        longitude = longitude,
+        visitCount = visitCount,
+        dwellMs = totalDwellMs,
+        firstVisit = firstVisit,
+        lastVisit = lastVisit
+    )
+
+    private fun PlaceClusterer.Place.toEntity() = PlaceEntity(
+        id = id,
+        latitude = latitude,
+        longitude = longitude,
+        visitCount = visitCount,
+        totalDwellMs = dwellMs,
+        firstVisit = firstVisit,
+        lastVisit = lastVisit
+    )
+
+    companion object {
+        private const val CHECKPOINT = "places"
+
+        @Volatile
+        private var INSTANCE: PlaceIndexer? = null
+
+        fun getInstance(context: Context): PlaceIndexer {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: PlaceIndexer(AppDatabase.getDatabase(context)).also { INSTANCE = it }
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.trackerapp.data.profile
+
+import com.example.trackerapp.core.utils.Geodesy
+import com.example.trackerapp.core.utils.IncrementalLttb
+import com.example.trackerapp.core.utils.TrackGrowth
+
+/**
+ * Höhen- und Geschwindigkeitsprofil eines Tracks in Anzeige-Auflösung
+ *
+ * @property xs Strecke in Metern ([ProfileSeriesCache.Metric.ALTITUDE]) bzw. Sekunden seit
+ *   dem ersten Punkt ([ProfileSeriesCache.Metric.SPEED]), aufsteigend
+ * @property ys Höhe in Metern bzw. Geschwindigkeit in m/s
+ * @property sourceSize Anzahl Punkte mit Wert vor dem Downsampling
+ *
+ * Die Arrays nicht verändern: sie werden mit dem Cache geteilt.
+ */
+class ProfileSeries internal constructor(
+    val xs: DoubleArray,
+    val ys: DoubleArray,
+    val sourceSize: Int
+) {
+    val size: Int
+        get() = xs.size
+
+    val minY: Double = ys.minOrNull() ?: 0.0
+    val maxY: Double = ys.maxOrNull() ?: 0.0
+    val maxX: Double = if (xs.isEmpty()) 0.0 else xs[xs.size - 1]
+
+    companion object {
+        internal val EMPTY = ProfileSeries(DoubleArray(0), DoubleArray(0), 0)
+    }
+}
+
+/**
+ * Cache der Profile pro Track, Metrik und Breite (Pixel)
+ *
+ * Statt alle Rohwerte zu zeichnen, wird pro Breite mit LTTB ([IncrementalLttb]) auf höchstens
+ * einen Punkt pro Pixel reduziert. Pro Track und Metrik bleiben die Werte als primitive
+ * Arrays im Cache (Punkte ohne Wert übersprungen, Strecke fortlaufend summiert):
+ * - Unveränderter Track: gleiches Ergebnis ohne Rechnung
+ * - Track nur am Ende gewachsen ([TrackGrowth]): nur die neuen Punkte übernehmen, LTTB
+ *   rechnet nur die letzten Buckets neu
+ * - Sonst: Neuaufbau
+ *
+ * Hält höchstens [maxTracks] Tracks (zuletzt benutzte). Thread-safe.
+ */
+class ProfileSeriesCache(private val maxTracks: Int = 4) {
+
+    enum class Metric { ALTITUDE, SPEED }
+
+    private class Entry {
+        // Abgleich mit dem Track
+        var ids = LongArray(0)
+        var size = 0
+
+        // Fortlaufende Strecke bzw. Startzeit
+        var distance = 0.0
+        var lastLatitude = Double.NaN
+        var lastLongitude = Double.NaN
+        var startTime = 0L
+
+        // Punkte mit Wert
+        var xs = DoubleArray(0)
+        var ys = DoubleArray(0)
+        var count = 0
+
+        val downsamplers = HashMap<Int, IncrementalLttb>()
+        val results = HashMap<Int, ProfileSeries>()
+    }
+
+    private val entries = object : LinkedHashMap<Pair<String, Metric>, Entry>(maxTracks * 2, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Pair<String, Metric>, Entry>?): Boolean =
+            size > maxTracks * Metric.values().size
+    }
+
+    /**
+     * Profil des Tracks [key] für eine Breite von [width] Pixeln
+     *
+     * @param ids Location-IDs in Track-Reihenfolge (erkennt angehängte Punkte)
+     * @param values Höhe bzw. Geschwindigkeit pro Punkt, NaN wenn nicht vorhanden
+     * @param size Anzahl der Punkte; die Arrays dürfen länger sein (z.B. ein wachsender Buffer)
+     */
+    @Synchronized
+    fun series(
+        key: String,
+        metric: Metric,
+        width: Int,
+        ids: LongArray,
+        timestamps: LongArray,
+        latitudes: DoubleArray,
+        longitudes: DoubleArray,
+        values: DoubleArray,
+        size: Int = ids.size
+    ): ProfileSeries {
+        val n = size
+        require(ids.size >= n && timestamps.size >= n && latitudes.size >= n && longitudes.size >= n && values.size >= n) {
+            "track arrays too short"
+        }
+        if (width < 3 || n == 0) return ProfileSeries.EMPTY
+
+        var entry = entries[key to metric]
+        val unchanged = entry != null && entry.size == n && TrackGrowth.startsWith(ids, entry.ids, entry.size)
+        if (!unchanged) {
+            if (entry == null || entry.size > n || !TrackGrowth.startsWith(ids, entry.ids, entry.size)) {
+                entry = Entry().also { entries[key to metric] = it }
+            }
+            append(entry, metric, n, ids, timestamps, latitudes, longitudes, values)
+            entry.results.clear()
+        }
+
+        return entry!!.results.getOrPut(width) {
+            val downsampler = entry.downsamplers.getOrPut(width) { IncrementalLttb(width) }
+            val indices = downsampler.update(entry.xs, entry.ys, entry.count)
+            ProfileSeries(
+                xs = DoubleArray(indices.size) { entry.xs[indices[it]] },
+                ys = DoubleArray(indices.size) { entry.ys[indices[it]] },
+                sourceSize = entry.count
+            )
+        }
+    }
+
+    @Synchronized
+    fun invalidate(key: String) {
+        for (metric in Metric.values()) entries.remove(key to metric)
+    }
+
+    @Synchronized
+    fun clear() {
+        entries.clear()
+    }
+
+    /**
+     * Übernimmt die Punkte ab [Entry.size]
+     */
+    private fun append(
+        entry: Entry,
+        metric: Metric,
+        n: Int,
+        ids: LongArray,
+        timestamps: LongArray,
+        latitudes: DoubleArray,
+        longitudes: DoubleArray,
+        values: DoubleArray
+    ) {
+        if (entry.size == 0) entry.startTime = timestamps[0]
+        if (entry.xs.size < n) {
+            // Wachsen wie eine ArrayList: Anhängen bleibt amortisiert O(1)
+            val capacity = maxOf(n, entry.xs.size * 2)
+            entry.xs = entry.xs.copyOf(capacity)
+            entry.ys = entry.ys.copyOf(capacity)
+        }
+        for (i in entry.size until n) {
+            if (!entry.lastLatitude.isNaN()) {
+                entry.distance += Geodesy.fast(entry.lastLatitude, entry.lastLongitude, latitudes[i], longitudes[i])
+            }
+            entry.lastLatitude = latitudes[i]
+            entry.lastLongitude = longitudes[i]
+
+            val value = values[i]
+            if (value.isNaN()) continue
+            val x = when (metric) {
+                Metric.ALTITUDE -> entry.distance
+                Metric.SPEED -> (timestamps[i] - entry.startTime) / 1000.0
+            }
+            // LTTB braucht aufsteigende x: Zeitsprünge zurück überspringen
+            if (entry.count > 0 && x < entry.xs[entry.count - 1]) continue
+            entry.xs[entry.count] = x
+            entry.ys[entry.count] = value
+            entry.count++
+        }
+        entry.ids = ids.copyOf(n)
+        entry.size = n
+    }
+}
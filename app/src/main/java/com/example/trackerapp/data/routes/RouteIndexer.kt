@@ -0,0 +1,143 @@
+package com.example.trackerapp.data.routes
+
+import android.content.Context
+import androidx.room.withTransaction
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.data.local.AppDatabase
+import com.example.trackerapp.data.local.entity.CheckpointEntity
+import com.example.trackerapp.data.local.entity.RouteEntity
+import com.example.trackerapp.data.local.entity.TripSegmentEntity
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import java.util.IdentityHashMap
+
+/**
+ * Ordnet abgeschlossene Trips wiederkehrenden Routen zu ([RouteMatcher])
+ *
+ * - Läuft nach dem TripIndexer: Arbeit fällt nur an, wenn ein Trip geendet hat. Pro neuem
+ *   Trip werden einmal seine Punkte gelesen und zur Form ([RouteShape]) vereinfacht.
+ * - Neue Trips werden ab dem Checkpoint in Batches von [AppConstants.FrequentRoutes.INDEX_BATCH_SIZE]
+ *   verarbeitet; Routen, Zuordnungen (trip_segments.routeId) und Checkpoint werden pro Batch
+ *   gemeinsam gespeichert.
+ * - Die Routen bleiben im Speicher, nach einem Neustart des Prozesses werden sie einmal aus
+ *   der Tabelle geladen.
+ *
+ * Reset: ist der zuletzt verarbeitete Trip gelöscht (Segmente neu aufgebaut), werden alle
+ * Routen verworfen und neu berechnet.
+ *
+ * Singleton wie [AppDatabase]: LocationService und UI teilen sich eine Instanz.
+ */
+class RouteIndexer private constructor(private val database: AppDatabase) {
+
+    private val mutex = Mutex()
+
+    // Zustand im Speicher, null bis zum ersten Aufruf im Prozess
+    private var matcher: RouteMatcher? = null
+    private var processedId = 0L
+
+    /**
+     * Verarbeitet alle Trips, die noch keiner Route zugeordnet sind
+     *
+     * Gleichzeitige Aufrufe laufen nacheinander.
+     */
+    suspend fun catchUp() = mutex.withLock {
+        val tripDao = database.tripDao()
+        val routeDao = database.routeDao()
+        val checkpointDao = database.checkpointDao()
+
+        var current = matcher
+        if (current == null) {
+            processedId = checkpointDao.getLastId(CHECKPOINT) ?: 0L
+            current = RouteMatcher()
+            for (route in routeDao.getAll()) current.load(route.toRoute())
+            matcher = current
+        }
+        if (processedId > 0 && tripDao.getSegment(processedId) == null) {
+            current = reset()
+        }
+
+        try {
+            while (true) {
+                val batch = tripDao.getSegmentsAfter(
+                    TripSegmentEntity.TYPE_TRIP, processedId, AppConstants.FrequentRoutes.INDEX_BATCH_SIZE
+                )
+                if (batch.isEmpty()) break
+
+                val assigned = ArrayList<Pair<Long, RouteMatcher.Route>>()
+                for (trip in batch) {
+                    val points = database.locationDao().getLocationPointsBetween(trip.startLocationId, trip.endLocationId)
+                    val route = withContext(Dispatchers.Default) {
+                        val latitudes = DoubleArray(points.size) { points[it].latitude }
+                        val longitudes = DoubleArray(points.size) { points[it].longitude }
+                        RouteShape.of(latitudes, longitudes)?.let { current.add(it, trip.startTime, trip.endTime) }
+                    } ?: continue
+                    assigned += trip.id to route
+                }
+
+                val batchLastId = batch.last().id
+                database.withTransaction {
+                    val changed = IdentityHashMap<RouteMatcher.Route, Unit>()
+                    for ((_, route) in assigned) changed[route] = Unit
+                    val updated = ArrayList<RouteEntity>()
+                    for (route in changed.keys) {
+                        if (route.id == 0L) route.id = routeDao.insert(route.toEntity()) else updated += route.toEntity()
+                    }
+                    if (updated.isNotEmpty()) routeDao.updateAll(updated)
+                    for ((tripId, route) in assigned) tripDao.setRoute(tripId, route.id)
+                    checkpointDao.set(CheckpointEntity(CHECKPOINT, batchLastId))
+                }
+                processedId = batchLastId
+            }
+        } catch (e: Throwable) {
+            // Zustand im Speicher passt nicht mehr zur Tabelle: beim nächsten Aufruf neu laden
+            matcher = null
+            throw e
+        }
+    }
+
+    private suspend fun reset(): RouteMatcher {
+        database.withTransaction {
+            database.routeDao().deleteAll()
+            database.tripDao().clearRoutes()
+            database.checkpointDao().set(CheckpointEntity(CHECKPOINT, 0L))
+        }
+        processedId = 0L
+        return RouteMatcher().also { matcher = it }
+    }
+
+    private fun RouteEntity.toRoute() = RouteMatcher.Route(
+        id = id,
+        shape = RouteShape.fromBytes(shape),
+        tripCount = tripCount,
+        totalDurationMs = totalDurationMs,
+        lastTripTime = lastTripTime
+    )
+
+    private fun RouteMatcher.Route.toEntity() = RouteEntity(
+        id = id,
+        startLatitude = shape.startLatitude,
+        startLongitude = shape.startLongitude,
+        endLatitude = shape.endLatitude,
+        endLongitude = shape.endLongitude,
+        distanceMeters = shape.lengthMeters,
+        tripCount = tripCount,
+        totalDurationMs = totalDurationMs,
+        lastTripTime = lastTripTime,
+        shape = shape.toBytes()
+    )
+
+    companion object {
+        private const val CHECKPOINT = "routes"
+
+        @Volatile
+        private var INSTANCE: RouteIndexer? = null
+
+        fun getInstance(context: Context): RouteIndexer {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: RouteIndexer(AppDatabase.getDatabase(context)).also { INSTANCE = it }
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.trackerapp.data.routes
+
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.Geodesy
+import com.example.trackerapp.core.utils.LatitudeBandGrid
+
+/**
+ * Gruppiert Trips zu wiederkehrenden Routen
+ *
+ * Statt jeden Trip mit jedem zu vergleichen, wird jeder neue Trip ([add]) nur gegen die
+ * Routen geprüft, die ihn überhaupt treffen können. Jede Route wird durch ihren ersten Trip
+ * vertreten ([Route.shape]); die Prüfung läuft in Stufen, jede billiger als die nächste:
+ * 1. Index: Routen nach Zelle des Startpunkts ([LatitudeBandGrid], Zellen von [maxDistance] Metern, 3 x 3
+ *    Nachbarzellen)
+ * 2. Endpunkte: Start- und Endpunkt näher als [maxDistance] (untere Schranke der
+ *    Fréchet-Distanz)
+ * 3. Bounding Boxes: um [maxDistance] erweitert müssen sie sich gegenseitig enthalten
+ * 4. Diskrete Fréchet-Distanz der Formen mit vorzeitigem Abbruch ([RouteShape.frechet]),
+ *    Limit ist die beste bisher gefundene Distanz
+ *
+ * Die Route mit der kleinsten Distanz bis [maxDistance] übernimmt den Trip, sonst entsteht
+ * eine neue Route. Die Richtung zählt: Hin- und Rückweg sind zwei Routen. Nicht thread-safe.
+ */
+class RouteMatcher(private val maxDistance: Double = AppConstants.FrequentRoutes.MAX_FRECHET_M) {
+
+    /**
+     * Route mit ihren Trips
+     *
+     * @property id Datenbank-ID (0 = noch nicht gespeichert)
+     * @property shape Form des ersten Trips
+     */
+    class Route(
+        var id: Long,
+        val shape: RouteShape,
+        var tripCount: Int,
+        var totalDurationMs: Long,
+        var lastTripTime: Long
+    )
+
+    private val grid = LatitudeBandGrid(maxDistance)
+    private val cells = HashMap<Long, MutableList<Route>>()
+
+    /**
+     * Anzahl Routen
+     */
+    var size = 0
+        private set
+
+    /**
+     * Durchgeführte Fréchet-Vergleiche (Stufe 4), zur Messung der Vorauswahl
+     */
+    var comparisons = 0L
+        private set
+
+    /**
+     * Übernimmt eine gespeicherte Route (z.B. beim Start)
+     */
+    fun load(route: Route) {
+        insert(route)
+    }
+
+    /**
+     * Ordnet einen Trip der passenden Route zu oder legt eine neue an
+     *
+     * @return Route des Trips (neu: [Route.id] ist 0)
+     */
+    fun add(shape: RouteShape, startTime: Long, endTime: Long): Route {
+        val route = match(shape)
+        if (route == null) {
+            return Route(0L, shape, 1, endTime - startTime, endTime).also { insert(it) }
+        }
+        route.tripCount++
+        route.totalDurationMs += endTime - startTime
+        route.lastTripTime = maxOf(route.lastTripTime, endTime)
+        return route
+    }
+
+    /**
+     * Route mit der kleinsten Fréchet-Distanz bis [maxDistance], ohne etwas zu ändern
+     */
+    fun match(shape: RouteShape): Route? {
+        val latMargin = LatitudeBandGrid.latitudeDegrees(maxDistance)
+        val lonMargin = LatitudeBandGrid.longitudeDegrees(maxDistance, shape.minLatitude, shape.maxLatitude)
+        var best: Route? = null
+        var bestDistance = maxDistance
+        grid.forEachNeighbour(shape.startLatitude, shape.startLongitude) { key ->
+            val candidates = cells[key] ?: return@forEachNeighbour
+            for (candidate in candidates) {
+                val other = candidate.shape
+                val startDistance = Geodesy.fast(
+                    shape.startLatitude, shape.startLongitude, other.startLatitude, other.startLongitude
+                )
+                if (startDistance > bestDistance) continue
+                val endDistance = Geodesy.fast(
+                    shape.endLatitude, shape.endLongitude, other.endLatitude, other.endLongitude
+                )
+                if (endDistance > bestDistance) continue
+                if (Math.abs(shape.minLatitude - other.minLatitude) > latMargin ||
+                    Math.abs(shape.maxLatitude - other.maxLatitude) > latMargin ||
+                    Math.abs(shape.minLongitude - other.minLongitude) > lonMargin ||
+                    Math.abs(shape.maxLongitude - other.maxLongitude) > lonMargin
+                ) continue
+
+                comparisons++
+                val d = RouteShape.frechet(shape, other, bestDistance)
+                if (d <= bestDistance) {
+                    best = candidate
+                    bestDistance = d
+                }
+            }
+        }
+        return best
+    }
+
+    /**
+     * Alle Routen
+     */
+    fun routes(): List<Route> = cells.values.flatten()
+
+    fun clear() {
+        cells.clear()
+        size = 0
+    }
+
+    private fun insert(route: Route) {
+        cells.getOrPut(grid.keyOf(route.shape.startLatitude, route.shape.startLongitude)) { ArrayList(1) } += route
+        size++
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.trackerapp.data.routes
+
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.Geodesy
+import java.nio.ByteBuffer
+
+/**
+ * Fingerabdruck eines Trips: vereinfachte Form plus Start, Ende und Bounding Box
+ *
+ * Die Form sind [size] Punkte in gleichem Abstand entlang des Trips (unabhängig von der
+ * Anzahl der Fixes und vom Aufzeichnungs-Intervall). Zwei Fahrten auf derselben Strecke
+ * haben damit ähnliche Punkte an gleicher Stelle, und die diskrete Fréchet-Distanz der
+ * Formen kostet size² statt n * m Distanzen. Abweichungen kürzer als der Punktabstand
+ * können dabei unbemerkt bleiben.
+ */
+class RouteShape private constructor(
+    val latitudes: DoubleArray,
+    val longitudes: DoubleArray,
+    /**
+     * Länge des ursprünglichen Trips in Metern
+     */
+    val lengthMeters: Double
+) {
+    val size: Int
+        get() = latitudes.size
+
+    val startLatitude: Double
+        get() = latitudes[0]
+    val startLongitude: Double
+        get() = longitudes[0]
+    val endLatitude: Double
+        get() = latitudes[size - 1]
+    val endLongitude: Double
+        get() = longitudes[size - 1]
+
+    // Bounding Box der Form
+    val minLatitude = latitudes.min()
+    val maxLatitude = latitudes.max()
+    val minLongitude = longitudes.min()
+    val maxLongitude = longitudes.max()
+
+    /**
+     * Speicherformat (BLOB): Länge, dann Breiten- und Längengrade
+     */
+    fun toBytes(): ByteArray {
+        val buffer = ByteBuffer.allocate(8 + size * 16)
+        buffer.putDouble(lengthMeters)
+        for (i in 0 until size) {
+            buffer.putDouble(latitudes[i])
+            buffer.putDouble(longitudes[i])
+        }
+        return buffer.array()
+    }
+
+    companion object {
+        /**
+         * Tastet die Punkte in gleichem Abstand neu ab
+         *
+         * @return null bei weniger als 2 Punkten oder Länge 0
+         */
+        fun of(latitudes: DoubleArray, longitudes: DoubleArray, points: Int = AppConstants.FrequentRoutes.SHAPE_POINTS): RouteShape? {
+            require(latitudes.size == longitudes.size) { "latitudes and longitudes differ in size" }
+            require(points >= 2) { "shape needs at least 2 points" }
+            val n = latitudes.size
+            if (n < 2) return null
+            val segments = DoubleArray(n - 1)
+            Geodesy.segmentLengthsInto(latitudes, longitudes, segments)
+            val length = segments.sum()
+            if (length <= 0.0) return null
+
+            val lats = DoubleArray(points)
+            val lons = DoubleArray(points)
+            var segment = 0
+            var segmentStart = 0.0
+            for (k in 0 until points) {
+                val target = length * k / (points - 1)
+                while (segment < n - 2 && segmentStart + segments[segment] < target) {
+                    segmentStart += segments[segment]
+                    segment++
+                }
+                val f = if (segments[segment] > 0.0) ((target - segmentStart) / segments[segment]).coerceIn(0.0, 1.0) else 0.0
+                lats[k] = latitudes[segment] + (latitudes[segment + 1] - latitudes[segment]) * f
+                lons[k] = longitudes[segment] + (longitudes[segment + 1] - longitudes[segment]) * f
+            }
+            return RouteShape(lats, lons, length)
+        }
+
+        /**
+         * Gegenstück zu [toBytes]
+         */
+        fun fromBytes(bytes: ByteArray): RouteShape {
+            val buffer = ByteBuffer.wrap(bytes)
+            val length = buffer.getDouble()
+            val points = (bytes.size - 8) / 16
+            val lats = DoubleArray(points)
+            val lons = DoubleArray(points)
+            for (i in 0 until points) {
+                lats[i] = buffer.getDouble()
+                lons[i] = buffer.getDouble()
+            }
+            return RouteShape(lats, lons, length)
+        }
+
+        /**
+         * Diskrete Fréchet-Distanz zweier Formen mit vorzeitigem Abbruch
+         *
+         * Start- und Endpunkte sind eine untere Schranke und werden zuerst geprüft. Die
+         * Tabelle wird zeilenweise berechnet; liegt eine ganze Zeile über [limit], kann das
+         * Ergebnis nicht mehr darunter fallen.
+         *
+         * @return Distanz in Metern, oder [Double.POSITIVE_INFINITY] wenn größer als [limit]
+         */
+        fun frechet(a: RouteShape, b: RouteShape, limit: Double = Double.POSITIVE_INFINITY): Double {
+            val n = a.size
+            val m = b.size
+            if (Geodesy.fast(a.startLatitude, a.startLongitude, b.startLatitude, b.startLongitude) > limit) {
+                return Double.POSITIVE_INFINITY
+            }
+            if (Geodesy.fast(a.endLatitude, a.endLongitude, b.endLatitude, b.endLongitude) > limit) {
+                return Double.POSITIVE_INFINITY
+            }
+
+            var previous = DoubleArray(m)
+            var current = DoubleArray(m)
+            for (i in 0 until n) {
+                var rowMin = Double.POSITIVE_INFINITY
+                for (j in 0 until m) {
+                    val reach = when {
+                        i == 0 && j == 0 -> 0.0
+                        i == 0 -> current[j - 1]
+                        j == 0 -> previous[0]
+                        else -> minOf(previous[j], previous[j - 1], current[j - 1])
+                    }
+                    // Über dem Limit ist jeder Wert gleich schlecht: Distanz nicht berechnen
+                    current[j] = if (reach > limit) {
+                        Double.POSITIVE_INFINITY
+                    } else {
+                        val d = Geodesy.fast(a.latitudes[i], a.longitudes[i], b.latitudes[j], b.longitudes[j])
+                        if (d > limit) Double.POSITIVE_INFINITY else maxOf(reach, d)
+                    }
+                    if (current[j] < rowMin) rowMin = current[j]
+                }
+                if (rowMin > limit) return Double.POSITIVE_INFINITY
+                val swap = previous
+                previous = current
+                current = swap
+            }
+            return previous[m - 1]
+        }
+    }
+}
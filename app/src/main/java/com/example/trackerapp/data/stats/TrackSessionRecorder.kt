@@ -0,0 +1,153 @@
+package com.example.trackerapp.data.stats
+
+import android.content.Context
+import android.util.Log
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.data.local.AppDatabase
+import com.example.trackerapp.data.local.dao.TrackSessionDao
+import com.example.trackerapp.data.local.entity.TrackSessionEntity
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+
+/**
+ * Live-Statistik der laufenden Tracking-Session
+ *
+ * - LocationService ruft [start], [add] pro Fix und [finish] beim Stoppen auf
+ * - [stats] liefert nach jedem Fix eine Momentaufnahme (Tracker-Screen, Notification);
+ *   die Statistik wird fortgeschrieben ([TrackStatsAccumulator]), nie aus der History berechnet
+ * - Gespeichert wird in track_sessions: spätestens alle
+ *   [AppConstants.Stats.CHECKPOINT_INTERVAL_MS] (Zeit der Fixes) und beim Stoppen, immer in
+ *   dieselbe Zeile. Wird der Prozess beendet ohne dass [finish] läuft, fehlt höchstens das
+ *   letzte Intervall.
+ *
+ * Singleton wie [AppDatabase]: Service und UI teilen sich eine Instanz.
+ */
+class TrackSessionRecorder private constructor(private val sessionDao: TrackSessionDao) {
+
+    // Speichern soll das Beenden des Service überleben
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    private val lock = Any()
+    private var session: Session? = null
+
+    /**
+     * Laufende Session mit ihrer gespeicherten Zeile
+     */
+    private class Session {
+        val accumulator = TrackStatsAccumulator()
+        val writes = Mutex()
+
+        // Nur unter writes: Zeile der Session, 0 = noch nicht gespeichert
+        var rowId = 0L
+
+        // Nur unter lock
+        var pending: TrackStats? = null
+        var savedAt = 0L
+    }
+
+    private val _stats = MutableStateFlow<TrackStats?>(null)
+
+    /**
+     * Statistik der laufenden Session, null wenn keine läuft
+     */
+    val stats: StateFlow<TrackStats?> = _stats.asStateFlow()
+
+    /**
+     * Beginnt eine Session (läuft bereits eine, wird sie fortgesetzt)
+     */
+    fun start() {
+        synchronized(lock) {
+            val current = session ?: Session().also { session = it }
+            _stats.value = current.accumulator.snapshot()
+        }
+    }
+
+    /**
+     * Rechnet einen Fix ein, O(1)
+     *
+     * Fehlende Werte als NaN (siehe [TrackStatsAccumulator.add]). Ist der letzte gesicherte
+     * Stand älter als [AppConstants.Stats.CHECKPOINT_INTERVAL_MS], wird im Hintergrund gesichert.
+     *
+     * @return Neue Momentaufnahme, null wenn keine Session läuft
+     */
+    fun add(
+        timestamp: Long,
+        latitude: Double,
+        longitude: Double,
+        accuracy: Float,
+        altitude: Double,
+        speed: Float
+    ): TrackStats? {
+        val (current, snapshot, checkpoint) = synchronized(lock) {
+            val current = session ?: return null
+            current.accumulator.add(timestamp, latitude, longitude, accuracy, altitude, speed)
+            val snapshot = current.accumulator.snapshot()
+            _stats.value = snapshot
+            val due = snapshot.startTime != 0L &&
+                snapshot.endTime - current.savedAt >= AppConstants.Stats.CHECKPOINT_INTERVAL_MS
+            if (due) current.savedAt = snapshot.endTime
+            Triple(current, snapshot, due)
+        }
+        if (checkpoint) save(current, snapshot)
+        return snapshot
+    }
+
+    /**
+     * Beendet die Session und speichert sie (nur wenn mindestens ein Fix kam)
+     */
+    fun finish() {
+        val (current, final) = synchronized(lock) {
+            val current = session ?: return
+            session = null
+            _stats.value = null
+            current to current.accumulator.snapshot()
+        }
+        if (final.startTime == 0L) return
+        save(current, final)
+    }
+
+    /**
+     * Sichert [stats] im Hintergrund in die Zeile der Session
+     *
+     * Schreibvorgänge einer Session laufen nacheinander und schreiben immer den neuesten
+     * Stand: ein später startender älterer Checkpoint überschreibt nie einen neueren.
+     */
+    private fun save(session: Session, stats: TrackStats) {
+        synchronized(lock) { session.pending = stats }
+        scope.launch {
+            session.writes.withLock {
+                val latest = synchronized(lock) { session.pending.also { session.pending = null } } ?: return@withLock
+                try {
+                    val entity = TrackSessionEntity.from(latest)
+                    if (session.rowId == 0L) {
+                        session.rowId = sessionDao.insert(entity)
+                    } else {
+                        sessionDao.update(entity.copy(id = session.rowId))
+                    }
+                } catch (e: Exception) {
+                    Log.e(TAG, "Failed to save track session", e)
+                }
+            }
+        }
+    }
+
+    companion object {
+        private const val TAG = "TrackSessionRecorder"
+
+        @Volatile
+        private var INSTANCE: TrackSessionRecorder? = null
+
+        fun getInstance(context: Context): TrackSessionRecorder {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: TrackSessionRecorder(AppDatabase.getDatabase(context).trackSessionDao())
+                    .also { INSTANCE = it }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.trackerapp.data.stats
+
+/**
+ * Momentaufnahme der Statistik einer Tracking-Session
+ *
+ * @property startTime Zeitstempel des ersten Fixes (0 = noch keiner)
+ * @property endTime Zeitstempel des letzten Fixes
+ * @property distanceMeters Zurückgelegte Strecke (nur in Bewegung)
+ * @property movingMs Zeit in Bewegung
+ * @property stoppedMs Zeit im Stand
+ * @property maxSpeed Höchste Geschwindigkeit in m/s
+ * @property elevationGain Aufstieg in Metern (mit Hysterese)
+ * @property elevationLoss Abstieg in Metern (mit Hysterese)
+ * @property currentSpeed Geglättete aktuelle Geschwindigkeit in m/s
+ * @property fixCount Anzahl empfangener Fixes
+ */
+data class TrackStats(
+    val startTime: Long,
+    val endTime: Long,
+    val distanceMeters: Double,
+    val movingMs: Long,
+    val stoppedMs: Long,
+    val maxSpeed: Double,
+    val elevationGain: Double,
+    val elevationLoss: Double,
+    val currentSpeed: Double,
+    val fixCount: Int
+) {
+    /**
+     * Gesamtdauer (Bewegung und Stand)
+     */
+    val durationMs: Long
+        get() = movingMs + stoppedMs
+
+    /**
+     * Durchschnittsgeschwindigkeit in Bewegung in m/s
+     */
+    val averageSpeed: Double
+        get() = if (movingMs > 0) distanceMeters / (movingMs / 1000.0) else 0.0
+
+    /**
+     * Aktuelle Pace in Sekunden pro Kilometer, null im Stand
+     */
+    val currentPace: Double?
+        get() = if (currentSpeed > 0.0) 1000.0 / currentSpeed else null
+}
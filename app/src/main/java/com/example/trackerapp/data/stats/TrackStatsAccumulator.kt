@@ -0,0 +1,128 @@
+package com.example.trackerapp.data.stats
+
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.Geodesy
+import kotlin.math.exp
+
+/**
+ * Fortlaufende Statistik einer Tracking-Session
+ *
+ * Jeder Fix wird in O(1) und ohne Allokation eingerechnet ([add]), die History wird nie
+ * erneut gelesen:
+ * - Strecke und Zeit pro Segment zum vorigen Fix. Segmente unter [movingSpeed] zählen als
+ *   Stand (ohne Strecke, sonst summiert sich das GPS-Rauschen im Stand auf).
+ * - Fixes ungenauer als [maxAccuracy] werden übersprungen; Lücken über [maxGapMs] (Service
+ *   gestoppt, kein Empfang) zählen weder als Zeit noch als Strecke.
+ * - Höhenmeter mit Hysterese: gezählt wird erst, wenn sich die Höhe um mindestens
+ *   [elevationHysteresis] gegenüber dem letzten gezählten Punkt ändert.
+ * - Aktuelle Geschwindigkeit exponentiell geglättet (Zeitkonstante [smoothingMs]).
+ *
+ * Fehlende Werte werden als NaN übergeben (kein Boxing). Nicht thread-safe.
+ */
+class TrackStatsAccumulator(
+    private val movingSpeed: Double = AppConstants.Stats.MOVING_SPEED_MPS,
+    private val maxAccuracy: Float = AppConstants.Stats.MAX_ACCURACY_M,
+    private val maxGapMs: Long = AppConstants.Stats.MAX_GAP_MS,
+    private val elevationHysteresis: Double = AppConstants.Stats.ELEVATION_HYSTERESIS_M,
+    private val smoothingMs: Long = AppConstants.Stats.SPEED_SMOOTHING_MS
+) {
+    private var hasFix = false
+    private var lastLatitude = 0.0
+    private var lastLongitude = 0.0
+    private var lastTime = 0L
+    private var elevationReference = Double.NaN
+
+    private var startTime = 0L
+    private var distanceMeters = 0.0
+    private var movingMs = 0L
+    private var stoppedMs = 0L
+    private var maxSpeed = 0.0
+    private var elevationGain = 0.0
+    private var elevationLoss = 0.0
+    private var currentSpeed = 0.0
+    private var fixCount = 0
+
+    /**
+     * Rechnet einen Fix ein
+     *
+     * @param accuracy Genauigkeit in Metern oder NaN
+     * @param altitude Höhe in Metern oder NaN
+     * @param speed Vom Gerät gemessene Geschwindigkeit in m/s oder NaN (dann aus dem Segment)
+     */
+    fun add(
+        timestamp: Long,
+        latitude: Double,
+        longitude: Double,
+        accuracy: Float = Float.NaN,
+        altitude: Double = Double.NaN,
+        speed: Float = Float.NaN
+    ) {
+        fixCount++
+        if (accuracy > maxAccuracy) return
+
+        if (!hasFix) {
+            hasFix = true
+            startTime = timestamp
+            moveTo(timestamp, latitude, longitude, altitude)
+            return
+        }
+
+        val dt = timestamp - lastTime
+        // Doppelt oder in falscher Reihenfolge geliefert
+        if (dt <= 0) return
+        if (dt > maxGapMs) {
+            currentSpeed = 0.0
+            elevationReference = altitude
+            moveTo(timestamp, latitude, longitude, altitude)
+            return
+        }
+
+        val distance = Geodesy.fast(lastLatitude, lastLongitude, latitude, longitude)
+        val segmentSpeed = if (speed.isNaN()) distance * 1000.0 / dt else speed.toDouble()
+        if (segmentSpeed >= movingSpeed) {
+            movingMs += dt
+            distanceMeters += distance
+            if (segmentSpeed > maxSpeed) maxSpeed = segmentSpeed
+        } else {
+            stoppedMs += dt
+        }
+        currentSpeed += (1.0 - exp(-dt.toDouble() / smoothingMs)) * (segmentSpeed - currentSpeed)
+
+        moveTo(timestamp, latitude, longitude, altitude)
+    }
+
+    /**
+     * Aktueller Stand (allokiert nur das Ergebnis)
+     */
+    fun snapshot(): TrackStats = TrackStats(
+        startTime = startTime,
+        endTime = lastTime,
+        distanceMeters = distanceMeters,
+        movingMs = movingMs,
+        stoppedMs = stoppedMs,
+        maxSpeed = maxSpeed,
+        elevationGain = elevationGain,
+        elevationLoss = elevationLoss,
+        currentSpeed = if (currentSpeed >= movingSpeed) currentSpeed else 0.0,
+        fixCount = fixCount
+    )
+
+    private fun moveTo(timestamp: Long, latitude: Double, longitude: Double, altitude: Double) {
+        lastTime = timestamp
+        lastLatitude = latitude
+        lastLongitude = longitude
+        if (altitude.isNaN()) return
+        if (elevationReference.isNaN()) {
+            elevationReference = altitude
+            return
+        }
+        val change = altitude - elevationReference
+        if (change >= elevationHysteresis) {
+            elevationGain += change
+            elevationReference = altitude
+        } else if (change <= -elevationHysteresis) {
+            elevationLoss -= change
+            elevationReference = altitude
+        }
+    }
+}
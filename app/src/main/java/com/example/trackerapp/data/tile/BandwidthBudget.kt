@@ -0,0 +1,47 @@
+package com.example.trackerapp.data.tile
+
+/**
+ * Token Bucket für Hintergrund-Downloads
+ *
+ * Füllt sich mit [bytesPerSecond] bis maximal [burstBytes]. Da die Größe eines Tiles
+ * erst nach dem Download bekannt ist, wird nachträglich mit [consume] abgebucht -
+ * der Kontostand darf dabei negativ werden und [waitTimeMs] wartet ihn wieder ab.
+ *
+ * Thread-safe (synchronized).
+ */
+class BandwidthBudget(
+    private val bytesPerSecond: Long,
+    private val burstBytes: Long,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    private var tokens = burstBytes.toDouble()
+    private var lastRefill = clock()
+
+    /**
+     * Wartezeit bis wieder Budget vorhanden ist (0 = sofort)
+     */
+    @Synchronized
+    fun waitTimeMs(): Long {
+        refill()
+        if (tokens > 0) return 0L
+        return (-tokens * 1000.0 / bytesPerSecond).toLong() + 1
+    }
+
+    /**
+     * Bucht übertragene Bytes ab
+     */
+    @Synchronized
+    fun consume(bytes: Long) {
+        refill()
+        tokens -= bytes
+    }
+
+    private fun refill() {
+        val now = clock()
+        val elapsed = now - lastRefill
+        if (elapsed > 0) {
+            tokens = minOf(burstBytes.toDouble(), tokens + elapsed * bytesPerSecond / 1000.0)
+            lastRefill = now
+        }
+    }
+}
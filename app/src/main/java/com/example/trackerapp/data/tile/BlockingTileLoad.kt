@@ -0,0 +1,44 @@
+package com.example.trackerapp.data.tile
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.future.future
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+
+/**
+ * Brücke von den blockierenden MapCompose-Workern zu den suspend-Loads der Tile-Quellen
+ *
+ * Der Load läuft im Scope der Quelle (auf deren begrenztem Dispatcher), der Worker-Thread
+ * wartet nur. Verwendet von [TileRepository.loadTileBlocking], [VectorTileRenderer],
+ * [HeatmapTiles] und [PathOverlayTiles].
+ *
+ * - Unterbrochener Worker (MapCompose verwirft das Tile): Load abbrechen, Interrupt-Flag
+ *   wiederherstellen
+ * - Fehler oder abgebrochener Load: null, MapCompose zeigt dann kein Tile
+ */
+object BlockingTileLoad {
+
+    /**
+     * Startet [block] in [scope] und wartet auf das Ergebnis
+     */
+    fun <T> run(scope: CoroutineScope, block: suspend CoroutineScope.() -> T?): T? =
+        await(scope.future(block = block))
+
+    /**
+     * Wartet auf einen bereits gestarteten Load
+     */
+    fun <T> await(future: Future<T?>): T? {
+        return try {
+            future.get()
+        } catch (e: InterruptedException) {
+            future.cancel(true)
+            Thread.currentThread().interrupt()
+            null
+        } catch (e: ExecutionException) {
+            null
+        } catch (e: CancellationException) {
+            null
+        }
+    }
+}
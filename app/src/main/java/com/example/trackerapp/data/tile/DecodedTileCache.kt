@@ -0,0 +1,74 @@
+package com.example.trackerapp.data.tile
+
+import android.graphics.Bitmap
+
+/**
+ * LRU für dekodierte Tile-Bitmaps, begrenzt nach Bytes
+ *
+ * Verdrängte Bitmaps gehen in den [pool] und werden beim nächsten Dekodieren
+ * wiederverwendet. Damit eine Bitmap nicht verdrängt wird während jemand sie liest,
+ * gibt es keinen direkten Zugriff - nur [use] unter dem Lock des Caches.
+ *
+ * @property maxBytes Obergrenze für alle dekodierten Tiles zusammen
+ */
+class DecodedTileCache(
+    private val maxBytes: Long,
+    private val pool: TileBitmapPool
+) {
+    private val entries = LinkedHashMap<TileKey, Bitmap>(64, 0.75f, true)
+
+    var sizeBytes = 0L
+        private set
+
+    val count: Int
+        @Synchronized get() = entries.size
+
+    /**
+     * Führt [block] mit der gecachten Bitmap aus
+     *
+     * @return Ergebnis von [block], null wenn das Tile nicht dekodiert vorliegt
+     */
+    @Synchronized
+    fun <T> use(key: TileKey, block: (Bitmap) -> T): T? {
+        val bitmap = entries[key] ?: return null
+        return block(bitmap)
+    }
+
+    @Synchronized
+    fun contains(key: TileKey): Boolean = entries.containsKey(key)
+
+    @Synchronized
+    fun put(key: TileKey, bitmap: Bitmap) {
+        entries.put(key, bitmap)?.let { old ->
+            sizeBytes -= old.allocationByteCount
+            if (old !== bitmap) pool.put(old)
+        }
+        sizeBytes += bitmap.allocationByteCount
+        trimToSize()
+    }
+
+    @Synchronized
+    fun remove(key: TileKey) {
+        entries.remove(key)?.let {
+            sizeBytes -= it.allocationByteCount
+            pool.put(it)
+        }
+    }
+
+    @Synchronized
+    fun clear() {
+        entries.values.forEach { pool.put(it) }
+        entries.clear()
+        sizeBytes = 0L
+    }
+
+    private fun trimToSize() {
+        val iterator = entries.entries.iterator()
+        while (sizeBytes > maxBytes && iterator.hasNext()) {
+            val eldest = iterator.next()
+            iterator.remove()
+            sizeBytes -= eldest.value.allocationByteCount
+            pool.put(eldest.value)
+        }
+    }
+}
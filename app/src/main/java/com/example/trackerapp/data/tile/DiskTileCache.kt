@@ -0,0 +1,220 @@
+package com.example.trackerapp.data.tile
+
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+
+/**
+ * Persistenter Tile-Cache im Dateisystem
+ *
+ * Layout: directory/provider/z/x/y.tile - jede Datei enthält einen kleinen Header
+ * (Download-Zeitpunkt für die TTL, ETag, Last-Modified) gefolgt von den PNG-Bytes.
+ * Der Download-Zeitpunkt steht an fester Position, damit eine Revalidierung (HTTP 304)
+ * nur 8 Bytes überschreibt statt das ganze Tile neu zu schreiben.
+ *
+ * LRU-Verdrängung:
+ * - Der Index (Key → Dateigröße) wird beim ersten Zugriff aus dem Dateisystem aufgebaut,
+ *   sortiert nach lastModified (= letzter Zugriff)
+ * - Jeder Treffer aktualisiert lastModified, damit die Reihenfolge einen Neustart überlebt
+ * - Überschreitet die Summe [maxBytes], werden die ältesten Dateien gelöscht
+ *
+ * Datei-IO läuft außerhalb des Locks, nur der Index ist synchronisiert.
+ * Schreiben erfolgt über eine temporäre Datei + rename, Leser sehen nie halbe Tiles.
+ *
+ * @property directory Wurzelverzeichnis des Caches (z.B. context.cacheDir/tiles)
+ * @property maxBytes Maximale Größe aller Tile-Dateien
+ */
+class DiskTileCache(
+    private val directory: File,
+    val maxBytes: Long,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    private val lock = Any()
+    private val index = LinkedHashMap<TileKey, Long>(256, 0.75f, true)
+    private var currentBytes = 0L
+    private var indexed = false
+
+    /**
+     * Aktuell belegte Bytes
+     */
+    val sizeBytes: Long
+        get() = synchronized(lock) {
+            ensureIndexed()
+            currentBytes
+        }
+
+    fun get(key: TileKey): CachedTile? {
+        synchronized(lock) { ensureIndexed() }
+
+        val file = fileFor(key)
+        if (!file.exists()) return null
+
+        val tile = try {
+            readEntry(file)
+        } catch (e: IOException) {
+            // Kaputte oder parallel gelöschte Datei = Cache-Miss
+            null
+        }
+
+        if (tile == null) {
+            remove(key)
+            return null
+        }
+
+        synchronized(lock) { index[key] }  // LRU-Reihenfolge aktualisieren
+        file.setLastModified(clock())
+        return tile
+    }
+
+    fun put(key: TileKey, tile: CachedTile) {
+        if (tile.data.size > maxBytes) return
+
+        val file = fileFor(key)
+        val parent = file.parentFile ?: return
+        try {
+            parent.mkdirs()
+            val tmp = File.createTempFile(file.name, TMP_SUFFIX, parent)
+            DataOutputStream(tmp.outputStream().buffered()).use { out ->
+                out.writeInt(MAGIC)
+                out.writeLong(tile.fetchedAt)
+                out.writeUTF(tile.etag ?: "")
+                out.writeUTF(tile.lastModified ?: "")
+                out.writeInt(tile.data.size)
+                out.write(tile.data)
+            }
+            if (!tmp.renameTo(file)) {
+                file.delete()
+                if (!tmp.renameTo(file)) {
+                    tmp.delete()
+                    return
+                }
+            }
+            file.setLastModified(clock())
+        } catch (e: IOException) {
+            return
+        }
+
+        val evicted = synchronized(lock) {
+            ensureIndexed()
+            index.put(key, file.length())?.let { previous -> currentBytes -= previous }
+            currentBytes += file.length()
+            trimToSize(keep = key)
+        }
+        evicted.forEach { fileFor(it).delete() }
+    }
+
+    /**
+     * Setzt nur den Download-Zeitpunkt neu (nach HTTP 304), die Tile-Bytes bleiben unverändert
+     */
+    fun updateFetchedAt(key: TileKey, fetchedAt: Long) {
+        val file = fileFor(key)
+        if (!file.exists()) return
+        try {
+            RandomAccessFile(file, "rw").use { raf ->
+                if (raf.readInt() != MAGIC) return
+                raf.writeLong(fetchedAt)
+            }
+            file.setLastModified(clock())
+        } catch (e: IOException) {
+            remove(key)
+        }
+    }
+
+    fun remove(key: TileKey) {
+        synchronized(lock) {
+            index.remove(key)?.let { size -> currentBytes -= size }
+        }
+        fileFor(key).delete()
+    }
+
+    fun clear() {
+        synchronized(lock) {
+            index.clear()
+            currentBytes = 0L
+            indexed = true
+        }
+        directory.deleteRecursively()
+    }
+
+    private fun fileFor(key: TileKey): File = File(directory, key.relativePath() + FILE_SUFFIX)
+
+    private fun readEntry(file: File): CachedTile? {
+        DataInputStream(file.inputStream().buffered()).use { input ->
+            if (input.readInt() != MAGIC) return null
+            val fetchedAt = input.readLong()
+            val etag = input.readUTF().ifEmpty { null }
+            val lastModified = input.readUTF().ifEmpty { null }
+            // Länge aus der Datei nicht blind vertrauen: abgeschnittene oder kaputte Datei = Miss
+            val length = input.readInt()
+            if (length < 0 || length > file.length()) return null
+            val data = ByteArray(length)
+            input.readFully(data)
+            return CachedTile(data, fetchedAt, etag, lastModified)
+        }
+    }
+
+    /**
+     * Baut den LRU-Index aus dem Dateisystem auf (einmalig, unter Lock)
+     */
+    private fun ensureIndexed() {
+        if (indexed) return
+        indexed = true
+
+        val files = directory.walkTopDown()
+            .filter { it.isFile }
+            .toList()
+
+        files.filter { it.name.endsWith(TMP_SUFFIX) }.forEach { it.delete() }
+
+        files.filter { it.name.endsWith(FILE_SUFFIX) }
+            .sortedBy { it.lastModified() }
+            .forEach { file ->
+                val key = keyFor(file)
+                if (key != null) {
+                    val size = file.length()
+                    index[key] = size
+                    currentBytes += size
+                }
+            }
+
+        trimToSize(keep = null).forEach { fileFor(it).delete() }
+    }
+
+    /**
+     * Entfernt die ältesten Einträge aus dem Index und liefert deren Keys zum Löschen
+     */
+    private fun trimToSize(keep: TileKey?): List<TileKey> {
+        val evicted = mutableListOf<TileKey>()
+        val iterator = index.entries.iterator()
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            val eldest = iterator.next()
+            if (eldest.key == keep) continue
+            currentBytes -= eldest.value
+            evicted += eldest.key
+            iterator.remove()
+        }
+        return evicted
+    }
+
+    /**
+     * Rekonstruiert den Key aus provider/z/x/y.tile
+     */
+    private fun keyFor(file: File): TileKey? {
+        val parts = file.relativeTo(directory).path
+            .removeSuffix(FILE_SUFFIX)
+            .split(File.separatorChar)
+        if (parts.size != 4) return null
+        val zoom = parts[1].toIntOrNull() ?: return null
+        val col = parts[2].toIntOrNull() ?: return null
+        val row = parts[3].toIntOrNull() ?: return null
+        return TileKey(parts[0], zoom, col, row)
+    }
+
+    companion object {
+        private const val MAGIC = 0x544C4532  // "TLE2" (mit ETag/Last-Modified)
+        private const val FILE_SUFFIX = ".tile"
+        private const val TMP_SUFFIX = ".tmp"
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.trackerapp.data.tile
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Color
+import android.graphics.Paint
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.data.heatmap.HeatmapGrid
+import com.example.trackerapp.data.heatmap.HeatmapIndexer
+import com.example.trackerapp.data.heatmap.HeatmapMetric
+import com.example.trackerapp.data.local.AppDatabase
+import com.example.trackerapp.data.local.dao.HeatmapDao
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.asSharedFlow
+import kotlinx.coroutines.flow.onSubscription
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import java.io.ByteArrayOutputStream
+import java.io.Closeable
+import java.io.File
+import java.io.IOException
+
+/**
+ * Heatmap der Besuche als transparente Overlay-Tiles
+ *
+ * Gezeichnet wird aus dem fortgeschriebenen Raster ([HeatmapIndexer]), nie aus der History:
+ * - Pro Tile eine Abfrage der Zellen seiner Rasterstufe ([HeatmapGrid.levelFor]) plus einer
+ *   Zelle Rand, gerastert auf einem eigenen Dispatcher mit [workers] Threads
+ * - Fertige Tiles liegen als PNG im [cache] (Memory + Disk), leere Tiles als leerer Eintrag
+ * - Meldet der Indexer geänderte Zellen, werden nur die betroffenen Tiles verworfen;
+ *   [changes] meldet das, damit die Karte ihre Tiles neu lädt
+ * - Bis zu welchem Checkpoint der Disk-Cache aktuell ist, steht in [stateFile]. Hat der
+ *   Indexer inzwischen ohne diese Instanz weitergearbeitet (z.B. nur der Service lief),
+ *   wird der Disk-Cache verworfen - neu gerastert wird dann nur, was angezeigt wird.
+ */
+class HeatmapTiles(
+    private val heatmapDao: HeatmapDao,
+    private val indexer: HeatmapIndexer,
+    private val cache: TileCache,
+    private val bitmapPool: TileBitmapPool,
+    private val stateFile: File?,
+    private val metric: HeatmapMetric = HeatmapMetric.DWELL,
+    workers: Int = AppConstants.Heatmap.RENDER_WORKERS
+) : Closeable {
+    private val dispatcher = Dispatchers.Default.limitedParallelism(workers)
+    private val scope = CoroutineScope(SupervisorJob() + dispatcher)
+    private val singleFlight = SingleFlight<TileKey, ByteArray?>(scope)
+
+    private val lock = Any()
+
+    // Zählt Invalidierungen: ein Tile, das währenddessen gerastert wurde, wird nicht gecacht
+    private var generation = 0L
+
+    private val _changes = MutableSharedFlow<Unit>(
+        extraBufferCapacity = 1,
+        onBufferOverflow = BufferOverflow.DROP_OLDEST
+    )
+
+    /**
+     * Meldet, dass sich Heatmap-Tiles geändert haben
+     */
+    val changes: SharedFlow<Unit> = _changes.asSharedFlow()
+
+    init {
+        scope.launch {
+            indexer.updates
+                .onSubscription {
+                    // Erst abonnieren, dann prüfen und nachziehen: keine Änderung geht verloren
+                    if (readState() != indexer.lastProcessedId()) invalidateAll()
+                    scope.launch { indexer.catchUp() }
+                }
+                .collect { apply(it) }
+        }
+    }
+
+    /**
+     * Heatmap-Tile als PNG
+     *
+     * @return null wenn im Tile nichts besucht wurde
+     */
+    suspend fun renderTile(zoom: Int, col: Int, row: Int): ByteArray? {
+        if (zoom < AppConstants.Heatmap.MIN_ZOOM) return null
+        val key = TileKey(PROVIDER_ID, zoom, col, row)
+        cache.get(key)?.let { return it.data.takeIf { data -> data.isNotEmpty() } }
+
+        return singleFlight.run(key) {
+            withContext(dispatcher) { render(key) }
+        }
+    }
+
+    /**
+     * Blockierende Variante für MapCompose-Worker ([BlockingTileLoad])
+     */
+    fun renderTileBlocking(zoom: Int, col: Int, row: Int): ByteArray? {
+        if (zoom < AppConstants.Heatmap.MIN_ZOOM) return null
+        cache.memory.get(TileKey(PROVIDER_ID, zoom, col, row))?.let {
+            return it.data.takeIf { data -> data.isNotEmpty() }
+        }
+
+        return BlockingTileLoad.run(scope) { renderTile(zoom, col, row) }
+    }
+
+    override fun close() {
+        scope.cancel()
+    }
+
+    private fun apply(update: HeatmapIndexer.Update) {
+        if (update.reset) {
+            invalidateAll()
+        } else {
+            val tiles = HashSet<TileKey>()
+            for (cell in update.cells) {
+                for (zoom in AppConstants.Heatmap.MIN_ZOOM..AppConstants.Tiles.MAX_ZOOM) {
+                    if (HeatmapGrid.levelFor(zoom) != cell.level) continue
+                    val shift = cell.level - zoom
+                    // Inklusive Nachbar-Tiles: Zellen am Rand ragen hinein
+                    for (dy in -1..1) {
+                        for (dx in -1..1) {
+                            tiles += TileKey(PROVIDER_ID, zoom, (cell.x + dx) shr shift, (cell.y + dy) shr shift)
+                        }
+                    }
+                }
+            }
+            synchronized(lock) {
+                tiles.forEach { cache.remove(it) }
+                generation++
+            }
+        }
+        writeState(update.lastId)
+        _changes.tryEmit(Unit)
+    }
+
+    private fun invalidateAll() {
+        synchronized(lock) {
+            cache.clear()
+            generation++
+        }
+    }
+
+    private suspend fun render(key: TileKey): ByteArray? {
+        val renderedGeneration = synchronized(lock) { generation }
+        val level = HeatmapGrid.levelFor(key.zoom)
+        val shift = level - key.zoom
+        val firstX = key.col shl shift
+        val firstY = key.row shl shift
+        val cellsPerTile = 1 shl shift
+        val cells = heatmapDao.getCells(
+            level = level,
+            xMin = firstX - 1,
+            xMax = firstX + cellsPerTile,
+            yMin = firstY - 1,
+            yMax = firstY + cellsPerTile
+        )
+
+        val data = if (cells.isEmpty()) {
+            EMPTY
+        } else {
+            val bitmap = bitmapPool.get(TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888)
+                ?: Bitmap.createBitmap(TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888)
+            try {
+                bitmap.eraseColor(Color.TRANSPARENT)
+                val canvas = Canvas(bitmap)
+                val paint = Paint(Paint.ANTI_ALIAS_FLAG).apply { style = Paint.Style.FILL }
+                val cellPx = TILE_SIZE.toFloat() / cellsPerTile
+                for (cell in cells) {
+                    paint.color = HeatmapGrid.color(HeatmapGrid.intensity(cell.count, cell.dwellMs, metric))
+                    canvas.drawCircle(
+                        (cell.x - firstX + 0.5f) * cellPx,
+                        (cell.y - firstY + 0.5f) * cellPx,
+                        cellPx * CELL_RADIUS,
+                        paint
+                    )
+                }
+                val out = ByteArrayOutputStream()
+                bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)
+                out.toByteArray()
+            } finally {
+                bitmapPool.put(bitmap)
+            }
+        }
+
+        synchronized(lock) {
+            if (generation == renderedGeneration) cache.put(key, data)
+        }
+        return data.takeIf { it.isNotEmpty() }
+    }
+
+    private fun readState(): Long? {
+        return try {
+            stateFile?.takeIf { it.exists() }?.readText()?.trim()?.toLongOrNull()
+        } catch (e: IOException) {
+            null
+        }
+    }
+
+    private fun writeState(lastId: Long) {
+        val file = stateFile ?: return
+        try {
+            file.parentFile?.mkdirs()
+            file.writeText(lastId.toString())
+        } catch (e: IOException) {
+            // Ohne Stand wird der Disk-Cache beim nächsten Start verworfen
+        }
+    }
+
+    companion object {
+        private const val TILE_SIZE = 256
+        const val PROVIDER_ID = "heatmap"
+
+        // Radius eines Zellen-Kreises in Zellbreiten (> 0.5: Nachbarn überlappen weich)
+        private const val CELL_RADIUS = 0.75f
+
+        // Cache-Eintrag für Tiles ohne Besuche
+        private val EMPTY = ByteArray(0)
+
+        /**
+         * Heatmap mit Disk-Cache in cacheDir/heatmap_tiles
+         */
+        fun create(context: Context, bitmapPool: TileBitmapPool): HeatmapTiles {
+            val cache = TileCache(
+                memory = MemoryTileCache(AppConstants.Heatmap.MEMORY_CACHE_MAX_BYTES),
+                disk = DiskTileCache(
+                    directory = File(context.cacheDir, AppConstants.Heatmap.CACHE_DIR),
+                    maxBytes = AppConstants.Heatmap.DISK_CACHE_MAX_BYTES
+                ),
+                // Ungültig werden Heatmap-Tiles nur durch neue Locations, nicht durch Zeit
+                ttlMs = Long.MAX_VALUE
+            )
+            val stateFile = File(context.cacheDir, AppConstants.Heatmap.CACHE_DIR + ".state")
+            return HeatmapTiles(
+                heatmapDao = AppDatabase.getDatabase(context).heatmapDao(),
+                indexer = HeatmapIndexer.getInstance(context),
+                cache = cache,
+                bitmapPool = bitmapPool,
+                stateFile = stateFile
+            )
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.trackerapp.data.tile
+
+import com.example.trackerapp.core.constants.AppConstants
+import kotlinx.coroutines.suspendCancellableCoroutine
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import java.io.IOException
+import java.net.HttpURLConnection
+import java.util.concurrent.TimeUnit
+import kotlin.coroutines.resumeWithException
+
+/**
+ * Lädt Tiles per HTTP von den Servern eines [TileProvider]
+ *
+ * Basiert auf einem gemeinsamen OkHttpClient:
+ * - Connection Pool mit Keep-Alive: Verbindungen (inkl. TLS-Handshake) werden wiederverwendet
+ * - HTTP/2 wenn der Server es anbietet (mehrere Tiles über eine Verbindung)
+ * - Begrenzte Requests pro Host über den OkHttp-Dispatcher (gilt nur für enqueue,
+ *   deshalb wird hier asynchron gearbeitet und suspendiert statt blockiert)
+ * - Conditional Requests: mit [CachedTile.etag] / [CachedTile.lastModified] antwortet der
+ *   Server mit 304 und es werden keine Tile-Bytes übertragen
+ * - Server-Auswahl über [TileServerSelector]: schnellster gesunder Server zuerst,
+ *   Server mit offenem Circuit Breaker werden übersprungen
+ *
+ * @property client Gemeinsamer HTTP-Client (siehe [createClient])
+ * @property selector Latenz- und Fehlerstatistik pro Server
+ */
+class HttpTileFetcher(
+    private val client: OkHttpClient = createClient(),
+    val selector: TileServerSelector = TileServerSelector()
+) {
+
+    /**
+     * Ergebnis eines Tile-Downloads
+     */
+    sealed class FetchResult {
+        /**
+         * Neues Tile empfangen (HTTP 200)
+         */
+        class Success(
+            val data: ByteArray,
+            val etag: String?,
+            val lastModified: String?
+        ) : FetchResult()
+
+        /**
+         * Gecachtes Tile ist noch aktuell (HTTP 304)
+         */
+        data object NotModified : FetchResult()
+
+        /**
+         * Kein Server hat das Tile geliefert
+         */
+        data object Failed : FetchResult()
+    }
+
+    /**
+     * Probiert die Server in der Reihenfolge des [selector] bis einer funktioniert
+     *
+     * Jeder Versuch wird genau einmal mit Latenz (bis zum gelesenen Body) an den [selector]
+     * gemeldet. 5xx/429, Verbindungsfehler und abgebrochene Bodies zählen als Fehler des
+     * Servers, 404 nicht.
+     *
+     * @param cached Vorhandenes (abgelaufenes) Tile für die Revalidierung, null = normaler Download
+     * @param onResponse Wird gerufen sobald ein Server mit einem Tile antwortet (vor dem Body)
+     * @return [FetchResult.Success], [FetchResult.NotModified] oder [FetchResult.Failed]
+     */
+    suspend fun fetch(
+        provider: TileProvider,
+        zoom: Int,
+        col: Int,
+        row: Int,
+        cached: CachedTile? = null,
+        onResponse: () -> Unit = {}
+    ): FetchResult {
+        for (url in selector.rank(provider.urlsFor(zoom, col, row))) {
+            val request = Request.Builder()
+                .url(url)
+                .header("User-Agent", AppConstants.Map.USER_AGENT)
+                .apply {
+                    cached?.etag?.let { header("If-None-Match", it) }
+                    cached?.lastModified?.let { header("If-Modified-Since", it) }
+                }
+                .build()
+
+            val startNanos = System.nanoTime()
+            val result = try {
+                client.newCall(request).await().use { response ->
+                    val fetched = when {
+                        response.code == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null -> {
+                            FetchResult.NotModified
+                        }
+                        response.isSuccessful -> response.body?.let { body ->
+                            onResponse()
+                            FetchResult.Success(
+                                data = body.bytes(),
+                                etag = response.header("ETag"),
+                                lastModified = response.header("Last-Modified")
+                            )
+                        }
+                        else -> null
+                    }
+                    // Erst nach dem Body melden: bricht das Lesen ab, zählt nur der Fehler
+                    val healthy = response.code < 500 && response.code != HTTP_TOO_MANY_REQUESTS
+                    selector.record(url, healthy, elapsedMs(startNanos))
+                    fetched
+                }
+            } catch (e: IOException) {
+                // Probiere nächsten Server
+                selector.record(url, success = false, latencyMs = elapsedMs(startNanos))
+                null
+            }
+            if (result != null) return result
+        }
+
+        // Alle Server fehlgeschlagen
+        return FetchResult.Failed
+    }
+
+    private fun elapsedMs(startNanos: Long): Long =
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+
+    companion object {
+        private const val HTTP_TOO_MANY_REQUESTS = 429
+
+        /**
+         * Erstellt den Tile-Client
+         *
+         * @param maxRequests Maximale parallele Requests insgesamt
+         * @param maxRequestsPerHost Maximale parallele Requests pro Tile-Server
+         */
+        fun createClient(
+            maxRequests: Int = AppConstants.Tiles.MAX_PARALLEL_REQUESTS,
+            maxRequestsPerHost: Int = AppConstants.Tiles.MAX_REQUESTS_PER_HOST
+        ): OkHttpClient {
+            val dispatcher = Dispatcher().apply {
+                this.maxRequests = maxRequests
+                this.maxRequestsPerHost = maxRequestsPerHost
+            }
+            return OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(
+                    ConnectionPool(
+                        maxRequestsPerHost,
+                        AppConstants.Tiles.KEEP_ALIVE_MS,
+                        TimeUnit.MILLISECONDS
+                    )
+                )
+                .protocols(listOf(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(AppConstants.Tiles.CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .readTimeout(AppConstants.Tiles.READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .build()
+        }
+    }
+}
+
+/**
+ * Führt den Call asynchron aus und suspendiert bis zur Antwort
+ *
+ * Abbruch der Coroutine bricht auch den HTTP-Call ab.
+ */
+private suspend fun Call.await(): Response = suspendCancellableCoroutine { continuation ->
+    continuation.invokeOnCancellation { cancel() }
+    enqueue(object : Callback {
+        override fun onResponse(call: Call, response: Response) {
+            continuation.resume(response) { response.close() }
+        }
+
+        override fun onFailure(call: Call, e: IOException) {
+            continuation.resumeWithException(e)
+        }
+    })
+}
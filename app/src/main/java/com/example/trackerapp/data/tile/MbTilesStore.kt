@@ -0,0 +1,207 @@
+package com.example.trackerapp.data.tile
+
+import android.database.DatabaseUtils
+import android.database.sqlite.SQLiteDatabase
+import java.io.Closeable
+import java.io.File
+
+/**
+ * Offline-Tiles in einer MBTiles-Datei (SQLite)
+ *
+ * Schema nach MBTiles 1.3:
+ * - metadata(name, value)
+ * - tiles(zoom_level, tile_column, tile_row, tile_data) mit Unique-Index
+ *
+ * MBTiles speichert Zeilen im TMS-Schema (y = 0 im Süden), die App arbeitet
+ * mit XYZ (y = 0 im Norden) - die Umrechnung passiert hier.
+ *
+ * Die Datei wird erst beim ersten Schreiben angelegt. Existiert sie nicht,
+ * liefert [getTile] sofort null ohne SQLite zu öffnen.
+ *
+ * Läuft im WAL-Modus: Lesen während eines Region-Downloads blockiert nicht.
+ *
+ * @property file Pfad der .mbtiles-Datei
+ * @property providerId [TileProvider.id] dessen Tiles die Datei enthält
+ */
+class MbTilesStore(
+    val file: File,
+    val providerId: String
+) : Closeable {
+
+    @Volatile
+    private var database: SQLiteDatabase? = null
+
+    @Volatile
+    private var available = file.exists()
+
+    /**
+     * Gibt es überhaupt Offline-Tiles?
+     */
+    val isAvailable: Boolean
+        get() = available
+
+    /**
+     * Liest ein Tile (XYZ-Koordinaten)
+     *
+     * @return Tile-Bytes oder null wenn das Tile nicht offline vorhanden ist
+     */
+    fun getTile(zoom: Int, col: Int, row: Int): ByteArray? {
+        if (!available) return null
+        val db = open()
+        db.rawQuery(
+            "SELECT tile_data FROM tiles WHERE zoom_level = ? AND tile_column = ? AND tile_row = ?",
+            arrayOf(zoom.toString(), col.toString(), tmsRow(zoom, row).toString())
+        ).use { cursor ->
+            return if (cursor.moveToFirst()) cursor.getBlob(0) else null
+        }
+    }
+
+    fun hasTile(zoom: Int, col: Int, row: Int): Boolean {
+        if (!available) return false
+        return DatabaseUtils.longForQuery(
+            open(),
+            "SELECT COUNT(*) FROM tiles WHERE zoom_level = ? AND tile_column = ? AND tile_row = ?",
+            arrayOf(zoom.toString(), col.toString(), tmsRow(zoom, row).toString())
+        ) > 0
+    }
+
+    /**
+     * Schreibt mehrere Tiles in einer Transaktion
+     *
+     * Einzelne Inserts wären pro Tile ein fsync - beim Region-Download viel zu langsam.
+     */
+    fun putTiles(tiles: List<Pair<TileKey, ByteArray>>) {
+        if (tiles.isEmpty()) return
+        val db = open()
+        val statement = db.compileStatement(
+            "INSERT OR REPLACE INTO tiles (zoom_level, tile_column, tile_row, tile_data) VALUES (?, ?, ?, ?)"
+        )
+        db.beginTransaction()
+        try {
+            for ((key, data) in tiles) {
+                statement.clearBindings()
+                statement.bindLong(1, key.zoom.toLong())
+                statement.bindLong(2, key.col.toLong())
+                statement.bindLong(3, tmsRow(key.zoom, key.row).toLong())
+                statement.bindBlob(4, data)
+                statement.executeInsert()
+            }
+            db.setTransactionSuccessful()
+        } finally {
+            db.endTransaction()
+            statement.close()
+        }
+    }
+
+    /**
+     * Anzahl gespeicherter Tiles
+     */
+    fun tileCount(): Long {
+        if (!available) return 0L
+        return DatabaseUtils.queryNumEntries(open(), "tiles")
+    }
+
+    /**
+     * Wert aus der metadata-Tabelle (z.B. "maxzoom", "format")
+     */
+    fun metadata(name: String): String? {
+        if (!available) return null
+        return metadata(open(), name)
+    }
+
+    /**
+     * Erweitert bounds/minzoom/maxzoom in den Metadaten um die Region
+     */
+    fun addRegionMetadata(region: TileRegion) {
+        val db = open()
+        val bounds = metadata(db, "bounds")?.split(",")?.mapNotNull { it.trim().toDoubleOrNull() }
+        val merged = if (bounds != null && bounds.size == 4) {
+            listOf(
+                minOf(bounds[0], region.west),
+                minOf(bounds[1], region.south),
+                maxOf(bounds[2], region.east),
+                maxOf(bounds[3], region.north)
+            )
+        } else {
+            listOf(region.west, region.south, region.east, region.north)
+        }
+        val minZoom = metadata(db, "minzoom")?.toIntOrNull()?.let { minOf(it, region.minZoom) } ?: region.minZoom
+        val maxZoom = metadata(db, "maxzoom")?.toIntOrNull()?.let { maxOf(it, region.maxZoom) } ?: region.maxZoom
+
+        db.beginTransaction()
+        try {
+            setMetadata(db, "bounds", merged.joinToString(","))
+            setMetadata(db, "minzoom", minZoom.toString())
+            setMetadata(db, "maxzoom", maxZoom.toString())
+            db.setTransactionSuccessful()
+        } finally {
+            db.endTransaction()
+        }
+    }
+
+    /**
+     * Löscht alle Offline-Tiles (Datei wird entfernt)
+     */
+    @Synchronized
+    fun delete() {
+        close()
+        available = false
+        SQLiteDatabase.deleteDatabase(file)
+    }
+
+    @Synchronized
+    override fun close() {
+        database?.close()
+        database = null
+    }
+
+    @Synchronized
+    private fun open(): SQLiteDatabase {
+        database?.let { return it }
+
+        file.parentFile?.mkdirs()
+        val db = SQLiteDatabase.openDatabase(
+            file.path,
+            null,
+            SQLiteDatabase.OPEN_READWRITE or
+                SQLiteDatabase.CREATE_IF_NECESSARY or
+                SQLiteDatabase.ENABLE_WRITE_AHEAD_LOGGING
+        )
+        createSchema(db)
+        database = db
+        available = true
+        return db
+    }
+
+    private fun createSchema(db: SQLiteDatabase) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS metadata (name TEXT, value TEXT)")
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS name ON metadata (name)")
+        db.execSQL(
+            "CREATE TABLE IF NOT EXISTS tiles " +
+                "(zoom_level INTEGER, tile_column INTEGER, tile_row INTEGER, tile_data BLOB)"
+        )
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS tile_index ON tiles (zoom_level, tile_column, tile_row)")
+
+        if (metadata(db, "name") == null) {
+            setMetadata(db, "name", providerId)
+            setMetadata(db, "format", "png")
+            setMetadata(db, "type", "baselayer")
+            setMetadata(db, "version", "1")
+        }
+    }
+
+    private fun metadata(db: SQLiteDatabase, name: String): String? {
+        db.rawQuery("SELECT value FROM metadata WHERE name = ?", arrayOf(name)).use { cursor ->
+            return if (cursor.moveToFirst()) cursor.getString(0) else null
+        }
+    }
+
+    private fun setMetadata(db: SQLiteDatabase, name: String, value: String) {
+        db.execSQL("INSERT OR REPLACE INTO metadata (name, value) VALUES (?, ?)", arrayOf(name, value))
+    }
+
+    /**
+     * XYZ ↔ TMS: Zeilen-Index gespiegelt (symmetrisch, gilt in beide Richtungen)
+     */
+    private fun tmsRow(zoom: Int, row: Int): Int = (1 shl zoom) - 1 - row
+}
@@ -0,0 +1,69 @@
+package com.example.trackerapp.data.tile
+
+/**
+ * In-Memory LRU-Cache für Tiles, begrenzt nach Bytes (nicht nach Anzahl)
+ *
+ * LinkedHashMap mit accessOrder = true liefert die LRU-Reihenfolge:
+ * der älteste Eintrag steht vorne und wird zuerst verdrängt.
+ * Thread-safe über synchronized, da MapCompose Tiles parallel anfragt.
+ *
+ * @property maxBytes Maximale Summe aller Tile-Bytes
+ */
+class MemoryTileCache(
+    val maxBytes: Long
+) {
+    private val entries = LinkedHashMap<TileKey, CachedTile>(64, 0.75f, true)
+    private var currentBytes = 0L
+
+    /**
+     * Aktuell belegte Bytes
+     */
+    val sizeBytes: Long
+        @Synchronized get() = currentBytes
+
+    /**
+     * Anzahl gecachter Tiles
+     */
+    val count: Int
+        @Synchronized get() = entries.size
+
+    @Synchronized
+    fun get(key: TileKey): CachedTile? = entries[key]
+
+    @Synchronized
+    fun put(key: TileKey, tile: CachedTile) {
+        // Einzelne Tiles größer als der ganze Cache werden nicht gecacht
+        if (tile.data.size > maxBytes) return
+
+        entries.put(key, tile)?.let { previous ->
+            currentBytes -= previous.data.size
+        }
+        currentBytes += tile.data.size
+        trimToSize()
+    }
+
+    @Synchronized
+    fun remove(key: TileKey) {
+        entries.remove(key)?.let { removed ->
+            currentBytes -= removed.data.size
+        }
+    }
+
+    @Synchronized
+    fun clear() {
+        entries.clear()
+        currentBytes = 0L
+    }
+
+    /**
+     * Verdrängt die am längsten nicht benutzten Tiles bis das Limit eingehalten ist
+     */
+    private fun trimToSize() {
+        val iterator = entries.entries.iterator()
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            val eldest = iterator.next()
+            currentBytes -= eldest.value.data.size
+            iterator.remove()
+        }
+    }
+}
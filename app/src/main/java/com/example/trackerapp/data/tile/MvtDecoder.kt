@@ -0,0 +1,284 @@
+package com.example.trackerapp.data.tile
+
+import java.io.ByteArrayInputStream
+import java.util.zip.GZIPInputStream
+
+/**
+ * Dekodiert Mapbox Vector Tiles (Protobuf) ohne Protobuf-Bibliothek
+ *
+ * Liest nur die Felder aus vector_tile.proto, die zum Zeichnen gebraucht werden
+ * (Layer-Name, Extent, Keys/Values, Feature-Typ, Tags, Geometrie). Unbekannte Felder
+ * werden übersprungen. Tiles aus MBTiles-Paketen sind meist gzip-komprimiert -
+ * das wird am Header erkannt.
+ */
+object MvtDecoder {
+
+    // vector_tile.proto Feldnummern
+    private const val TILE_LAYERS = 3
+    private const val LAYER_NAME = 1
+    private const val LAYER_FEATURES = 2
+    private const val LAYER_KEYS = 3
+    private const val LAYER_VALUES = 4
+    private const val LAYER_EXTENT = 5
+    private const val FEATURE_ID = 1
+    private const val FEATURE_TAGS = 2
+    private const val FEATURE_TYPE = 3
+    private const val FEATURE_GEOMETRY = 4
+
+    // Geometrie-Kommandos
+    private const val CMD_MOVE_TO = 1
+    private const val CMD_LINE_TO = 2
+    private const val CMD_CLOSE_PATH = 7
+
+    private const val DEFAULT_EXTENT = 4096
+
+    /**
+     * @throws IllegalArgumentException bei kaputtem Protobuf
+     */
+    fun decode(data: ByteArray): VectorTile {
+        val bytes = if (isGzip(data)) gunzip(data) else data
+        val reader = ProtoReader(bytes, 0, bytes.size)
+        val layers = ArrayList<VectorTile.Layer>()
+        while (reader.hasMore()) {
+            val tag = reader.readTag()
+            if (tag.field == TILE_LAYERS && tag.wireType == WIRE_LENGTH) {
+                layers += decodeLayer(reader.readMessage())
+            } else {
+                reader.skip(tag.wireType)
+            }
+        }
+        return VectorTile(layers)
+    }
+
+    fun isGzip(data: ByteArray): Boolean =
+        data.size >= 2 && data[0] == 0x1F.toByte() && data[1] == 0x8B.toByte()
+
+    private fun gunzip(data: ByteArray): ByteArray =
+        GZIPInputStream(ByteArrayInputStream(data)).use { it.readBytes() }
+
+    private fun decodeLayer(reader: ProtoReader): VectorTile.Layer {
+        var name = ""
+        var extent = DEFAULT_EXTENT
+        val keys = ArrayList<String>()
+        val values = ArrayList<Any>()
+        // Features erst nach Keys/Values auflösen - die Reihenfolge im Protobuf ist frei
+        val rawFeatures = ArrayList<ProtoReader>()
+
+        while (reader.hasMore()) {
+            val tag = reader.readTag()
+            when {
+                tag.field == LAYER_NAME && tag.wireType == WIRE_LENGTH -> name = reader.readString()
+                tag.field == LAYER_FEATURES && tag.wireType == WIRE_LENGTH -> rawFeatures += reader.readMessage()
+                tag.field == LAYER_KEYS && tag.wireType == WIRE_LENGTH -> keys += reader.readString()
+                tag.field == LAYER_VALUES && tag.wireType == WIRE_LENGTH -> values += decodeValue(reader.readMessage())
+                tag.field == LAYER_EXTENT && tag.wireType == WIRE_VARINT -> extent = reader.readVarint().toInt()
+                else -> reader.skip(tag.wireType)
+            }
+        }
+        return VectorTile.Layer(name, extent, rawFeatures.map { decodeFeature(it, keys, values) })
+    }
+
+    private fun decodeValue(reader: ProtoReader): Any {
+        var value: Any = ""
+        while (reader.hasMore()) {
+            val tag = reader.readTag()
+            // Value: string, float, double, int64, uint64, sint64, bool
+            value = when (tag.field) {
+                1 -> reader.readString()
+                2 -> Float.fromBits(reader.readFixed32()).toDouble()
+                3 -> Double.fromBits(reader.readFixed64())
+                4, 5 -> reader.readVarint()
+                6 -> zigZag(reader.readVarint())
+                7 -> reader.readVarint() != 0L
+                else -> {
+                    reader.skip(tag.wireType)
+                    value
+                }
+            }
+        }
+        return value
+    }
+
+    private fun decodeFeature(reader: ProtoReader, keys: List<String>, values: List<Any>): VectorTile.Feature {
+        var id = 0L
+        var type = VectorTile.GeometryType.UNKNOWN
+        var tags: IntArray? = null
+        var commands: IntArray? = null
+
+        while (reader.hasMore()) {
+            val tag = reader.readTag()
+            when {
+                tag.field == FEATURE_ID && tag.wireType == WIRE_VARINT -> id = reader.readVarint()
+                tag.field == FEATURE_TAGS && tag.wireType == WIRE_LENGTH -> tags = reader.readPackedInts()
+                tag.field == FEATURE_TYPE && tag.wireType == WIRE_VARINT -> {
+                    type = VectorTile.GeometryType.values().getOrElse(reader.readVarint().toInt()) {
+                        VectorTile.GeometryType.UNKNOWN
+                    }
+                }
+                tag.field == FEATURE_GEOMETRY && tag.wireType == WIRE_LENGTH -> commands = reader.readPackedInts()
+                else -> reader.skip(tag.wireType)
+            }
+        }
+
+        val properties = HashMap<String, Any>()
+        tags?.let {
+            var i = 0
+            while (i + 1 < it.size) {
+                val key = keys.getOrNull(it[i])
+                val value = values.getOrNull(it[i + 1])
+                if (key != null && value != null) properties[key] = value
+                i += 2
+            }
+        }
+        return VectorTile.Feature(id, type, properties, commands?.let(::decodeGeometry) ?: emptyList())
+    }
+
+    /**
+     * Kommando-Strom → Teile mit absoluten Koordinaten
+     *
+     * Jedes MoveTo beginnt einen neuen Teil, Parameter sind zigzag-kodierte Deltas
+     * relativ zum vorherigen Punkt (auch über Teile hinweg).
+     */
+    private fun decodeGeometry(commands: IntArray): List<IntArray> {
+        val parts = ArrayList<IntArray>()
+        var current = IntArrayBuilder()
+        var x = 0
+        var y = 0
+        var i = 0
+        while (i < commands.size) {
+            val command = commands[i] and 0x7
+            val count = commands[i] ushr 3
+            i++
+            when (command) {
+                CMD_MOVE_TO, CMD_LINE_TO -> {
+                    if (command == CMD_MOVE_TO && current.size > 0) {
+                        parts += current.toArray()
+                        current = IntArrayBuilder()
+                    }
+                    repeat(count) {
+                        if (i + 1 >= commands.size) return finish(parts, current)
+                        x += zigZag(commands[i].toLong() and 0xFFFFFFFFL).toInt()
+                        y += zigZag(commands[i + 1].toLong() and 0xFFFFFFFFL).toInt()
+                        current.add(x)
+                        current.add(y)
+                        i += 2
+                    }
+                }
+                CMD_CLOSE_PATH -> Unit
+                // Unbekanntes Kommando: Rest nicht interpretierbar
+                else -> return finish(parts, current)
+            }
+        }
+        return finish(parts, current)
+    }
+
+    private fun finish(parts: ArrayList<IntArray>, current: IntArrayBuilder): List<IntArray> {
+        if (current.size > 0) parts += current.toArray()
+        return parts
+    }
+
+    private fun zigZag(n: Long): Long = (n ushr 1) xor -(n and 1)
+
+    private const val WIRE_VARINT = 0
+    private const val WIRE_FIXED64 = 1
+    private const val WIRE_LENGTH = 2
+    private const val WIRE_FIXED32 = 5
+
+    private class Tag(val field: Int, val wireType: Int)
+
+    /**
+     * Minimaler Protobuf-Leser über einem Ausschnitt des Byte-Arrays (ohne Kopien)
+     */
+    private class ProtoReader(private val data: ByteArray, private var pos: Int, private val limit: Int) {
+
+        fun hasMore(): Boolean = pos < limit
+
+        fun readTag(): Tag {
+            val key = readVarint().toInt()
+            return Tag(key ushr 3, key and 0x7)
+        }
+
+        fun readVarint(): Long {
+            var result = 0L
+            var shift = 0
+            while (shift < 64) {
+                require(pos < limit) { "truncated varint" }
+                val b = data[pos++].toInt()
+                result = result or ((b and 0x7F).toLong() shl shift)
+                if (b and 0x80 == 0) return result
+                shift += 7
+            }
+            throw IllegalArgumentException("malformed varint")
+        }
+
+        fun readFixed32(): Int {
+            require(pos + 4 <= limit) { "truncated fixed32" }
+            var result = 0
+            for (i in 0 until 4) result = result or ((data[pos + i].toInt() and 0xFF) shl (8 * i))
+            pos += 4
+            return result
+        }
+
+        fun readFixed64(): Long {
+            require(pos + 8 <= limit) { "truncated fixed64" }
+            var result = 0L
+            for (i in 0 until 8) result = result or ((data[pos + i].toLong() and 0xFF) shl (8 * i))
+            pos += 8
+            return result
+        }
+
+        fun readMessage(): ProtoReader {
+            val length = readLength()
+            val reader = ProtoReader(data, pos, pos + length)
+            pos += length
+            return reader
+        }
+
+        fun readString(): String {
+            val length = readLength()
+            val value = String(data, pos, length, Charsets.UTF_8)
+            pos += length
+            return value
+        }
+
+        fun readPackedInts(): IntArray {
+            val length = readLength()
+            val end = pos + length
+            val values = IntArrayBuilder()
+            val packed = ProtoReader(data, pos, end)
+            while (packed.hasMore()) values.add(packed.readVarint().toInt())
+            pos = end
+            return values.toArray()
+        }
+
+        fun skip(wireType: Int) {
+            when (wireType) {
+                WIRE_VARINT -> readVarint()
+                WIRE_FIXED64 -> pos += 8
+                WIRE_LENGTH -> pos += readLength()
+                WIRE_FIXED32 -> pos += 4
+                else -> throw IllegalArgumentException("unsupported wire type $wireType")
+            }
+            require(pos <= limit) { "truncated field" }
+        }
+
+        private fun readLength(): Int {
+            val length = readVarint().toInt()
+            require(length >= 0 && pos + length <= limit) { "truncated message" }
+            return length
+        }
+    }
+
+    private class IntArrayBuilder {
+        private var values = IntArray(16)
+        var size = 0
+            private set
+
+        fun add(value: Int) {
+            if (size == values.size) values = values.copyOf(size * 2)
+            values[size++] = value
+        }
+
+        fun toArray(): IntArray = values.copyOf(size)
+    }
+}
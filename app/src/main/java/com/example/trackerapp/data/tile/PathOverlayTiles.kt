@@ -0,0 +1,277 @@
+package com.example.trackerapp.data.tile
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Color
+import android.graphics.Paint
+import android.graphics.Path
+import com.example.trackerapp.core.constants.AppConstants
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.asSharedFlow
+import kotlinx.coroutines.withContext
+import java.io.ByteArrayOutputStream
+import java.io.Closeable
+import java.io.File
+import java.io.IOException
+
+/**
+ * Aufgezeichneter Pfad als vorgerasterte, transparente Overlay-Tiles
+ *
+ * Gleiches z/x/y-Raster wie die Basiskarte, als zweiter Layer auf der MapState.
+ * Die Karte zeichnet damit pro Frame nur Bitmaps - die Kosten hängen nicht mehr von der
+ * Anzahl der Punkte ab.
+ *
+ * - Tiles werden erst bei Bedarf gerastert, auf einem eigenen Dispatcher mit [workers]
+ *   Threads; pro Tile nur die Segmente aus dem [PathTileIndex]
+ * - Fertige Tiles liegen als PNG im [cache] (Memory + Disk)
+ * - [sync] übernimmt neue Punkte: nur die Tiles, die neue Segmente berühren, werden aus
+ *   dem Cache entfernt. [changes] meldet das, damit die Karte ihre Tiles neu lädt.
+ * - Der Stand des Disk-Caches (erste/letzte Location-ID, Anzahl) steht in [stateFile].
+ *   Nach einem Neustart werden nur die Tiles der inzwischen dazugekommenen Punkte verworfen.
+ *   Passt die History nicht mehr dazu (z.B. gelöscht), wird alles verworfen.
+ *
+ * Unterhalb von [AppConstants.Path.OVERLAY_MIN_ZOOM] gibt es keine Overlay-Tiles: dort
+ * liegt fast der ganze Pfad in wenigen Tiles, die jeder neue Punkt ungültig machen würde.
+ * PathScreen zeichnet dort die vereinfachte Linie.
+ */
+class PathOverlayTiles(
+    private val cache: TileCache,
+    private val bitmapPool: TileBitmapPool,
+    private val stateFile: File?,
+    workers: Int = AppConstants.Path.OVERLAY_RENDER_WORKERS
+) : Closeable {
+    private val dispatcher = Dispatchers.Default.limitedParallelism(workers)
+    private val scope = CoroutineScope(SupervisorJob() + dispatcher)
+    private val singleFlight = SingleFlight<TileKey, ByteArray?>(scope)
+
+    private val lock = Any()
+    private val index = PathTileIndex(PROVIDER_ID)
+
+    // Bis hier ist der Disk-Cache aktuell (aus stateFile, nur vor dem ersten sync)
+    private var persisted: SyncState? = readState()
+
+    // Zählt Invalidierungen: ein Tile, das während eines sync gerastert wurde, wird nicht gecacht
+    private var generation = 0L
+
+    private val _changes = MutableSharedFlow<Unit>(
+        extraBufferCapacity = 1,
+        onBufferOverflow = BufferOverflow.DROP_OLDEST
+    )
+
+    /**
+     * Meldet, dass sich Overlay-Tiles geändert haben
+     */
+    val changes: SharedFlow<Unit> = _changes.asSharedFlow()
+
+    /**
+     * Übernimmt den aktuellen Pfad (Location-IDs und MapCompose-Koordinaten, älteste zuerst)
+     *
+     * Wächst der Pfad nur hinten, werden die neuen Punkte angehängt. Sonst wird der Index
+     * neu aufgebaut und der Cache geleert. Nicht auf dem Main-Thread aufrufen.
+     */
+    fun sync(ids: LongArray, xs: DoubleArray, ys: DoubleArray) {
+        var changed = false
+        synchronized(lock) {
+            // Noch nichts geladen (z.B. Startwert des Flows): Cache-Stand nicht anfassen
+            if (ids.isEmpty() && index.size == 0) return
+            val known = knownPrefix(ids)
+            if (known < 0 || (known == 0 && index.size == 0)) {
+                // Unbekannter Cache-Stand oder andere History: neu aufbauen
+                index.clear()
+                cache.clear()
+                generation++
+                changed = true
+                appendAll(ids, xs, ys, from = 0, invalidate = false)
+            } else if (index.size == 0 && known > 0) {
+                // Kalter Start: was im Disk-Cache liegt, ist bis [known] aktuell
+                appendAll(ids, xs, ys, from = 0, until = known, invalidate = false)
+                changed = appendAll(ids, xs, ys, from = known, invalidate = true)
+            } else {
+                changed = appendAll(ids, xs, ys, from = index.size, invalidate = true)
+            }
+            persisted = null
+            if (ids.isNotEmpty()) writeState(SyncState(ids.first(), ids.last(), ids.size))
+        }
+        if (changed) _changes.tryEmit(Unit)
+    }
+
+    /**
+     * Anzahl Punkte, die schon im Index (oder im Disk-Cache) sind, -1 wenn die History
+     * nicht mehr dazu passt
+     */
+    private fun knownPrefix(ids: LongArray): Int {
+        if (index.size > 0) {
+            val size = index.size
+            val matches = ids.size >= size && ids[0] == index.id(0) && ids[size - 1] == index.id(size - 1)
+            return if (matches) size else -1
+        }
+        val state = persisted ?: return if (stateFile?.exists() == true) -1 else 0
+        val matches = ids.size >= state.count && state.count > 0 &&
+            ids[0] == state.firstId && ids[state.count - 1] == state.lastId
+        return if (matches) state.count else -1
+    }
+
+    /**
+     * @return true wenn Tiles verworfen wurden
+     */
+    private fun appendAll(
+        ids: LongArray,
+        xs: DoubleArray,
+        ys: DoubleArray,
+        from: Int,
+        until: Int = ids.size,
+        invalidate: Boolean
+    ): Boolean {
+        var changed = false
+        for (i in from until until) {
+            val touched = index.append(ids[i], xs[i], ys[i])
+            if (!invalidate) continue
+            if (touched == null) {
+                cache.clear()
+                generation++
+                changed = true
+            } else if (touched.isNotEmpty()) {
+                touched.forEach { cache.remove(it) }
+                generation++
+                changed = true
+            }
+        }
+        return changed
+    }
+
+    /**
+     * Overlay-Tile als PNG
+     *
+     * @return null wenn der Pfad das Tile nicht berührt
+     */
+    suspend fun renderTile(zoom: Int, col: Int, row: Int): ByteArray? {
+        if (zoom < AppConstants.Path.OVERLAY_MIN_ZOOM) return null
+        val key = TileKey(PROVIDER_ID, zoom, col, row)
+        cache.get(key)?.let { return it.data }
+
+        return singleFlight.run(key) {
+            withContext(dispatcher) { render(key) }
+        }
+    }
+
+    /**
+     * Blockierende Variante für MapCompose-Worker ([BlockingTileLoad])
+     */
+    fun renderTileBlocking(zoom: Int, col: Int, row: Int): ByteArray? {
+        if (zoom < AppConstants.Path.OVERLAY_MIN_ZOOM) return null
+        cache.memory.get(TileKey(PROVIDER_ID, zoom, col, row))?.let { return it.data }
+
+        return BlockingTileLoad.run(scope) { renderTile(zoom, col, row) }
+    }
+
+    override fun close() {
+        scope.cancel()
+    }
+
+    private fun render(key: TileKey): ByteArray? {
+        // Pixel-Koordinaten der Segmente unter Lock übernehmen, gezeichnet wird ohne
+        val tiles = (1 shl key.zoom).toDouble() * TILE_SIZE
+        val originX = key.col * TILE_SIZE.toDouble()
+        val originY = key.row * TILE_SIZE.toDouble()
+        val path = Path()
+        val renderedGeneration: Long
+        synchronized(lock) {
+            renderedGeneration = generation
+            val segments = index.segmentsFor(key.zoom, key.col, key.row)
+            if (segments.isEmpty()) return null
+            var previous = -2
+            for (segment in segments) {
+                // Aufeinanderfolgende Segmente als eine Linie (saubere Ecken)
+                if (segment != previous + 1) {
+                    path.moveTo(
+                        (index.x(segment) * tiles - originX).toFloat(),
+                        (index.y(segment) * tiles - originY).toFloat()
+                    )
+                }
+                path.lineTo(
+                    (index.x(segment + 1) * tiles - originX).toFloat(),
+                    (index.y(segment + 1) * tiles - originY).toFloat()
+                )
+                previous = segment
+            }
+        }
+
+        val bitmap = bitmapPool.get(TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888)
+            ?: Bitmap.createBitmap(TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888)
+        try {
+            bitmap.eraseColor(Color.TRANSPARENT)
+            val paint = Paint(Paint.ANTI_ALIAS_FLAG).apply {
+                style = Paint.Style.STROKE
+                strokeWidth = AppConstants.Path.OVERLAY_LINE_WIDTH_PX
+                strokeCap = Paint.Cap.ROUND
+                strokeJoin = Paint.Join.ROUND
+                color = AppConstants.Path.LINE_COLOR
+            }
+            Canvas(bitmap).drawPath(path, paint)
+            val out = ByteArrayOutputStream()
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)
+            val data = out.toByteArray()
+            synchronized(lock) {
+                if (generation == renderedGeneration) cache.put(key, data)
+            }
+            return data
+        } finally {
+            bitmapPool.put(bitmap)
+        }
+    }
+
+    private class SyncState(val firstId: Long, val lastId: Long, val count: Int)
+
+    private fun readState(): SyncState? {
+        val parts = try {
+            stateFile?.takeIf { it.exists() }?.readText()?.trim()?.split(" ")
+        } catch (e: IOException) {
+            null
+        } ?: return null
+        if (parts.size != 3) return null
+        return SyncState(
+            firstId = parts[0].toLongOrNull() ?: return null,
+            lastId = parts[1].toLongOrNull() ?: return null,
+            count = parts[2].toIntOrNull() ?: return null
+        )
+    }
+
+    private fun writeState(state: SyncState) {
+        val file = stateFile ?: return
+        try {
+            file.parentFile?.mkdirs()
+            file.writeText("${state.firstId} ${state.lastId} ${state.count}")
+        } catch (e: IOException) {
+            // Ohne Stand wird beim nächsten Start alles neu gerastert
+        }
+    }
+
+    companion object {
+        private const val TILE_SIZE = 256
+        const val PROVIDER_ID = "path"
+
+        /**
+         * Overlay mit Disk-Cache in cacheDir/path_tiles
+         */
+        fun create(context: Context, bitmapPool: TileBitmapPool): PathOverlayTiles {
+            val cache = TileCache(
+                memory = MemoryTileCache(AppConstants.Path.OVERLAY_MEMORY_CACHE_MAX_BYTES),
+                disk = DiskTileCache(
+                    directory = File(context.cacheDir, AppConstants.Path.OVERLAY_CACHE_DIR),
+                    maxBytes = AppConstants.Path.OVERLAY_DISK_CACHE_MAX_BYTES
+                ),
+                // Ungültig werden Overlay-Tiles nur durch neue Punkte, nicht durch Zeit
+                ttlMs = Long.MAX_VALUE
+            )
+            val stateFile = File(context.cacheDir, AppConstants.Path.OVERLAY_CACHE_DIR + ".state")
+            return PathOverlayTiles(cache, bitmapPool, stateFile)
+        }
+    }
+}
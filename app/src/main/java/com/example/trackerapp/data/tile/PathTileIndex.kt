@@ -0,0 +1,213 @@
+package com.example.trackerapp.data.tile
+
+import com.example.trackerapp.core.constants.AppConstants
+import kotlin.math.floor
+
+/**
+ * Räumlicher Index eines aufgezeichneten Pfads für [PathOverlayTiles]
+ *
+ * - Punkte in MapCompose-Koordinaten (0..1), nur Anhängen (die History wächst hinten)
+ * - Segment i verbindet Punkt i und i + 1. Jedes Segment steht in den Zellen eines Rasters
+ *   auf [indexZoom], durch die es läuft - ein Tile fragt nur seine Zellen ab, nicht den
+ *   ganzen Pfad
+ * - [append] liefert die Tiles aller Overlay-Zoomstufen, die das neue Segment berührt
+ *   (inklusive Linienbreite): nur diese müssen neu gerastert werden
+ *
+ * Segmente über sehr viele Zellen (GPS-Lücken) kommen in eine eigene Liste, die jedes Tile
+ * prüft, statt in tausende Zellen.
+ *
+ * Nicht thread-safe - [PathOverlayTiles] synchronisiert.
+ *
+ * @property providerId Namespace der gelieferten [TileKey]s
+ * @property marginPx Halbe Linienbreite in Pixeln: so weit ragt ein Segment in Nachbar-Tiles
+ */
+class PathTileIndex(
+    private val providerId: String,
+    private val minZoom: Int = AppConstants.Path.OVERLAY_MIN_ZOOM,
+    private val maxZoom: Int = AppConstants.Tiles.MAX_ZOOM,
+    private val indexZoom: Int = AppConstants.Path.OVERLAY_INDEX_ZOOM,
+    private val marginPx: Double = AppConstants.Path.OVERLAY_LINE_WIDTH_PX / 2.0
+) {
+    private var ids = LongArray(1024)
+    private var xs = DoubleArray(1024)
+    private var ys = DoubleArray(1024)
+
+    var size = 0
+        private set
+
+    private val cells = HashMap<Long, IntList>()
+    private val longSegments = IntList()
+
+    fun id(index: Int): Long = ids[index]
+
+    fun x(index: Int): Double = xs[index]
+
+    fun y(index: Int): Double = ys[index]
+
+    fun lastId(): Long? = if (size == 0) null else ids[size - 1]
+
+    /**
+     * Hängt einen Punkt an
+     *
+     * @return Vom neuen Segment berührte Overlay-Tiles, null wenn es zu viele sind
+     *   (dann alles verwerfen). Leer beim ersten Punkt.
+     */
+    fun append(id: Long, x: Double, y: Double): Set<TileKey>? {
+        if (size == ids.size) {
+            ids = ids.copyOf(size * 2)
+            xs = xs.copyOf(size * 2)
+            ys = ys.copyOf(size * 2)
+        }
+        ids[size] = id
+        xs[size] = x
+        ys[size] = y
+        size++
+        if (size < 2) return emptySet()
+
+        val segment = size - 2
+        indexSegment(segment)
+
+        val touched = HashSet<TileKey>()
+        for (zoom in minZoom..maxZoom) {
+            val margin = marginPx / TILE_SIZE
+            val complete = forEachTile(segment, zoom, margin, MAX_TOUCHED_TILES - touched.size) { col, row ->
+                touched += TileKey(providerId, zoom, col, row)
+            }
+            if (!complete) return null
+        }
+        return touched
+    }
+
+    /**
+     * Start-Indizes der Segmente, die das Tile (inklusive Linienbreite) berühren können
+     *
+     * Aufsteigend sortiert, ohne Duplikate. Leer unterhalb von minZoom.
+     */
+    fun segmentsFor(zoom: Int, col: Int, row: Int): IntArray {
+        if (zoom < minZoom || size < 2) return IntArray(0)
+        val margin = marginPx / TILE_SIZE
+        val scale = (1 shl indexZoom).toDouble() / (1 shl zoom)
+        // Tile-Grenzen (plus Rand) in Zellen-Koordinaten
+        val cellMinX = floor((col - margin) * scale).toInt()
+        val cellMaxX = floor((col + 1 + margin) * scale).toInt()
+        val cellMinY = floor((row - margin) * scale).toInt()
+        val cellMaxY = floor((row + 1 + margin) * scale).toInt()
+
+        val result = IntList()
+        for (cy in cellMinY..cellMaxY) {
+            for (cx in cellMinX..cellMaxX) {
+                cells[cellKey(cx, cy)]?.let { result.addAll(it) }
+            }
+        }
+        result.addAll(longSegments)
+        return result.toSortedDistinctArray()
+    }
+
+    fun clear() {
+        size = 0
+        cells.clear()
+        longSegments.clear()
+    }
+
+    private fun indexSegment(segment: Int) {
+        val cellsOfSegment = ArrayList<Long>()
+        val complete = forEachTile(segment, indexZoom, 0.0, MAX_SEGMENT_CELLS) { cx, cy ->
+            cellsOfSegment += cellKey(cx, cy)
+        }
+        if (!complete) {
+            longSegments.add(segment)
+            return
+        }
+        for (key in cellsOfSegment) cells.getOrPut(key) { IntList() }.add(segment)
+    }
+
+    /**
+     * Alle Tiles auf [zoom], durch die das Segment (um [margin] Tiles verbreitert) läuft
+     *
+     * Spaltenweise: pro Tile-Spalte der y-Bereich des Segments in dieser Spalte.
+     *
+     * @return false wenn mehr als [limit] Tiles berührt werden (Aufzählung abgebrochen)
+     */
+    private inline fun forEachTile(
+        segment: Int,
+        zoom: Int,
+        margin: Double,
+        limit: Int,
+        action: (col: Int, row: Int) -> Unit
+    ): Boolean {
+        val tiles = (1 shl zoom).toDouble()
+        val last = (1 shl zoom) - 1
+        val x0 = xs[segment] * tiles
+        val y0 = ys[segment] * tiles
+        val x1 = xs[segment + 1] * tiles
+        val y1 = ys[segment + 1] * tiles
+
+        val colMin = floor(minOf(x0, x1) - margin).toInt().coerceIn(0, last)
+        val colMax = floor(maxOf(x0, x1) + margin).toInt().coerceIn(0, last)
+        var count = 0
+        for (col in colMin..colMax) {
+            // x-Bereich der Spalte (plus Rand), auf das Segment beschränkt
+            val xa = maxOf(col - margin, minOf(x0, x1))
+            val xb = minOf(col + 1 + margin, maxOf(x0, x1))
+            val ya: Double
+            val yb: Double
+            if (x1 == x0) {
+                ya = y0
+                yb = y1
+            } else {
+                ya = y0 + (y1 - y0) * (xa - x0) / (x1 - x0)
+                yb = y0 + (y1 - y0) * (xb - x0) / (x1 - x0)
+            }
+            val rowMin = floor(minOf(ya, yb) - margin).toInt().coerceIn(0, last)
+            val rowMax = floor(maxOf(ya, yb) + margin).toInt().coerceIn(0, last)
+            count += rowMax - rowMin + 1
+            if (count > limit) return false
+            for (row in rowMin..rowMax) action(col, row)
+        }
+        return true
+    }
+
+    private fun cellKey(cx: Int, cy: Int): Long = (cx.toLong() shl 32) or (cy.toLong() and 0xFFFFFFFFL)
+
+    /**
+     * Wachsende Int-Liste ohne Boxing
+     */
+    private class IntList {
+        private var values = IntArray(4)
+        var size = 0
+            private set
+
+        fun add(value: Int) {
+            if (size == values.size) values = values.copyOf(size * 2)
+            values[size++] = value
+        }
+
+        fun addAll(other: IntList) {
+            for (i in 0 until other.size) add(other.values[i])
+        }
+
+        fun clear() {
+            size = 0
+        }
+
+        fun toSortedDistinctArray(): IntArray {
+            val sorted = values.copyOf(size)
+            sorted.sort()
+            var distinct = 0
+            for (i in sorted.indices) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) sorted[distinct++] = sorted[i]
+            }
+            return sorted.copyOf(distinct)
+        }
+    }
+
+    companion object {
+        private const val TILE_SIZE = 256.0
+
+        // Mehr berührte Tiles pro Punkt: Overlay komplett verwerfen statt einzeln
+        private const val MAX_TOUCHED_TILES = 4_096
+
+        // Segmente über mehr Zellen kommen in die Liste langer Segmente
+        private const val MAX_SEGMENT_CELLS = 64
+    }
+}
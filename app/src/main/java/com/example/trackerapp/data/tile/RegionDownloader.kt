@@ -0,0 +1,122 @@
+package com.example.trackerapp.data.tile
+
+import com.example.trackerapp.core.constants.AppConstants
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Lädt alle Tiles einer [TileRegion] in einen [MbTilesStore]
+ *
+ * - Tiles die schon offline vorhanden sind werden übersprungen - ein abgebrochener
+ *   Download kann einfach neu gestartet werden
+ * - [parallelDownloads] Worker laden über den gemeinsamen [HttpTileFetcher]
+ *   (gleicher Connection Pool, gleiche Server-Auswahl wie die Karte)
+ * - Ein einzelner Writer schreibt in Batches von [batchSize] Tiles pro Transaktion
+ * - Die Tiles gehen nicht durch den [TileCache]: ein großer Download würde sonst
+ *   den Cache der gerade sichtbaren Karte verdrängen
+ *
+ * Abbruch über die aufrufende Coroutine, bereits geschriebene Batches bleiben erhalten.
+ */
+class RegionDownloader(
+    private val fetcher: HttpTileFetcher,
+    private val store: MbTilesStore,
+    private val parallelDownloads: Int = AppConstants.Tiles.MAX_PARALLEL_REQUESTS,
+    private val batchSize: Int = AppConstants.Tiles.REGION_WRITE_BATCH_SIZE
+) {
+
+    /**
+     * Fortschritt / Ergebnis eines Downloads
+     *
+     * @property total Anzahl Tiles der Region
+     * @property downloaded Neu geladene Tiles
+     * @property skipped Bereits offline vorhandene Tiles
+     * @property failed Tiles die kein Server geliefert hat
+     */
+    data class Progress(
+        val total: Long,
+        val downloaded: Long = 0,
+        val skipped: Long = 0,
+        val failed: Long = 0
+    ) {
+        val done: Long
+            get() = downloaded + skipped + failed
+    }
+
+    /**
+     * Lädt die Region herunter
+     *
+     * @param onProgress Wird nach jedem geschriebenen Batch aufgerufen
+     * @throws IllegalArgumentException wenn die Region mehr als
+     *   [AppConstants.Tiles.REGION_MAX_TILES] Tiles hat (Tile Usage Policy der Server)
+     */
+    suspend fun download(
+        provider: TileProvider,
+        region: TileRegion,
+        onProgress: (Progress) -> Unit = {}
+    ): Progress = withContext(Dispatchers.IO) {
+        require(provider.id == store.providerId) { "store holds ${store.providerId}, not ${provider.id}" }
+        val total = region.tileCount()
+        require(total <= AppConstants.Tiles.REGION_MAX_TILES) {
+            "region has $total tiles, max ${AppConstants.Tiles.REGION_MAX_TILES}"
+        }
+
+        val skipped = AtomicLong()
+        var downloaded = 0L
+        var failed = 0L
+        fun progress() = Progress(total, downloaded, skipped.get(), failed)
+
+        val pending = Channel<TileKey>(capacity = parallelDownloads * 2)
+        val results = Channel<Pair<TileKey, ByteArray?>>(capacity = batchSize)
+
+        coroutineScope {
+            launch {
+                for ((zoom, col, row) in region.tiles()) {
+                    if (store.hasTile(zoom, col, row)) {
+                        skipped.incrementAndGet()
+                    } else {
+                        pending.send(TileKey(provider.id, zoom, col, row))
+                    }
+                }
+                pending.close()
+            }
+
+            val workers = List(parallelDownloads) {
+                launch {
+                    for (key in pending) {
+                        val result = fetcher.fetch(provider, key.zoom, key.col, key.row)
+                        results.send(key to (result as? HttpTileFetcher.FetchResult.Success)?.data)
+                    }
+                }
+            }
+            launch {
+                workers.forEach { it.join() }
+                results.close()
+            }
+
+            // Writer: nur hier werden downloaded/failed verändert
+            val batch = ArrayList<Pair<TileKey, ByteArray>>(batchSize)
+            for ((key, data) in results) {
+                if (data != null) {
+                    batch += key to data
+                } else {
+                    failed++
+                }
+                if (batch.size >= batchSize) {
+                    store.putTiles(batch)
+                    downloaded += batch.size
+                    batch.clear()
+                    onProgress(progress())
+                }
+            }
+            store.putTiles(batch)
+            downloaded += batch.size
+        }
+
+        store.addRegionMetadata(region)
+        progress().also(onProgress)
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.trackerapp.data.tile
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.async
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.isActive
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Single-Flight: gleichzeitige Aufrufe für denselben Key teilen sich eine Ausführung
+ *
+ * Der erste Aufrufer startet [run]'s Block im [scope], alle weiteren Aufrufer mit
+ * demselben Key warten auf dasselbe Ergebnis, solange der Block noch läuft.
+ * Danach wird der Key entfernt - das Ergebnis selbst wird nicht gecacht.
+ *
+ * Der Block läuft im [scope] und nicht im Aufrufer: bricht ein wartender Aufrufer ab,
+ * bekommen die anderen trotzdem ihr Ergebnis.
+ *
+ * Bricht der letzte Wartende ab, entscheidet [onAbandoned]:
+ * - true: Ausführung abbrechen (neue Aufrufer starten eine neue)
+ * - false: im Hintergrund fertig laufen lassen, neue Aufrufer können sich wieder anschließen
+ *
+ * @property scope Scope in dem die geteilten Ausführungen laufen
+ * @property onAbandoned Wird gerufen wenn niemand mehr auf eine laufende Ausführung wartet
+ * @property onCoalesced Wird für jeden Aufruf gerufen, der sich einer laufenden Ausführung anschließt
+ */
+class SingleFlight<K : Any, V>(
+    private val scope: CoroutineScope,
+    private val onAbandoned: (K) -> Boolean = { false },
+    private val onCoalesced: () -> Unit = {}
+) {
+    private class Flight<V>(val deferred: Deferred<V>) {
+        val waiters = AtomicInteger()
+    }
+
+    private val inFlight = ConcurrentHashMap<K, Flight<V>>()
+
+    /**
+     * Anzahl aktuell laufender Ausführungen
+     */
+    val inFlightCount: Int
+        get() = inFlight.size
+
+    /**
+     * Anzahl Aufrufer, die gerade auf die Ausführung für [key] warten
+     */
+    fun waiterCount(key: K): Int = inFlight[key]?.waiters?.get() ?: 0
+
+    suspend fun run(key: K, block: suspend () -> V): V {
+        while (true) {
+            val flight = join(key, block)
+            try {
+                return flight.deferred.await()
+            } catch (e: CancellationException) {
+                // Ausführung wurde abgebrochen, während wir uns angeschlossen haben:
+                // sind wir selbst noch aktiv, starten wir eine neue
+                currentCoroutineContext().ensureActive()
+                if (!flight.deferred.isCancelled || !scope.isActive) throw e
+            } finally {
+                leave(key, flight)
+            }
+        }
+    }
+
+    private fun join(key: K, block: suspend () -> V): Flight<V> {
+        var created: Flight<V>? = null
+        val flight = inFlight.compute(key) { _, existing ->
+            val target = existing ?: Flight(scope.async(start = CoroutineStart.LAZY) { block() }).also { created = it }
+            target.waiters.incrementAndGet()
+            target
+        }!!
+
+        val started = created
+        if (started == null) {
+            onCoalesced()
+        } else {
+            started.deferred.invokeOnCompletion { inFlight.remove(key, started) }
+            started.deferred.start()
+        }
+        return flight
+    }
+
+    private fun leave(key: K, flight: Flight<V>) {
+        if (flight.waiters.decrementAndGet() > 0 || flight.deferred.isCompleted) return
+
+        var abort = false
+        inFlight.computeIfPresent(key) { _, existing ->
+            // Erneut prüfen: in der Zwischenzeit kann sich jemand angeschlossen haben
+            if (existing === flight && flight.waiters.get() == 0 && onAbandoned(key)) {
+                abort = true
+                null
+            } else {
+                existing
+            }
+        }
+        if (abort) flight.deferred.cancel()
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.trackerapp.data.tile
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+
+/**
+ * Dekodiert Tile-Bytes speicherschonend zu Bitmaps
+ *
+ * - Deckende Raster-Tiles (JPEG, PNG ohne Alpha) als RGB_565: halber Speicher
+ *   gegenüber ARGB_8888, für Kartenbilder optisch kein Unterschied
+ * - Dekodiert in Bitmaps aus dem [pool] statt neu zu allokieren
+ * - Dekodierte Tiles im [cache] (LRU mit Byte-Grenze), verdrängte Bitmaps gehen zurück in den Pool
+ *
+ * MapCompose dekodiert die angezeigten Tiles selbst aus dem InputStream (mit eigenem Pool).
+ * Dieser Decoder ist für alles, was die App selbst aus Tiles zusammensetzt
+ * (Platzhalter, Overlays).
+ */
+class TileBitmapDecoder(
+    val pool: TileBitmapPool,
+    val cache: DecodedTileCache
+) {
+
+    /**
+     * Dekodiertes Tile aus dem Cache oder aus [data]
+     *
+     * Die Bitmap gehört dem Cache: nur innerhalb von [use] lesen, nicht speichern.
+     *
+     * @return Ergebnis von [use], null wenn nicht dekodierbar
+     */
+    fun <T> withTile(key: TileKey, data: () -> ByteArray?, use: (Bitmap) -> T): T? {
+        cache.use(key, use)?.let { return it }
+        val bytes = data() ?: return null
+        val bitmap = decode(bytes) ?: return null
+        cache.put(key, bitmap)
+        return cache.use(key, use)
+    }
+
+    /**
+     * Dekodiert ohne Cache (Bitmap gehört dem Aufrufer, zurück mit [TileBitmapPool.put])
+     */
+    fun decode(data: ByteArray): Bitmap? {
+        val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        BitmapFactory.decodeByteArray(data, 0, data.size, bounds)
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null
+
+        val config = if (isOpaque(data)) Bitmap.Config.RGB_565 else Bitmap.Config.ARGB_8888
+        val reusable = pool.get(bounds.outWidth, bounds.outHeight, config)
+        val options = BitmapFactory.Options().apply {
+            inPreferredConfig = config
+            inMutable = true
+            inBitmap = reusable
+        }
+        return try {
+            BitmapFactory.decodeByteArray(data, 0, data.size, options)
+        } catch (e: IllegalArgumentException) {
+            // inBitmap passt nicht (z.B. anderes Format) - ohne Wiederverwendung dekodieren
+            reusable?.let { pool.put(it) }
+            options.inBitmap = null
+            BitmapFactory.decodeByteArray(data, 0, data.size, options)
+        }
+    }
+
+    companion object {
+        private val PNG_SIGNATURE = byteArrayOf(0x89.toByte(), 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A)
+
+        // PNG Color Types ohne Alpha-Kanal (Transparenz dann nur über tRNS)
+        private const val PNG_GRAYSCALE = 0
+        private const val PNG_TRUECOLOR = 2
+        private const val PNG_PALETTE = 3
+
+        /**
+         * Hat das Bild sicher keine Transparenz?
+         *
+         * JPEG: immer deckend. PNG: Color Type ohne Alpha-Kanal (Grau, RGB, Palette wie bei
+         * den OSM-Tiles) und kein tRNS-Chunk. Alles andere (z.B. WebP) gilt als transparent.
+         */
+        fun isOpaque(data: ByteArray): Boolean {
+            if (data.size >= 2 && data[0] == 0xFF.toByte() && data[1] == 0xD8.toByte()) return true
+            if (data.size < 33 || !data.copyOfRange(0, 8).contentEquals(PNG_SIGNATURE)) return false
+
+            val colorType = data[25].toInt()
+            if (colorType != PNG_GRAYSCALE && colorType != PNG_TRUECOLOR && colorType != PNG_PALETTE) return false
+
+            // Chunks bis zu den Bilddaten nach tRNS durchsuchen
+            var offset = 8
+            while (offset + 8 <= data.size) {
+                val length = ((data[offset].toInt() and 0xFF) shl 24) or
+                    ((data[offset + 1].toInt() and 0xFF) shl 16) or
+                    ((data[offset + 2].toInt() and 0xFF) shl 8) or
+                    (data[offset + 3].toInt() and 0xFF)
+                val type = String(data, offset + 4, 4, Charsets.US_ASCII)
+                if (type == "tRNS") return false
+                if (type == "IDAT") return true
+                offset += 12 + length
+            }
+            return true
+        }
+    }
+}
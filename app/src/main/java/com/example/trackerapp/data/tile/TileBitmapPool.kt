@@ -0,0 +1,64 @@
+package com.example.trackerapp.data.tile
+
+import android.graphics.Bitmap
+
+/**
+ * Pool wiederverwendbarer Tile-Bitmaps
+ *
+ * Tiles haben fast immer dieselbe Größe und Config - statt für jedes Tile eine neue
+ * Bitmap zu allokieren (und die alte dem GC zu überlassen), wird über
+ * BitmapFactory.Options.inBitmap in eine freie Bitmap aus dem Pool dekodiert.
+ *
+ * Begrenzt auf [maxBytes], überzählige Bitmaps werden recycelt.
+ * Thread-safe (synchronized).
+ */
+class TileBitmapPool(
+    private val maxBytes: Long
+) {
+    private data class Slot(val width: Int, val height: Int, val config: Bitmap.Config)
+
+    private val free = HashMap<Slot, ArrayDeque<Bitmap>>()
+
+    /**
+     * Aktuell im Pool gehaltene Bytes
+     */
+    var sizeBytes = 0L
+        private set
+
+    /**
+     * Holt eine freie Bitmap passender Größe (null = neu allokieren)
+     */
+    @Synchronized
+    fun get(width: Int, height: Int, config: Bitmap.Config): Bitmap? {
+        val bitmap = free[Slot(width, height, config)]?.removeLastOrNull() ?: return null
+        sizeBytes -= bitmap.allocationByteCount
+        return bitmap
+    }
+
+    /**
+     * Gibt eine nicht mehr benutzte Bitmap zurück
+     *
+     * Der Aufrufer darf die Bitmap danach nicht mehr anfassen.
+     */
+    @Synchronized
+    fun put(bitmap: Bitmap) {
+        val config = bitmap.config
+        if (bitmap.isRecycled || !bitmap.isMutable || config == null) {
+            bitmap.recycle()
+            return
+        }
+        if (sizeBytes + bitmap.allocationByteCount > maxBytes) {
+            bitmap.recycle()
+            return
+        }
+        free.getOrPut(Slot(bitmap.width, bitmap.height, config)) { ArrayDeque() }.addLast(bitmap)
+        sizeBytes += bitmap.allocationByteCount
+    }
+
+    @Synchronized
+    fun clear() {
+        free.values.forEach { deque -> deque.forEach { it.recycle() } }
+        free.clear()
+        sizeBytes = 0L
+    }
+}
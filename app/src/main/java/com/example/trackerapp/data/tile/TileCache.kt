@@ -0,0 +1,76 @@
+package com.example.trackerapp.data.tile
+
+/**
+ * Zweistufiger Tile-Cache: Memory-LRU vor Disk-Cache
+ *
+ * - get(): Memory → Disk (Treffer auf Disk werden in den Memory-Cache übernommen)
+ * - put(): schreibt in beide Stufen
+ *
+ * Die TTL wird hier nicht erzwungen - abgelaufene Tiles werden trotzdem geliefert,
+ * damit der Aufrufer sie als Fallback verwenden kann (z.B. offline).
+ *
+ * @property memory Schnelle erste Stufe
+ * @property disk Persistente zweite Stufe (null = nur Memory)
+ * @property ttlMs Maximales Alter eines Tiles bevor es neu geladen wird
+ */
+class TileCache(
+    val memory: MemoryTileCache,
+    val disk: DiskTileCache?,
+    val ttlMs: Long,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+
+    fun get(key: TileKey): CachedTile? {
+        memory.get(key)?.let { return it }
+
+        val fromDisk = disk?.get(key) ?: return null
+        memory.put(key, fromDisk)
+        return fromDisk
+    }
+
+    fun put(
+        key: TileKey,
+        data: ByteArray,
+        etag: String? = null,
+        lastModified: String? = null
+    ): CachedTile {
+        val tile = CachedTile(data, fetchedAt = clock(), etag = etag, lastModified = lastModified)
+        memory.put(key, tile)
+        disk?.put(key, tile)
+        return tile
+    }
+
+    /**
+     * Nur in den Memory-Cache (z.B. Offline-Tiles, die schon persistent liegen)
+     */
+    fun putInMemory(key: TileKey, data: ByteArray): CachedTile {
+        val tile = CachedTile(data, fetchedAt = clock())
+        memory.put(key, tile)
+        return tile
+    }
+
+    /**
+     * Server hat das Tile bestätigt (HTTP 304): TTL neu starten ohne die Bytes neu zu schreiben
+     */
+    fun refresh(key: TileKey, tile: CachedTile): CachedTile {
+        val refreshed = tile.refreshed(clock())
+        memory.put(key, refreshed)
+        disk?.updateFetchedAt(key, refreshed.fetchedAt)
+        return refreshed
+    }
+
+    /**
+     * Ist das Tile noch innerhalb der TTL?
+     */
+    fun isFresh(tile: CachedTile): Boolean = !tile.isExpired(clock(), ttlMs)
+
+    fun remove(key: TileKey) {
+        memory.remove(key)
+        disk?.remove(key)
+    }
+
+    fun clear() {
+        memory.clear()
+        disk?.clear()
+    }
+}
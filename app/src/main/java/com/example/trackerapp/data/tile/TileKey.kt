@@ -0,0 +1,51 @@
+package com.example.trackerapp.data.tile
+
+/**
+ * Eindeutiger Schlüssel eines Tiles im Cache
+ *
+ * @property provider ID der Tile-Quelle (Cache-Namespace, siehe [TileProvider.id])
+ * @property zoom OSM Zoom Level (0-18)
+ * @property col Tile-Spalte (OSM x)
+ * @property row Tile-Zeile (OSM y)
+ */
+data class TileKey(
+    val provider: String,
+    val zoom: Int,
+    val col: Int,
+    val row: Int
+) {
+    /**
+     * Relativer Pfad im Disk-Cache: provider/z/x/y
+     */
+    fun relativePath(): String = "$provider/$zoom/$col/$row"
+}
+
+/**
+ * Tile-Daten mit Zeitpunkt des Downloads
+ *
+ * @property data Kodierte Tile-Bytes (PNG)
+ * @property fetchedAt Zeitpunkt des Downloads bzw. der letzten Revalidierung (für TTL)
+ * @property etag ETag-Header des Servers für If-None-Match (optional)
+ * @property lastModified Last-Modified-Header des Servers für If-Modified-Since (optional)
+ */
+class CachedTile(
+    val data: ByteArray,
+    val fetchedAt: Long,
+    val etag: String? = null,
+    val lastModified: String? = null
+) {
+    /**
+     * Ist das Tile älter als die erlaubte TTL?
+     */
+    fun isExpired(now: Long, ttlMs: Long): Boolean = now - fetchedAt >= ttlMs
+
+    /**
+     * Kann der Server gefragt werden, ob sich das Tile geändert hat?
+     */
+    fun canRevalidate(): Boolean = etag != null || lastModified != null
+
+    /**
+     * Gleiches Tile mit neuem Revalidierungs-Zeitpunkt (nach HTTP 304)
+     */
+    fun refreshed(now: Long): CachedTile = CachedTile(data, now, etag, lastModified)
+}
@@ -0,0 +1,87 @@
+package com.example.trackerapp.data.tile
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Zähler der Tile-Pipeline (thread-safe)
+ *
+ * Wird vom [TileRepository] befüllt, [snapshot] liefert einen konsistenten Stand
+ * für Debug-Ausgaben oder die UI.
+ */
+class TileMetrics {
+    val requests = AtomicLong()
+    val cacheHits = AtomicLong()
+    val offlineHits = AtomicLong()
+    val networkFetches = AtomicLong()
+    val notModified = AtomicLong()
+    val failures = AtomicLong()
+
+    /**
+     * Requests, die sich einem bereits laufenden Download desselben Tiles angeschlossen haben
+     */
+    val coalescedRequests = AtomicLong()
+
+    /**
+     * Vom [TilePrefetcher] geladene Tiles und deren Bytes
+     */
+    val prefetchedTiles = AtomicLong()
+    val prefetchedBytes = AtomicLong()
+
+    /**
+     * Abbrüche: nicht mehr sichtbare Requests, abgebrochene Downloads, Downloads die nur
+     * noch in den Cache laufen, und Bytes von Tiles auf die niemand mehr wartete
+     */
+    val cancelledRequests = AtomicLong()
+    val abortedTiles = AtomicLong()
+    val backgroundCompletions = AtomicLong()
+    val wastedBytes = AtomicLong()
+
+    /**
+     * Ausgelieferte Platzhalter (abgelaufene oder aus anderen Zoom-Leveln erzeugte Tiles)
+     */
+    val placeholderTiles = AtomicLong()
+
+    /**
+     * Aus anderen Zoom-Leveln neu erzeugte Platzhalter (Dekodieren, Zeichnen, JPEG)
+     */
+    val synthesizedPlaceholders = AtomicLong()
+
+    fun snapshot(): Snapshot = Snapshot(
+        requests = requests.get(),
+        cacheHits = cacheHits.get(),
+        offlineHits = offlineHits.get(),
+        networkFetches = networkFetches.get(),
+        notModified = notModified.get(),
+        failures = failures.get(),
+        coalescedRequests = coalescedRequests.get(),
+        prefetchedTiles = prefetchedTiles.get(),
+        prefetchedBytes = prefetchedBytes.get(),
+        cancelledRequests = cancelledRequests.get(),
+        abortedTiles = abortedTiles.get(),
+        backgroundCompletions = backgroundCompletions.get(),
+        wastedBytes = wastedBytes.get(),
+        placeholderTiles = placeholderTiles.get(),
+        synthesizedPlaceholders = synthesizedPlaceholders.get()
+    )
+
+    /**
+     * Unveränderlicher Stand aller Zähler
+     */
+    data class Snapshot(
+        val requests: Long,
+        val cacheHits: Long,
+        val offlineHits: Long,
+        val networkFetches: Long,
+        val notModified: Long,
+        val failures: Long,
+        val coalescedRequests: Long,
+        val prefetchedTiles: Long,
+        val prefetchedBytes: Long,
+        val cancelledRequests: Long,
+        val abortedTiles: Long,
+        val backgroundCompletions: Long,
+        val wastedBytes: Long,
+        val placeholderTiles: Long,
+        val synthesizedPlaceholders: Long
+    )
+}
@@ -0,0 +1,103 @@
+package com.example.trackerapp.data.tile
+
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.Rect
+import com.example.trackerapp.core.constants.AppConstants
+import java.io.ByteArrayOutputStream
+
+/**
+ * Erzeugt Platzhalter-Tiles aus bereits lokal vorhandenen Tiles anderer Zoom-Level
+ *
+ * - Hineinzoomen: Ausschnitt eines Vorfahren ([maxAncestorLevels] Level nach oben)
+ *   wird vergrößert - unscharf, aber an der richtigen Stelle
+ * - Herauszoomen: die vier Kinder (ein Level tiefer) werden verkleinert und darüber gezeichnet
+ *
+ * Es wird nur gelesen was lokal liegt ([localTile]: Cache oder Offline-Karte), nie das Netzwerk.
+ * Die Quell-Tiles kommen über den [decoder] (RGB_565, gepoolt, dekodiert gecacht) -
+ * beim Zoomen brauchen viele Kinder denselben Vorfahren.
+ *
+ * @property localTile Liefert die Bytes eines Tiles ohne Netzwerkzugriff (null = nicht vorhanden)
+ */
+class TilePlaceholders(
+    private val decoder: TileBitmapDecoder,
+    private val localTile: (TileKey) -> ByteArray?,
+    private val maxAncestorLevels: Int = AppConstants.Tiles.PLACEHOLDER_MAX_ANCESTOR_LEVELS
+) {
+    private val paint = Paint(Paint.FILTER_BITMAP_FLAG)
+
+    /**
+     * Platzhalter für [key] als JPEG-Bytes
+     *
+     * @return null wenn weder Vorfahr noch Kinder lokal vorhanden sind
+     */
+    fun synthesize(key: TileKey): ByteArray? {
+        val output = decoder.pool.get(TILE_SIZE, TILE_SIZE, Bitmap.Config.RGB_565)
+            ?: Bitmap.createBitmap(TILE_SIZE, TILE_SIZE, Bitmap.Config.RGB_565)
+        try {
+            // Pool-Bitmaps enthalten noch das alte Bild
+            output.eraseColor(BACKGROUND)
+            val canvas = Canvas(output)
+            val fromAncestor = drawAncestor(canvas, key)
+            val fromChildren = drawChildren(canvas, key)
+            if (!fromAncestor && !fromChildren) return null
+
+            val out = ByteArrayOutputStream(TILE_SIZE * TILE_SIZE / 4)
+            output.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out)
+            return out.toByteArray()
+        } finally {
+            decoder.pool.put(output)
+        }
+    }
+
+    /**
+     * Nächsten lokal vorhandenen Vorfahren vergrößert zeichnen
+     */
+    private fun drawAncestor(canvas: Canvas, key: TileKey): Boolean {
+        for (levels in 1..minOf(maxAncestorLevels, key.zoom)) {
+            val ancestor = TileKey(key.provider, key.zoom - levels, key.col shr levels, key.row shr levels)
+            val drawn = decoder.withTile(ancestor, { localTile(ancestor) }) { source ->
+                // Ausschnitt des Vorfahren, der diesem Tile entspricht
+                val size = source.width shr levels
+                val mask = (1 shl levels) - 1
+                val left = (key.col and mask) * size
+                val top = (key.row and mask) * size
+                canvas.drawBitmap(source, Rect(left, top, left + size, top + size), FULL_TILE, paint)
+                true
+            }
+            if (drawn == true) return true
+        }
+        return false
+    }
+
+    /**
+     * Lokal vorhandene Kinder verkleinert in ihre Viertel zeichnen
+     */
+    private fun drawChildren(canvas: Canvas, key: TileKey): Boolean {
+        if (key.zoom >= AppConstants.Tiles.MAX_ZOOM) return false
+        val half = TILE_SIZE / 2
+        var any = false
+        for (dy in 0..1) {
+            for (dx in 0..1) {
+                val child = TileKey(key.provider, key.zoom + 1, key.col * 2 + dx, key.row * 2 + dy)
+                val drawn = decoder.withTile(child, { localTile(child) }) { source ->
+                    val target = Rect(dx * half, dy * half, (dx + 1) * half, (dy + 1) * half)
+                    canvas.drawBitmap(source, null, target, paint)
+                    true
+                }
+                any = any || drawn == true
+            }
+        }
+        return any
+    }
+
+    companion object {
+        private const val TILE_SIZE = 256
+        private const val JPEG_QUALITY = 85
+
+        // Landfarbe der OSM-Tiles, damit fehlende Viertel nicht auffallen
+        private const val BACKGROUND = 0xFFF2EFE9.toInt()
+        private val FULL_TILE = Rect(0, 0, TILE_SIZE, TILE_SIZE)
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.trackerapp.data.tile
+
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.Geodesy
+import com.example.trackerapp.domain.model.Location
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import java.io.Closeable
+import kotlin.math.PI
+import kotlin.math.cos
+
+/**
+ * Lädt Tiles vorab, bevor MapCompose sie anfordert
+ *
+ * Vorhersage:
+ * - [onLocation]: entlang von Bearing und Geschwindigkeit der aktuellen Position
+ *   (Strecke der nächsten [lookAheadSeconds]), bei Stillstand nur die Umgebung
+ * - [onPath]: entlang eines angezeigten Pfads (PathScreen), nur im und um den sichtbaren Ausschnitt
+ * Jeweils auf dem aktuellen und dem nächsten Zoom-Level, nächste Tiles zuerst.
+ *
+ * Priorität:
+ * - Eigene Low-Priority-Queue, eine neue Vorhersage ersetzt die alte
+ * - Nur [workers] parallele Prefetches, und nur wenn keine Karten-Requests laufen
+ *   ([TileRepository.activeLoads]) - sichtbare Tiles warten nie auf Prefetches
+ * - [budget] begrenzt die Bandbreite
+ *
+ * Die Tiles landen im normalen [TileCache], MapCompose bekommt sie dann als Cache-Treffer.
+ */
+class TilePrefetcher(
+    private val repository: TileRepository,
+    private val provider: TileProvider = TileProvider.BASEMAP,
+    private val budget: BandwidthBudget = BandwidthBudget(
+        AppConstants.Tiles.PREFETCH_BYTES_PER_SECOND,
+        AppConstants.Tiles.PREFETCH_BURST_BYTES
+    ),
+    workers: Int = AppConstants.Tiles.PREFETCH_WORKERS,
+    private val lookAheadSeconds: Int = AppConstants.Tiles.PREFETCH_LOOK_AHEAD_SECONDS,
+    private val radius: Int = AppConstants.Tiles.PREFETCH_RADIUS
+) : Closeable {
+
+    private val queue = LinkedHashSet<TileKey>()
+    private val signal = Channel<Unit>(Channel.CONFLATED)
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    init {
+        repeat(workers) { scope.launch { work() } }
+    }
+
+    /**
+     * Anzahl noch wartender Prefetches
+     */
+    val queueSize: Int
+        get() = synchronized(queue) { queue.size }
+
+    /**
+     * Neue Position: Tiles in Fahrtrichtung vorladen
+     *
+     * @param zoom Aktuell angezeigter Zoom-Level
+     */
+    fun onLocation(location: Location, zoom: Int) {
+        schedule(predictTiles(location, zoom))
+    }
+
+    /**
+     * Pfad angezeigt: Tiles des Pfads im und um den sichtbaren Ausschnitt vorladen
+     *
+     * Läuft über alle Punkte des Pfads - nicht auf dem Main-Thread aufrufen.
+     */
+    fun onPath(xs: DoubleArray, ys: DoubleArray, viewport: TileViewport) {
+        schedule(pathTiles(xs, ys, viewport))
+    }
+
+    /**
+     * Tiles des Pfads im [viewport] plus [AppConstants.Tiles.PREFETCH_PATH_MARGIN] Tiles Rand
+     *
+     * Auf dem Zoom-Level des Ausschnitts und dem nächsten, Tiles nahe der Mitte des
+     * Ausschnitts zuerst, höchstens [AppConstants.Tiles.PREFETCH_MAX_PATH_TILES].
+     *
+     * @param xs Projizierter Pfad, normalisiert wie [com.example.trackerapp.core.utils.MercatorProjection]
+     * @param ys Projizierter Pfad, normalisiert
+     */
+    fun pathTiles(xs: DoubleArray, ys: DoubleArray, viewport: TileViewport): List<TileKey> {
+        require(xs.size == ys.size) { "xs and ys differ in size" }
+        val zoom = viewport.zoom
+        val margin = AppConstants.Tiles.PREFETCH_PATH_MARGIN
+        val max = (1 shl zoom) - 1
+        val cols = (viewport.cols.first - margin).coerceAtLeast(0)..(viewport.cols.last + margin).coerceAtMost(max)
+        val rows = (viewport.rows.first - margin).coerceAtLeast(0)..(viewport.rows.last + margin).coerceAtMost(max)
+        val nextZoom = zoom < AppConstants.Tiles.MAX_ZOOM
+
+        val tiles = HashSet<TileKey>()
+        for (i in xs.indices) {
+            val col = tileIndex(xs[i], zoom)
+            val row = tileIndex(ys[i], zoom)
+            if (col !in cols || row !in rows) continue
+            tiles += TileKey(provider.id, zoom, col, row)
+            if (nextZoom) {
+                tiles += TileKey(provider.id, zoom + 1, tileIndex(xs[i], zoom + 1), tileIndex(ys[i], zoom + 1))
+            }
+        }
+
+        // Abstand zur Mitte in Tiles des Ausschnitts (Chebyshev), bei Gleichstand gröberer Zoom zuerst
+        val centerCol = (viewport.cols.first + viewport.cols.last + 1) / 2.0
+        val centerRow = (viewport.rows.first + viewport.rows.last + 1) / 2.0
+        fun distance(key: TileKey): Int {
+            val scale = (1 shl (key.zoom - zoom)).toDouble()
+            val dx = Math.abs((key.col + 0.5) / scale - centerCol)
+            val dy = Math.abs((key.row + 0.5) / scale - centerRow)
+            return maxOf(dx, dy).toInt()
+        }
+        return tiles
+            .sortedWith(compareBy<TileKey>({ distance(it) }, { it.zoom }))
+            .take(AppConstants.Tiles.PREFETCH_MAX_PATH_TILES)
+    }
+
+    /**
+     * Vorhergesagte Tiles, nächste zuerst
+     */
+    fun predictTiles(location: Location, zoom: Int): List<TileKey> {
+        val tiles = LinkedHashSet<TileKey>()
+        val zooms = zoom..minOf(zoom + 1, AppConstants.Tiles.MAX_ZOOM)
+
+        val speed = location.speed ?: 0f
+        val bearing = location.bearing
+        val points = if (bearing != null && speed >= AppConstants.Tiles.PREFETCH_MIN_SPEED) {
+            // Abtastung alle halbe Tile-Breite bis zur Look-Ahead-Distanz
+            val tileWidth = EARTH_CIRCUMFERENCE * cos(Math.toRadians(location.latitude)) / (1 shl zoom)
+            val step = tileWidth / 2
+            val distance = speed.toDouble() * lookAheadSeconds
+            val samples = (distance / step).toInt().coerceIn(1, MAX_SAMPLES)
+            (0..samples).map { Geodesy.destination(location.latitude, location.longitude, bearing.toDouble(), it * step) }
+        } else {
+            listOf(location.latitude to location.longitude)
+        }
+
+        for ((lat, lon) in points) {
+            for (z in zooms) {
+                val center = tileAt(lat, lon, z)
+                val max = (1 shl z) - 1
+                for (dy in -radius..radius) {
+                    for (dx in -radius..radius) {
+                        val col = center.col + dx
+                        val row = center.row + dy
+                        if (col in 0..max && row in 0..max) {
+                            tiles += TileKey(provider.id, z, col, row)
+                        }
+                    }
+                }
+            }
+        }
+        return tiles.take(AppConstants.Tiles.PREFETCH_MAX_TILES)
+    }
+
+    override fun close() {
+        scope.cancel()
+        signal.close()
+    }
+
+    private fun schedule(tiles: List<TileKey>) {
+        synchronized(queue) {
+            queue.clear()
+            queue.addAll(tiles)
+        }
+        signal.trySend(Unit)
+    }
+
+    private fun poll(): TileKey? = synchronized(queue) {
+        val iterator = queue.iterator()
+        if (!iterator.hasNext()) return null
+        iterator.next().also { iterator.remove() }
+    }
+
+    private suspend fun work() {
+        while (scope.isActive) {
+            val key = poll()
+            if (key == null) {
+                signal.receive()
+                // Weitere Worker aufwecken, falls noch Arbeit da ist
+                if (queueSize > 1) signal.trySend(Unit)
+                continue
+            }
+
+            // Karten-Requests haben Vorrang
+            while (repository.activeLoads > 0) {
+                delay(AppConstants.Tiles.PREFETCH_IDLE_POLL_MS)
+            }
+            budget.waitTimeMs().takeIf { it > 0 }?.let { delay(it) }
+
+            val bytes = repository.prefetchTile(provider, key.zoom, key.col, key.row)
+            budget.consume(bytes)
+        }
+    }
+
+    private fun tileAt(lat: Double, lon: Double, zoom: Int): TileKey =
+        TileKey(provider.id, zoom, TileRegion.lonToCol(lon, zoom), TileRegion.latToRow(lat, zoom))
+
+    private fun tileIndex(normalized: Double, zoom: Int): Int {
+        val n = 1 shl zoom
+        return (normalized * n).toInt().coerceIn(0, n - 1)
+    }
+
+    companion object {
+        private const val EARTH_CIRCUMFERENCE = 2 * PI * Geodesy.EARTH_RADIUS
+        private const val MAX_SAMPLES = 32
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.trackerapp.data.tile
+
+/**
+ * Tile-Quelle mit einem oder mehreren gleichwertigen Servern
+ *
+ * Die URL-Templates verwenden die Platzhalter {z}, {x} und {y}.
+ * Die Server werden der Reihe nach probiert, bis einer antwortet.
+ *
+ * @property id Eindeutige ID, wird als Namespace im Tile-Cache verwendet
+ * @property urlTemplates Server-URLs in Fallback-Reihenfolge
+ */
+data class TileProvider(
+    val id: String,
+    val urlTemplates: List<String>
+) {
+    /**
+     * Baut die konkreten URLs für ein Tile
+     */
+    fun urlsFor(zoom: Int, col: Int, row: Int): List<String> = urlTemplates.map { template ->
+        template
+            .replace("{z}", zoom.toString())
+            .replace("{x}", col.toString())
+            .replace("{y}", row.toString())
+    }
+
+    companion object {
+        /**
+         * Standard-Basiskarte für MapScreen und PathScreen
+         */
+        val BASEMAP = TileProvider(
+            id = "basemap",
+            urlTemplates = listOf(
+                // 1. CartoDB - sehr stabil im Emulator
+                "https://a.basemaps.cartocdn.com/rastertiles/voyager/{z}/{x}/{y}.png",
+
+                // 2. OpenStreetMap - Standard
+                "https://tile.openstreetmap.org/{z}/{x}/{y}.png",
+
+                // 3. OpenStreetMap DE - Backup
+                "https://a.tile.openstreetmap.de/{z}/{x}/{y}.png"
+            )
+        )
+    }
+}
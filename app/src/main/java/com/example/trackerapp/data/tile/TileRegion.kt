@@ -0,0 +1,100 @@
+package com.example.trackerapp.data.tile
+
+import com.example.trackerapp.core.utils.MercatorProjection
+
+/**
+ * Rechteckiges Kartengebiet über einen Zoom-Bereich (für Offline-Downloads)
+ *
+ * Tile-Koordinaten nach dem Slippy-Map-Schema (XYZ, y = 0 im Norden).
+ *
+ * @property north Nördlichste Breite in Grad
+ * @property south Südlichste Breite in Grad
+ * @property east Östlichste Länge in Grad
+ * @property west Westlichste Länge in Grad
+ * @property minZoom Kleinster Zoom-Level (inklusive)
+ * @property maxZoom Größter Zoom-Level (inklusive)
+ */
+data class TileRegion(
+    val north: Double,
+    val south: Double,
+    val east: Double,
+    val west: Double,
+    val minZoom: Int,
+    val maxZoom: Int
+) {
+    init {
+        require(north >= south) { "north < south" }
+        require(east >= west) { "east < west" }
+        require(minZoom in 0..maxZoom) { "invalid zoom range $minZoom..$maxZoom" }
+    }
+
+    /**
+     * Tile-Spalten eines Zoom-Levels
+     */
+    fun cols(zoom: Int): IntRange = lonToCol(west, zoom)..lonToCol(east, zoom)
+
+    /**
+     * Tile-Zeilen eines Zoom-Levels (Norden zuerst)
+     */
+    fun rows(zoom: Int): IntRange = latToRow(north, zoom)..latToRow(south, zoom)
+
+    /**
+     * Anzahl Tiles über alle Zoom-Levels
+     */
+    fun tileCount(): Long = (minZoom..maxZoom).sumOf { zoom ->
+        cols(zoom).count().toLong() * rows(zoom).count().toLong()
+    }
+
+    /**
+     * Alle Tiles, Zoom-Level aufsteigend (grobe Tiles zuerst)
+     */
+    fun tiles(): Sequence<Triple<Int, Int, Int>> = sequence {
+        for (zoom in minZoom..maxZoom) {
+            for (row in rows(zoom)) {
+                for (col in cols(zoom)) {
+                    yield(Triple(zoom, col, row))
+                }
+            }
+        }
+    }
+
+    /**
+     * Dieselbe Fläche mit so vielen Zoom-Levels wie in [maxTiles] passen
+     *
+     * @return null wenn schon [minZoom] allein mehr als [maxTiles] Tiles hat
+     */
+    fun limitedTo(maxTiles: Long): TileRegion? {
+        var zoom = maxZoom
+        while (zoom >= minZoom) {
+            val region = copy(maxZoom = zoom)
+            if (region.tileCount() <= maxTiles) return region
+            zoom--
+        }
+        return null
+    }
+
+    companion object {
+        /**
+         * Region aus einem Ausschnitt in normalisierten Kartenkoordinaten (0..1, wie MapCompose)
+         */
+        fun fromNormalized(
+            left: Double,
+            top: Double,
+            right: Double,
+            bottom: Double,
+            minZoom: Int,
+            maxZoom: Int
+        ): TileRegion = TileRegion(
+            north = MercatorProjection.latitude(top.coerceIn(0.0, 1.0)),
+            south = MercatorProjection.latitude(bottom.coerceIn(0.0, 1.0)),
+            east = MercatorProjection.longitude(right.coerceIn(0.0, 1.0)),
+            west = MercatorProjection.longitude(left.coerceIn(0.0, 1.0)),
+            minZoom = minZoom,
+            maxZoom = maxZoom
+        )
+
+        fun lonToCol(lon: Double, zoom: Int): Int = MercatorProjection.column(lon, zoom)
+
+        fun latToRow(lat: Double, zoom: Int): Int = MercatorProjection.row(lat, zoom)
+    }
+}
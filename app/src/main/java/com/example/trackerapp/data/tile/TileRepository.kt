@@ -0,0 +1,418 @@
+package com.example.trackerapp.data.tile
+
+import android.content.Context
+import com.example.trackerapp.core.constants.AppConstants
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.asSharedFlow
+import kotlinx.coroutines.future.future
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import java.io.File
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Single Source of Truth für Karten-Tiles
+ *
+ * Ablauf pro Tile:
+ * 0. Offline-Tiles aus [offline] (MBTiles) - immer vor Cache-Disk und Netzwerk
+ * 1. Cache (Memory → Disk) - frische Tiles werden sofort geliefert
+ * 2. Abgelaufenes Tile mit ETag/Last-Modified → Conditional Request, bei 304 nur TTL erneuern
+ * 3. Sonst Netzwerk über [HttpTileFetcher] - Ergebnis wird gecacht
+ * 4. Netzwerk fehlgeschlagen → abgelaufenes Tile aus dem Cache als Fallback
+ *
+ * Threading:
+ * - Alle Loads laufen auf einem eigenen Dispatcher mit begrenzter Parallelität
+ *   (Dispatchers.IO.limitedParallelism). Die Anzahl der Threads hängt damit nicht
+ *   von der Anzahl wartender Requests ab, weitere Requests warten in der Queue.
+ * - [loadTileBlocking] ist die Brücke zum blockierenden TileStreamProvider von MapCompose:
+ *   Memory-Treffer werden direkt im Aufrufer-Thread geliefert, alles andere wartet
+ *   auf ein Future - ohne runBlocking und ohne zusätzlich blockierten IO-Thread.
+ *
+ * Abbruch:
+ * - [cancelOutside] bricht wartende Karten-Requests ab, die nach Scrollen/Zoomen nicht
+ *   mehr sichtbar sind (MapCompose-Worker bekommt sofort null)
+ * - Wartet niemand mehr auf einen Download, wird er abgebrochen solange der Server noch
+ *   nicht geantwortet hat. Läuft der Body schon, wird er im Hintergrund nur noch in den
+ *   Cache geladen (die Bytes sind ohnehin unterwegs).
+ * - [TileMetrics.wastedBytes] zählt Bytes von Tiles, auf die beim Eintreffen niemand mehr wartete
+ *
+ * Platzhalter (wenn [placeholdersEnabled]):
+ * - Muss ein Tile aus dem Netzwerk kommen, bekommt MapCompose sofort einen Platzhalter
+ *   (abgelaufenes Tile oder [TilePlaceholders] aus Vorfahren/Kindern), der Download läuft
+ *   im Hintergrund weiter
+ * - Ist das echte Tile da, meldet [replacedTiles] das - die Karte lädt ihre Tiles neu
+ *   und bekommt es als Memory-Treffer
+ * - Erzeugte Platzhalter bleiben im Speicher bis das echte Tile da ist (oder sein Download
+ *   endet): jedes Neuladen der Karte fragt alle noch wartenden Tiles erneut an
+ *
+ * Singleton Pattern wie [com.example.trackerapp.data.local.AppDatabase]:
+ * MapScreen und PathScreen teilen sich denselben Cache und dieselben Download-Slots.
+ *
+ * @param maxParallelRequests Maximale Anzahl gleichzeitiger Cache-/Netzwerk-Loads
+ * @property offline Heruntergeladene Region (null = keine Offline-Karten)
+ * @property placeholdersEnabled Platzhalter liefern statt auf das Netzwerk zu warten
+ */
+class TileRepository(
+    val cache: TileCache,
+    private val fetcher: HttpTileFetcher = HttpTileFetcher(),
+    maxParallelRequests: Int = AppConstants.Tiles.MAX_PARALLEL_REQUESTS,
+    val offline: MbTilesStore? = null,
+    private val placeholdersEnabled: Boolean = false
+) {
+    private val dispatcher = Dispatchers.IO.limitedParallelism(maxParallelRequests)
+    private val scope = CoroutineScope(SupervisorJob() + dispatcher)
+
+    /**
+     * Zähler für Cache-Treffer, Downloads und zusammengelegte Requests
+     */
+    val metrics = TileMetrics()
+
+    // Downloads bei denen der Server schon antwortet (Body wird übertragen)
+    private val receiving = ConcurrentHashMap.newKeySet<TileKey>()
+
+    private val singleFlight = SingleFlight<TileKey, ByteArray?>(
+        scope = scope,
+        onCoalesced = { metrics.coalescedRequests.incrementAndGet() },
+        onAbandoned = { key ->
+            val abort = key !in receiving
+            if (abort) metrics.abortedTiles.incrementAndGet() else metrics.backgroundCompletions.incrementAndGet()
+            abort
+        }
+    )
+
+    /**
+     * Dekodierte Tiles für Platzhalter und Overlays (RGB_565, Bitmap-Pool, Speichergrenze)
+     */
+    val bitmaps: TileBitmapDecoder by lazy {
+        val pool = TileBitmapPool(AppConstants.Tiles.BITMAP_POOL_MAX_BYTES)
+        TileBitmapDecoder(pool, DecodedTileCache(AppConstants.Tiles.DECODED_CACHE_MAX_BYTES, pool))
+    }
+
+    private val placeholders by lazy { TilePlaceholders(bitmaps, ::localTile) }
+
+    // Downloads hinter ausgelieferten Platzhaltern
+    private val backgroundLoads = ConcurrentHashMap<TileKey, Job>()
+
+    // Erzeugte Platzhalter, solange ihr Download läuft (höchstens so viele wie backgroundLoads)
+    private val synthesized = ConcurrentHashMap<TileKey, ByteArray>()
+
+    // Tiles, für die ein Platzhalter ausgeliefert wird: nur diese meldet replacedTiles
+    private val pendingPlaceholders = ConcurrentHashMap.newKeySet<TileKey>()
+
+    private val _replacedTiles = MutableSharedFlow<TileKey>(
+        extraBufferCapacity = 64,
+        onBufferOverflow = BufferOverflow.DROP_OLDEST
+    )
+
+    /**
+     * Echte Tiles, die einen ausgelieferten Platzhalter ersetzen können
+     */
+    val replacedTiles: SharedFlow<TileKey> = _replacedTiles.asSharedFlow()
+
+    // Wartende MapCompose-Worker (für cancelOutside)
+    private val blockingLoads = ConcurrentHashMap<CompletableFuture<ByteArray?>, TileKey>()
+
+    private val foregroundLoads = AtomicInteger()
+
+    /**
+     * Anzahl laufender Karten-Requests (Prefetches warten bis hier 0 steht)
+     */
+    val activeLoads: Int
+        get() = foregroundLoads.get()
+
+    /**
+     * Anzahl Downloads, deren Server schon antwortet (werden von [cancelOutside] nicht abgebrochen)
+     */
+    val receivingLoads: Int
+        get() = receiving.size
+
+    /**
+     * Lädt ein Tile (Cache oder Netzwerk)
+     *
+     * Gleichzeitige Requests für dasselbe Tile (z.B. MapScreen und PathScreen, oder zwei
+     * Worker derselben MapState) teilen sich einen Download über [SingleFlight].
+     *
+     * @return PNG-Bytes oder null wenn das Tile nirgends verfügbar ist
+     */
+    suspend fun loadTile(provider: TileProvider, zoom: Int, col: Int, row: Int): ByteArray? {
+        metrics.requests.incrementAndGet()
+        val key = TileKey(provider.id, zoom, col, row)
+
+        foregroundLoads.incrementAndGet()
+        try {
+            return withContext(dispatcher) {
+                loadOffline(provider, key)?.let { return@withContext it }
+
+                val cached = cache.get(key)
+                if (cached != null && cache.isFresh(cached)) {
+                    metrics.cacheHits.incrementAndGet()
+                    return@withContext cached.data
+                }
+
+                singleFlight.run(key) { fetchAndCache(provider, key, cached) }
+            }
+        } finally {
+            foregroundLoads.decrementAndGet()
+        }
+    }
+
+    /**
+     * Lädt ein Tile nur in den Cache (für [TilePrefetcher])
+     *
+     * Vorhandene Tiles werden nicht in den Memory-Cache übernommen, damit Prefetches
+     * keine sichtbaren Tiles verdrängen. Der Cache-Lookup läuft im Kontext des Aufrufers,
+     * der Download über [SingleFlight] auf dem begrenzten Dispatcher der Karte: Prefetches
+     * belegen dieselben Download-Slots (der [TilePrefetcher] startet sie deshalb nur wenn
+     * [activeLoads] 0 ist) und ein sichtbares Tile, das gerade vorgeladen wird, hängt sich
+     * an den laufenden Download an.
+     *
+     * @return Übertragene Bytes (0 wenn das Tile schon frisch vorhanden war)
+     */
+    suspend fun prefetchTile(provider: TileProvider, zoom: Int, col: Int, row: Int): Long {
+        val key = TileKey(provider.id, zoom, col, row)
+        val offlineStore = offline?.takeIf { it.isAvailable && it.providerId == provider.id }
+        if (offlineStore?.hasTile(zoom, col, row) == true) return 0L
+
+        val cached = cache.memory.get(key) ?: cache.disk?.get(key)
+        if (cached != null && cache.isFresh(cached)) return 0L
+
+        val data = singleFlight.run(key) { fetchAndCache(provider, key, cached) } ?: return 0L
+        metrics.prefetchedTiles.incrementAndGet()
+        metrics.prefetchedBytes.addAndGet(data.size.toLong())
+        return data.size.toLong()
+    }
+
+    private fun loadOffline(provider: TileProvider, key: TileKey): ByteArray? {
+        val store = offline?.takeIf { it.isAvailable && it.providerId == provider.id } ?: return null
+        val data = store.getTile(key.zoom, key.col, key.row) ?: return null
+        metrics.offlineHits.incrementAndGet()
+        // Nur Memory: die Bytes liegen schon auf Disk
+        cache.putInMemory(key, data)
+        return data
+    }
+
+    /**
+     * Lädt eine Region für die Offline-Nutzung herunter (siehe [RegionDownloader])
+     *
+     * Aufgerufen vom RegionDownloadService, damit der Download den Screen überlebt.
+     *
+     * @throws IllegalStateException wenn kein Offline-Speicher konfiguriert ist
+     */
+    suspend fun downloadRegion(
+        region: TileRegion,
+        provider: TileProvider = TileProvider.BASEMAP,
+        onProgress: (RegionDownloader.Progress) -> Unit = {}
+    ): RegionDownloader.Progress {
+        val store = checkNotNull(offline) { "no offline store configured" }
+        return RegionDownloader(fetcher, store).download(provider, region, onProgress)
+    }
+
+    private suspend fun fetchAndCache(provider: TileProvider, key: TileKey, cached: CachedTile?): ByteArray? {
+        val revalidate = cached?.takeIf { it.canRevalidate() }
+        val result = try {
+            fetcher.fetch(provider, key.zoom, key.col, key.row, revalidate) { receiving += key }
+        } finally {
+            receiving -= key
+        }
+        return when (result) {
+            is HttpTileFetcher.FetchResult.Success -> {
+                metrics.networkFetches.incrementAndGet()
+                if (singleFlight.waiterCount(key) == 0) {
+                    // Niemand wartet mehr - Tile landet nur noch im Cache
+                    metrics.wastedBytes.addAndGet(result.data.size.toLong())
+                }
+                cache.put(key, result.data, result.etag, result.lastModified)
+                result.data
+            }
+            HttpTileFetcher.FetchResult.NotModified -> {
+                metrics.notModified.incrementAndGet()
+                cache.refresh(key, cached!!).data
+            }
+            // Offline / alle Server down: lieber altes Tile als gar keins
+            HttpTileFetcher.FetchResult.Failed -> {
+                metrics.failures.incrementAndGet()
+                cached?.data
+            }
+        }
+    }
+
+    /**
+     * Blockierende Variante für MapCompose-Worker
+     *
+     * Der Aufrufer-Thread wartet, der eigentliche Load läuft auf dem begrenzten Dispatcher.
+     *
+     * @return PNG-Bytes oder null bei Fehler / Abbruch
+     */
+    fun loadTileBlocking(provider: TileProvider, zoom: Int, col: Int, row: Int): ByteArray? {
+        val key = TileKey(provider.id, zoom, col, row)
+
+        // Fast Path: Memory-Treffer ohne Thread-Wechsel
+        cache.memory.get(key)
+            ?.takeIf { cache.isFresh(it) }
+            ?.let {
+                metrics.requests.incrementAndGet()
+                metrics.cacheHits.incrementAndGet()
+                return it.data
+            }
+
+        if (placeholdersEnabled) {
+            placeholderFor(provider, key)?.let { return it }
+        }
+
+        val future = scope.future { loadTile(provider, zoom, col, row) }
+        blockingLoads[future] = key
+        return try {
+            BlockingTileLoad.await(future)
+        } finally {
+            blockingLoads.remove(future)
+        }
+    }
+
+    /**
+     * Platzhalter wenn das Tile aus dem Netzwerk kommen muss, sonst null (normal laden)
+     *
+     * Der echte Load wird zuerst eingereiht: Disk-Lookup, Synthese und JPEG-Encode laufen auf
+     * dem Worker, während der Download schon auf seinen Slot wartet.
+     */
+    private fun placeholderFor(provider: TileProvider, key: TileKey): ByteArray? {
+        val offlineStore = offline?.takeIf { it.isAvailable && it.providerId == provider.id }
+        if (offlineStore?.hasTile(key.zoom, key.col, key.row) == true) {
+            return null
+        }
+
+        pendingPlaceholders += key
+        loadInBackground(provider, key)
+
+        val local = cache.get(key)
+        if (local != null && cache.isFresh(local)) {
+            // Kein Platzhalter: der Hintergrund-Load findet dasselbe Tile im Cache
+            pendingPlaceholders -= key
+            synthesized.remove(key)
+            return local.data
+        }
+
+        // Abgelaufenes Tile ist der beste Platzhalter, sonst aus anderen Zoom-Leveln
+        val placeholder = local?.data ?: synthesizedPlaceholder(key)
+        if (placeholder == null) {
+            // Normal laden, hängt sich über SingleFlight an den laufenden Download
+            pendingPlaceholders -= key
+            return null
+        }
+        metrics.placeholderTiles.incrementAndGet()
+        return placeholder
+    }
+
+    /**
+     * Platzhalter aus anderen Zoom-Leveln, nur beim ersten Mal erzeugt
+     */
+    private fun synthesizedPlaceholder(key: TileKey): ByteArray? {
+        synthesized[key]?.let { return it }
+        val placeholder = placeholders.synthesize(key) ?: return null
+        metrics.synthesizedPlaceholders.incrementAndGet()
+        synthesized[key] = placeholder
+        return placeholder
+    }
+
+    private fun loadInBackground(provider: TileProvider, key: TileKey) {
+        if (backgroundLoads.containsKey(key)) return
+        val job = scope.launch(start = CoroutineStart.LAZY) {
+            if (loadTile(provider, key.zoom, key.col, key.row) != null && pendingPlaceholders.remove(key)) {
+                _replacedTiles.tryEmit(key)
+            }
+        }
+        if (backgroundLoads.putIfAbsent(key, job) != null) {
+            job.cancel()
+            return
+        }
+        job.invokeOnCompletion {
+            backgroundLoads.remove(key, job)
+            // Echtes Tile im Cache, oder Download abgebrochen: beim nächsten Mal neu erzeugen
+            synthesized.remove(key)
+            pendingPlaceholders.remove(key)
+        }
+        job.start()
+    }
+
+    /**
+     * Lokal vorhandenes Tile ohne Netzwerk (Memory, Disk, Offline-Karte)
+     */
+    private fun localTile(key: TileKey): ByteArray? {
+        cache.memory.get(key)?.let { return it.data }
+        cache.disk?.get(key)?.let { return it.data }
+        return offline?.takeIf { it.isAvailable && it.providerId == key.provider }?.getTile(key.zoom, key.col, key.row)
+    }
+
+    /**
+     * Bricht wartende Karten-Requests außerhalb des sichtbaren Ausschnitts ab
+     *
+     * @param viewport Aktuell sichtbare Tiles
+     * @param margin Tiles am Rand, die trotzdem weiter geladen werden
+     * @return Anzahl abgebrochener Requests
+     */
+    fun cancelOutside(viewport: TileViewport, margin: Int = AppConstants.Tiles.VIEWPORT_CANCEL_MARGIN): Int {
+        var cancelled = 0
+        for ((future, key) in blockingLoads) {
+            if (!viewport.contains(key, margin) && future.cancel(true)) {
+                cancelled++
+            }
+        }
+        for ((key, job) in backgroundLoads) {
+            if (!viewport.contains(key, margin) && job.isActive) {
+                job.cancel()
+                cancelled++
+            }
+        }
+        metrics.cancelledRequests.addAndGet(cancelled.toLong())
+        return cancelled
+    }
+
+    companion object {
+        @Volatile
+        private var INSTANCE: TileRepository? = null
+
+        /**
+         * Holt die Repository-Instanz (Singleton, Double-Check Locking)
+         *
+         * @param context Context für das Cache-Verzeichnis
+         */
+        fun getInstance(context: Context): TileRepository {
+            return INSTANCE ?: synchronized(this) {
+                val instance = INSTANCE ?: create(context.applicationContext)
+                INSTANCE = instance
+                instance
+            }
+        }
+
+        private fun create(context: Context): TileRepository {
+            val memoryBytes = minOf(
+                Runtime.getRuntime().maxMemory() / AppConstants.Tiles.MEMORY_CACHE_HEAP_FRACTION,
+                AppConstants.Tiles.MEMORY_CACHE_MAX_BYTES
+            )
+            val cache = TileCache(
+                memory = MemoryTileCache(memoryBytes),
+                disk = DiskTileCache(
+                    directory = File(context.cacheDir, AppConstants.Tiles.DISK_CACHE_DIR),
+                    maxBytes = AppConstants.Tiles.DISK_CACHE_MAX_BYTES
+                ),
+                ttlMs = AppConstants.Tiles.CACHE_TTL_MS
+            )
+            val offline = MbTilesStore(
+                file = File(
+                    File(context.filesDir, AppConstants.Tiles.OFFLINE_DIR),
+                    "${TileProvider.BASEMAP.id}.mbtiles"
+                ),
+                providerId = TileProvider.BASEMAP.id
+            )
+            return TileRepository(cache, offline = offline, placeholdersEnabled = true)
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.trackerapp.data.tile
+
+import com.example.trackerapp.core.constants.AppConstants
+import java.net.URI
+
+/**
+ * Wählt pro Request den aktuell besten Tile-Server
+ *
+ * Pro Host (host:port) werden geführt:
+ * - Latenz als EWMA (exponentiell gewichteter Mittelwert)
+ * - Fehlerrate als EWMA
+ * - Circuit Breaker: CLOSED → OPEN nach [failureThreshold] Fehlern in Folge,
+ *   nach Ablauf der Cooldown-Zeit HALF_OPEN mit genau einem Probe-Request.
+ *   Probe erfolgreich → CLOSED, sonst wieder OPEN mit verdoppeltem Cooldown.
+ *
+ * [rank] sortiert die URLs eines Tiles nach Score (Latenz, bestraft mit Fehlerrate).
+ * Hosts ohne Messwerte kommen zuerst, damit jeder Server einmal gemessen wird.
+ * Hosts mit offenem Breaker werden übersprungen - ein toter Server kostet damit
+ * nicht mehr bei jedem Tile den vollen Timeout.
+ *
+ * Thread-safe (synchronized), die Arbeit pro Aufruf ist winzig.
+ */
+class TileServerSelector(
+    private val failureThreshold: Int = AppConstants.Tiles.BREAKER_FAILURE_THRESHOLD,
+    private val baseCooldownMs: Long = AppConstants.Tiles.BREAKER_BASE_COOLDOWN_MS,
+    private val maxCooldownMs: Long = AppConstants.Tiles.BREAKER_MAX_COOLDOWN_MS,
+    private val alpha: Double = AppConstants.Tiles.LATENCY_EWMA_ALPHA,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+
+    /**
+     * Zustand des Circuit Breakers
+     */
+    enum class BreakerState { CLOSED, OPEN, HALF_OPEN }
+
+    private class HostHealth {
+        var latencyMs = 0.0
+        var errorRate = 0.0
+        var samples = 0
+        var consecutiveFailures = 0
+        var state = BreakerState.CLOSED
+        var openedAt = 0L
+        var cooldownMs = 0L
+        var probeInFlight = false
+        var probeStartedAt = 0L
+    }
+
+    private val hosts = HashMap<String, HostHealth>()
+
+    /**
+     * Sortiert die URLs nach Eignung, Hosts mit offenem Breaker fallen weg
+     *
+     * Ein fälliger Probe-Request (HALF_OPEN) steht vorne, damit er auch wirklich
+     * gesendet wird. Die Reihenfolge der Templates ist der Tie-Breaker.
+     */
+    @Synchronized
+    fun rank(urls: List<String>): List<String> {
+        val now = clock()
+        return urls
+            .filter { url -> admit(health(hostOf(url)), now) }
+            .sortedBy { url ->
+                val health = health(hostOf(url))
+                if (health.state == BreakerState.HALF_OPEN) -1.0 else score(health)
+            }
+    }
+
+    /**
+     * Meldet das Ergebnis eines Requests
+     *
+     * @param success Server hat geantwortet (auch 304/404 zählen als gesund)
+     * @param latencyMs Dauer bis zur Antwort
+     */
+    @Synchronized
+    fun record(url: String, success: Boolean, latencyMs: Long) {
+        val health = health(hostOf(url))
+        health.latencyMs = if (health.samples == 0) {
+            latencyMs.toDouble()
+        } else {
+            alpha * latencyMs + (1 - alpha) * health.latencyMs
+        }
+        health.errorRate = alpha * (if (success) 0.0 else 1.0) + (1 - alpha) * health.errorRate
+        health.samples++
+
+        if (success) {
+            health.consecutiveFailures = 0
+            health.state = BreakerState.CLOSED
+            health.cooldownMs = 0L
+        } else {
+            health.consecutiveFailures++
+            val probeFailed = health.state == BreakerState.HALF_OPEN
+            if (probeFailed || health.consecutiveFailures >= failureThreshold) {
+                health.cooldownMs = if (probeFailed) {
+                    (health.cooldownMs * 2).coerceAtMost(maxCooldownMs)
+                } else {
+                    baseCooldownMs
+                }
+                health.state = BreakerState.OPEN
+                health.openedAt = clock()
+            }
+        }
+        health.probeInFlight = false
+    }
+
+    /**
+     * Aktueller Breaker-Zustand eines Hosts (für Tests und Debug-Ausgaben)
+     */
+    @Synchronized
+    fun stateOf(url: String): BreakerState = health(hostOf(url)).state
+
+    private fun admit(health: HostHealth, now: Long): Boolean {
+        return when (health.state) {
+            BreakerState.CLOSED -> true
+            BreakerState.OPEN -> {
+                if (now - health.openedAt < health.cooldownMs) return false
+                // Cooldown abgelaufen: genau ein Probe-Request darf durch
+                health.state = BreakerState.HALF_OPEN
+                startProbe(health, now)
+            }
+            BreakerState.HALF_OPEN -> {
+                // Probe ohne Ergebnis (z.B. abgebrochene Coroutine) blockiert nicht dauerhaft
+                if (health.probeInFlight && now - health.probeStartedAt < baseCooldownMs) return false
+                startProbe(health, now)
+            }
+        }
+    }
+
+    private fun startProbe(health: HostHealth, now: Long): Boolean {
+        health.probeInFlight = true
+        health.probeStartedAt = now
+        return true
+    }
+
+    private fun score(health: HostHealth): Double {
+        if (health.samples == 0) return 0.0
+        return health.latencyMs * (1.0 + ERROR_PENALTY * health.errorRate)
+    }
+
+    private fun health(host: String): HostHealth = hosts.getOrPut(host) { HostHealth() }
+
+    private fun hostOf(url: String): String {
+        val uri = URI(url)
+        return "${uri.host}:${uri.port}"
+    }
+
+    companion object {
+        // Fehlerrate 100% zählt wie 10-fache Latenz
+        private const val ERROR_PENALTY = 9.0
+    }
+}
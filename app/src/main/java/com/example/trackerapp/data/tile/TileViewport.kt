@@ -0,0 +1,36 @@
+package com.example.trackerapp.data.tile
+
+import kotlin.math.floor
+
+/**
+ * Sichtbarer Tile-Ausschnitt eines Zoom-Levels
+ *
+ * @property zoom Angezeigter Zoom-Level
+ * @property cols Sichtbare Spalten
+ * @property rows Sichtbare Zeilen
+ */
+data class TileViewport(
+    val zoom: Int,
+    val cols: IntRange,
+    val rows: IntRange
+) {
+    /**
+     * Liegt das Tile im Ausschnitt (plus [margin] Tiles Rand)?
+     */
+    fun contains(key: TileKey, margin: Int = 0): Boolean {
+        return key.zoom == zoom &&
+            key.col in (cols.first - margin)..(cols.last + margin) &&
+            key.row in (rows.first - margin)..(rows.last + margin)
+    }
+
+    companion object {
+        /**
+         * Ausschnitt aus normalisierten Kartenkoordinaten (0..1, wie MapCompose sie liefert)
+         */
+        fun fromNormalized(zoom: Int, left: Double, top: Double, right: Double, bottom: Double): TileViewport {
+            val n = 1 shl zoom
+            fun index(value: Double) = floor(value * n).toInt().coerceIn(0, n - 1)
+            return TileViewport(zoom, index(left)..index(right), index(top)..index(bottom))
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.trackerapp.data.tile
+
+/**
+ * Dekodiertes Mapbox Vector Tile (MVT 2.1)
+ *
+ * Koordinaten liegen im Tile-Raster 0..[Layer.extent] (meist 4096), y nach unten.
+ *
+ * @property layers Layer in Dateireihenfolge (z.B. water, landuse, transportation)
+ */
+class VectorTile(val layers: List<Layer>) {
+
+    fun layer(name: String): Layer? = layers.firstOrNull { it.name == name }
+
+    class Layer(
+        val name: String,
+        val extent: Int,
+        val features: List<Feature>
+    )
+
+    /**
+     * @property geometry Teile der Geometrie (Punkte, Linien oder Ringe), je Teil
+     *   flach als x0, y0, x1, y1, ... - Ringe sind nicht explizit geschlossen
+     */
+    class Feature(
+        val id: Long,
+        val type: GeometryType,
+        val properties: Map<String, Any>,
+        val geometry: List<IntArray>
+    )
+
+    enum class GeometryType { UNKNOWN, POINT, LINESTRING, POLYGON }
+}
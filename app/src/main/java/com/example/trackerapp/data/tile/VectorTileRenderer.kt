@@ -0,0 +1,237 @@
+package com.example.trackerapp.data.tile
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Paint
+import android.graphics.Path
+import com.example.trackerapp.core.constants.AppConstants
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.withContext
+import java.io.ByteArrayOutputStream
+import java.io.Closeable
+import java.io.File
+
+/**
+ * Rastert Vektor-Tiles aus einem lokalen MBTiles-Paket (format=pbf) zu Karten-Tiles
+ *
+ * - Quelle ist ein Offline-Paket mit Mapbox Vector Tiles ([MvtDecoder]). Ein Vektor-Tile
+ *   deckt alle Zoom-Level darüber ab: oberhalb von maxzoom des Pakets wird der passende
+ *   Ausschnitt des Vorfahren vergrößert gezeichnet (scharf, nicht hochskaliert).
+ *   Damit braucht eine Offline-Region nur die Level bis maxzoom (meist 14) statt bis 18.
+ * - Gezeichnet wird mit [style] auf einem eigenen Dispatcher mit [workers] Threads,
+ *   nicht auf den Download-Slots des [TileRepository]
+ * - Fertige Tiles landen als PNG im [cache] (Memory + Disk), gleichzeitige Anfragen für
+ *   dasselbe Tile teilen sich einen Render-Vorgang ([SingleFlight])
+ * - Dekodierte Vektor-Tiles werden kurz gehalten: beim Überzoomen brauchen viele
+ *   Tiles denselben Vorfahren
+ *
+ * Punkte (Labels, POIs) werden nicht gezeichnet.
+ *
+ * @property source Paket mit den Vektor-Tiles
+ * @property cache Cache für gerasterte Tiles (eigener Namespace pro Stil-ID)
+ * @property bitmapPool Pool für die Render-Bitmaps
+ */
+class VectorTileRenderer(
+    private val source: MbTilesStore,
+    private val cache: TileCache,
+    private val bitmapPool: TileBitmapPool,
+    val style: VectorTileStyle = VectorTileStyle.DEFAULT,
+    workers: Int = AppConstants.Tiles.VECTOR_RENDER_WORKERS
+) : Closeable {
+    private val dispatcher = Dispatchers.Default.limitedParallelism(workers)
+    private val scope = CoroutineScope(SupervisorJob() + dispatcher)
+    private val singleFlight = SingleFlight<TileKey, ByteArray?>(scope)
+
+    private val cacheNamespace = "vector-${style.id}"
+
+    private val sourceMinZoom by lazy { source.metadata("minzoom")?.toIntOrNull() ?: 0 }
+    private val sourceMaxZoom by lazy {
+        source.metadata("maxzoom")?.toIntOrNull() ?: AppConstants.Tiles.VECTOR_DEFAULT_MAX_ZOOM
+    }
+
+    private val decoded = object : LinkedHashMap<TileKey, VectorTile>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<TileKey, VectorTile>?): Boolean =
+            size > AppConstants.Tiles.VECTOR_DECODED_TILES
+    }
+
+    /**
+     * Gerastertes Tile als PNG
+     *
+     * @return null wenn das Paket diese Stelle nicht abdeckt (Raster-Karte verwenden)
+     */
+    suspend fun renderTile(zoom: Int, col: Int, row: Int): ByteArray? {
+        val key = TileKey(cacheNamespace, zoom, col, row)
+        cache.get(key)?.let { return it.data }
+        if (zoom < sourceMinZoom) return null
+
+        return singleFlight.run(key) {
+            withContext(dispatcher) {
+                render(zoom, col, row)?.also { cache.put(key, it) }
+            }
+        }
+    }
+
+    /**
+     * Blockierende Variante für MapCompose-Worker ([BlockingTileLoad])
+     */
+    fun renderTileBlocking(zoom: Int, col: Int, row: Int): ByteArray? {
+        cache.memory.get(TileKey(cacheNamespace, zoom, col, row))?.let { return it.data }
+
+        return BlockingTileLoad.run(scope) { renderTile(zoom, col, row) }
+    }
+
+    override fun close() {
+        scope.cancel()
+        source.close()
+    }
+
+    private fun render(zoom: Int, col: Int, row: Int): ByteArray? {
+        // Oberhalb von maxzoom: Vorfahr aus dem Paket, Ausschnitt vergrößert
+        val sourceZoom = minOf(zoom, sourceMaxZoom)
+        val overzoom = zoom - sourceZoom
+        val sourceKey = TileKey(source.providerId, sourceZoom, col shr overzoom, row shr overzoom)
+        val tile = vectorTile(sourceKey) ?: return null
+
+        val mask = (1 shl overzoom) - 1
+        val offsetX = ((col and mask) * TILE_SIZE).toFloat()
+        val offsetY = ((row and mask) * TILE_SIZE).toFloat()
+
+        val bitmap = bitmapPool.get(TILE_SIZE, TILE_SIZE, Bitmap.Config.RGB_565)
+            ?: Bitmap.createBitmap(TILE_SIZE, TILE_SIZE, Bitmap.Config.RGB_565)
+        try {
+            bitmap.eraseColor(style.background)
+            val canvas = Canvas(bitmap)
+            // Paints pro Render-Vorgang: mehrere Worker zeichnen gleichzeitig
+            val fillPaint = Paint(Paint.ANTI_ALIAS_FLAG).apply { style = Paint.Style.FILL }
+            val linePaint = Paint(Paint.ANTI_ALIAS_FLAG).apply {
+                style = Paint.Style.STROKE
+                strokeCap = Paint.Cap.ROUND
+                strokeJoin = Paint.Join.ROUND
+            }
+            for (rule in style.rules) {
+                val layer = tile.layer(rule.layer) ?: continue
+                val scale = TILE_SIZE.toFloat() * (1 shl overzoom) / layer.extent
+                for (feature in layer.features) {
+                    if (!rule.matches(layer.name, feature, zoom)) continue
+                    drawFeature(canvas, fillPaint, linePaint, feature, rule, scale, offsetX, offsetY)
+                }
+            }
+            val out = ByteArrayOutputStream(TILE_SIZE * TILE_SIZE / 4)
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)
+            return out.toByteArray()
+        } finally {
+            bitmapPool.put(bitmap)
+        }
+    }
+
+    private fun vectorTile(key: TileKey): VectorTile? {
+        synchronized(decoded) { decoded[key]?.let { return it } }
+        val data = source.getTile(key.zoom, key.col, key.row) ?: return null
+        val tile = try {
+            MvtDecoder.decode(data)
+        } catch (e: IllegalArgumentException) {
+            return null
+        }
+        synchronized(decoded) { decoded[key] = tile }
+        return tile
+    }
+
+    private fun drawFeature(
+        canvas: Canvas,
+        fillPaint: Paint,
+        linePaint: Paint,
+        feature: VectorTile.Feature,
+        rule: VectorTileStyle.Rule,
+        scale: Float,
+        offsetX: Float,
+        offsetY: Float
+    ) {
+        val polygon = feature.type == VectorTile.GeometryType.POLYGON
+        if (!polygon && feature.type != VectorTile.GeometryType.LINESTRING) return
+
+        val path = Path()
+        if (polygon) path.fillType = Path.FillType.EVEN_ODD
+        var visible = false
+        for (part in feature.geometry) {
+            if (part.size < 4 || !intersectsTile(part, scale, offsetX, offsetY)) continue
+            visible = true
+            path.moveTo(part[0] * scale - offsetX, part[1] * scale - offsetY)
+            var i = 2
+            while (i + 1 < part.size) {
+                path.lineTo(part[i] * scale - offsetX, part[i + 1] * scale - offsetY)
+                i += 2
+            }
+            if (polygon) path.close()
+        }
+        if (!visible) return
+
+        if (polygon && rule.fillColor != null) {
+            fillPaint.color = rule.fillColor
+            canvas.drawPath(path, fillPaint)
+        }
+        if (rule.lineColor != null) {
+            linePaint.color = rule.lineColor
+            linePaint.strokeWidth = rule.lineWidth
+            canvas.drawPath(path, linePaint)
+        }
+    }
+
+    /**
+     * Bounding-Box-Test: beim Überzoomen liegt der Großteil des Vorfahren außerhalb
+     */
+    private fun intersectsTile(part: IntArray, scale: Float, offsetX: Float, offsetY: Float): Boolean {
+        var minX = Int.MAX_VALUE
+        var minY = Int.MAX_VALUE
+        var maxX = Int.MIN_VALUE
+        var maxY = Int.MIN_VALUE
+        var i = 0
+        while (i + 1 < part.size) {
+            minX = minOf(minX, part[i])
+            maxX = maxOf(maxX, part[i])
+            minY = minOf(minY, part[i + 1])
+            maxY = maxOf(maxY, part[i + 1])
+            i += 2
+        }
+        return maxX * scale - offsetX >= -CULL_MARGIN && minX * scale - offsetX <= TILE_SIZE + CULL_MARGIN &&
+            maxY * scale - offsetY >= -CULL_MARGIN && minY * scale - offsetY <= TILE_SIZE + CULL_MARGIN
+    }
+
+    companion object {
+        private const val TILE_SIZE = 256
+
+        // Linienbreite ragt über die Geometrie hinaus
+        private const val CULL_MARGIN = 4f
+
+        /**
+         * Renderer für das Vektor-Paket im Offline-Verzeichnis
+         *
+         * @return null wenn kein Paket (filesDir/offline/vector.mbtiles, format=pbf) vorhanden ist
+         */
+        fun create(context: Context, bitmapPool: TileBitmapPool): VectorTileRenderer? {
+            val file = File(
+                File(context.filesDir, AppConstants.Tiles.OFFLINE_DIR),
+                AppConstants.Tiles.VECTOR_PACKAGE_FILE
+            )
+            if (!file.exists()) return null
+            val source = MbTilesStore(file, providerId = "vector")
+            if (source.metadata("format") != "pbf") {
+                source.close()
+                return null
+            }
+            val cache = TileCache(
+                memory = MemoryTileCache(AppConstants.Tiles.VECTOR_MEMORY_CACHE_MAX_BYTES),
+                disk = DiskTileCache(
+                    directory = File(context.cacheDir, AppConstants.Tiles.VECTOR_CACHE_DIR),
+                    maxBytes = AppConstants.Tiles.VECTOR_DISK_CACHE_MAX_BYTES
+                ),
+                // Gerasterte Tiles ändern sich nur mit dem Stil (steckt im Namespace)
+                ttlMs = Long.MAX_VALUE
+            )
+            return VectorTileRenderer(source, cache, bitmapPool)
+        }
+    }
+}
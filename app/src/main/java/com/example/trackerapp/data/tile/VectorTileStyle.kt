@@ -0,0 +1,62 @@
+package com.example.trackerapp.data.tile
+
+/**
+ * Einfacher Stil für [VectorTileRenderer]
+ *
+ * Regeln werden in Listenreihenfolge gezeichnet (erste Regel ganz unten).
+ * Eine Regel gilt für einen Layer, optional nur für Features deren "class"-Attribut
+ * in [Rule.classes] steht, und erst ab [Rule.minZoom].
+ *
+ * @property id Geht in den Cache-Schlüssel ein - bei Stiländerung neue ID vergeben,
+ *   sonst kommen alte Rasterbilder aus dem Cache
+ * @property background Farbe wo kein Feature liegt (ARGB)
+ */
+data class VectorTileStyle(
+    val id: String,
+    val background: Int,
+    val rules: List<Rule>
+) {
+    /**
+     * @property fillColor Füllfarbe für Polygone (null = nicht füllen)
+     * @property lineColor Linienfarbe für Linien und Polygon-Umrisse (null = keine Linie)
+     * @property lineWidth Linienbreite in Pixeln bei 256-px-Tiles
+     */
+    data class Rule(
+        val layer: String,
+        val fillColor: Int? = null,
+        val lineColor: Int? = null,
+        val lineWidth: Float = 1f,
+        val minZoom: Int = 0,
+        val classes: Set<String>? = null
+    ) {
+        fun matches(layerName: String, feature: VectorTile.Feature, zoom: Int): Boolean =
+            layerName == layer && zoom >= minZoom &&
+                (classes == null || feature.properties["class"] in classes)
+    }
+
+    companion object {
+        /**
+         * Heller Stil für Pakete im OpenMapTiles-Schema (Farben angelehnt an die Raster-Basiskarte)
+         */
+        val DEFAULT = VectorTileStyle(
+            id = "default-1",
+            background = 0xFFF2EFE9.toInt(),
+            rules = listOf(
+                Rule("landcover", fillColor = 0xFFD8E8C8.toInt(), classes = setOf("grass", "wood", "farmland")),
+                Rule("landuse", fillColor = 0xFFE8E0D8.toInt(), classes = setOf("residential", "commercial", "industrial")),
+                Rule("park", fillColor = 0xFFC8DFB0.toInt()),
+                Rule("water", fillColor = 0xFFAAD3DF.toInt()),
+                Rule("waterway", lineColor = 0xFFAAD3DF.toInt(), lineWidth = 1.5f),
+                Rule("building", fillColor = 0xFFDDD6CF.toInt(), lineColor = 0xFFCCC4BC.toInt(), lineWidth = 0.5f, minZoom = 14),
+                Rule("boundary", lineColor = 0xFFB0A0C0.toInt(), lineWidth = 1f),
+                Rule("transportation", lineColor = 0xFFFFFFFF.toInt(), lineWidth = 1.5f,
+                    classes = setOf("minor", "service", "track", "path")),
+                Rule("transportation", lineColor = 0xFFFFFFFF.toInt(), lineWidth = 2.5f,
+                    classes = setOf("secondary", "tertiary")),
+                Rule("transportation", lineColor = 0xFFFCD6A4.toInt(), lineWidth = 3.5f,
+                    classes = setOf("motorway", "trunk", "primary")),
+                Rule("transportation", lineColor = 0xFFB0B0B0.toInt(), lineWidth = 1f, classes = setOf("rail"))
+            )
+        )
+    }
+}
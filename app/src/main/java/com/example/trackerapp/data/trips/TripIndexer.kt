@@ -0,0 +1,123 @@
+package com.example.trackerapp.data.trips
+
+import android.content.Context
+import androidx.room.withTransaction
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.data.local.AppDatabase
+import com.example.trackerapp.data.local.entity.CheckpointEntity
+import com.example.trackerapp.data.local.entity.TripSegmentEntity
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+
+/**
+ * Segmentiert die History in Trips und Stops ([TripSegmenter]) und speichert die Segmente
+ *
+ * - Beim Einfügen (LocationService) werden nur die neuen Locations verarbeitet; der Zustand
+ *   des Segmenters bleibt dafür im Speicher.
+ * - Hintergrund-Durchlauf über die bestehende History in Batches von
+ *   [AppConstants.Trips.INDEX_BATCH_SIZE]; abgeschlossene Segmente und Checkpoint werden pro
+ *   Batch gemeinsam gespeichert, ein Abbruch setzt beim nächsten Aufruf fort.
+ * - Checkpoint ist der erste Punkt des offenen Segments: nach einem Neustart des Prozesses
+ *   wird nur dieses Segment erneut gelesen, nie die ganze History.
+ *
+ * Reset wie beim HeatmapIndexer: ist die zuletzt verarbeitete Location gelöscht, werden alle
+ * Segmente verworfen und neu aufgebaut.
+ *
+ * Singleton wie [AppDatabase]: LocationService und UI teilen sich eine Instanz.
+ */
+class TripIndexer private constructor(private val database: AppDatabase) {
+
+    private val mutex = Mutex()
+
+    // Zustand im Speicher, null bis zum ersten Aufruf im Prozess
+    private var segmenter: TripSegmenter? = null
+    private var processedId = 0L
+
+    /**
+     * Verarbeitet alle Locations, die noch nicht segmentiert sind
+     *
+     * Gleichzeitige Aufrufe laufen nacheinander.
+     */
+    suspend fun catchUp() = mutex.withLock {
+        val locationDao = database.locationDao()
+        val checkpointDao = database.checkpointDao()
+
+        var current = segmenter
+        if (current == null) {
+            val checkpoint = checkpointDao.getLastId(CHECKPOINT) ?: 0L
+            current = TripSegmenter()
+            // Ab dem ersten Punkt des offenen Segments neu einlesen
+            processedId = if (checkpoint > 0) checkpoint - 1 else 0L
+            segmenter = current
+            if (checkpoint > 0 && locationDao.getLocationPoint(checkpoint) == null) {
+                current = reset()
+            }
+        } else if (processedId > 0 && locationDao.getLocationPoint(processedId) == null) {
+            current = reset()
+        }
+
+        try {
+            while (true) {
+                val batch = locationDao.getLocationsAfter(processedId, AppConstants.Trips.INDEX_BATCH_SIZE)
+                if (batch.isEmpty()) break
+
+                val closed = withContext(Dispatchers.Default) {
+                    val segments = ArrayList<TripSegmenter.Segment>()
+                    for (point in batch) current.add(point.id, point.timestamp, point.latitude, point.longitude, segments)
+                    segments
+                }
+                val batchLastId = batch.last().id
+                val resumeId = current.openStartId.takeIf { it > 0 } ?: batchLastId
+                database.withTransaction {
+                    if (closed.isNotEmpty()) database.tripDao().insertAll(closed.map { it.toEntity() })
+                    checkpointDao.set(CheckpointEntity(CHECKPOINT, resumeId))
+                }
+                processedId = batchLastId
+            }
+        } catch (e: Throwable) {
+            // Zustand im Speicher passt nicht mehr zum Checkpoint: beim nächsten Aufruf von dort
+            segmenter = null
+            throw e
+        }
+    }
+
+    private suspend fun reset(): TripSegmenter {
+        database.withTransaction {
+            database.tripDao().deleteAll()
+            database.checkpointDao().set(CheckpointEntity(CHECKPOINT, 0L))
+        }
+        processedId = 0L
+        return TripSegmenter().also { segmenter = it }
+    }
+
+    private fun TripSegmenter.Segment.toEntity() = TripSegmentEntity(
+        type = if (type == TripSegmenter.Type.TRIP) TripSegmentEntity.TYPE_TRIP else TripSegmentEntity.TYPE_STOP,
+        startLocationId = startId,
+        endLocationId = endId,
+        startTime = startTime,
+        endTime = endTime,
+        pointCount = pointCount,
+        distanceMeters = distanceMeters,
+        startLatitude = startLatitude,
+        startLongitude = startLongitude,
+        endLatitude = endLatitude,
+        endLongitude = endLongitude,
+        centerLatitude = centerLatitude,
+        centerLongitude = centerLongitude
+    )
+
+    companion object {
+        private const val CHECKPOINT = "trips"
+
+        @Volatile
+        private var INSTANCE: TripIndexer? = null
+
+        fun getInstance(context: Context): TripIndexer {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: TripIndexer(AppDatabase.getDatabase(context)).also { INSTANCE = it }
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.trackerapp.data.trips
+
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.Geodesy
+
+/**
+ * Zerlegt den Location-Strom in Fahrten (Trips) und Aufenthalte (Stops)
+ *
+ * Streaming: jeder Punkt wird in O(1) verarbeitet ([add]), abgeschlossene Segmente werden
+ * ausgegeben, das laufende Segment bleibt offen.
+ * - Stop: mindestens [minStopMs] innerhalb von [stopRadius] um einen Ankerpunkt. Der Trip
+ *   endet am Anker, der Stop beginnt dort. Der Stop endet, sobald ein Punkt weiter als
+ *   [stopRadius] vom Schwerpunkt des Stops entfernt ist; der nächste Trip beginnt am letzten
+ *   Punkt des Stops (die Strecke innerhalb des Radius zählt zum Stop).
+ * - Lücken über [maxGapMs]: am selben Ort ein Stop (Gerät lag still), sonst endet das
+ *   Segment und ein neues beginnt beim nächsten Punkt.
+ * - Sprünge schneller als [maxSpeed] sind GPS-Ausreißer und werden übersprungen - außer
+ *   nach einer Lücke, dann ist die Strecke in der Lücke zurückgelegt worden.
+ * - Trips kürzer als [minTripDistance] werden dem folgenden Stop zugeschlagen. Endet ein
+ *   kurzer Trip mit einer Lücke (kein folgender Stop), wird er trotzdem als Trip ausgegeben;
+ *   nur ein einzelner Punkt zwischen zwei Lücken ergibt kein Segment.
+ *
+ * Nicht thread-safe.
+ */
+class TripSegmenter(
+    private val stopRadius: Double = AppConstants.Trips.STOP_RADIUS_M,
+    private val minStopMs: Long = AppConstants.Trips.MIN_STOP_MS,
+    private val maxGapMs: Long = AppConstants.Trips.MAX_GAP_MS,
+    private val minTripDistance: Double = AppConstants.Trips.MIN_TRIP_DISTANCE_M,
+    private val maxSpeed: Double = AppConstants.Trips.MAX_SPEED_MPS
+) {
+    enum class Type { TRIP, STOP }
+
+    /**
+     * Abgeschlossenes Segment
+     *
+     * Aufeinanderfolgende Segmente teilen sich den Grenzpunkt.
+     *
+     * @property centerLatitude Schwerpunkt (bei Trips der Mittelpunkt von Start und Ende)
+     */
+    data class Segment(
+        val type: Type,
+        val startId: Long,
+        val endId: Long,
+        val startTime: Long,
+        val endTime: Long,
+        val pointCount: Int,
+        val distanceMeters: Double,
+        val startLatitude: Double,
+        val startLongitude: Double,
+        val endLatitude: Double,
+        val endLongitude: Double,
+        val centerLatitude: Double,
+        val centerLongitude: Double
+    )
+
+    // Laufendes Segment
+    private var type: Type? = null
+    private var startId = 0L
+    private var startTime = 0L
+    private var startLatitude = 0.0
+    private var startLongitude = 0.0
+    private var distance = 0.0
+    private var count = 0
+
+    // Letzter übernommener Punkt
+    private var lastId = 0L
+    private var lastTime = 0L
+    private var lastLatitude = 0.0
+    private var lastLongitude = 0.0
+
+    // Ankerpunkt möglicher Aufenthalt im Trip bzw. Schwerpunkt des Stops
+    private var anchorId = 0L
+    private var anchorTime = 0L
+    private var anchorLatitude = 0.0
+    private var anchorLongitude = 0.0
+    private var anchorDistance = 0.0
+    private var anchorCount = 0
+    private var sumLatitude = 0.0
+    private var sumLongitude = 0.0
+    private var sumCount = 0
+
+    /**
+     * Erster Punkt des offenen Segments (0 = keins)
+     *
+     * Ab hier muss nach einem Neustart erneut segmentiert werden.
+     */
+    val openStartId: Long
+        get() = if (type == null) 0L else startId
+
+    /**
+     * Verarbeitet einen Punkt
+     *
+     * @param closed Nimmt die dabei abgeschlossenen Segmente auf
+     */
+    fun add(id: Long, timestamp: Long, latitude: Double, longitude: Double, closed: MutableList<Segment>) {
+        if (type == null) {
+            open(Type.TRIP, id, timestamp, latitude, longitude)
+            return
+        }
+        val dt = timestamp - lastTime
+        if (dt <= 0) return
+        val step = Geodesy.fast(lastLatitude, lastLongitude, latitude, longitude)
+        // Nach einer Lücke ist ein weiter Sprung kein Ausreißer (Gerät aus, Zug, Flug)
+        if (dt <= maxGapMs && step * 1000.0 / dt > maxSpeed) return
+
+        if (dt > maxGapMs) {
+            addAfterGap(id, timestamp, latitude, longitude, step, closed)
+        } else if (type == Type.STOP) {
+            if (Geodesy.fast(sumLatitude / sumCount, sumLongitude / sumCount, latitude, longitude) <= stopRadius) {
+                appendToStop(id, timestamp, latitude, longitude)
+            } else {
+                closed += close(lastId, lastTime, lastLatitude, lastLongitude, 0.0, count)
+                open(Type.TRIP, lastId, lastTime, lastLatitude, lastLongitude)
+                appendToTrip(id, timestamp, latitude, longitude, step, closed)
+            }
+        } else {
+            appendToTrip(id, timestamp, latitude, longitude, step, closed)
+        }
+    }
+
+    private fun addAfterGap(id: Long, timestamp: Long, latitude: Double, longitude: Double, step: Double, closed: MutableList<Segment>) {
+        val samePlace = if (type == Type.STOP) {
+            Geodesy.fast(sumLatitude / sumCount, sumLongitude / sumCount, latitude, longitude) <= stopRadius
+        } else {
+            step <= stopRadius
+        }
+        when {
+            samePlace && type == Type.STOP -> appendToStop(id, timestamp, latitude, longitude)
+            samePlace -> {
+                // Gerät lag still: der Trip endet am letzten Punkt, die Lücke ist ein Stop
+                closeTrip(lastId, lastTime, lastLatitude, lastLongitude, distance, count, closed)
+                sumLatitude = lastLatitude
+                sumLongitude = lastLongitude
+                sumCount = 1
+                appendToStop(id, timestamp, latitude, longitude)
+            }
+            else -> {
+                // Kein folgender Stop: auch ein kurzer Trip bleibt erhalten, nur ein einzelner Punkt nicht
+                if (type == Type.STOP || count >= 2) {
+                    closed += close(lastId, lastTime, lastLatitude, lastLongitude, distance, count)
+                }
+                open(Type.TRIP, id, timestamp, latitude, longitude)
+            }
+        }
+    }
+
+    private fun appendToTrip(id: Long, timestamp: Long, latitude: Double, longitude: Double, step: Double, closed: MutableList<Segment>) {
+        distance += step
+        count++
+        moveTo(id, timestamp, latitude, longitude)
+
+        if (Geodesy.fast(anchorLatitude, anchorLongitude, latitude, longitude) > stopRadius) {
+            setAnchor(id, timestamp, latitude, longitude)
+            return
+        }
+        sumLatitude += latitude
+        sumLongitude += longitude
+        sumCount++
+        if (timestamp - anchorTime >= minStopMs) {
+            // Aufenthalt: der Trip endet am Anker, Punkte ab dem Anker gehören zum Stop
+            closeTrip(anchorId, anchorTime, anchorLatitude, anchorLongitude, anchorDistance, anchorCount, closed)
+        }
+    }
+
+    /**
+     * Schließt den Trip am angegebenen Punkt und setzt ab dort einen Stop fort
+     *
+     * Schwerpunkt und letzter Punkt bleiben erhalten. Zu kurze Trips werden verworfen, der
+     * Stop beginnt dann schon am Trip-Anfang.
+     */
+    private fun closeTrip(
+        endId: Long,
+        endTime: Long,
+        endLatitude: Double,
+        endLongitude: Double,
+        tripDistance: Double,
+        tripCount: Int,
+        closed: MutableList<Segment>
+    ) {
+        val totalCount = count
+        val stopSumLatitude = sumLatitude
+        val stopSumLongitude = sumLongitude
+        val stopSumCount = sumCount
+        val currentId = lastId
+        val currentTime = lastTime
+        val currentLatitude = lastLatitude
+        val currentLongitude = lastLongitude
+
+        if (tripDistance >= minTripDistance) {
+            closed += close(endId, endTime, endLatitude, endLongitude, tripDistance, tripCount)
+            open(Type.STOP, endId, endTime, endLatitude, endLongitude)
+            count = totalCount - tripCount + 1
+        } else {
+            open(Type.STOP, startId, startTime, startLatitude, startLongitude)
+            count = totalCount
+        }
+        sumLatitude = stopSumLatitude
+        sumLongitude = stopSumLongitude
+        sumCount = stopSumCount
+        moveTo(currentId, currentTime, currentLatitude, currentLongitude)
+    }
+
+    private fun appendToStop(id: Long, timestamp: Long, latitude: Double, longitude: Double) {
+        count++
+        sumLatitude += latitude
+        sumLongitude += longitude
+        sumCount++
+        moveTo(id, timestamp, latitude, longitude)
+    }
+
+    private fun open(newType: Type, id: Long, timestamp: Long, latitude: Double, longitude: Double) {
+        type = newType
+        startId = id
+        startTime = timestamp
+        startLatitude = latitude
+        startLongitude = longitude
+        distance = 0.0
+        count = 1
+        moveTo(id, timestamp, latitude, longitude)
+        setAnchor(id, timestamp, latitude, longitude)
+    }
+
+    private fun moveTo(id: Long, timestamp: Long, latitude: Double, longitude: Double) {
+        lastId = id
+        lastTime = timestamp
+        lastLatitude = latitude
+        lastLongitude = longitude
+    }
+
+    private fun setAnchor(id: Long, timestamp: Long, latitude: Double, longitude: Double) {
+        anchorId = id
+        anchorTime = timestamp
+        anchorLatitude = latitude
+        anchorLongitude = longitude
+        anchorDistance = distance
+        anchorCount = count
+        sumLatitude = latitude
+        sumLongitude = longitude
+        sumCount = 1
+    }
+
+    private fun close(
+        endId: Long,
+        endTime: Long,
+        endLatitude: Double,
+        endLongitude: Double,
+        segmentDistance: Double,
+        segmentCount: Int
+    ): Segment {
+        val stop = type == Type.STOP
+        return Segment(
+            type = type!!,
+            startId = startId,
+            endId = endId,
+            startTime = startTime,
+            endTime = endTime,
+            pointCount = segmentCount,
+            distanceMeters = segmentDistance,
+            startLatitude = startLatitude,
+            startLongitude = startLongitude,
+            endLatitude = endLatitude,
+            endLongitude = endLongitude,
+            centerLatitude = if (stop) sumLatitude / sumCount else (startLatitude + endLatitude) / 2,
+            centerLongitude = if (stop) sumLongitude / sumCount else (startLongitude + endLongitude) / 2
+        )
+    }
+}
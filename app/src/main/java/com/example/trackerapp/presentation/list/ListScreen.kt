@@ -14,8 +14,17 @@ import androidx.compose.ui.Modifier
 import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.unit.dp
 import androidx.navigation.NavController
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.StatsFormatter
+import com.example.trackerapp.data.geofence.GeofenceMonitor
 import com.example.trackerapp.data.local.AppDatabase
 import com.example.trackerapp.data.local.entity.LocationEntity
+import com.example.trackerapp.data.local.entity.PlaceEntity
+import com.example.trackerapp.data.local.entity.RouteEntity
+import com.example.trackerapp.data.local.entity.TripSegmentEntity
+import com.example.trackerapp.data.places.PlaceIndexer
+import com.example.trackerapp.data.routes.RouteIndexer
+import com.example.trackerapp.data.trips.TripIndexer
 import kotlinx.coroutines.launch
 import java.text.SimpleDateFormat
 import java.util.*
@@ -29,6 +38,9 @@ import java.util.*
  * - Swipe-to-Delete (optional)
  * - Refresh Button
  * - Formatierte Anzeige mit Timestamp
+ * - Erkannte Trips (aus trip_segments, ohne Rohpunkte zu lesen)
+ * - Wiederkehrende Orte nach Aufenthaltsdauer (aus places), als Geofences übernehmbar
+ * - Häufige Routen (aus routes)
  */
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
@@ -41,6 +53,24 @@ fun ListScreen(
 
     // Reactive State mit Flow
     val locations by database.locationDao().getAllLocations().collectAsState(initial = emptyList())
+    val trips by database.tripDao()
+        .getRecentSegments(TripSegmentEntity.TYPE_TRIP, AppConstants.Trips.LIST_LIMIT)
+        .collectAsState(initial = emptyList())
+    val places by database.placeDao()
+        .getTopPlaces(AppConstants.Places.LIST_LIMIT)
+        .collectAsState(initial = emptyList())
+    val routes by database.routeDao()
+        .getFrequentRoutes(AppConstants.FrequentRoutes.MIN_TRIPS, AppConstants.FrequentRoutes.LIST_LIMIT)
+        .collectAsState(initial = emptyList())
+    val fenceCount by database.geofenceDao().getCount().collectAsState(initial = 0)
+
+    // Bestehende History im Hintergrund segmentieren, danach Stops zu Orten und Trips zu
+    // Routen gruppieren (alle setzen beim Checkpoint fort)
+    LaunchedEffect(Unit) {
+        TripIndexer.getInstance(context).catchUp()
+        PlaceIndexer.getInstance(context).catchUp()
+        RouteIndexer.getInstance(context).catchUp()
+    }
 
     Scaffold(
         topBar = {
@@ -149,6 +179,85 @@ fun ListScreen(
                     }
                 }
 
+                // Orte
+                if (places.isNotEmpty()) {
+                    item {
+                        Row(
+                            modifier = Modifier.fillMaxWidth(),
+                            horizontalArrangement = Arrangement.SpaceBetween,
+                            verticalAlignment = Alignment.CenterVertically
+                        ) {
+                            Column {
+                                Text(
+                                    text = "Orte",
+                                    style = MaterialTheme.typography.titleMedium
+                                )
+                                if (fenceCount > 0) {
+                                    Text(
+                                        text = "$fenceCount Geofences überwacht",
+                                        style = MaterialTheme.typography.bodySmall,
+                                        color = MaterialTheme.colorScheme.onSurfaceVariant
+                                    )
+                                }
+                            }
+                            // Alle Orte (nicht nur die angezeigten) als Geofences übernehmen
+                            TextButton(onClick = {
+                                scope.launch {
+                                    GeofenceMonitor.getInstance(context).importPlaces()
+                                }
+                            }) {
+                                Text("Als Geofences überwachen")
+                            }
+                        }
+                    }
+                    items(
+                        items = places,
+                        key = { "place_${it.id}" }
+                    ) { place ->
+                        PlaceItem(place)
+                    }
+                }
+
+                // Routen
+                if (routes.isNotEmpty()) {
+                    item {
+                        Text(
+                            text = "Häufige Routen",
+                            style = MaterialTheme.typography.titleMedium
+                        )
+                    }
+                    items(
+                        items = routes,
+                        key = { "route_${it.id}" }
+                    ) { route ->
+                        RouteItem(route)
+                    }
+                }
+
+                // Trips
+                if (trips.isNotEmpty()) {
+                    item {
+                        Text(
+                            text = "Trips",
+                            style = MaterialTheme.typography.titleMedium
+                        )
+                    }
+                    items(
+                        items = trips,
+                        key = { "trip_${it.id}" }
+                    ) { trip ->
+                        TripItem(trip)
+                    }
+                }
+                if (places.isNotEmpty() || routes.isNotEmpty() || trips.isNotEmpty()) {
+                    item {
+                        Text(
+                            text = "Locations",
+                            style = MaterialTheme.typography.titleMedium
+                        )
+                    }
+                }
+
                 // Location Items
                 items(
                     items = locations,
@@ -168,6 +277,105 @@ fun ListScreen(
     }
 }
 
+/**
+ * Einzelner Trip: Zeitraum, Dauer und Strecke
+ */
+@Composable
+private fun TripItem(trip: TripSegmentEntity) {
+    Card(
+        modifier = Modifier.fillMaxWidth(),
+        colors = CardDefaults.cardColors(
+            containerColor = MaterialTheme.colorScheme.secondaryContainer
+        )
+    ) {
+        Column(
+            modifier = Modifier
+                .fillMaxWidth()
+                .padding(16.dp),
+            verticalArrangement = Arrangement.spacedBy(4.dp)
+        ) {
+            Text(
+                text = "${formatTimestamp(trip.startTime)} – ${formatTime(trip.endTime)}",
+                style = MaterialTheme.typography.titleSmall,
+                color = MaterialTheme.colorScheme.onSecondaryContainer
+            )
+            Text(
+                text = "${StatsFormatter.formatDistance(trip.distanceMeters)} · " +
+                    "${StatsFormatter.formatDuration(trip.endTime - trip.startTime)} · ${trip.pointCount} Punkte",
+                style = MaterialTheme.typography.bodySmall,
+                color = MaterialTheme.colorScheme.onSecondaryContainer
+            )
+        }
+    }
+}
+
+/**
+ * Einzelner Ort: Position, Besuche und gesamte Aufenthaltsdauer
+ */
+@Composable
+private fun PlaceItem(place: PlaceEntity) {
+    Card(
+        modifier = Modifier.fillMaxWidth(),
+        colors = CardDefaults.cardColors(
+            containerColor = MaterialTheme.colorScheme.tertiaryContainer
+        )
+    ) {
+        Column(
+            modifier = Modifier
+                .fillMaxWidth()
+                .padding(16.dp),
+            verticalArrangement = Arrangement.spacedBy(4.dp)
+        ) {
+            Text(
+                text = String.format("%.5f, %.5f", place.latitude, place.longitude),
+                style = MaterialTheme.typography.titleSmall,
+                color = MaterialTheme.colorScheme.onTertiaryContainer
+            )
+            Text(
+                text = "${place.visitCount} Besuche · ${StatsFormatter.formatDuration(place.totalDwellMs)} · " +
+                    "zuletzt ${formatTimestamp(place.lastVisit)}",
+                style = MaterialTheme.typography.bodySmall,
+                color = MaterialTheme.colorScheme.onTertiaryContainer
+            )
+        }
+    }
+}
+
+/**
+ * Einzelne Route: Start und Ziel, Anzahl Fahrten und durchschnittliche Dauer
+ */
+@Composable
+private fun RouteItem(route: RouteEntity) {
+    Card(
+        modifier = Modifier.fillMaxWidth(),
+        colors = CardDefaults.cardColors(
+            containerColor = MaterialTheme.colorScheme.secondaryContainer
+        )
+    ) {
+        Column(
+            modifier = Modifier
+                .fillMaxWidth()
+                .padding(16.dp),
+            verticalArrangement = Arrangement.spacedBy(4.dp)
+        ) {
+            Text(
+                text = String.format(
+                    "%.4f, %.4f → %.4f, %.4f",
+                    route.startLatitude, route.startLongitude, route.endLatitude, route.endLongitude
+                ),
+                style = MaterialTheme.typography.titleSmall,
+                color = MaterialTheme.colorScheme.onSecondaryContainer
+            )
+            Text(
+                text = "${route.tripCount} Fahrten · ${StatsFormatter.formatDistance(route.distanceMeters)} · " +
+                    "Ø ${StatsFormatter.formatDuration(route.totalDurationMs / route.tripCount)}",
+                style = MaterialTheme.typography.bodySmall,
+                color = MaterialTheme.colorScheme.onSecondaryContainer
+            )
+        }
+    }
+}
+
 /**
  * Einzelnes Location Item
  */
@@ -283,3 +491,11 @@ private fun formatTimestamp(timestamp: Long): String {
     val sdf = SimpleDateFormat("dd.MM.yyyy HH:mm:ss", Locale.GERMAN)
     return sdf.format(Date(timestamp))
 }
+
+/**
+ * Formatiert Unix-Timestamp als Uhrzeit
+ */
+private fun formatTime(timestamp: Long): String {
+    val sdf = SimpleDateFormat("HH:mm:ss", Locale.GERMAN)
+    return sdf.format(Date(timestamp))
+}
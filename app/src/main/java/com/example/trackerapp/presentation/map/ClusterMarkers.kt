@@ -0,0 +1,44 @@
+package com.example.trackerapp.presentation.map
+
+import com.example.trackerapp.data.cluster.ClusterGrid
+
+/**
+ * Abgleich der angezeigten Cluster-Marker mit den Clustern im Ausschnitt
+ *
+ * Wie [ViewportMarkers], aber für Cluster: ein Cluster, dessen Anzahl oder Schwerpunkt
+ * sich geändert hat, wird entfernt und neu hinzugefügt. Nicht thread-safe.
+ */
+class ClusterMarkers {
+
+    /**
+     * Änderungen gegenüber den angezeigten Clustern
+     */
+    data class Diff(val added: List<ClusterGrid.Cluster>, val removed: List<Long>)
+
+    private val shown = HashMap<Long, ClusterGrid.Cluster>()
+
+    val size: Int
+        get() = shown.size
+
+    fun update(clusters: List<ClusterGrid.Cluster>): Diff {
+        val current = HashMap<Long, ClusterGrid.Cluster>(clusters.size * 2)
+        for (cluster in clusters) current[cluster.key] = cluster
+
+        val removed = shown.filter { (key, cluster) -> current[key] != cluster }.keys.toList()
+        val added = current.values.filter { shown[it.key] != it }
+        shown.clear()
+        shown.putAll(current)
+        return Diff(added, removed)
+    }
+
+    /**
+     * Entfernt alle Cluster
+     *
+     * @return Keys der entfernten Cluster
+     */
+    fun clear(): List<Long> {
+        val removed = shown.keys.toList()
+        shown.clear()
+        return removed
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.trackerapp.presentation.map
+
+import androidx.compose.foundation.background
+import androidx.compose.foundation.border
+import androidx.compose.foundation.layout.Box
+import androidx.compose.foundation.layout.size
+import androidx.compose.foundation.shape.CircleShape
+import androidx.compose.material3.MaterialTheme
+import androidx.compose.material3.Text
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.snapshotFlow
+import androidx.compose.ui.Alignment
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.geometry.Offset
+import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.unit.dp
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.data.cluster.LocationClusterIndex
+import com.example.trackerapp.data.local.dao.LocationDao
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import ovh.plrapps.mapcompose.api.addMarker
+import ovh.plrapps.mapcompose.api.centroidX
+import ovh.plrapps.mapcompose.api.centroidY
+import ovh.plrapps.mapcompose.api.removeMarker
+import ovh.plrapps.mapcompose.api.scale
+import ovh.plrapps.mapcompose.api.visibleBoundingBox
+import ovh.plrapps.mapcompose.ui.state.MapState
+import kotlin.math.log10
+
+/**
+ * Zeigt gespeicherte Locations als Marker im sichtbaren Ausschnitt
+ *
+ * Läuft solange der aufrufende Effect aktiv ist:
+ * - Ab [AppConstants.Markers.MIN_ZOOM] einzelne Locations: abgefragt wird nur der Ausschnitt
+ *   plus Rand ([ViewportMarkers]), neu erst wenn der Ausschnitt den Rand verlässt, sich der
+ *   Zoom-Level ändert oder neue Locations dazukommen
+ * - Darunter Cluster mit Anzahl aus [LocationClusterIndex], O(sichtbare Zellen) pro Abfrage;
+ *   der Index wird bei neuen Locations fortgeschrieben
+ * - Auf der Karte werden nur die Änderungen hinzugefügt bzw. entfernt
+ * - Während eines Flings höchstens alle [AppConstants.Tiles.VIEWPORT_SETTLE_MS]
+ */
+suspend fun showLocationMarkers(
+    mapState: MapState,
+    locationDao: LocationDao,
+    clusterIndex: LocationClusterIndex
+) = coroutineScope {
+    val markers = ViewportMarkers()
+    val clusters = ClusterMarkers()
+    var lastCount = -1
+
+    // Cluster-Index im Hintergrund aufbauen und bei neuen Locations fortschreiben
+    launch {
+        locationDao.getLocationCount()
+            .conflate()
+            .collect { clusterIndex.catchUp() }
+    }
+
+    try {
+        combine(
+            snapshotFlow { Triple(mapState.scale, mapState.centroidX, mapState.centroidY) },
+            locationDao.getLocationCount(),
+            clusterIndex.version
+        ) { _, count, _ -> count }
+            .conflate()
+            .collect { count ->
+                val zoom = tileZoomForScale(mapState.scale)
+                val box = mapState.visibleBoundingBox()
+                if (zoom < AppConstants.Markers.MIN_ZOOM) {
+                    markers.clear().forEach { mapState.removeMarker(markerId(it)) }
+                    val visible = withContext(Dispatchers.Default) {
+                        clusterIndex.clustersIn(zoom, box.xLeft, box.yTop, box.xRight, box.yBottom)
+                    }
+                    val diff = clusters.update(visible)
+                    diff.removed.forEach { mapState.removeMarker(clusterId(it)) }
+                    diff.added.forEach { cluster ->
+                        mapState.addMarker(
+                            id = clusterId(cluster.key),
+                            x = cluster.x,
+                            y = cluster.y,
+                            relativeOffset = Offset(-0.5f, -0.5f)
+                        ) {
+                            ClusterBubble(cluster.count)
+                        }
+                    }
+                } else {
+                    clusters.clear().forEach { mapState.removeMarker(clusterId(it)) }
+                    val dataChanged = count != lastCount
+                    if (dataChanged || !markers.covers(zoom, box.xLeft, box.yTop, box.xRight, box.yBottom)) {
+                        val bounds = markers.boundsFor(box.xLeft, box.yTop, box.xRight, box.yBottom)
+                        val points = locationDao.getLocationsInBounds(
+                            south = bounds.south,
+                            north = bounds.north,
+                            west = bounds.west,
+                            east = bounds.east,
+                            limit = AppConstants.Markers.QUERY_LIMIT
+                        )
+                        val diff = withContext(Dispatchers.Default) {
+                            markers.update(points, zoom, box.xLeft, box.yTop, box.xRight, box.yBottom)
+                        }
+                        diff.removed.forEach { mapState.removeMarker(markerId(it)) }
+                        diff.added.forEach { marker ->
+                            mapState.addMarker(
+                                id = markerId(marker.id),
+                                x = marker.x,
+                                y = marker.y,
+                                relativeOffset = Offset(-0.5f, -0.5f)
+                            ) {
+                                LocationDot()
+                            }
+                        }
+                    }
+                }
+                lastCount = count
+                delay(AppConstants.Tiles.VIEWPORT_SETTLE_MS)
+            }
+    } finally {
+        // MapState lebt in der MapEngine weiter: Marker nicht auf der Karte zurücklassen
+        markers.clear().forEach { mapState.removeMarker(markerId(it)) }
+        clusters.clear().forEach { mapState.removeMarker(clusterId(it)) }
+    }
+}
+
+/**
+ * Marker-ID auf der MapState (eigener Namensraum neben anderen Markern)
+ */
+private fun markerId(locationId: Long): String = "location_$locationId"
+
+private fun clusterId(key: Long): String = "cluster_$key"
+
+/**
+ * Kleiner Punkt für eine gespeicherte Location
+ */
+@Composable
+private fun LocationDot() {
+    Box(
+        modifier = Modifier
+            .size(AppConstants.Markers.DOT_SIZE_DP.dp)
+            .background(MaterialTheme.colorScheme.primary, CircleShape)
+            .border(1.5.dp, Color.White, CircleShape)
+    )
+}
+
+/**
+ * Cluster mit Anzahl, Größe wächst logarithmisch mit der Anzahl
+ */
+@Composable
+private fun ClusterBubble(count: Int) {
+    val growth = (log10(count.toDouble()) / 4.0).coerceIn(0.0, 1.0)
+    val size = AppConstants.Markers.CLUSTER_MIN_SIZE_DP +
+        (AppConstants.Markers.CLUSTER_MAX_SIZE_DP - AppConstants.Markers.CLUSTER_MIN_SIZE_DP) * growth
+    Box(
+        modifier = Modifier
+            .size(size.dp)
+            .background(MaterialTheme.colorScheme.primary.copy(alpha = 0.85f), CircleShape)
+            .border(2.dp, Color.White, CircleShape),
+        contentAlignment = Alignment.Center
+    ) {
+        Text(
+            text = if (count >= 10_000) "${count / 1000}k" else count.toString(),
+            color = MaterialTheme.colorScheme.onPrimary,
+            style = MaterialTheme.typography.labelSmall
+        )
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.trackerapp.presentation.map
+
+import android.app.Application
+import androidx.compose.runtime.Composable
+import androidx.lifecycle.AndroidViewModel
+import androidx.lifecycle.viewmodel.compose.viewModel
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.MercatorPoint
+import com.example.trackerapp.core.utils.MercatorProjection
+import com.example.trackerapp.core.utils.ProjectedTrackCache
+import com.example.trackerapp.data.profile.ProfileSeriesCache
+import com.example.trackerapp.data.tile.HeatmapTiles
+import com.example.trackerapp.data.tile.PathOverlayTiles
+import com.example.trackerapp.data.tile.TilePrefetcher
+import com.example.trackerapp.data.tile.TileProvider
+import com.example.trackerapp.data.tile.TileRepository
+import com.example.trackerapp.data.tile.VectorTileRenderer
+import ovh.plrapps.mapcompose.api.addLayer
+import ovh.plrapps.mapcompose.ui.state.MapState
+import java.io.Closeable
+
+/**
+ * Gemeinsame Karten-Engine für alle Kartenscreens
+ *
+ * Lebt oberhalb des Navigationsgraphen ([rememberMapEngine] in TrackerNavigation) in einem
+ * [MapEngineViewModel], damit weder beim Wechsel zwischen Screens noch bei einer Rotation
+ * etwas neu aufgebaut wird:
+ * - Ein TileStreamProvider und ein [TilePrefetcher] über dem gemeinsamen [TileRepository]
+ * - Ein [MapState] pro Screen ([mapState]), einmal angelegt und danach wiederverwendet:
+ *   Ausschnitt, Zoom und bereits geladene Tiles bleiben erhalten, Zurückkehren ist sofort fertig.
+ *   Automatisch positioniert wird nur einmal pro MapState ([claimInitialViewport]).
+ * - Eine Projektion ([project], [MercatorProjection]) für alle Screens, projizierte Tracks
+ *   gecacht in [projections]
+ * - Höhen- und Geschwindigkeitsprofile der Tracks in Anzeige-Auflösung, gecacht in [profiles]
+ * - Optional [vectorRenderer]: Tiles aus dem lokalen Vektor-Paket, Raster nur als Fallback
+ * - Optional [pathOverlay]: der aufgezeichnete Pfad als vorgerasterte Overlay-Tiles
+ * - Optional [heatmap]: Besuchs-Heatmap als Overlay-Tiles (Layer schaltet der Screen)
+ *
+ * Die MapStates haben nur [AppConstants.Tiles.MAP_WORKERS] Worker: sie warten ohnehin nur auf
+ * das Repository, dessen Dispatcher die eigentlichen Downloads begrenzt.
+ */
+class MapEngine(
+    val tileRepository: TileRepository,
+    val provider: TileProvider = TileProvider.BASEMAP,
+    val vectorRenderer: VectorTileRenderer? = null,
+    val pathOverlay: PathOverlayTiles? = null,
+    val heatmap: HeatmapTiles? = null
+) : Closeable {
+
+    val prefetcher = TilePrefetcher(tileRepository, provider)
+
+    /**
+     * Projizierte Tracks (z.B. der Pfad), bei neuen Punkten nur der neue Teil projiziert
+     */
+    val projections = ProjectedTrackCache()
+
+    /**
+     * Profile der Tracks pro Breite, bei neuen Punkten nur der neue Teil übernommen
+     */
+    val profiles = ProfileSeriesCache()
+
+    private val tileStreamProvider = createTileStreamProvider(tileRepository, provider, vectorRenderer)
+    private val mapStates = HashMap<String, MapState>()
+    private val positioned = HashSet<String>()
+
+    /**
+     * MapState für einen Screen (Schlüssel z.B. die Route), beim ersten Aufruf angelegt
+     *
+     * [configure] läuft nur beim Anlegen (z.B. zusätzliche Layer). Nur vom Main-Thread aufrufen.
+     */
+    fun mapState(key: String, configure: MapState.() -> Unit = {}): MapState = mapStates.getOrPut(key) {
+        MapState(
+            levelCount = MapConstants.ZOOM_LEVELS,
+            fullWidth = MapConstants.MAP_SIZE_LEVEL_0,
+            fullHeight = MapConstants.MAP_SIZE_LEVEL_0,
+            workerCount = AppConstants.Tiles.MAP_WORKERS
+        ).apply {
+            addLayer(tileStreamProvider = tileStreamProvider)
+            configure()
+        }
+    }
+
+    /**
+     * true nur beim ersten Aufruf pro Screen: dann darf der Screen den Ausschnitt setzen
+     *
+     * Danach gehören Ausschnitt und Zoom dem Benutzer - auch nach Zurückkehren auf den
+     * Screen und bei neuen Daten. Nur vom Main-Thread aufrufen.
+     */
+    fun claimInitialViewport(key: String): Boolean = positioned.add(key)
+
+    /**
+     * Konvertiert GPS-Koordinaten zu MapCompose-Koordinaten
+     *
+     * MapCompose arbeitet mit normierten Koordinaten: x und y von 0 bis 1 über die ganze
+     * Welt, unabhängig vom Zoom-Level (wie [ovh.plrapps.mapcompose.api.visibleBoundingBox]).
+     * Gilt für scrollTo, Pfade und Marker.
+     */
+    fun project(latitude: Double, longitude: Double): MercatorPoint =
+        MercatorProjection.project(latitude, longitude)
+
+    override fun close() {
+        prefetcher.close()
+        vectorRenderer?.close()
+        pathOverlay?.close()
+        heatmap?.close()
+        mapStates.values.forEach { it.shutdown() }
+        mapStates.clear()
+        positioned.clear()
+    }
+}
+
+/**
+ * Hält die [MapEngine] über Konfigurationswechsel hinweg
+ *
+ * Renderer, MapStates und Caches werden einmal pro Activity aufgebaut (nicht bei jeder
+ * Rotation auf dem Main-Thread) und erst geschlossen, wenn die Activity endgültig endet.
+ * Mit dem Application-Context, damit keine alte Activity festgehalten wird.
+ */
+class MapEngineViewModel(application: Application) : AndroidViewModel(application) {
+
+    val engine: MapEngine = TileRepository.getInstance(application).let { repository ->
+        MapEngine(
+            tileRepository = repository,
+            vectorRenderer = VectorTileRenderer.create(application, repository.bitmaps.pool),
+            pathOverlay = PathOverlayTiles.create(application, repository.bitmaps.pool),
+            heatmap = HeatmapTiles.create(application, repository.bitmaps.pool)
+        )
+    }
+
+    override fun onCleared() {
+        engine.close()
+    }
+}
+
+/**
+ * [MapEngine] des [MapEngineViewModel] der aufrufenden Activity
+ */
+@Composable
+fun rememberMapEngine(): MapEngine = viewModel<MapEngineViewModel>().engine
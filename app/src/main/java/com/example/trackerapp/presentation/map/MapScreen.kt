@@ -4,28 +4,31 @@ import androidx.compose.foundation.layout.*
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.automirrored.filled.ArrowBack
 import androidx.compose.material.icons.filled.Add
+import androidx.compose.material.icons.filled.Close
+import androidx.compose.material.icons.filled.Download
+import androidx.compose.material.icons.filled.GpsFixed
+import androidx.compose.material.icons.filled.GpsNotFixed
 import androidx.compose.material.icons.filled.Remove
 import androidx.compose.material.icons.filled.MyLocation
+import androidx.compose.material.icons.filled.Whatshot
 import androidx.compose.material3.*
 import androidx.compose.runtime.*
+import androidx.compose.runtime.saveable.rememberSaveable
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
+import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.unit.dp
 import androidx.navigation.NavController
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.data.cluster.LocationClusterIndex
+import com.example.trackerapp.data.local.AppDatabase
+import com.example.trackerapp.data.tile.TileRegion
 import com.example.trackerapp.presentation.location.LocationUiState
 import com.example.trackerapp.presentation.location.LocationViewModel
-import kotlinx.coroutines.Dispatchers
+import com.example.trackerapp.service.RegionDownloadService
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.withContext
-import kotlinx.coroutines.runBlocking
 import ovh.plrapps.mapcompose.api.*
-import ovh.plrapps.mapcompose.core.TileStreamProvider
 import ovh.plrapps.mapcompose.ui.MapUI
-import ovh.plrapps.mapcompose.ui.state.MapState
-import java.io.InputStream
-import java.net.HttpURLConnection
-import java.net.URL
-import kotlin.math.*
 
 /**
  * Map-Konstanten für OpenStreetMap
@@ -44,6 +47,7 @@ object MapConstants {
     const val MAP_SIZE_LEVEL_0 = TILE_SIZE  // 256 pixels bei Level 0
 
     const val DEFAULT_SCALE = 0.125  // ~Zoom Level 10 (gute Übersicht)
+    const val LOCATION_SCALE = 0.3   // Guter Zoom für Location-Ansicht
     const val MIN_SCALE = 0.001      // Minimaler Zoom (weit raus)
     const val MAX_SCALE = 1.0        // Maximaler Zoom (nah ran)
     const val ZOOM_FACTOR = 1.5      // Zoom Schritt-Faktor
@@ -53,38 +57,69 @@ object MapConstants {
 @Composable
 fun MapScreen(
     navController: NavController,
-    viewModel: LocationViewModel
+    viewModel: LocationViewModel,
+    mapEngine: MapEngine
 ) {
     val uiState by viewModel.uiState.collectAsState()
     val coroutineScope = rememberCoroutineScope()
+    val context = LocalContext.current
+    val database = remember { AppDatabase.getDatabase(context) }
+    val tileRepository = mapEngine.tileRepository
+    val prefetcher = mapEngine.prefetcher
 
-    // MapState mit KORREKTER Konfiguration
-    // fullWidth/fullHeight beziehen sich auf Level 0 = 256×256 (ein Tile!)
-    val mapState = remember {
-        MapState(
-            levelCount = MapConstants.ZOOM_LEVELS,  // 19 levels (0-18)
-            fullWidth = MapConstants.MAP_SIZE_LEVEL_0,  // 256 = Größe bei Level 0!
-            fullHeight = MapConstants.MAP_SIZE_LEVEL_0, // 256 = Größe bei Level 0!
-            workerCount = 16  // Mehr parallele Tile-Downloads
-        ).apply {
-            // Layer mit TileStreamProvider hinzufügen
-            addLayer(
-                tileStreamProvider = createTileStreamProvider()
-            )
+    // MapState aus der gemeinsamen Engine: bleibt über Navigation hinweg erhalten
+    val mapState = mapEngine.mapState(AppConstants.Routes.MAP)
+
+    // Nicht mehr sichtbare Tiles abbrechen
+    LaunchedEffect(mapState) {
+        cancelStaleTileRequests(mapState, tileRepository)
+    }
+
+    // Platzhalter durch echte Tiles ersetzen
+    LaunchedEffect(mapState) {
+        reloadWhenTilesArrive(mapState, tileRepository)
+    }
+
+    // Gespeicherte Locations als Marker im sichtbaren Ausschnitt, bei kleinem Zoom als Cluster
+    LaunchedEffect(mapState) {
+        showLocationMarkers(mapState, database.locationDao(), LocationClusterIndex.getInstance(context))
+    }
 
+    // Heatmap als zusätzlicher Layer, nur solange eingeschaltet
+    val heatmap = mapEngine.heatmap
+    var showHeatmap by rememberSaveable { mutableStateOf(false) }
+    if (heatmap != null) {
+        LaunchedEffect(mapState, showHeatmap) {
+            if (!showHeatmap) return@LaunchedEffect
+            val layerId = mapState.addLayer(tileStreamProvider = createHeatmapProvider(heatmap))
+            try {
+                reloadWhenHeatmapChanges(mapState, heatmap)
+            } finally {
+                mapState.removeLayer(layerId)
+            }
         }
     }
 
-    // Auto-center auf Location wenn verfügbar
-    LaunchedEffect(uiState) {
+    // Offline-Download läuft im RegionDownloadService weiter, auch wenn der Screen verlassen wird
+    val regionDownload by RegionDownloadService.state.collectAsState()
+
+    // Position verfolgen: Karte folgt jedem Fix, der Zoom bleibt wie gewählt
+    var follow by rememberSaveable { mutableStateOf(false) }
+
+    // Auto-center auf Location: einmal pro MapState, danach nur wenn "folgen" an ist
+    LaunchedEffect(uiState, follow) {
         if (uiState is LocationUiState.Success) {
             val location = (uiState as LocationUiState.Success).location
-            val mercator = latLonToMercator(
-                lat = location.latitude,
-                lon = location.longitude
-            )
-            mapState.scrollTo(mercator.x, mercator.y)
-            mapState.scale = 0.3  // Guter Zoom für Location-Ansicht
+            val mercator = mapEngine.project(location.latitude, location.longitude)
+            if (mapEngine.claimInitialViewport(AppConstants.Routes.MAP)) {
+                mapState.scrollTo(mercator.x, mercator.y)
+                mapState.scale = MapConstants.LOCATION_SCALE
+            } else if (follow) {
+                mapState.scrollTo(mercator.x, mercator.y)
+            }
+
+            // Tiles in Fahrtrichtung vorladen
+            prefetcher.onLocation(location, tileZoomForScale(mapState.scale))
         }
     }
 
@@ -153,12 +188,12 @@ fun MapScreen(
                         IconButton(
                             onClick = {
                                 coroutineScope.launch {
-                                    val mercator = latLonToMercator(
+                                    val mercator = mapEngine.project(
                                         location.latitude,
                                         location.longitude
                                     )
                                     mapState.scrollTo(mercator.x, mercator.y)
-                                    mapState.scale = 0.3
+                                    mapState.scale = MapConstants.LOCATION_SCALE
                                 }
                             }
                         ) {
@@ -179,6 +214,66 @@ fun MapScreen(
                     .padding(16.dp),
                 verticalArrangement = Arrangement.spacedBy(8.dp)
             ) {
+                // Heatmap ein/aus
+                if (heatmap != null) {
+                    FloatingActionButton(
+                        onClick = { showHeatmap = !showHeatmap },
+                        containerColor = if (showHeatmap) {
+                            MaterialTheme.colorScheme.tertiaryContainer
+                        } else {
+                            MaterialTheme.colorScheme.surfaceVariant
+                        }
+                    ) {
+                        Icon(
+                            imageVector = Icons.Default.Whatshot,
+                            contentDescription = if (showHeatmap) "Heatmap ausblenden" else "Heatmap einblenden"
+                        )
+                    }
+                }
+
+                // Position verfolgen ein/aus
+                FloatingActionButton(
+                    onClick = { follow = !follow },
+                    containerColor = if (follow) {
+                        MaterialTheme.colorScheme.tertiaryContainer
+                    } else {
+                        MaterialTheme.colorScheme.surfaceVariant
+                    }
+                ) {
+                    Icon(
+                        imageVector = if (follow) Icons.Default.GpsFixed else Icons.Default.GpsNotFixed,
+                        contentDescription = if (follow) "Position nicht mehr verfolgen" else "Position verfolgen"
+                    )
+                }
+
+                // Sichtbaren Ausschnitt offline speichern
+                FloatingActionButton(
+                    onClick = {
+                        coroutineScope.launch {
+                            val box = mapState.visibleBoundingBox()
+                            val zoom = tileZoomForScale(mapState.scale)
+                            val region = TileRegion.fromNormalized(
+                                left = box.xLeft,
+                                top = box.yTop,
+                                right = box.xRight,
+                                bottom = box.yBottom,
+                                minZoom = zoom,
+                                maxZoom = (zoom + AppConstants.Tiles.REGION_EXTRA_ZOOM_LEVELS)
+                                    .coerceAtMost(AppConstants.Tiles.MAX_ZOOM)
+                            ).limitedTo(AppConstants.Tiles.REGION_MAX_TILES)
+                            if (region != null) {
+                                RegionDownloadService.start(context, region)
+                            }
+                        }
+                    },
+                    containerColor = MaterialTheme.colorScheme.surfaceVariant
+                ) {
+                    Icon(
+                        imageVector = Icons.Default.Download,
+                        contentDescription = "Ausschnitt offline speichern"
+                    )
+                }
+
                 // Zoom In
                 FloatingActionButton(
                     onClick = {
@@ -210,6 +305,45 @@ fun MapScreen(
                 }
             }
 
+            // Fortschritt des Offline-Downloads (unten mittig)
+            regionDownload?.takeIf { it.running }?.let { download ->
+                Card(
+                    modifier = Modifier
+                        .align(Alignment.BottomCenter)
+                        .padding(bottom = 80.dp)
+                        .width(220.dp),
+                    colors = CardDefaults.cardColors(
+                        containerColor = MaterialTheme.colorScheme.surface.copy(alpha = 0.95f)
+                    )
+                ) {
+                    Row(
+                        modifier = Modifier.padding(start = 12.dp),
+                        verticalAlignment = Alignment.CenterVertically
+                    ) {
+                        Column(modifier = Modifier.weight(1f)) {
+                            Text(
+                                text = "Offline: ${download.progress.done} / ${download.progress.total} Tiles",
+                                style = MaterialTheme.typography.labelMedium
+                            )
+                            LinearProgressIndicator(
+                                progress = {
+                                    download.progress.done.toFloat() / download.progress.total.coerceAtLeast(1L)
+                                },
+                                modifier = Modifier
+                                    .fillMaxWidth()
+                                    .padding(top = 4.dp)
+                            )
+                        }
+                        IconButton(onClick = { RegionDownloadService.cancel(context) }) {
+                            Icon(
+                                imageVector = Icons.Default.Close,
+                                contentDescription = "Download abbrechen"
+                            )
+                        }
+                    }
+                }
+            }
+
             // Zoom Level Display (links unten)
             Card(
                 modifier = Modifier
@@ -228,108 +362,3 @@ fun MapScreen(
         }
     }
 }
-
-/**
- * TileStreamProvider mit Debug-Logging und mehreren Tile-Servern
- *
- * WICHTIG: Der zoomLvl Parameter entspricht direkt dem OSM Zoom Level (0-18)!
- * MapCompose übergibt den Level-Index, der bei korrekter Konfiguration = OSM Zoom ist.
- */
-private fun createTileStreamProvider(): TileStreamProvider {
-    return TileStreamProvider { row, col, zoomLvl ->
-        try {
-            // Debug: Zeige was angefordert wird
-            println("🗺️ [TILE REQUEST] OSM Zoom=$zoomLvl, col=$col, row=$row")
-
-            runBlocking(Dispatchers.IO) {
-                loadTile(row, col, zoomLvl)
-            }
-        } catch (e: Exception) {
-            println("❌ [TILE ERROR] zoom=$zoomLvl, col=$col, row=$row: ${e.message}")
-            e.printStackTrace()
-            null
-        }
-    }
-}
-
-/**
- * Lädt ein einzelnes Tile - probiert mehrere Server
- */
-private suspend fun loadTile(row: Int, col: Int, zoomLvl: Int): InputStream? {
-    return withContext(Dispatchers.IO) {
-        // Liste von Tile-Servern (probiere nacheinander)
-        val tileUrls = listOf(
-            // 1. CartoDB - sehr stabil im Emulator
-            "https://a.basemaps.cartocdn.com/rastertiles/voyager/$zoomLvl/$col/$row.png",
-
-            // 2. OpenStreetMap - Standard
-            "https://tile.openstreetmap.org/$zoomLvl/$col/$row.png",
-
-            // 3. OpenStreetMap DE - Backup
-            "https://a.tile.openstreetmap.de/$zoomLvl/$col/$row.png"
-        )
-
-        // Probiere jeden Server bis einer funktioniert
-        for (urlString in tileUrls) {
-            try {
-                val url = URL(urlString)
-                val connection = url.openConnection() as HttpURLConnection
-
-                // Wichtige Header
-                connection.setRequestProperty("User-Agent", "TrackerApp/1.0")
-                connection.connectTimeout = 15000  // Länger für Emulator
-                connection.readTimeout = 15000
-                connection.doInput = true
-
-                // Verbinden
-                connection.connect()
-
-                // Prüfe Response-Code
-                if (connection.responseCode == 200) {
-                    println("✅ Tile loaded from ${urlString.substringAfter("https://")}: zoom=$zoomLvl, col=$col, row=$row")
-                    return@withContext connection.inputStream
-                } else {
-                    println("⚠️ HTTP ${connection.responseCode} from ${urlString.substringAfter("https://")}")
-                }
-            } catch (e: Exception) {
-                println("⚠️ Failed ${urlString.substringAfter("https://")}: ${e.message}")
-                // Probiere nächsten Server
-                continue
-            }
-        }
-
-        // Alle Server fehlgeschlagen
-        println("❌ All tile servers failed for zoom=$zoomLvl, col=$col, row=$row")
-        null
-    }
-}
-
-/**
- * Mercator-Punkt Datenklasse
- */
-private data class MercatorPoint(val x: Double, val y: Double)
-
-/**
- * Konvertiert GPS-Koordinaten zu Mercator-Pixel-Koordinaten
- *
- * MapCompose verwendet Koordinaten bezogen auf den MAXIMALEN Zoom-Level (Level 18).
- * Bei Level 18 ist die Karte 256 * 2^18 = 67,108,864 Pixel groß.
- *
- * @param lat Breitengrad (-90 bis +90)
- * @param lon Längengrad (-180 bis +180)
- * @return Mercator-Koordinaten (x, y) für Level 18
- */
-private fun latLonToMercator(lat: Double, lon: Double): MercatorPoint {
-    // Kartengröße bei maximaler Auflösung (Level 18)
-    val mapSizeAtMaxLevel = MapConstants.MAP_SIZE_LEVEL_0 * (1 shl MapConstants.MAX_ZOOM)
-
-    // Längengrad zu X: Lineare Transformation
-    val x = (lon + 180.0) / 360.0 * mapSizeAtMaxLevel
-
-    // Breitengrad zu Y: Mercator-Projektion
-    val latRad = Math.toRadians(lat)
-    val mercatorN = ln(tan(PI / 4.0 + latRad / 2.0))
-    val y = (1.0 - mercatorN / PI) / 2.0 * mapSizeAtMaxLevel
-
-    return MercatorPoint(x, y)
-}
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.example.trackerapp.presentation.map
+
+import androidx.compose.runtime.snapshotFlow
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.data.tile.HeatmapTiles
+import com.example.trackerapp.data.tile.PathOverlayTiles
+import com.example.trackerapp.data.tile.TileProvider
+import com.example.trackerapp.data.tile.TileRepository
+import com.example.trackerapp.data.tile.TileViewport
+import com.example.trackerapp.data.tile.VectorTileRenderer
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.conflate
+import ovh.plrapps.mapcompose.api.centroidX
+import ovh.plrapps.mapcompose.api.centroidY
+import ovh.plrapps.mapcompose.api.reloadTiles
+import ovh.plrapps.mapcompose.api.scale
+import ovh.plrapps.mapcompose.api.visibleBoundingBox
+import ovh.plrapps.mapcompose.core.TileStreamProvider
+import ovh.plrapps.mapcompose.ui.state.MapState
+import java.io.ByteArrayInputStream
+import kotlin.math.ceil
+import kotlin.math.log2
+
+/**
+ * TileStreamProvider für MapScreen und PathScreen
+ *
+ * WICHTIG: Der zoomLvl Parameter entspricht direkt dem OSM Zoom Level (0-18)!
+ * MapCompose übergibt den Level-Index, der bei korrekter Konfiguration = OSM Zoom ist.
+ *
+ * Tiles kommen aus dem gemeinsamen [TileRepository] (Memory/Disk-Cache vor Netzwerk).
+ * Kein runBlocking: der MapCompose-Worker wartet nur auf das Ergebnis,
+ * die Downloads laufen auf dem begrenzten Dispatcher des Repositories.
+ *
+ * Mit [vector] kommen Tiles zuerst aus dem lokalen Vektor-Paket; nur wo das Paket
+ * nichts abdeckt, wird die Raster-Karte geladen.
+ */
+fun createTileStreamProvider(
+    repository: TileRepository,
+    provider: TileProvider = TileProvider.BASEMAP,
+    vector: VectorTileRenderer? = null
+): TileStreamProvider {
+    return TileStreamProvider { row, col, zoomLvl ->
+        (vector?.renderTileBlocking(zoomLvl, col, row) ?: repository.loadTileBlocking(provider, zoomLvl, col, row))
+            ?.let { ByteArrayInputStream(it) }
+    }
+}
+
+/**
+ * TileStreamProvider für den vorgerasterten Pfad (zweiter Layer über der Basiskarte)
+ *
+ * Liefert null wo der Pfad nicht liegt - MapCompose zeichnet dort nichts.
+ */
+fun createPathOverlayProvider(overlay: PathOverlayTiles): TileStreamProvider {
+    return TileStreamProvider { row, col, zoomLvl ->
+        overlay.renderTileBlocking(zoomLvl, col, row)?.let { ByteArrayInputStream(it) }
+    }
+}
+
+/**
+ * TileStreamProvider für die Besuchs-Heatmap (zusätzlicher Layer, ein- und ausschaltbar)
+ */
+fun createHeatmapProvider(heatmap: HeatmapTiles): TileStreamProvider {
+    return TileStreamProvider { row, col, zoomLvl ->
+        heatmap.renderTileBlocking(zoomLvl, col, row)?.let { ByteArrayInputStream(it) }
+    }
+}
+
+/**
+ * OSM Zoom-Level der Tiles, die MapCompose bei [scale] anzeigt
+ *
+ * scale = 1.0 entspricht dem höchsten Level (18), jede Halbierung einem Level weniger.
+ */
+fun tileZoomForScale(scale: Double): Int {
+    if (scale <= 0.0) return 0
+    return (MapConstants.MAX_ZOOM + ceil(log2(scale)).toInt()).coerceIn(0, MapConstants.MAX_ZOOM)
+}
+
+/**
+ * Bricht Tile-Requests ab, die nach Scrollen/Zoomen nicht mehr sichtbar sind
+ *
+ * Läuft solange der aufrufende Effect aktiv ist. Während eines Flings wird höchstens
+ * alle [AppConstants.Tiles.VIEWPORT_SETTLE_MS] geprüft.
+ */
+suspend fun cancelStaleTileRequests(mapState: MapState, repository: TileRepository) {
+    snapshotFlow { Triple(mapState.scale, mapState.centroidX, mapState.centroidY) }
+        .conflate()
+        .collect {
+            val box = mapState.visibleBoundingBox()
+            repository.cancelOutside(
+                TileViewport.fromNormalized(
+                    zoom = tileZoomForScale(mapState.scale),
+                    left = box.xLeft,
+                    top = box.yTop,
+                    right = box.xRight,
+                    bottom = box.yBottom
+                )
+            )
+            delay(AppConstants.Tiles.VIEWPORT_SETTLE_MS)
+        }
+}
+
+/**
+ * Lädt die Tiles der Karte neu, sobald echte Tiles ausgelieferte Platzhalter ersetzen können
+ *
+ * Höchstens alle [AppConstants.Tiles.PLACEHOLDER_RELOAD_MS] - die neu angeforderten Tiles
+ * kommen dann aus dem Memory-Cache.
+ */
+suspend fun reloadWhenTilesArrive(mapState: MapState, repository: TileRepository) {
+    repository.replacedTiles
+        .conflate()
+        .collect {
+            mapState.reloadTiles()
+            delay(AppConstants.Tiles.PLACEHOLDER_RELOAD_MS)
+        }
+}
+
+/**
+ * Lädt die Tiles der Karte neu, wenn neue Punkte Overlay-Tiles ungültig gemacht haben
+ *
+ * Nur die verworfenen Tiles werden neu gerastert, alle anderen kommen aus dem Cache.
+ */
+suspend fun reloadWhenOverlayChanges(mapState: MapState, overlay: PathOverlayTiles) {
+    overlay.changes
+        .conflate()
+        .collect {
+            mapState.reloadTiles()
+            delay(AppConstants.Tiles.PLACEHOLDER_RELOAD_MS)
+        }
+}
+
+/**
+ * Lädt die Tiles der Karte neu, wenn neue Locations Heatmap-Tiles ungültig gemacht haben
+ */
+suspend fun reloadWhenHeatmapChanges(mapState: MapState, heatmap: HeatmapTiles) {
+    heatmap.changes
+        .conflate()
+        .collect {
+            mapState.reloadTiles()
+            delay(AppConstants.Tiles.PLACEHOLDER_RELOAD_MS)
+        }
+}
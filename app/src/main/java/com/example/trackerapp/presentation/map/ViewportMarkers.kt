@@ -0,0 +1,133 @@
+package com.example.trackerapp.presentation.map
+
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.MercatorProjection
+import com.example.trackerapp.data.local.entity.LocationPoint
+import kotlin.math.floor
+
+/**
+ * Auswahl der Location-Marker für den sichtbaren Ausschnitt
+ *
+ * Statt einem Marker pro gespeicherter Location:
+ * - Abgefragt wird nur der Ausschnitt plus [padding] (Anteil der Ausschnittsgröße pro Seite).
+ *   Solange der sichtbare Ausschnitt darin bleibt, ist keine neue Abfrage nötig ([covers]).
+ * - Pro Raster-Zelle von [cellPx] Bildschirm-Pixeln höchstens ein Marker (der neueste),
+ *   insgesamt höchstens [maxMarkers]. Das Raster hängt nur am Zoom-Level, nicht am
+ *   Ausschnitt - beim Verschieben bleibt die Auswahl stabil.
+ * - [update] vergleicht mit den angezeigten Markern und liefert nur die Änderungen.
+ *
+ * Koordinaten sind MapCompose-Koordinaten (0..1). Nicht thread-safe.
+ */
+class ViewportMarkers(
+    private val padding: Double = AppConstants.Markers.VIEWPORT_PADDING,
+    private val cellPx: Int = AppConstants.Markers.CELL_PX,
+    private val maxMarkers: Int = AppConstants.Markers.MAX_LIVE
+) {
+    /**
+     * Marker auf der Karte
+     */
+    data class Marker(val id: Long, val x: Double, val y: Double)
+
+    /**
+     * Änderungen gegenüber den angezeigten Markern
+     */
+    data class Diff(val added: List<Marker>, val removed: List<Long>) {
+        fun isEmpty(): Boolean = added.isEmpty() && removed.isEmpty()
+    }
+
+    /**
+     * Abzufragender Bereich in Grad
+     */
+    data class Bounds(val south: Double, val north: Double, val west: Double, val east: Double)
+
+    private val shown = HashMap<Long, Marker>()
+
+    // Zuletzt abgefragter Bereich (MapCompose-Koordinaten, mit Rand)
+    private var queriedZoom = -1
+    private var queriedLeft = 0.0
+    private var queriedTop = 0.0
+    private var queriedRight = 0.0
+    private var queriedBottom = 0.0
+
+    val size: Int
+        get() = shown.size
+
+    /**
+     * Liegt der sichtbare Ausschnitt noch im zuletzt abgefragten Bereich?
+     */
+    fun covers(zoom: Int, left: Double, top: Double, right: Double, bottom: Double): Boolean {
+        return zoom == queriedZoom &&
+            left >= queriedLeft && right <= queriedRight &&
+            top >= queriedTop && bottom <= queriedBottom
+    }
+
+    /**
+     * Bereich für die nächste Abfrage: sichtbarer Ausschnitt plus Rand
+     */
+    fun boundsFor(left: Double, top: Double, right: Double, bottom: Double): Bounds {
+        val padX = (right - left) * padding
+        val padY = (bottom - top) * padding
+        val l = (left - padX).coerceIn(0.0, 1.0)
+        val r = (right + padX).coerceIn(0.0, 1.0)
+        val t = (top - padY).coerceIn(0.0, 1.0)
+        val b = (bottom + padY).coerceIn(0.0, 1.0)
+        return Bounds(
+            south = MercatorProjection.latitude(b),
+            north = MercatorProjection.latitude(t),
+            west = MercatorProjection.longitude(l),
+            east = MercatorProjection.longitude(r)
+        )
+    }
+
+    /**
+     * Übernimmt das Ergebnis einer Abfrage
+     *
+     * @param points Locations im abgefragten Bereich, neueste zuerst
+     * @return Hinzuzufügende und zu entfernende Marker
+     */
+    fun update(points: List<LocationPoint>, zoom: Int, left: Double, top: Double, right: Double, bottom: Double): Diff {
+        val padX = (right - left) * padding
+        val padY = (bottom - top) * padding
+        queriedZoom = zoom
+        queriedLeft = left - padX
+        queriedTop = top - padY
+        queriedRight = right + padX
+        queriedBottom = bottom + padY
+
+        // Zellen in Bildschirm-Pixeln bei diesem Zoom-Level
+        val cells = (1 shl zoom).toDouble() * TILE_SIZE / cellPx
+        val occupied = HashSet<Long>()
+        val selected = HashMap<Long, Marker>()
+        for (point in points) {
+            if (selected.size >= maxMarkers) break
+            val x = MercatorProjection.x(point.longitude)
+            val y = MercatorProjection.y(point.latitude)
+            if (x < queriedLeft || x > queriedRight || y < queriedTop || y > queriedBottom) continue
+            val cell = (floor(x * cells).toLong() shl 32) or (floor(y * cells).toLong() and 0xFFFFFFFFL)
+            if (!occupied.add(cell)) continue
+            selected[point.id] = shown[point.id] ?: Marker(point.id, x, y)
+        }
+
+        val removed = shown.keys.filter { it !in selected }
+        val added = selected.values.filter { it.id !in shown }
+        shown.clear()
+        shown.putAll(selected)
+        return Diff(added, removed)
+    }
+
+    /**
+     * Entfernt alle Marker (z.B. unterhalb von [AppConstants.Markers.MIN_ZOOM])
+     *
+     * @return IDs der entfernten Marker
+     */
+    fun clear(): List<Long> {
+        val removed = shown.keys.toList()
+        shown.clear()
+        queriedZoom = -1
+        return removed
+    }
+
+    companion object {
+        private const val TILE_SIZE = 256
+    }
+}
@@ -8,6 +8,7 @@ import com.example.trackerapp.core.constants.AppConstants
 import com.example.trackerapp.presentation.location.LocationScreen
 import com.example.trackerapp.presentation.location.LocationViewModel
 import com.example.trackerapp.presentation.map.MapScreen
+import com.example.trackerapp.presentation.map.rememberMapEngine
 import com.example.trackerapp.presentation.map.MapViewModel
 import com.example.trackerapp.presentation.tracker.TrackerScreen
 import com.example.trackerapp.presentation.list.ListScreen
@@ -30,7 +31,9 @@ sealed class Screen(val route: String) {
  * Main navigation graph for TrackerApp
  *
  * Sets up the navigation between LocationScreen and MapScreen
- * with proper ViewModel management
+ * with proper ViewModel management. The [com.example.trackerapp.presentation.map.MapEngine]
+ * is obtained here, above the graph, from an activity-scoped ViewModel, so map screens
+ * keep their tiles and viewport when navigating away and back and across rotation.
  *
  * @param navController Navigation controller
  * @param locationViewModel Shared LocationViewModel
@@ -42,6 +45,8 @@ fun TrackerNavigation(
     locationViewModel: LocationViewModel,
     mapViewModel: MapViewModel
 ) {
+    val mapEngine = rememberMapEngine()
+
     NavHost(
         navController = navController,
         startDestination = Screen.Location.route
@@ -56,7 +61,8 @@ fun TrackerNavigation(
         composable(route = Screen.Map.route) {
             MapScreen(
                 navController = navController,
-                viewModel = locationViewModel
+                viewModel = locationViewModel,
+                mapEngine = mapEngine
             )
         }
 
@@ -74,7 +80,8 @@ fun TrackerNavigation(
 
         composable(route = Screen.Path.route) {
             PathScreen(
-                navController = navController
+                navController = navController,
+                mapEngine = mapEngine
             )
         }
     }
@@ -0,0 +1,311 @@
+package com.example.trackerapp.presentation.path
+
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.TrackGrowth
+import kotlin.math.sqrt
+
+/**
+ * Mehrstufige Vereinfachung eines Pfads (Level of Detail pro Zoom-Level)
+ *
+ * Beim Aufbau bekommt jeder Punkt einmalig eine Douglas-Peucker-Wichtigkeit: die
+ * Abweichung, ab der er wegfallen darf. Die Wichtigkeit ist monoton (nie größer als die
+ * des Punkts, der das Teilstück gebildet hat) - damit ist jede Schwelle eine gültige
+ * Douglas-Peucker-Vereinfachung und jedes Level enthält alle Punkte der gröberen Level.
+ * Berechnet wird sie pro Abschnitt von [AppConstants.Path.LOD_CHUNK_SIZE] Punkten, die
+ * Grenzen der Abschnitte bleiben wie die Endpunkte immer erhalten.
+ *
+ * Pro Zoom-Level wird die Schwelle aus [AppConstants.Path.LOD_TOLERANCE_PX] Bildschirm-Pixeln
+ * berechnet und die Punkt-Indizes vorab gespeichert. Jedes Level hat höchstens
+ * [AppConstants.Path.LOD_MAX_VERTICES] Punkte - bei sehr langen Tracks wird die Schwelle
+ * dafür angehoben. Gezeichnet wird damit unabhängig von der Länge der History.
+ * Für einen wachsenden Pfad hält [Builder] die Level aktuell, ohne alles neu zu berechnen.
+ *
+ * Koordinaten sind MapCompose-Koordinaten (0..1, siehe MapEngine.project).
+ */
+class PathLod private constructor(
+    private val xs: DoubleArray,
+    private val ys: DoubleArray,
+    private val levels: Array<IntArray>
+) {
+    /**
+     * Anzahl Punkte des vollständigen Pfads
+     */
+    val size: Int
+        get() = xs.size
+
+    /**
+     * Indizes der Punkte für ein Tile-Zoom-Level (aufsteigend)
+     */
+    fun indicesFor(zoom: Int): IntArray = levels[zoom.coerceIn(0, levels.size - 1)]
+
+    /**
+     * Ruft [action] für alle Punkte des Levels in Pfad-Reihenfolge auf
+     */
+    inline fun forEachPoint(zoom: Int, action: (x: Double, y: Double) -> Unit) {
+        for (i in indicesFor(zoom)) action(x(i), y(i))
+    }
+
+    fun x(index: Int): Double = xs[index]
+
+    fun y(index: Int): Double = ys[index]
+
+    /**
+     * Hält die Level eines aufgezeichneten Pfads aktuell, während er wächst
+     *
+     * Vollständige Abschnitte ändern sich nicht mehr: ihre Wichtigkeit, ihr Anteil an jedem
+     * Level und ihre wichtigsten Punkte (für das Punkt-Budget) bleiben gespeichert. Sind seit
+     * dem letzten [update] nur Punkte hinzugekommen ([TrackGrowth]), wird nur der letzte,
+     * offene Abschnitt neu berechnet - O(Abschnitt + Level-Größen) statt O(n log n). Jede
+     * andere Änderung baut alles neu auf.
+     *
+     * Das Ergebnis ist identisch mit [build] über den ganzen Pfad. Thread-safe.
+     */
+    class Builder(
+        private val tolerancePx: Double = AppConstants.Path.LOD_TOLERANCE_PX,
+        private val maxVertices: Int = AppConstants.Path.LOD_MAX_VERTICES,
+        private val maxZoom: Int = AppConstants.Tiles.MAX_ZOOM,
+        private val chunkSize: Int = AppConstants.Path.LOD_CHUNK_SIZE
+    ) {
+        init {
+            require(maxVertices >= 2) { "maxVertices must keep both endpoints" }
+            require(chunkSize >= 2) { "chunkSize must be at least 2" }
+        }
+
+        private var ids = LongArray(0)
+        private var last: PathLod? = null
+
+        // Wichtigkeit der versiegelten Punkte [0, sealedEnd), der Rest gehört zum offenen Abschnitt
+        private var importance = DoubleArray(0)
+        private var sealedEnd = 0
+
+        // Pro Zoom: versiegelte Punkte über der Schwelle (null = schon allein über dem Budget)
+        private val sealedLevels = arrayOfNulls<IntArray>(maxZoom + 1)
+        private val sealedCounts = IntArray(maxZoom + 1)
+
+        // Die maxVertices+1 wichtigsten versiegelten Punkte (absteigend): genügen für die Budget-Schwelle
+        private var candidates = IntArray(0)
+
+        init {
+            reset()
+        }
+
+        /**
+         * Level für den Pfad mit den Location-IDs [ids]
+         *
+         * @param ids Location-IDs in Pfad-Reihenfolge (zum Erkennen angehängter Punkte)
+         */
+        @Synchronized
+        fun update(ids: LongArray, xs: DoubleArray, ys: DoubleArray): PathLod {
+            require(ids.size == xs.size) { "ids and xs differ in size" }
+            val cached = last
+            if (!TrackGrowth.startsWith(ids, this.ids)) {
+                reset()
+            } else if (cached != null && ids.size == this.ids.size) {
+                return cached
+            }
+            val lod = extend(xs, ys)
+            this.ids = ids
+            last = lod
+            return lod
+        }
+
+        internal fun extend(xs: DoubleArray, ys: DoubleArray): PathLod {
+            require(xs.size == ys.size) { "xs and ys differ in size" }
+            val n = xs.size
+            while (n - 1 - sealedEnd >= chunkSize) {
+                seal(xs, ys, sealedEnd, sealedEnd + chunkSize)
+            }
+            // Offener Abschnitt [sealedEnd, n), bei jedem Aufruf neu
+            val tail = if (n > sealedEnd) importance(xs, ys, sealedEnd, n - 1) else DoubleArray(0)
+
+            var capped: IntArray? = null
+            val levels = Array(maxZoom + 1) { zoom ->
+                val threshold = threshold(zoom)
+                val sealed = sealedLevels[zoom]
+                val tailCount = tail.count { it >= threshold }
+                if (sealed != null && sealedCounts[zoom] + tailCount <= maxVertices) {
+                    concat(sealed, sealedCounts[zoom], tail, threshold, tailCount)
+                } else {
+                    // Alle Level über dem Budget haben dieselbe Schwelle
+                    capped ?: cappedLevel(tail).also { capped = it }
+                }
+            }
+            return PathLod(xs, ys, levels)
+        }
+
+        private fun reset() {
+            ids = LongArray(0)
+            last = null
+            sealedEnd = 0
+            for (zoom in 0..maxZoom) {
+                sealedLevels[zoom] = IntArray(16)
+                sealedCounts[zoom] = 0
+            }
+            candidates = IntArray(0)
+        }
+
+        /**
+         * Versiegelt den vollständigen Abschnitt [start, end] - bis auf den Grenzpunkt [end],
+         * mit dem der nächste Abschnitt beginnt
+         */
+        private fun seal(xs: DoubleArray, ys: DoubleArray, start: Int, end: Int) {
+            val chunk = importance(xs, ys, start, end)
+            if (importance.size < end) {
+                importance = importance.copyOf(maxOf(end, importance.size * 2))
+            }
+            System.arraycopy(chunk, 0, importance, start, end - start)
+
+            for (zoom in 0..maxZoom) {
+                var level = sealedLevels[zoom] ?: continue
+                val threshold = threshold(zoom)
+                var count = sealedCounts[zoom]
+                for (i in start until end) {
+                    if (importance[i] < threshold) continue
+                    if (count == level.size) level = level.copyOf(level.size * 2)
+                    level[count++] = i
+                }
+                // Über dem Budget bleibt das Level für immer gedeckelt
+                sealedLevels[zoom] = if (count > maxVertices) null else level
+                sealedCounts[zoom] = count
+            }
+
+            candidates = (candidates.asList() + (start until end))
+                .sortedByDescending { importance[it] }
+                .take(maxVertices + 1)
+                .toIntArray()
+            sealedEnd = end
+        }
+
+        /**
+         * Level mit angehobener Schwelle: nur was strikt wichtiger ist als der
+         * (maxVertices+1)-wichtigste Punkt des ganzen Pfads
+         */
+        private fun cappedLevel(tail: DoubleArray): IntArray {
+            // Beide Listen absteigend: der gesuchte Wert ergibt sich beim Zusammenführen
+            val sortedTail = tail.copyOf()
+            sortedTail.sortDescending()
+            var a = 0
+            var b = 0
+            var value = 0.0
+            repeat(maxVertices + 1) {
+                value = if (b >= sortedTail.size || (a < candidates.size && importance[candidates[a]] >= sortedTail[b])) {
+                    importance[candidates[a++]]
+                } else {
+                    sortedTail[b++]
+                }
+            }
+            val threshold = Math.nextUp(value)
+
+            var count = 0
+            while (count < candidates.size && importance[candidates[count]] >= threshold) count++
+            val sealed = candidates.copyOf(count)
+            sealed.sort()
+            return concat(sealed, count, tail, threshold, tail.count { it >= threshold })
+        }
+
+        private fun concat(sealed: IntArray, sealedCount: Int, tail: DoubleArray, threshold: Double, tailCount: Int): IntArray {
+            val indices = sealed.copyOf(sealedCount + tailCount)
+            var next = sealedCount
+            for (k in tail.indices) if (tail[k] >= threshold) indices[next++] = sealedEnd + k
+            return indices
+        }
+
+        // Ein Bildschirm-Pixel bei diesem Zoom in MapCompose-Koordinaten
+        private fun threshold(zoom: Int): Double = tolerancePx / (TILE_SIZE * (1 shl zoom))
+    }
+
+    companion object {
+        private const val TILE_SIZE = 256.0
+
+        /**
+         * Baut die Level aus den projizierten Punkten (in Pfad-Reihenfolge)
+         *
+         * O(n log n) für übliche Tracks, Speicher O(n) nur während des Aufbaus.
+         *
+         * @param tolerancePx Erlaubte Abweichung in Bildschirm-Pixeln
+         * @param maxVertices Obergrenze an Punkten pro Level
+         * @param chunkSize Punkte pro Abschnitt der Wichtigkeits-Berechnung
+         */
+        fun build(
+            xs: DoubleArray,
+            ys: DoubleArray,
+            tolerancePx: Double = AppConstants.Path.LOD_TOLERANCE_PX,
+            maxVertices: Int = AppConstants.Path.LOD_MAX_VERTICES,
+            maxZoom: Int = AppConstants.Tiles.MAX_ZOOM,
+            chunkSize: Int = AppConstants.Path.LOD_CHUNK_SIZE
+        ): PathLod = Builder(tolerancePx, maxVertices, maxZoom, chunkSize).extend(xs, ys)
+
+        /**
+         * Douglas-Peucker-Wichtigkeit der Punkte [start]..[end] (Endpunkte: unendlich),
+         * Index 0 des Ergebnisses ist [start]
+         *
+         * Iterativ mit eigenem Stack - Rekursion würde bei Millionen Punkten überlaufen.
+         */
+        private fun importance(xs: DoubleArray, ys: DoubleArray, start: Int, end: Int): DoubleArray {
+            val importance = DoubleArray(end - start + 1)
+            importance[0] = Double.POSITIVE_INFINITY
+            importance[end - start] = Double.POSITIVE_INFINITY
+            if (end - start < 2) return importance
+
+            var stack = IntArray(64)
+            var caps = DoubleArray(32)
+            // Offene Teilstücke (start, end) und die Wichtigkeit des Punkts, der sie gebildet hat
+            stack[0] = start
+            stack[1] = end
+            caps[0] = Double.POSITIVE_INFINITY
+            var top = 1
+
+            while (top > 0) {
+                top--
+                val from = stack[top * 2]
+                val to = stack[top * 2 + 1]
+                val cap = caps[top]
+                if (to - from < 2) continue
+
+                var maxDistance = -1.0
+                var maxIndex = from + 1
+                for (i in from + 1 until to) {
+                    val d = segmentDistance(xs[i], ys[i], xs[from], ys[from], xs[to], ys[to])
+                    if (d > maxDistance) {
+                        maxDistance = d
+                        maxIndex = i
+                    }
+                }
+                val value = minOf(maxDistance, cap)
+                importance[maxIndex - start] = value
+
+                if (top + 2 > caps.size) {
+                    caps = caps.copyOf(caps.size * 2)
+                    stack = stack.copyOf(stack.size * 2)
+                }
+                stack[top * 2] = from
+                stack[top * 2 + 1] = maxIndex
+                caps[top] = value
+                top++
+                stack[top * 2] = maxIndex
+                stack[top * 2 + 1] = to
+                caps[top] = value
+                top++
+            }
+            return importance
+        }
+
+        /**
+         * Abstand von (px, py) zur Strecke (ax, ay)-(bx, by)
+         */
+        private fun segmentDistance(px: Double, py: Double, ax: Double, ay: Double, bx: Double, by: Double): Double {
+            val dx = bx - ax
+            val dy = by - ay
+            val lengthSquared = dx * dx + dy * dy
+            if (lengthSquared == 0.0) {
+                val ex = px - ax
+                val ey = py - ay
+                return sqrt(ex * ex + ey * ey)
+            }
+            val t = (((px - ax) * dx + (py - ay) * dy) / lengthSquared).coerceIn(0.0, 1.0)
+            val ex = px - (ax + t * dx)
+            val ey = py - (ay + t * dy)
+            return sqrt(ex * ex + ey * ey)
+        }
+    }
+}
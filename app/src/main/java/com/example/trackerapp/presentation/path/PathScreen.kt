@@ -8,67 +8,177 @@ import androidx.compose.material3.*
 import androidx.compose.runtime.*
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
+import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.layout.onSizeChanged
 import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.platform.LocalDensity
 import androidx.compose.ui.unit.dp
 import androidx.navigation.NavController
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.ProjectedTrack
 import com.example.trackerapp.data.local.AppDatabase
-import com.example.trackerapp.data.local.entity.LocationEntity
+import com.example.trackerapp.data.path.PathBuffer
+import com.example.trackerapp.data.path.RecordedPath
+import com.example.trackerapp.data.profile.ProfileSeries
+import com.example.trackerapp.data.profile.ProfileSeriesCache
+import com.example.trackerapp.data.tile.TileViewport
+import com.example.trackerapp.presentation.map.MapEngine
+import com.example.trackerapp.presentation.map.cancelStaleTileRequests
+import com.example.trackerapp.presentation.map.createPathOverlayProvider
+import com.example.trackerapp.presentation.map.reloadWhenOverlayChanges
+import com.example.trackerapp.presentation.map.reloadWhenTilesArrive
+import com.example.trackerapp.presentation.map.tileZoomForScale
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.runBlocking
 import kotlinx.coroutines.withContext
 import ovh.plrapps.mapcompose.api.*
-import ovh.plrapps.mapcompose.core.TileStreamProvider
 import ovh.plrapps.mapcompose.ui.MapUI
 import ovh.plrapps.mapcompose.ui.state.MapState
-import java.io.InputStream
-import java.net.HttpURLConnection
-import java.net.URL
-import kotlin.math.*
 
 /**
  * PathScreen - Zeigt gespeicherte Location-History auf Karte
  *
  * Features:
- * - Lädt Locations aus Room Database
+ * - Lädt Locations aus Room Database, nach neuen Punkten nur diese ([RecordedPath]):
+ *   Projektion, Profile und Strecke werden fortgeschrieben statt neu berechnet
  * - Reactive UI mit Flow
- * - Auto-Zoom auf Locations
- * - Distanzberechnung
- *
- * TODO: Path-Drawing mit MapCompose Paths API implementieren
- * Die aktuelle MapCompose Version hat eine andere API als erwartet.
+ * - Auto-Zoom auf Locations beim ersten Öffnen, danach bleibt der Ausschnitt des Benutzers
+ * - Distanz fortlaufend beim Nachladen summiert
+ * - Pfad als Linie mit Level of Detail ([PathLod]): pro Zoom-Level nur die vorab
+ *   vereinfachten Punkte, höchstens [AppConstants.Path.LOD_MAX_VERTICES]. Neue Punkte
+ *   aktualisieren nur den letzten Abschnitt ([PathLod.Builder])
+ * - Ab [AppConstants.Path.OVERLAY_MIN_ZOOM] als vorgerasterte Overlay-Tiles
+ *   ([com.example.trackerapp.data.tile.PathOverlayTiles]), unabhängig von der Länge des Pfads
+ * - Höhen- und Geschwindigkeitsprofil ([ProfileChart]), per LTTB auf die Breite des
+ *   Diagramms reduziert und in [MapEngine.profiles] gecacht
  */
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
 fun PathScreen(
-    navController: NavController
+    navController: NavController,
+    mapEngine: MapEngine
 ) {
     val context = LocalContext.current
     val database = remember { AppDatabase.getDatabase(context) }
+    val tileRepository = mapEngine.tileRepository
+    val prefetcher = mapEngine.prefetcher
     val scope = rememberCoroutineScope()
 
-    // Locations aus Database laden
-    val locations by database.locationDao().getAllLocations().collectAsState(initial = emptyList())
+    // Bei jeder Änderung der Tabelle nur die neuen Locations nachladen
+    val recordedPath = remember { RecordedPath.getInstance(context) }
+    LaunchedEffect(recordedPath) {
+        database.locationDao().getLocationCount()
+            .conflate()
+            .collect { recordedPath.catchUp() }
+    }
+    val path by recordedPath.path.collectAsState()
+
+    // MapState aus der gemeinsamen Engine: bleibt über Navigation hinweg erhalten
+    val pathOverlay = mapEngine.pathOverlay
+    val mapState = mapEngine.mapState(AppConstants.Routes.PATH) {
+        // Vorgerasterter Pfad als zweiter Layer über der Basiskarte
+        pathOverlay?.let { addLayer(tileStreamProvider = createPathOverlayProvider(it)) }
+    }
+
+    // Nicht mehr sichtbare Tiles abbrechen
+    LaunchedEffect(mapState) {
+        cancelStaleTileRequests(mapState, tileRepository)
+    }
+
+    // Platzhalter durch echte Tiles ersetzen
+    LaunchedEffect(mapState) {
+        reloadWhenTilesArrive(mapState, tileRepository)
+    }
+
+    // Overlay-Tiles nach neuen Punkten neu laden
+    if (pathOverlay != null) {
+        LaunchedEffect(mapState) {
+            reloadWhenOverlayChanges(mapState, pathOverlay)
+        }
+    }
+
+    // Projektion im Hintergrund, nur die neu angehängten Punkte
+    val track by produceState<ProjectedTrack?>(initialValue = null, path) {
+        value = withContext(Dispatchers.Default) { projectTrack(mapEngine, path) }
+    }
+
+    // Vereinfachung und Overlay-Abgleich im Hintergrund.
+    // Neue Punkte: der Builder rechnet nur den letzten Abschnitt des Pfads neu.
+    val lodBuilder = remember { PathLod.Builder() }
+    val pathLod by produceState<PathLod?>(initialValue = null, track) {
+        val projected = track
+        value = if (projected == null) {
+            null
+        } else {
+            withContext(Dispatchers.Default) {
+                pathOverlay?.sync(projected.ids, projected.xs, projected.ys)
+                if (projected.size < 2) null else lodBuilder.update(projected.ids, projected.xs, projected.ys)
+            }
+        }
+    }
+
+    // Distanz wird beim Nachladen fortlaufend summiert
+    val distance = path.distance.takeIf { path.size >= 2 }
+
+    // Nur bei Wechsel des Tile-Zoom-Levels neu zeichnen, nicht bei jedem Frame.
+    // Ab OVERLAY_MIN_ZOOM kommt der Pfad aus den Overlay-Tiles.
+    LaunchedEffect(pathLod) {
+        val lod = pathLod
+        if (lod == null) {
+            mapState.removePath(PATH_ID)
+            return@LaunchedEffect
+        }
+        snapshotFlow { tileZoomForScale(mapState.scale) }
+            .distinctUntilChanged()
+            .collect { zoom ->
+                if (pathOverlay == null || zoom < AppConstants.Path.OVERLAY_MIN_ZOOM) {
+                    drawPathLevel(mapState, lod, zoom)
+                } else {
+                    mapState.removePath(PATH_ID)
+                }
+            }
+    }
 
-    // MapState
-    val mapState = remember {
-        MapState(
-            levelCount = 19,  // 0-18
-            fullWidth = 256,   // Level 0 size
-            fullHeight = 256,  // Level 0 size
-            workerCount = 16
-        ).apply {
-            addLayer(tileStreamProvider = createTileStreamProvider())
+    // Profile auf die Breite der Diagramme reduziert (Pixel), im Hintergrund
+    val density = LocalDensity.current
+    var chartWidth by remember { mutableStateOf(0) }
+    val profiles by produceState<Pair<ProfileSeries, ProfileSeries>?>(initialValue = null, path, chartWidth) {
+        value = if (chartWidth < 3 || path.size < 2) {
+            null
+        } else {
+            withContext(Dispatchers.Default) { profileSeries(mapEngine, path, chartWidth) }
         }
     }
 
-    // Center on first location when loaded
-    LaunchedEffect(locations) {
-        if (locations.isNotEmpty()) {
-            centerOnPath(mapState, locations)
+    // Beim ersten Laden auf den Pfad zentrieren (einmal pro MapState, nicht bei jedem neuen Punkt)
+    LaunchedEffect(path) {
+        if (path.size > 0 && mapEngine.claimInitialViewport(AppConstants.Routes.PATH)) {
+            centerOnPath(mapEngine, mapState, path)
         }
     }
 
+    // Tiles des Pfads im und um den sichtbaren Ausschnitt vorladen, nach jedem Scrollen/Zoomen
+    LaunchedEffect(track) {
+        val projected = track ?: return@LaunchedEffect
+        snapshotFlow { Triple(mapState.scale, mapState.centroidX, mapState.centroidY) }
+            .conflate()
+            .collect {
+                val box = mapState.visibleBoundingBox()
+                val viewport = TileViewport.fromNormalized(
+                    zoom = tileZoomForScale(mapState.scale),
+                    left = box.xLeft,
+                    top = box.yTop,
+                    right = box.xRight,
+                    bottom = box.yBottom
+                )
+                withContext(Dispatchers.Default) { prefetcher.onPath(projected.xs, projected.ys, viewport) }
+                delay(AppConstants.Tiles.VIEWPORT_SETTLE_MS)
+            }
+    }
+
     Scaffold(
         topBar = {
             TopAppBar(
@@ -85,11 +195,11 @@ fun PathScreen(
         },
         floatingActionButton = {
             // Center on Path FAB
-            if (locations.isNotEmpty()) {
+            if (path.size > 0) {
                 FloatingActionButton(
                     onClick = {
                         scope.launch {
-                            centerOnPath(mapState, locations)
+                            centerOnPath(mapEngine, mapState, path)
                         }
                     }
                 ) {
@@ -105,8 +215,12 @@ fun PathScreen(
             modifier = Modifier
                 .fillMaxSize()
                 .padding(padding)
+                .onSizeChanged { size ->
+                    // Breite der Diagramme: Screen minus Ränder der Profil-Card
+                    chartWidth = size.width - with(density) { PROFILE_INSETS.roundToPx() }
+                }
         ) {
-            if (locations.isEmpty()) {
+            if (path.size == 0) {
                 // Empty State
                 Column(
                     modifier = Modifier
@@ -155,164 +269,124 @@ fun PathScreen(
                         )
                         Spacer(modifier = Modifier.height(4.dp))
                         Text(
-                            text = "Punkte: ${locations.size}",
+                            text = "Punkte: ${path.size}",
                             style = MaterialTheme.typography.bodyMedium
                         )
-                        if (locations.size >= 2) {
-                            val distance = calculateTotalDistance(locations)
+                        distance?.let { meters ->
                             Text(
-                                text = "Distanz: ${String.format("%.2f", distance / 1000)} km",
+                                text = "Distanz: ${String.format("%.2f", meters / 1000)} km",
                                 style = MaterialTheme.typography.bodyMedium
                             )
                         }
                     }
                 }
 
-                // TODO Info
-                Card(
-                    modifier = Modifier
-                        .fillMaxWidth()
-                        .padding(16.dp)
-                        .align(Alignment.BottomCenter),
-                    colors = CardDefaults.cardColors(
-                        containerColor = MaterialTheme.colorScheme.tertiaryContainer
-                    )
-                ) {
-                    Text(
-                        text = "ℹ️ Path-Visualisierung noch in Entwicklung\n" +
-                                "Die Locations werden geladen, aber die Linie wird noch nicht gezeichnet.",
-                        modifier = Modifier.padding(12.dp),
-                        style = MaterialTheme.typography.bodySmall,
-                        color = MaterialTheme.colorScheme.onTertiaryContainer
-                    )
+                // Profile (nur wenn Höhe oder Geschwindigkeit aufgezeichnet wurde)
+                val altitude = profiles?.first
+                val speed = profiles?.second
+                if ((altitude?.size ?: 0) >= 2 || (speed?.size ?: 0) >= 2) {
+                    Card(
+                        modifier = Modifier
+                            .fillMaxWidth()
+                            .padding(start = 16.dp, end = 88.dp, bottom = 16.dp)
+                            .align(Alignment.BottomCenter),
+                        colors = CardDefaults.cardColors(
+                            containerColor = MaterialTheme.colorScheme.surface.copy(alpha = 0.95f)
+                        )
+                    ) {
+                        Column(
+                            modifier = Modifier
+                                .fillMaxWidth()
+                                .padding(12.dp),
+                            verticalArrangement = Arrangement.spacedBy(8.dp)
+                        ) {
+                            if (altitude != null && altitude.size >= 2) {
+                                ProfileChart(
+                                    series = altitude,
+                                    label = "Höhe (m)",
+                                    color = MaterialTheme.colorScheme.tertiary
+                                )
+                            }
+                            if (speed != null && speed.size >= 2) {
+                                ProfileChart(
+                                    series = speed,
+                                    label = "Geschwindigkeit (m/s)",
+                                    color = MaterialTheme.colorScheme.primary
+                                )
+                            }
+                        }
+                    }
                 }
             }
         }
     }
 }
 
-/**
- * Zentriert Karte auf Path
- */
-private suspend fun centerOnPath(mapState: MapState, locations: List<LocationEntity>) {
-    if (locations.isEmpty()) return
-
-    // Berechne Mittelpunkt
-    val centerLat = locations.map { it.latitude }.average()
-    val centerLon = locations.map { it.longitude }.average()
-
-    val center = latLonToMercator(centerLat, centerLon)
+private const val PATH_ID = "recorded_path"
+private const val PATH_TRACK_KEY = "path"
 
-    // Scroll to center
-    mapState.scrollTo(center.x, center.y)
-
-    // Set appropriate zoom (0.2 = ca. zoom level 12-13)
-    mapState.scale = 0.2
-}
+// Horizontale Ränder der Profil-Card inklusive Innenabstand (16 + 88 + 2 * 12)
+private val PROFILE_INSETS = 128.dp
 
 /**
- * Berechnet Gesamtdistanz des Paths in Metern
+ * Projiziert den Pfad (älteste zuerst)
+ *
+ * Über [MapEngine.projections] werden nach neuen Punkten nur diese projiziert.
  */
-private fun calculateTotalDistance(locations: List<LocationEntity>): Double {
-    if (locations.size < 2) return 0.0
-
-    var totalDistance = 0.0
-
-    for (i in 0 until locations.size - 1) {
-        val loc1 = locations[i]
-        val loc2 = locations[i + 1]
-
-        totalDistance += haversineDistance(
-            loc1.latitude, loc1.longitude,
-            loc2.latitude, loc2.longitude
-        )
-    }
-
-    return totalDistance
-}
+private fun projectTrack(mapEngine: MapEngine, path: PathBuffer.Snapshot): ProjectedTrack =
+    mapEngine.projections.project(PATH_TRACK_KEY, path.ids, path.latitudes, path.longitudes, path.size)
 
 /**
- * Haversine-Formel für Distanzberechnung
+ * Höhen- und Geschwindigkeitsprofil des Pfads für [width] Pixel
+ *
+ * Über [MapEngine.profiles] werden nach neuen Punkten nur diese übernommen.
  */
-private fun haversineDistance(
-    lat1: Double, lon1: Double,
-    lat2: Double, lon2: Double
-): Double {
-    val R = 6371000.0  // Erdradius in Metern
-
-    val dLat = Math.toRadians(lat2 - lat1)
-    val dLon = Math.toRadians(lon2 - lon1)
-
-    val a = sin(dLat / 2) * sin(dLat / 2) +
-            cos(Math.toRadians(lat1)) * cos(Math.toRadians(lat2)) *
-            sin(dLon / 2) * sin(dLon / 2)
-
-    val c = 2 * atan2(sqrt(a), sqrt(1 - a))
-
-    return R * c
+private fun profileSeries(
+    mapEngine: MapEngine,
+    path: PathBuffer.Snapshot,
+    width: Int
+): Pair<ProfileSeries, ProfileSeries> {
+    val profiles = mapEngine.profiles
+    val altitude = profiles.series(
+        PATH_TRACK_KEY, ProfileSeriesCache.Metric.ALTITUDE, width,
+        path.ids, path.timestamps, path.latitudes, path.longitudes, path.altitudes, path.size
+    )
+    val speed = profiles.series(
+        PATH_TRACK_KEY, ProfileSeriesCache.Metric.SPEED, width,
+        path.ids, path.timestamps, path.latitudes, path.longitudes, path.speeds, path.size
+    )
+    return altitude to speed
 }
 
 /**
- * Mercator-Punkt Datenklasse
- */
-private data class MercatorPoint(val x: Double, val y: Double)
-
-/**
- * Konvertiert GPS zu Mercator (Level 18)
+ * Ersetzt die Pfad-Linie durch die Stufe für [zoom]
  */
-private fun latLonToMercator(lat: Double, lon: Double): MercatorPoint {
-    val mapSizeAtMaxLevel = 256 * (1 shl 18)
-
-    val x = (lon + 180.0) / 360.0 * mapSizeAtMaxLevel
-    val latRad = Math.toRadians(lat)
-    val mercatorN = ln(tan(PI / 4.0 + latRad / 2.0))
-    val y = (1.0 - mercatorN / PI) / 2.0 * mapSizeAtMaxLevel
+private fun drawPathLevel(mapState: MapState, lod: PathLod, zoom: Int) {
+    val builder = mapState.makePathDataBuilder()
+    lod.forEachPoint(zoom) { x, y -> builder.addPoint(x, y) }
+    val pathData = builder.build() ?: return
 
-    return MercatorPoint(x, y)
+    mapState.removePath(PATH_ID)
+    mapState.addPath(
+        id = PATH_ID,
+        path = pathData,
+        width = AppConstants.Path.LINE_WIDTH_DP.dp,
+        color = Color(AppConstants.Path.LINE_COLOR)
+    )
 }
 
 /**
- * TileStreamProvider (gleich wie MapScreen)
+ * Zentriert Karte auf Path
  */
-private fun createTileStreamProvider(): TileStreamProvider {
-    return TileStreamProvider { row, col, zoomLvl ->
-        try {
-            runBlocking(Dispatchers.IO) {
-                loadTile(row, col, zoomLvl)
-            }
-        } catch (e: Exception) {
-            null
-        }
-    }
-}
+private suspend fun centerOnPath(mapEngine: MapEngine, mapState: MapState, path: PathBuffer.Snapshot) {
+    if (path.size == 0) return
 
-/**
- * Lädt Tile von Server
- */
-private suspend fun loadTile(row: Int, col: Int, zoomLvl: Int): InputStream? {
-    return withContext(Dispatchers.IO) {
-        val tileUrls = listOf(
-            "https://a.basemaps.cartocdn.com/rastertiles/voyager/$zoomLvl/$col/$row.png",
-            "https://tile.openstreetmap.org/$zoomLvl/$col/$row.png"
-        )
+    // Mittelpunkt wird beim Nachladen fortlaufend mitgeführt
+    val center = mapEngine.project(path.centerLatitude, path.centerLongitude)
 
-        for (urlString in tileUrls) {
-            try {
-                val url = URL(urlString)
-                val connection = url.openConnection() as HttpURLConnection
-                connection.setRequestProperty("User-Agent", "TrackerApp/1.0")
-                connection.connectTimeout = 15000
-                connection.readTimeout = 15000
-                connection.doInput = true
-                connection.connect()
+    // Scroll to center
+    mapState.scrollTo(center.x, center.y)
 
-                if (connection.responseCode == 200) {
-                    return@withContext connection.inputStream
-                }
-            } catch (e: Exception) {
-                continue
-            }
-        }
-        null
-    }
+    // Set appropriate zoom (0.2 = ca. zoom level 12-13)
+    mapState.scale = 0.2
 }
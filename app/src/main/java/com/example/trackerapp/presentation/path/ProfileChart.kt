@@ -0,0 +1,64 @@
+package com.example.trackerapp.presentation.path
+
+import androidx.compose.foundation.Canvas
+import androidx.compose.foundation.layout.*
+import androidx.compose.material3.MaterialTheme
+import androidx.compose.material3.Text
+import androidx.compose.runtime.Composable
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.graphics.Path
+import androidx.compose.ui.graphics.drawscope.Stroke
+import androidx.compose.ui.unit.dp
+import com.example.trackerapp.data.profile.ProfileSeries
+
+/**
+ * Linien-Diagramm eines Profils (Höhe oder Geschwindigkeit)
+ *
+ * Zeichnet die bereits auf die Breite reduzierte Serie ([ProfileSeries], höchstens ein Punkt
+ * pro Pixel) - die Kosten hängen nicht von der Länge des Tracks ab.
+ *
+ * @param label Titel mit Einheit, z.B. "Höhe (m)"
+ */
+@Composable
+fun ProfileChart(
+    series: ProfileSeries,
+    label: String,
+    color: Color,
+    modifier: Modifier = Modifier
+) {
+    Column(modifier = modifier) {
+        Row(
+            modifier = Modifier.fillMaxWidth(),
+            horizontalArrangement = Arrangement.SpaceBetween
+        ) {
+            Text(
+                text = label,
+                style = MaterialTheme.typography.labelMedium
+            )
+            if (series.size > 0) {
+                Text(
+                    text = "${String.format("%.0f", series.minY)} – ${String.format("%.0f", series.maxY)}",
+                    style = MaterialTheme.typography.labelSmall,
+                    color = MaterialTheme.colorScheme.onSurfaceVariant
+                )
+            }
+        }
+        Canvas(
+            modifier = Modifier
+                .fillMaxWidth()
+                .height(64.dp)
+        ) {
+            if (series.size < 2) return@Canvas
+            val spanX = series.maxX - series.xs[0]
+            val spanY = series.maxY - series.minY
+            val path = Path()
+            for (i in 0 until series.size) {
+                val x = if (spanX > 0) ((series.xs[i] - series.xs[0]) / spanX * size.width).toFloat() else 0f
+                val y = if (spanY > 0) ((1 - (series.ys[i] - series.minY) / spanY) * size.height).toFloat() else size.height / 2
+                if (i == 0) path.moveTo(x, y) else path.lineTo(x, y)
+            }
+            drawPath(path, color = color, style = Stroke(width = 2.dp.toPx()))
+        }
+    }
+}
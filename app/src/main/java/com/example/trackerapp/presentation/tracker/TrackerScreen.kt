@@ -16,6 +16,11 @@ import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.unit.dp
 import androidx.core.content.ContextCompat
 import androidx.navigation.NavController
+import com.example.trackerapp.core.utils.StatsFormatter
+import com.example.trackerapp.data.local.AppDatabase
+import com.example.trackerapp.data.stats.TrackSessionRecorder
+import com.example.trackerapp.presentation.components.DataRow
+import com.example.trackerapp.presentation.components.InfoCard
 import com.example.trackerapp.service.LocationService
 import com.google.accompanist.permissions.ExperimentalPermissionsApi
 import com.google.accompanist.permissions.rememberMultiplePermissionsState
@@ -27,6 +32,7 @@ import com.google.accompanist.permissions.rememberMultiplePermissionsState
  * - Start/Stop Buttons für LocationService
  * - Permission Handling für Location + Notifications
  * - Service Status Anzeige
+ * - Live-Statistik der laufenden Session bzw. Zusammenfassung der letzten Session
  * - Background Location Permission (Android 10+)
  */
 @OptIn(ExperimentalMaterial3Api::class, ExperimentalPermissionsApi::class)
@@ -35,7 +41,12 @@ fun TrackerScreen(
     navController: NavController
 ) {
     val context = LocalContext.current
-    var isTracking by remember { mutableStateOf(false) }
+    val recorder = remember { TrackSessionRecorder.getInstance(context) }
+    val sessionDao = remember { AppDatabase.getDatabase(context).trackSessionDao() }
+    val stats by recorder.stats.collectAsState()
+    val lastSession by sessionDao.getLatestSession().collectAsState(initial = null)
+    // Läuft bereits eine Session (z.B. Screen neu geöffnet), ist der Service aktiv
+    var isTracking by remember { mutableStateOf(recorder.stats.value != null) }
 
     // Permissions die wir brauchen
     val permissions = buildList {
@@ -128,6 +139,26 @@ fun TrackerScreen(
                 }
             }
 
+            // Live-Statistik (nach jedem Fix fortgeschrieben, kein Scan der History)
+            val live = stats
+            val last = lastSession
+            if (live != null) {
+                InfoCard(title = "Aktuelle Session", modifier = Modifier.fillMaxWidth()) {
+                    DataRow("Distanz", StatsFormatter.formatDistance(live.distanceMeters))
+                    DataRow("In Bewegung", StatsFormatter.formatDuration(live.movingMs))
+                    DataRow("Pause", StatsFormatter.formatDuration(live.stoppedMs))
+                    DataRow("Pace", StatsFormatter.formatPace(live.currentPace))
+                    DataRow("Ø / Max", "${StatsFormatter.formatSpeed(live.averageSpeed)} / ${StatsFormatter.formatSpeed(live.maxSpeed)}")
+                    DataRow("Aufstieg / Abstieg", "${live.elevationGain.toInt()} m / ${live.elevationLoss.toInt()} m")
+                }
+            } else if (last != null) {
+                InfoCard(title = "Letzte Session", modifier = Modifier.fillMaxWidth()) {
+                    DataRow("Distanz", StatsFormatter.formatDistance(last.distanceMeters))
+                    DataRow("Dauer", StatsFormatter.formatDuration(last.movingMs + last.stoppedMs))
+                    DataRow("Aufstieg / Abstieg", "${last.elevationGain.toInt()} m / ${last.elevationLoss.toInt()} m")
+                }
+            }
+
             Spacer(modifier = Modifier.height(16.dp))
 
             // Start Button
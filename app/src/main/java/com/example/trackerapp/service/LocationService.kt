@@ -13,8 +13,15 @@ import android.os.Looper
 import androidx.core.app.NotificationCompat
 import com.example.trackerapp.MainActivity
 import com.example.trackerapp.R
+import com.example.trackerapp.core.utils.StatsFormatter
+import com.example.trackerapp.data.geofence.GeofenceMonitor
+import com.example.trackerapp.data.heatmap.HeatmapIndexer
 import com.example.trackerapp.data.local.AppDatabase
 import com.example.trackerapp.data.local.entity.LocationEntity
+import com.example.trackerapp.data.places.PlaceIndexer
+import com.example.trackerapp.data.routes.RouteIndexer
+import com.example.trackerapp.data.stats.TrackSessionRecorder
+import com.example.trackerapp.data.trips.TripIndexer
 import com.google.android.gms.location.*
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
@@ -34,12 +41,21 @@ import android.util.Log
  * - FusedLocationProvider für effizientes GPS-Tracking
  * - Location Updates alle 10 Sekunden
  * - Speicherung in Database (später mit Room)
+ * - Heatmap-Raster, Trip-Segmente, Orte und Routen werden nach jedem Insert fortgeschrieben
+ * - Jeder Fix wird lokal gegen alle Geofences ausgewertet (Betreten/Verlassen/Aufenthalt)
+ * - Live-Statistik der Session (Strecke, Zeit, Pace) in der Notification, gespeichert beim Stoppen
  */
 class LocationService : Service() {
 
     private lateinit var fusedLocationClient: FusedLocationProviderClient
     private lateinit var locationCallback: LocationCallback
     private lateinit var database: AppDatabase
+    private lateinit var heatmapIndexer: HeatmapIndexer
+    private lateinit var sessionRecorder: TrackSessionRecorder
+    private lateinit var tripIndexer: TripIndexer
+    private lateinit var placeIndexer: PlaceIndexer
+    private lateinit var routeIndexer: RouteIndexer
+    private lateinit var geofenceMonitor: GeofenceMonitor
     private val serviceScope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
 
     companion object {
@@ -62,6 +78,12 @@ class LocationService : Service() {
 
         // Database initialisieren
         database = AppDatabase.getDatabase(applicationContext)
+        heatmapIndexer = HeatmapIndexer.getInstance(applicationContext)
+        sessionRecorder = TrackSessionRecorder.getInstance(applicationContext)
+        tripIndexer = TripIndexer.getInstance(applicationContext)
+        placeIndexer = PlaceIndexer.getInstance(applicationContext)
+        routeIndexer = RouteIndexer.getInstance(applicationContext)
+        geofenceMonitor = GeofenceMonitor.getInstance(applicationContext)
 
         // FusedLocationClient initialisieren
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this)
@@ -91,6 +113,7 @@ class LocationService : Service() {
 
         when (intent?.action) {
             ACTION_START -> {
+                sessionRecorder.start()
                 startForegroundService()
                 startLocationUpdates()
             }
@@ -108,6 +131,8 @@ class LocationService : Service() {
     override fun onDestroy() {
         Log.d(TAG, "Service onDestroy()")
         stopLocationUpdates()
+        // Auch wenn das System den Service beendet: Session nicht verlieren
+        sessionRecorder.finish()
         serviceScope.cancel()
         super.onDestroy()
     }
@@ -131,6 +156,7 @@ class LocationService : Service() {
     private fun stopForegroundService() {
         Log.d(TAG, "Stopping foreground service")
         stopLocationUpdates()
+        sessionRecorder.finish()
         stopForeground(STOP_FOREGROUND_REMOVE)
         stopSelf()
     }
@@ -171,7 +197,8 @@ class LocationService : Service() {
     /**
      * Behandelt neue Location Updates
      *
-     * Speichert Location in Room Database und updated Notification
+     * Speichert Location in Room Database, schreibt die Session-Statistik fort und updated
+     * die Notification
      */
     private fun handleLocationUpdate(
         latitude: Double,
@@ -182,6 +209,7 @@ class LocationService : Service() {
         bearing: Float? = null
     ) {
         Log.d(TAG, "📍 Location Update: $latitude, $longitude (accuracy: ${accuracy}m)")
+        val timestamp = System.currentTimeMillis()
 
         // Speichere in Database (asynchron)
         serviceScope.launch {
@@ -194,21 +222,50 @@ class LocationService : Service() {
                     altitude = altitude,
                     speed = speed,
                     bearing = bearing,
-                    timestamp = System.currentTimeMillis()
+                    timestamp = timestamp
                 )
 
                 val locationId = database.locationDao().insert(locationEntity)
                 Log.d(TAG, "✅ Location saved to database with ID: $locationId")
 
+                // Geofences im Speicher auswerten (ohne Plattform-Limit von 100 Geofences)
+                for (event in geofenceMonitor.onLocation(timestamp, latitude, longitude, accuracy)) {
+                    Log.d(TAG, "Geofence ${event.fenceId}: ${event.transition}")
+                }
+
+                // Heatmap-Raster, Trip-Segmente, Orte (aus neuen Stops) und Routen (aus neuen
+                // Trips) inkrementell fortschreiben
+                heatmapIndexer.catchUp()
+                tripIndexer.catchUp()
+                placeIndexer.catchUp()
+                routeIndexer.catchUp()
+
             } catch (e: Exception) {
                 Log.e(TAG, "❌ Failed to save location to database", e)
             }
         }
 
+        // Statistik in O(1) fortschreiben
+        val stats = sessionRecorder.add(
+            timestamp = timestamp,
+            latitude = latitude,
+            longitude = longitude,
+            accuracy = accuracy ?: Float.NaN,
+            altitude = altitude ?: Double.NaN,
+            speed = speed ?: Float.NaN
+        )
+
         // Update Notification
+        val content = if (stats != null && stats.startTime > 0) {
+            "${StatsFormatter.formatDistance(stats.distanceMeters)} · " +
+                "${StatsFormatter.formatDuration(stats.durationMs)} · " +
+                StatsFormatter.formatPace(stats.currentPace)
+        } else {
+            "Position: ${String.format("%.6f, %.6f", latitude, longitude)}"
+        }
         val notification = createNotification(
             title = "TrackerApp aktiv",
-            content = "Position: ${String.format("%.6f, %.6f", latitude, longitude)}"
+            content = content
         )
 
         val notificationManager = getSystemService(Context.NOTIFICATION_SERVICE) as NotificationManager
@@ -0,0 +1,265 @@
+package com.example.trackerapp.service
+
+import android.app.Notification
+import android.app.NotificationChannel
+import android.app.NotificationManager
+import android.app.PendingIntent
+import android.app.Service
+import android.content.Context
+import android.content.Intent
+import android.os.Build
+import android.os.IBinder
+import android.util.Log
+import androidx.core.app.NotificationCompat
+import androidx.core.content.ContextCompat
+import com.example.trackerapp.MainActivity
+import com.example.trackerapp.R
+import com.example.trackerapp.data.tile.RegionDownloader
+import com.example.trackerapp.data.tile.TileRegion
+import com.example.trackerapp.data.tile.TileRepository
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.launch
+
+/**
+ * Foreground Service für den Download einer Offline-Region
+ *
+ * Lädt eine [TileRegion] über [TileRepository.downloadRegion] in die MBTiles-Datei der
+ * Basiskarte. Läuft unabhängig vom Screen weiter, der den Download gestartet hat.
+ *
+ * Features:
+ * - Fortschritt als Notification und als [state] für die UI
+ * - Beendet das System den Service, wird der Intent erneut zugestellt: bereits
+ *   gespeicherte Tiles überspringt der [RegionDownloader], der Download setzt also fort
+ * - Abbruch über [cancel] (oder die Notification), geschriebene Batches bleiben erhalten
+ * - Immer nur ein Download gleichzeitig, weitere Starts während eines Downloads werden ignoriert
+ */
+class RegionDownloadService : Service() {
+
+    /**
+     * Zustand des letzten Downloads
+     *
+     * @property region Geladene Region
+     * @property progress Letzter gemeldeter Fortschritt
+     * @property running Download läuft noch
+     * @property error Fehlermeldung wenn der Download abgebrochen ist
+     */
+    data class State(
+        val region: TileRegion,
+        val progress: RegionDownloader.Progress,
+        val running: Boolean = true,
+        val error: String? = null
+    )
+
+    private lateinit var tileRepository: TileRepository
+    private val serviceScope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    private var downloadJob: Job? = null
+
+    companion object {
+        private const val TAG = "RegionDownloadService"
+        private const val NOTIFICATION_CHANNEL_ID = "region_download_channel"
+        private const val NOTIFICATION_CHANNEL_NAME = "Offline-Karten"
+        private const val NOTIFICATION_ID = 2
+
+        const val ACTION_START = "ACTION_START_REGION_DOWNLOAD"
+        const val ACTION_CANCEL = "ACTION_CANCEL_REGION_DOWNLOAD"
+
+        private const val EXTRA_NORTH = "north"
+        private const val EXTRA_SOUTH = "south"
+        private const val EXTRA_EAST = "east"
+        private const val EXTRA_WEST = "west"
+        private const val EXTRA_MIN_ZOOM = "min_zoom"
+        private const val EXTRA_MAX_ZOOM = "max_zoom"
+
+        private val _state = MutableStateFlow<State?>(null)
+
+        /**
+         * Fortschritt des laufenden oder letzten Downloads (null = noch keiner gestartet)
+         */
+        val state: StateFlow<State?> = _state.asStateFlow()
+
+        /**
+         * Startet den Download einer Region im Vordergrund
+         */
+        fun start(context: Context, region: TileRegion) {
+            val intent = Intent(context, RegionDownloadService::class.java).apply {
+                action = ACTION_START
+                putExtra(EXTRA_NORTH, region.north)
+                putExtra(EXTRA_SOUTH, region.south)
+                putExtra(EXTRA_EAST, region.east)
+                putExtra(EXTRA_WEST, region.west)
+                putExtra(EXTRA_MIN_ZOOM, region.minZoom)
+                putExtra(EXTRA_MAX_ZOOM, region.maxZoom)
+            }
+            ContextCompat.startForegroundService(context, intent)
+        }
+
+        /**
+         * Bricht den laufenden Download ab
+         */
+        fun cancel(context: Context) {
+            val intent = Intent(context, RegionDownloadService::class.java).apply {
+                action = ACTION_CANCEL
+            }
+            context.startService(intent)
+        }
+
+        private fun Intent.region(): TileRegion = TileRegion(
+            north = getDoubleExtra(EXTRA_NORTH, 0.0),
+            south = getDoubleExtra(EXTRA_SOUTH, 0.0),
+            east = getDoubleExtra(EXTRA_EAST, 0.0),
+            west = getDoubleExtra(EXTRA_WEST, 0.0),
+            minZoom = getIntExtra(EXTRA_MIN_ZOOM, 0),
+            maxZoom = getIntExtra(EXTRA_MAX_ZOOM, 0)
+        )
+    }
+
+    override fun onCreate() {
+        super.onCreate()
+        Log.d(TAG, "Service onCreate()")
+        tileRepository = TileRepository.getInstance(applicationContext)
+        createNotificationChannel()
+    }
+
+    override fun onStartCommand(intent: Intent?, flags: Int, startId: Int): Int {
+        Log.d(TAG, "onStartCommand: action=${intent?.action}")
+
+        when (intent?.action) {
+            ACTION_START -> {
+                val region = try {
+                    intent.region()
+                } catch (e: IllegalArgumentException) {
+                    Log.e(TAG, "Invalid region", e)
+                    stopSelf(startId)
+                    return START_NOT_STICKY
+                }
+                startForeground(NOTIFICATION_ID, createNotification(RegionDownloader.Progress(region.tileCount())))
+                if (downloadJob?.isActive != true) {
+                    // Main: downloadJob wird nur auf dem Main-Thread gelesen und geschrieben,
+                    // der Download selbst wechselt auf IO
+                    downloadJob = serviceScope.launch(Dispatchers.Main) { download(region) }
+                }
+            }
+            ACTION_CANCEL -> {
+                downloadJob?.cancel()
+                if (downloadJob == null) stopSelf()
+            }
+        }
+
+        // Vom System beendet: Intent erneut zustellen, der Download setzt dann fort
+        return START_REDELIVER_INTENT
+    }
+
+    override fun onBind(intent: Intent?): IBinder? = null
+
+    override fun onDestroy() {
+        Log.d(TAG, "Service onDestroy()")
+        serviceScope.cancel()
+        _state.value = _state.value?.copy(running = false)
+        super.onDestroy()
+    }
+
+    /**
+     * Lädt die Region und meldet den Fortschritt, beendet danach den Service
+     */
+    private suspend fun download(region: TileRegion) {
+        _state.value = State(region, RegionDownloader.Progress(region.tileCount()))
+        try {
+            val result = tileRepository.downloadRegion(region) { progress ->
+                _state.value = State(region, progress)
+                notify(createNotification(progress))
+            }
+            Log.d(TAG, "Region download finished: $result")
+            _state.value = State(region, result, running = false)
+        } catch (e: CancellationException) {
+            _state.value = _state.value?.copy(running = false)
+            throw e
+        } catch (e: Exception) {
+            Log.e(TAG, "Region download failed", e)
+            _state.value = _state.value?.copy(running = false, error = e.message)
+        } finally {
+            downloadJob = null
+            stopForeground(STOP_FOREGROUND_REMOVE)
+            stopSelf()
+        }
+    }
+
+    private fun notify(notification: Notification) {
+        val notificationManager = getSystemService(Context.NOTIFICATION_SERVICE) as NotificationManager
+        notificationManager.notify(NOTIFICATION_ID, notification)
+    }
+
+    /**
+     * Erstellt Notification Channel (erforderlich ab Android O)
+     */
+    private fun createNotificationChannel() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            val channel = NotificationChannel(
+                NOTIFICATION_CHANNEL_ID,
+                NOTIFICATION_CHANNEL_NAME,
+                NotificationManager.IMPORTANCE_LOW
+            ).apply {
+                description = "Zeigt den Fortschritt von Offline-Karten-Downloads"
+                setShowBadge(false)
+            }
+
+            val notificationManager = getSystemService(NotificationManager::class.java)
+            notificationManager.createNotificationChannel(channel)
+        }
+    }
+
+    /**
+     * Notification mit Fortschrittsbalken und Abbrechen-Aktion
+     */
+    private fun createNotification(progress: RegionDownloader.Progress) =
+        NotificationCompat.Builder(this, NOTIFICATION_CHANNEL_ID)
+            .setContentTitle("Offline-Karte wird geladen")
+            .setContentText("${progress.done} / ${progress.total} Tiles")
+            .setSmallIcon(R.drawable.ic_launcher_foreground)
+            .setOngoing(true)
+            .setOnlyAlertOnce(true)
+            .setProgress(
+                progress.total.toInt(),
+                progress.done.toInt(),
+                false
+            )
+            .setContentIntent(createPendingIntent())
+            .addAction(0, "Abbrechen", createCancelIntent())
+            .build()
+
+    /**
+     * PendingIntent um App beim Tippen auf Notification zu öffnen
+     */
+    private fun createPendingIntent(): PendingIntent {
+        val intent = Intent(this, MainActivity::class.java).apply {
+            flags = Intent.FLAG_ACTIVITY_NEW_TASK or Intent.FLAG_ACTIVITY_CLEAR_TASK
+        }
+
+        return PendingIntent.getActivity(
+            this,
+            0,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
+        )
+    }
+
+    private fun createCancelIntent(): PendingIntent {
+        val intent = Intent(this, RegionDownloadService::class.java).apply {
+            action = ACTION_CANCEL
+        }
+
+        return PendingIntent.getService(
+            this,
+            0,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
+        )
+    }
+}
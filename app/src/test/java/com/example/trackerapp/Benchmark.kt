@@ -0,0 +1,17 @@
+package com.example.trackerapp
+
+import org.junit.Assume
+
+/**
+ * Gate for timing benchmarks in the unit tests
+ *
+ * Benchmarks only run with `./gradlew test -Pbenchmark`; a normal test run skips them.
+ */
+object Benchmark {
+
+    const val PROPERTY = "benchmark"
+
+    fun assumeEnabled() {
+        Assume.assumeTrue("benchmark disabled, run with -Pbenchmark", System.getProperty(PROPERTY) == "true")
+    }
+}
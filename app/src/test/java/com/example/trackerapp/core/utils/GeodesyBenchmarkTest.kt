@@ -0,0 +1,58 @@
+package com.example.trackerapp.core.utils
+
+import com.example.trackerapp.Benchmark
+import org.junit.Assert.*
+import org.junit.Test
+import kotlin.math.abs
+
+/**
+ * Benchmark: Länge eines Tracks mit 1 Mio. Punkten
+ *
+ * Random Walk mit einem Punkt pro Sekunde (~1.4 m pro Segment) wie in der aufgezeichneten
+ * History. Misst [Geodesy.pathLength] in allen drei Modi und die Abweichung der schnellen
+ * Modi vom Ellipsoid. Läuft nur mit `-Pbenchmark`.
+ */
+class GeodesyBenchmarkTest {
+
+    @Test
+    fun millionPointTrack_allModes() {
+        Benchmark.assumeEnabled()
+        val random = java.util.Random(42)
+        val lats = DoubleArray(POINTS)
+        val lons = DoubleArray(POINTS)
+        var lat = 48.137
+        var lon = 11.575
+        var heading = 0.0
+        for (i in 0 until POINTS) {
+            heading += random.nextGaussian() * 0.05
+            lat += Math.cos(heading) * 1.4 / 111_320.0
+            lon += Math.sin(heading) * 1.4 / (111_320.0 * Math.cos(Math.toRadians(lat)))
+            lats[i] = lat
+            lons[i] = lon
+        }
+
+        val lengths = HashMap<Geodesy.Mode, Double>()
+        val timings = StringBuilder()
+        for (mode in Geodesy.Mode.values()) {
+            // Aufwärmen
+            repeat(2) { Geodesy.pathLength(lats, lons, mode) }
+            val start = System.nanoTime()
+            lengths[mode] = Geodesy.pathLength(lats, lons, mode)
+            val ms = (System.nanoTime() - start) / 1_000_000
+            timings.append(" $mode=$ms ms")
+        }
+
+        val ellipsoid = lengths.getValue(Geodesy.Mode.ELLIPSOIDAL)
+        val sphere = lengths.getValue(Geodesy.Mode.SPHERICAL)
+        val fast = lengths.getValue(Geodesy.Mode.FAST)
+        val report = "points=$POINTS$timings, length: ellipsoidal=${"%.1f".format(ellipsoid)} m " +
+            "spherical=${"%.1f".format(sphere)} m fast=${"%.1f".format(fast)} m"
+        assertEquals(report, 1.4 * (POINTS - 1), ellipsoid, 0.01 * ellipsoid)
+        assertTrue(report, abs(fast - sphere) / sphere < 1e-5)
+        assertTrue(report, abs(sphere - ellipsoid) / ellipsoid < 0.006)
+    }
+
+    companion object {
+        private const val POINTS = 1_000_000
+    }
+}
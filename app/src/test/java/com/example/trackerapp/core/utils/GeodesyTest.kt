@@ -0,0 +1,130 @@
+package com.example.trackerapp.core.utils
+
+import org.junit.Assert.*
+import org.junit.Test
+import kotlin.math.abs
+
+class GeodesyTest {
+
+    @Test
+    fun haversine_knownDistance() {
+        // München - Berlin, Großkreis auf der Kugel
+        val d = Geodesy.haversine(48.137, 11.575, 52.520, 13.405)
+        assertEquals(504_000.0, d, 2_000.0)
+        assertEquals(0.0, Geodesy.haversine(48.137, 11.575, 48.137, 11.575), 0.0)
+    }
+
+    @Test
+    fun ellipsoidal_matchesReferenceValues() {
+        // Referenzwerte (Karney, GeographicLib) auf WGS84
+        assertEquals(111_319.491, Geodesy.ellipsoidal(0.0, 0.0, 0.0, 1.0), 0.001)
+        assertEquals(110_574.389, Geodesy.ellipsoidal(0.0, 0.0, 1.0, 0.0), 0.001)
+        assertEquals(10_001_965.729, Geodesy.ellipsoidal(0.0, 0.0, 90.0, 0.0), 0.001)
+        assertEquals(0.0, Geodesy.ellipsoidal(48.137, 11.575, 48.137, 11.575), 0.0)
+    }
+
+    @Test
+    fun ellipsoidal_nearlyAntipodal_fallsBackToSphere() {
+        val d = Geodesy.ellipsoidal(0.0, 0.0, 0.5, 179.7)
+        assertTrue(d.isFinite())
+        assertEquals(Geodesy.haversine(0.0, 0.0, 0.5, 179.7), d, 0.01 * d)
+    }
+
+    @Test
+    fun sphericalVsEllipsoidal_withinSixPerMille() {
+        val random = java.util.Random(3)
+        repeat(1000) {
+            val lat1 = random.nextDouble() * 160 - 80
+            val lon1 = random.nextDouble() * 360 - 180
+            val lat2 = (lat1 + random.nextGaussian() * 5).coerceIn(-80.0, 80.0)
+            val lon2 = lon1 + random.nextGaussian() * 5
+            val ellipsoid = Geodesy.ellipsoidal(lat1, lon1, lat2, lon2)
+            val sphere = Geodesy.haversine(lat1, lon1, lat2, lon2)
+            assertTrue(abs(sphere - ellipsoid) <= 0.006 * ellipsoid + 1e-6)
+        }
+    }
+
+    @Test
+    fun fastPath_errorBound() {
+        // Dokumentierte Schranke: unter FAST_PATH_MAX_METERS und FAST_PATH_MAX_LATITUDE
+        val random = java.util.Random(11)
+        var worst = 0.0
+        repeat(100_000) {
+            val lat1 = (random.nextDouble() * 2 - 1) * Geodesy.FAST_PATH_MAX_LATITUDE * 0.99
+            val lon1 = random.nextDouble() * 360 - 180
+            val (lat2, lon2) = Geodesy.destination(
+                lat1, lon1, random.nextDouble() * 360, random.nextDouble() * Geodesy.FAST_PATH_MAX_METERS
+            )
+            if (abs(lat2) >= Geodesy.FAST_PATH_MAX_LATITUDE) return@repeat
+            val exact = Geodesy.haversine(lat1, lon1, lat2, lon2)
+            if (exact < 1.0) return@repeat
+            worst = maxOf(worst, abs(Geodesy.fast(lat1, lon1, lat2, lon2) - exact) / exact)
+        }
+        assertTrue("worst relative error $worst above the documented 1e-5", worst < 1e-5)
+    }
+
+    @Test
+    fun fastPath_longSegmentsUseHaversine() {
+        assertEquals(
+            Geodesy.haversine(48.137, 11.575, 52.520, 13.405),
+            Geodesy.fast(48.137, 11.575, 52.520, 13.405),
+            0.0
+        )
+        assertEquals(
+            Geodesy.haversine(85.0, 0.0, 85.01, 0.1),
+            Geodesy.fast(85.0, 0.0, 85.01, 0.1),
+            0.0
+        )
+    }
+
+    @Test
+    fun fastPath_acrossAntimeridian() {
+        val d = Geodesy.fast(10.0, 179.99, 10.0, -179.99)
+        assertEquals(Geodesy.haversine(10.0, 179.99, 10.0, -179.99), d, 0.01)
+        assertTrue(d < 3_000)
+    }
+
+    @Test
+    fun bearings() {
+        assertEquals(0.0, Geodesy.bearing(0.0, 0.0, 1.0, 0.0), 1e-9)
+        assertEquals(90.0, Geodesy.bearing(0.0, 0.0, 0.0, 1.0), 1e-9)
+        assertEquals(270.0, Geodesy.bearing(0.0, 0.0, 0.0, -1.0), 1e-9)
+        assertEquals(-90.0, Geodesy.ellipsoidalBearing(0.0, 0.0, 0.0, -1.0), 1e-9)
+        assertEquals(180.0, abs(Geodesy.ellipsoidalBearing(1.0, 0.0, 0.0, 0.0)), 1e-9)
+    }
+
+    @Test
+    fun destination_roundTrips() {
+        val (lat, lon) = Geodesy.destination(48.137, 11.575, 45.0, 1_000.0)
+        assertEquals(1_000.0, Geodesy.haversine(48.137, 11.575, lat, lon), 1e-6)
+        assertEquals(45.0, Geodesy.bearing(48.137, 11.575, lat, lon), 0.01)
+    }
+
+    @Test
+    fun batch_matchesScalar() {
+        val lats = doubleArrayOf(48.0, 48.001, 48.003, 48.002, 48.5)
+        val lons = doubleArrayOf(11.0, 11.001, 11.0, 11.004, 11.2)
+        for (mode in Geodesy.Mode.values()) {
+            val segments = DoubleArray(lats.size - 1)
+            Geodesy.segmentLengthsInto(lats, lons, segments, mode)
+            var sum = 0.0
+            for (i in segments.indices) {
+                assertEquals(Geodesy.distance(lats[i], lons[i], lats[i + 1], lons[i + 1], mode), segments[i], 0.0)
+                sum += segments[i]
+            }
+            assertEquals(sum, Geodesy.pathLength(lats, lons, mode), 1e-9)
+            assertEquals(segments[1] + segments[2], Geodesy.pathLength(lats, lons, mode, from = 1, to = 4), 1e-9)
+
+            val distances = DoubleArray(lats.size)
+            Geodesy.distancesInto(48.0, 11.0, lats, lons, distances, mode)
+            assertEquals(0.0, distances[0], 0.0)
+            assertEquals(segments[0], distances[1], 0.0)
+        }
+    }
+
+    @Test
+    fun pathLength_shortInput() {
+        assertEquals(0.0, Geodesy.pathLength(DoubleArray(0), DoubleArray(0)), 0.0)
+        assertEquals(0.0, Geodesy.pathLength(doubleArrayOf(1.0), doubleArrayOf(2.0)), 0.0)
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.trackerapp.core.utils
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class LatitudeBandGridTest {
+
+    @Test
+    fun neighbourCells_containEveryPointWithinCellSize() {
+        val grid = LatitudeBandGrid(150.0)
+        val random = java.util.Random(3)
+        // Auch nahe MAX_LATITUDE und Datumsgrenze
+        for (centerLatitude in listOf(0.0, 48.1, -33.9, 70.0, 88.9, -88.9)) {
+            repeat(500) {
+                val latitude = centerLatitude + (random.nextDouble() - 0.5) * 0.01
+                val longitude = (random.nextDouble() - 0.5) * 359.0
+                val neighbours = HashSet<Long>()
+                grid.forEachNeighbour(latitude, longitude) { neighbours += it }
+
+                // Punkt bis 150 m entfernt, in beliebiger Richtung
+                val bearing = random.nextDouble() * 2 * Math.PI
+                val distance = random.nextDouble() * 149.0
+                val otherLatitude = latitude + Math.cos(bearing) * distance / LatitudeBandGrid.METERS_PER_DEGREE
+                val otherLongitude = longitude + Math.sin(bearing) * distance /
+                    (LatitudeBandGrid.METERS_PER_DEGREE * Math.cos(Math.toRadians(otherLatitude)))
+                if (Geodesy.fast(latitude, longitude, otherLatitude, otherLongitude) > 150.0) return@repeat
+
+                assertTrue(
+                    "($latitude, $longitude) -> ($otherLatitude, $otherLongitude)",
+                    grid.keyOf(otherLatitude, otherLongitude) in neighbours
+                )
+            }
+        }
+    }
+
+    @Test
+    fun key_isDistinctForNegativeRowsAndColumns() {
+        val keys = HashSet<Long>()
+        for (row in -3L..3L) {
+            for (column in -3L..3L) keys += LatitudeBandGrid.key(row, column)
+        }
+        assertEquals(49, keys.size)
+    }
+
+    @Test
+    fun longitudeDegrees_widensTowardsThePoleAndIsClamped() {
+        val atEquator = LatitudeBandGrid.longitudeDegrees(1_000.0, 0.0, 0.0)
+        assertEquals(LatitudeBandGrid.latitudeDegrees(1_000.0), atEquator, 1e-12)
+        // Breitere der beiden Breiten zählt, unabhängig von Vorzeichen und Reihenfolge
+        assertEquals(2 * atEquator, LatitudeBandGrid.longitudeDegrees(1_000.0, -60.0, 10.0), 1e-9)
+        assertEquals(
+            LatitudeBandGrid.longitudeDegrees(1_000.0, 89.0, 0.0),
+            LatitudeBandGrid.longitudeDegrees(1_000.0, 0.0, 90.0),
+            1e-12
+        )
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.trackerapp.core.utils
+
+import com.example.trackerapp.Benchmark
+import org.junit.Assert.*
+import org.junit.Test
+
+/**
+ * Benchmark: Profil mit 500.000 Punkten auf 1080 Pixel
+ *
+ * Misst [Lttb.downsample] über die ganze Serie und [IncrementalLttb.update] beim Anhängen
+ * einzelner Punkte (Aufzeichnung läuft, Diagramm sichtbar). Läuft nur mit `-Pbenchmark`.
+ */
+class LttbBenchmarkTest {
+
+    @Test
+    fun halfMillionPoints_fullAndIncremental() {
+        Benchmark.assumeEnabled()
+        val random = java.util.Random(50)
+        val xs = DoubleArray(POINTS) { it.toDouble() }
+        val ys = DoubleArray(POINTS)
+        var y = 500.0
+        for (i in 0 until POINTS) {
+            y += random.nextGaussian()
+            ys[i] = y
+        }
+
+        repeat(3) { Lttb.downsample(xs, ys, WIDTH) }
+        val fullStart = System.nanoTime()
+        val full = Lttb.downsample(xs, ys, WIDTH)
+        val fullUs = (System.nanoTime() - fullStart) / 1_000
+
+        val lttb = IncrementalLttb(WIDTH)
+        lttb.update(xs, ys, POINTS - APPENDS)
+        val appendStart = System.nanoTime()
+        var last = IntArray(0)
+        for (n in POINTS - APPENDS + 1..POINTS) last = lttb.update(xs, ys, n)
+        val appendNs = (System.nanoTime() - appendStart) / APPENDS
+
+        val report = "points=$POINTS width=$WIDTH full=$fullUs us append=$appendNs ns/point"
+        assertEquals(report, WIDTH, full.size)
+        assertTrue(report, last.size in WIDTH / 2..WIDTH)
+        // Anhängen kostet nur die letzten Buckets, nicht die ganze Serie
+        assertTrue(report, appendNs * 20 < fullUs * 1_000)
+    }
+
+    companion object {
+        private const val POINTS = 500_000
+        private const val WIDTH = 1080
+        private const val APPENDS = 1_000
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.trackerapp.core.utils
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class LttbTest {
+
+    private fun series(n: Int, seed: Long = 1): Pair<DoubleArray, DoubleArray> {
+        val random = java.util.Random(seed)
+        val xs = DoubleArray(n) { it.toDouble() }
+        val ys = DoubleArray(n)
+        var y = 0.0
+        for (i in 0 until n) {
+            y += random.nextGaussian()
+            ys[i] = y
+        }
+        return xs to ys
+    }
+
+    /**
+     * Referenz: LTTB mit festen Buckets, ohne Zustand
+     */
+    private fun fixedBuckets(xs: DoubleArray, ys: DoubleArray, n: Int, bucketSize: Int): IntArray {
+        val out = arrayListOf(0)
+        var a = 0
+        var start = 1
+        while (start < n - 1) {
+            val end = minOf(start + bucketSize, n - 1)
+            val nextEnd = minOf(end + bucketSize, n - 1)
+            a = Lttb.largestTriangle(xs, ys, a, start, end, end, nextEnd, n)
+            out += a
+            start = end
+        }
+        out += n - 1
+        return out.toIntArray()
+    }
+
+    @Test
+    fun shortSeries_keepsAllPoints() {
+        val (xs, ys) = series(50)
+        assertArrayEquals(IntArray(50) { it }, Lttb.downsample(xs, ys, 100))
+    }
+
+    @Test
+    fun downsample_keepsEndsAndCount() {
+        val (xs, ys) = series(10_000)
+        val indices = Lttb.downsample(xs, ys, 500)
+        assertEquals(500, indices.size)
+        assertEquals(0, indices.first())
+        assertEquals(9_999, indices.last())
+        for (i in 1 until indices.size) assertTrue(indices[i] > indices[i - 1])
+    }
+
+    @Test
+    fun downsample_keepsSpike() {
+        val xs = DoubleArray(10_000) { it.toDouble() }
+        val ys = DoubleArray(10_000)
+        ys[4_321] = 100.0
+        ys[7_000] = -50.0
+        val indices = Lttb.downsample(xs, ys, 100)
+        assertTrue(4_321 in indices)
+        assertTrue(7_000 in indices)
+    }
+
+    @Test
+    fun incremental_matchesFixedBucketsAfterEveryAppend() {
+        val (xs, ys) = series(5_000, seed = 7)
+        val lttb = IncrementalLttb(200)
+        var n = 1
+        val random = java.util.Random(3)
+        while (n < 5_000) {
+            n = minOf(5_000, n + 1 + random.nextInt(40))
+            val indices = lttb.update(xs, ys, n)
+            val expected = if (n <= 200) IntArray(n) { it } else fixedBuckets(xs, ys, n, lttb.bucketSize)
+            assertArrayEquals("n=$n", expected, indices)
+            assertTrue(indices.size <= 200)
+        }
+        // Nach dem Wachsen mindestens halbe Auflösung
+        assertTrue(lttb.update(xs, ys, 5_000).size >= 100)
+    }
+
+    @Test
+    fun incremental_resetAfterChange() {
+        val (xs, ys) = series(2_000, seed = 2)
+        val lttb = IncrementalLttb(100)
+        lttb.update(xs, ys, 2_000)
+
+        val (otherXs, otherYs) = series(1_500, seed = 5)
+        lttb.reset()
+        val indices = lttb.update(otherXs, otherYs, 1_500)
+        assertArrayEquals(fixedBuckets(otherXs, otherYs, 1_500, lttb.bucketSize), indices)
+        assertTrue(indices.size in 50..100)
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.trackerapp.core.utils
+
+import com.example.trackerapp.Benchmark
+import org.junit.Assert.*
+import org.junit.Test
+
+/**
+ * Benchmark: 1 Mio. Punkte projizieren
+ *
+ * Vergleicht die Einzel-Projektion mit [MercatorPoint] pro Punkt (bisheriger Weg über
+ * [latLonToMercator]) mit der Batch-Projektion in Arrays und dem Nachprojizieren über
+ * [ProjectedTrackCache], wenn nur neue Punkte dazukommen. Läuft nur mit `-Pbenchmark`.
+ */
+class MercatorProjectionBenchmarkTest {
+
+    @Test
+    fun millionPoints_batchAndCache() {
+        Benchmark.assumeEnabled()
+        val random = java.util.Random(42)
+        val ids = LongArray(POINTS) { it + 1L }
+        val lats = DoubleArray(POINTS) { 48.0 + random.nextDouble() }
+        val lons = DoubleArray(POINTS) { 11.0 + random.nextDouble() }
+        val xs = DoubleArray(POINTS)
+        val ys = DoubleArray(POINTS)
+
+        // Aufwärmen
+        repeat(3) {
+            scalar(lats, lons)
+            MercatorProjection.projectInto(lats, lons, xs, ys)
+        }
+
+        var start = System.nanoTime()
+        val checksum = scalar(lats, lons)
+        val scalarMs = (System.nanoTime() - start) / 1_000_000
+
+        start = System.nanoTime()
+        MercatorProjection.projectInto(lats, lons, xs, ys)
+        val batchMs = (System.nanoTime() - start) / 1_000_000
+        assertEquals(checksum, xs.sum() + ys.sum(), 1e-6)
+
+        val cache = ProjectedTrackCache()
+        cache.project("path", ids.copyOf(POINTS - APPENDED), lats.copyOf(POINTS - APPENDED), lons.copyOf(POINTS - APPENDED))
+        start = System.nanoTime()
+        val track = cache.project("path", ids, lats, lons)
+        val appendMs = (System.nanoTime() - start) / 1_000_000
+        assertEquals(POINTS, track.size)
+
+        val report = "points=$POINTS scalar+objects=$scalarMs ms batch=$batchMs ms append($APPENDED)=$appendMs ms"
+        assertTrue(report, batchMs < 5_000)
+    }
+
+    private fun scalar(lats: DoubleArray, lons: DoubleArray): Double {
+        var sum = 0.0
+        for (i in lats.indices) {
+            val point = latLonToMercator(lats[i], lons[i], 1)
+            sum += point.x + point.y
+        }
+        return sum
+    }
+
+    companion object {
+        private const val POINTS = 1_000_000
+        private const val APPENDED = 100
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.trackerapp.core.utils
+
+import com.example.trackerapp.data.tile.TileRegion
+import org.junit.Assert.*
+import org.junit.Test
+
+class MercatorProjectionTest {
+
+    @Test
+    fun knownPoints() {
+        assertEquals(0.5, MercatorProjection.x(0.0), 1e-12)
+        assertEquals(0.5, MercatorProjection.y(0.0), 1e-12)
+        assertEquals(0.0, MercatorProjection.x(-180.0), 1e-12)
+        assertEquals(1.0, MercatorProjection.x(180.0), 1e-12)
+        assertEquals(0.0, MercatorProjection.y(MercatorProjection.MAX_LATITUDE), 1e-9)
+        assertEquals(1.0, MercatorProjection.y(-MercatorProjection.MAX_LATITUDE), 1e-9)
+    }
+
+    @Test
+    fun polesAreClamped() {
+        assertEquals(MercatorProjection.y(MercatorProjection.MAX_LATITUDE), MercatorProjection.y(90.0), 0.0)
+        assertEquals(MercatorProjection.y(-MercatorProjection.MAX_LATITUDE), MercatorProjection.y(-90.0), 0.0)
+        assertTrue(MercatorProjection.y(90.0).isFinite())
+    }
+
+    @Test
+    fun batchMatchesScalar() {
+        val random = java.util.Random(7)
+        val n = 1000
+        val lats = DoubleArray(n) { random.nextDouble() * 170 - 85 }
+        val lons = DoubleArray(n) { random.nextDouble() * 360 - 180 }
+        val xs = DoubleArray(n)
+        val ys = DoubleArray(n)
+        MercatorProjection.projectInto(lats, lons, xs, ys)
+        for (i in 0 until n) {
+            val point = MercatorProjection.project(lats[i], lons[i])
+            assertEquals(point.x, xs[i], 0.0)
+            assertEquals(point.y, ys[i], 0.0)
+        }
+    }
+
+    @Test
+    fun projectIntoRange_leavesOtherIndicesUntouched() {
+        val lats = doubleArrayOf(10.0, 20.0, 30.0, 40.0)
+        val lons = doubleArrayOf(1.0, 2.0, 3.0, 4.0)
+        val xs = DoubleArray(4) { -1.0 }
+        val ys = DoubleArray(4) { -1.0 }
+        MercatorProjection.projectInto(lats, lons, xs, ys, from = 1, to = 3)
+        assertEquals(-1.0, xs[0], 0.0)
+        assertEquals(-1.0, ys[3], 0.0)
+        assertEquals(MercatorProjection.x(2.0), xs[1], 0.0)
+        assertEquals(MercatorProjection.y(30.0), ys[2], 0.0)
+    }
+
+    @Test
+    fun unproject_roundTrips() {
+        val lats = doubleArrayOf(48.137, -33.86, 0.0, 85.0, -85.0)
+        val lons = doubleArrayOf(11.575, 151.2, 0.0, -179.9, 179.9)
+        val xs = DoubleArray(lats.size)
+        val ys = DoubleArray(lats.size)
+        MercatorProjection.projectInto(lats, lons, xs, ys)
+        val backLats = DoubleArray(lats.size)
+        val backLons = DoubleArray(lats.size)
+        MercatorProjection.unprojectInto(xs, ys, backLats, backLons)
+        for (i in lats.indices) {
+            assertEquals(lats[i], backLats[i], 1e-9)
+            assertEquals(lons[i], backLons[i], 1e-9)
+        }
+    }
+
+    @Test
+    fun scaledProjection_matchesLegacyHelper() {
+        val size = 256 * (1 shl 18)
+        val legacy = latLonToMercator(48.137, 11.575, size)
+        val point = MercatorProjection.project(48.137, 11.575, size.toDouble())
+        assertEquals(point.x, legacy.x, 0.0)
+        assertEquals(point.y, legacy.y, 0.0)
+    }
+
+    @Test
+    fun tileIndices_matchTileRegion() {
+        for (zoom in listOf(0, 5, 12, 18)) {
+            for (lat in listOf(-89.0, -45.5, 0.0, 48.137, 89.0)) {
+                assertEquals(TileRegion.latToRow(lat, zoom), MercatorProjection.row(lat, zoom))
+            }
+            for (lon in listOf(-180.0, -0.1, 0.0, 11.575, 180.0)) {
+                assertEquals(TileRegion.lonToCol(lon, zoom), MercatorProjection.column(lon, zoom))
+            }
+        }
+        // München, Zoom 12
+        assertEquals(2179, MercatorProjection.column(11.575, 12))
+        assertEquals(1421, MercatorProjection.row(48.137, 12))
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.trackerapp.core.utils
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class ProjectedTrackCacheTest {
+
+    private fun track(n: Int, offset: Double = 0.0): Triple<LongArray, DoubleArray, DoubleArray> {
+        val ids = LongArray(n) { it + 1L }
+        val lats = DoubleArray(n) { 48.0 + it * 0.001 + offset }
+        val lons = DoubleArray(n) { 11.0 + it * 0.001 }
+        return Triple(ids, lats, lons)
+    }
+
+    @Test
+    fun sameTrack_returnsCachedResult() {
+        val cache = ProjectedTrackCache()
+        val (ids, lats, lons) = track(100)
+        val first = cache.project("path", ids, lats, lons)
+        assertSame(first, cache.project("path", ids, lats, lons))
+    }
+
+    @Test
+    fun appendedPoints_projectOnlyTail() {
+        val cache = ProjectedTrackCache()
+        val (ids, lats, lons) = track(100)
+        val first = cache.project("path", ids.copyOf(60), lats.copyOf(60), lons.copyOf(60))
+
+        // Bekannte Punkte verfälschen: würden sie neu projiziert, käme ein anderer Wert heraus
+        val tampered = lats.copyOf()
+        for (i in 0 until 60) tampered[i] = 0.0
+        val appended = cache.project("path", ids, tampered, lons)
+
+        assertEquals(100, appended.size)
+        for (i in 0 until 60) assertEquals(first.ys[i], appended.ys[i], 0.0)
+        for (i in 60 until 100) assertEquals(MercatorProjection.y(lats[i]), appended.ys[i], 0.0)
+        // Frühere Ergebnisse bleiben unverändert
+        assertEquals(60, first.xs.size)
+    }
+
+    @Test
+    fun appendedResult_equalsFullProjection() {
+        val cache = ProjectedTrackCache()
+        val (ids, lats, lons) = track(500)
+        cache.project("path", ids.copyOf(200), lats.copyOf(200), lons.copyOf(200))
+        val appended = cache.project("path", ids, lats, lons)
+        val full = ProjectedTrackCache().project("path", ids, lats, lons)
+        assertArrayEquals(full.xs, appended.xs, 0.0)
+        assertArrayEquals(full.ys, appended.ys, 0.0)
+    }
+
+    @Test
+    fun changedPrefix_projectsEverything() {
+        val cache = ProjectedTrackCache()
+        val (ids, lats, lons) = track(100)
+        cache.project("path", ids, lats, lons)
+
+        // Erster Punkt gelöscht: IDs verschoben
+        val shifted = cache.project("path", ids.copyOfRange(1, 100), lats.copyOfRange(1, 100), lons.copyOfRange(1, 100))
+        assertEquals(99, shifted.size)
+        for (i in 0 until 99) assertEquals(MercatorProjection.y(lats[i + 1]), shifted.ys[i], 0.0)
+    }
+
+    @Test
+    fun shorterTrack_projectsEverything() {
+        val cache = ProjectedTrackCache()
+        val (ids, lats, lons) = track(100)
+        cache.project("path", ids, lats, lons)
+        val shorter = cache.project("path", ids.copyOf(50), lats.copyOf(50), lons.copyOf(50))
+        assertEquals(50, shorter.size)
+        assertEquals(MercatorProjection.x(lons[49]), shorter.xs[49], 0.0)
+    }
+
+    @Test
+    fun leastRecentlyUsedTrack_isDropped() {
+        val cache = ProjectedTrackCache(maxTracks = 2)
+        val (ids, lats, lons) = track(10)
+        val a = cache.project("a", ids, lats, lons)
+        cache.project("b", ids, lats, lons)
+        cache.project("a", ids, lats, lons)
+        cache.project("c", ids, lats, lons)
+        assertSame(a, cache.project("a", ids, lats, lons))
+        val (_, otherLats, _) = track(10, offset = 1.0)
+        // "b" wurde verdrängt: neu projiziert mit den neuen Breiten
+        val b = cache.project("b", ids, otherLats, lons)
+        assertEquals(MercatorProjection.y(otherLats[0]), b.ys[0], 0.0)
+    }
+
+    @Test
+    fun invalidate_forcesProjection() {
+        val cache = ProjectedTrackCache()
+        val (ids, lats, lons) = track(10)
+        val first = cache.project("path", ids, lats, lons)
+        cache.invalidate("path")
+        assertNotSame(first, cache.project("path", ids, lats, lons))
+    }
+}
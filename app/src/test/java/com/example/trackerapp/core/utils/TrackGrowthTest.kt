@@ -0,0 +1,32 @@
+package com.example.trackerapp.core.utils
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class TrackGrowthTest {
+
+    private val known = longArrayOf(10, 11, 12, 13, 14)
+
+    @Test
+    fun appendedIds_startWithKnownTrack() {
+        assertTrue(TrackGrowth.startsWith(longArrayOf(10, 11, 12, 13, 14, 15, 16), known))
+        // Unverändert zählt auch
+        assertTrue(TrackGrowth.startsWith(known.copyOf(), known))
+    }
+
+    @Test
+    fun shorterOrChangedTrack_doesNotStartWithKnownTrack() {
+        assertFalse(TrackGrowth.startsWith(longArrayOf(10, 11, 12), known))
+        // Anfang gelöscht
+        assertFalse(TrackGrowth.startsWith(longArrayOf(11, 12, 13, 14, 15), known))
+        // Mitte ersetzt
+        assertFalse(TrackGrowth.startsWith(longArrayOf(10, 11, 99, 13, 14, 15), known))
+    }
+
+    @Test
+    fun knownSize_limitsTheComparedPrefix() {
+        // Nur die ersten 3 bekannten IDs zählen (Array mit Reserve)
+        assertTrue(TrackGrowth.startsWith(longArrayOf(10, 11, 12, 20), known, knownSize = 3))
+        assertTrue(TrackGrowth.startsWith(LongArray(0), known, knownSize = 0))
+    }
+}
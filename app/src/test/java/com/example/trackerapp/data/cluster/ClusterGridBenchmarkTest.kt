@@ -0,0 +1,36 @@
+package com.example.trackerapp.data.cluster
+
+import com.example.trackerapp.Benchmark
+import org.junit.Assert.*
+import org.junit.Test
+
+/**
+ * Benchmark: Viewport-Abfrage über 500k Punkte
+ *
+ * Die Kosten hängen von den sichtbaren Zellen ab, nicht von der Anzahl der Punkte.
+ * Läuft nur mit `-Pbenchmark`.
+ */
+class ClusterGridBenchmarkTest {
+
+    @Test
+    fun manyPoints_queryCostDependsOnVisibleCells() {
+        Benchmark.assumeEnabled()
+        val grid = ClusterGrid()
+        val random = java.util.Random(7)
+        repeat(500_000) {
+            grid.add(0.53 + random.nextGaussian() * 0.001, 0.35 + random.nextGaussian() * 0.001)
+        }
+
+        // Ausschnitt etwa eines Bildschirms auf Zoom 12 (4 x 8 Tiles)
+        val tile = 1.0 / (1 shl 12)
+        val start = System.nanoTime()
+        var total = 0
+        repeat(1_000) {
+            total += grid.clustersIn(12, 0.53 - 2 * tile, 0.35 - 4 * tile, 0.53 + 2 * tile, 0.35 + 4 * tile).sumOf { it.count }
+        }
+        val micros = (System.nanoTime() - start) / 1_000 / 1_000
+
+        assertTrue(total > 0)
+        assertTrue("500k points, zoom 12 viewport query took $micros µs", micros < 5_000)
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.trackerapp.data.cluster
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class ClusterGridTest {
+
+    @Test
+    fun clusters_haveCountAndCentroid() {
+        val grid = ClusterGrid(minZoom = 0, maxZoom = 10, cellShift = 2)
+        grid.add(0.5001, 0.5001)
+        grid.add(0.5003, 0.5003)
+
+        val clusters = grid.clustersIn(4, 0.0, 0.0, 1.0, 1.0)
+
+        val cluster = clusters.single()
+        assertEquals(2, cluster.count)
+        assertEquals(0.5002, cluster.x, 1e-12)
+        assertEquals(0.5002, cluster.y, 1e-12)
+    }
+
+    @Test
+    fun higherZoom_splitsClusters() {
+        val grid = ClusterGrid(minZoom = 0, maxZoom = 14, cellShift = 2)
+        // ~0.001 auseinander: auf Zoom 4 eine Zelle, auf Zoom 12 getrennt
+        grid.add(0.5001, 0.5001)
+        grid.add(0.5011, 0.5001)
+
+        assertEquals(1, grid.clustersIn(4, 0.0, 0.0, 1.0, 1.0).size)
+        assertEquals(2, grid.clustersIn(12, 0.49, 0.49, 0.51, 0.51).size)
+        assertEquals(2, grid.size)
+    }
+
+    @Test
+    fun clustersIn_onlyReturnsVisibleCells() {
+        val grid = ClusterGrid(minZoom = 0, maxZoom = 14, cellShift = 2)
+        grid.add(0.2, 0.2)
+        grid.add(0.8, 0.8)
+
+        val clusters = grid.clustersIn(10, 0.1, 0.1, 0.3, 0.3)
+
+        assertEquals(1, clusters.size)
+        assertEquals(0.2, clusters.single().x, 1e-12)
+    }
+
+    @Test
+    fun clusterKeys_differPerZoom() {
+        val grid = ClusterGrid(minZoom = 0, maxZoom = 14, cellShift = 2)
+        grid.add(0.3, 0.3)
+
+        val keys = (0..14).map { grid.clustersIn(it, 0.0, 0.0, 1.0, 1.0).single().key }
+
+        assertEquals(15, keys.toSet().size)
+    }
+
+    @Test
+    fun zoomOutsideGrid_isClamped() {
+        val grid = ClusterGrid(minZoom = 2, maxZoom = 8, cellShift = 2)
+        grid.add(0.3, 0.3)
+
+        assertEquals(1, grid.clustersIn(0, 0.0, 0.0, 1.0, 1.0).size)
+        assertEquals(1, grid.clustersIn(16, 0.29, 0.29, 0.31, 0.31).size)
+    }
+
+    @Test
+    fun clear_removesEverything() {
+        val grid = ClusterGrid()
+        grid.add(0.5, 0.5)
+
+        grid.clear()
+
+        assertEquals(0, grid.size)
+        assertTrue(grid.clustersIn(5, 0.0, 0.0, 1.0, 1.0).isEmpty())
+    }
+}
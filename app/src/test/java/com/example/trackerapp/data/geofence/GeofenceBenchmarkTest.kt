@@ -0,0 +1,95 @@
+package com.example.trackerapp.data.geofence
+
+import com.example.trackerapp.Benchmark
+import org.junit.Assert.*
+import org.junit.Test
+
+/**
+ * Benchmark: 10.000 Geofences, 1 Mio. Fixes
+ *
+ * Kreise (30 - 300 m) und Polygone (6 - 16 Ecken) als Kundenstandorte in ~50 x 50 km,
+ * dazu ein Random Walk mit 10 m pro Fix durch das Gebiet. Misst [GeofenceEngine.evaluate]
+ * pro Fix und prüft die Betreten-Ereignisse gegen einen linearen Durchlauf über alle
+ * Geofences. Läuft nur mit `-Pbenchmark`.
+ */
+class GeofenceBenchmarkTest {
+
+    @Test
+    fun tenThousandFences_microsecondsPerFix() {
+        Benchmark.assumeEnabled()
+        val random = java.util.Random(49)
+        val fences = ArrayList<Geofence>(FENCES)
+        for (id in 1..FENCES.toLong()) {
+            val lat = 48.0 + random.nextDouble() * 0.45
+            val lon = 11.2 + random.nextDouble() * 0.67
+            fences += if (id % 2 == 0L) {
+                Geofence.Circle(id, lat, lon, 30.0 + random.nextDouble() * 270.0)
+            } else {
+                polygon(id, lat, lon, random)
+            }
+        }
+        val engine = GeofenceEngine(exitMargin = 30.0, dwellMs = 300_000L)
+        for (fence in fences) engine.add(fence)
+
+        val lats = DoubleArray(FIXES)
+        val lons = DoubleArray(FIXES)
+        var lat = 48.2
+        var lon = 11.5
+        var heading = 0.0
+        for (i in 0 until FIXES) {
+            heading += random.nextGaussian() * 0.2
+            lat = (lat + Math.cos(heading) * 10 / 111_195.0).coerceIn(48.0, 48.45)
+            lon = (lon + Math.sin(heading) * 10 / 74_400.0).coerceIn(11.2, 11.87)
+            lats[i] = lat
+            lons[i] = lon
+        }
+
+        val events = ArrayList<GeofenceEngine.Event>()
+        // Aufwärmen auf einer eigenen Instanz
+        val warmup = GeofenceEngine()
+        for (fence in fences) warmup.add(fence)
+        for (i in 0 until 100_000) warmup.evaluate(i * 1_000L, lats[i], lons[i], ArrayList())
+
+        val start = System.nanoTime()
+        for (i in 0 until FIXES) engine.evaluate(i * 1_000L, lats[i], lons[i], events)
+        val nsPerFix = (System.nanoTime() - start) / FIXES
+        val counts = events.groupingBy { it.transition }.eachCount()
+        val report = "fences=$FENCES fixes=$FIXES $nsPerFix ns/fix events=$counts"
+
+        assertTrue(report, counts.getOrDefault(GeofenceEngine.Transition.ENTER, 0) > 100)
+        assertTrue(report, nsPerFix < 50_000)
+
+        // Stichprobe gegen linearen Durchlauf: Betreten nur, wo der Fix in der Geofence liegt
+        for (event in events.filter { it.transition == GeofenceEngine.Transition.ENTER }.take(500)) {
+            val fence = fences[(event.fenceId - 1).toInt()]
+            assertTrue(fence.contains(event.latitude, event.longitude))
+        }
+        // und kein Fix in einer Geofence ohne laufenden Besuch
+        val check = GeofenceEngine(exitMargin = 30.0, dwellMs = 300_000L)
+        for (fence in fences) check.add(fence)
+        for (i in 0 until 5_000) {
+            check.evaluate(i * 1_000L, lats[i], lons[i], ArrayList())
+            val linear = fences.filter { it.contains(lats[i], lons[i]) }.map { it.id }
+            assertTrue(check.insideIds.containsAll(linear))
+        }
+    }
+
+    // Konvexes Polygon um einen Mittelpunkt, 6 - 16 Ecken, 50 - 250 m
+    private fun polygon(id: Long, lat: Double, lon: Double, random: java.util.Random): Geofence.Polygon {
+        val n = 6 + random.nextInt(11)
+        val radius = 50.0 + random.nextDouble() * 200.0
+        val lats = DoubleArray(n)
+        val lons = DoubleArray(n)
+        for (k in 0 until n) {
+            val angle = 2 * Math.PI * k / n
+            lats[k] = lat + Math.cos(angle) * radius / 111_195.0
+            lons[k] = lon + Math.sin(angle) * radius / 74_400.0
+        }
+        return Geofence.Polygon(id, lats, lons)
+    }
+
+    companion object {
+        private const val FENCES = 10_000
+        private const val FIXES = 1_000_000
+    }
+}
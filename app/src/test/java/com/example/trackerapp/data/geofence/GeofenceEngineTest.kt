@@ -0,0 +1,124 @@
+package com.example.trackerapp.data.geofence
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class GeofenceEngineTest {
+
+    // ~1 m nach Norden
+    private val latPerMeter = 1.0 / 111_195.0
+
+    private fun GeofenceEngine.at(time: Long, northMeters: Double): List<GeofenceEngine.Event> {
+        val events = ArrayList<GeofenceEngine.Event>()
+        evaluate(time, 48.0 + northMeters * latPerMeter, 11.0, events)
+        return events
+    }
+
+    @Test
+    fun enterDwellExit() {
+        val engine = GeofenceEngine(exitMargin = 30.0, dwellMs = 300_000L)
+        engine.add(Geofence.Circle(7L, 48.0, 11.0, 100.0))
+
+        assertTrue(engine.at(0L, -300.0).isEmpty())
+        assertEquals(listOf(GeofenceEngine.Transition.ENTER), engine.at(10_000L, -50.0).map { it.transition })
+        assertEquals(setOf(7L), engine.insideIds)
+        assertTrue(engine.at(200_000L, 0.0).isEmpty())
+        val dwell = engine.at(310_000L, 20.0)
+        assertEquals(listOf(GeofenceEngine.Transition.DWELL), dwell.map { it.transition })
+        assertEquals(7L, dwell[0].fenceId)
+        // Aufenthalt nur einmal pro Besuch
+        assertTrue(engine.at(900_000L, 20.0).isEmpty())
+        assertEquals(listOf(GeofenceEngine.Transition.EXIT), engine.at(910_000L, 300.0).map { it.transition })
+        assertTrue(engine.insideIds.isEmpty())
+    }
+
+    @Test
+    fun hysteresis_noFlappingAtBoundary() {
+        val engine = GeofenceEngine(exitMargin = 30.0, dwellMs = Long.MAX_VALUE)
+        engine.add(Geofence.Circle(1L, 48.0, 11.0, 100.0))
+
+        val events = ArrayList<GeofenceEngine.Event>()
+        // GPS-Rauschen um die Grenze: 90 - 125 m vom Mittelpunkt
+        val random = java.util.Random(9)
+        for (i in 0 until 500) {
+            events += engine.at(i * 1_000L, 90.0 + random.nextDouble() * 35.0)
+        }
+        assertEquals(listOf(GeofenceEngine.Transition.ENTER), events.map { it.transition })
+
+        // Erst deutlich außerhalb verlassen
+        assertEquals(listOf(GeofenceEngine.Transition.EXIT), engine.at(600_000L, 131.0).map { it.transition })
+    }
+
+    @Test
+    fun overlappingFences_independentEvents() {
+        val engine = GeofenceEngine(exitMargin = 30.0, dwellMs = Long.MAX_VALUE)
+        engine.add(Geofence.Circle(1L, 48.0, 11.0, 100.0))
+        engine.add(Geofence.Circle(2L, 48.0 + 150 * latPerMeter, 11.0, 100.0))
+
+        assertEquals(setOf(1L), engine.at(0L, 0.0).map { it.fenceId }.toSet())
+        assertEquals(setOf(2L), engine.at(1_000L, 75.0).map { it.fenceId }.toSet())
+        assertEquals(setOf(1L, 2L), engine.insideIds)
+        val leaving = engine.at(2_000L, 200.0)
+        assertEquals(listOf(1L), leaving.map { it.fenceId })
+        assertEquals(GeofenceEngine.Transition.EXIT, leaving[0].transition)
+    }
+
+    @Test
+    fun jumpFarAway_exitsWithoutIndexLookup() {
+        val engine = GeofenceEngine(exitMargin = 30.0, dwellMs = Long.MAX_VALUE)
+        engine.add(Geofence.Circle(1L, 48.0, 11.0, 100.0))
+        engine.at(0L, 0.0)
+
+        val events = ArrayList<GeofenceEngine.Event>()
+        engine.evaluate(1_000L, 52.5, 13.4, events)
+        assertEquals(listOf(GeofenceEngine.Transition.EXIT), events.map { it.transition })
+    }
+
+    @Test
+    fun removedFence_forgetsVisit() {
+        val engine = GeofenceEngine(exitMargin = 30.0, dwellMs = Long.MAX_VALUE)
+        engine.add(Geofence.Circle(1L, 48.0, 11.0, 100.0))
+        engine.at(0L, 0.0)
+        engine.remove(1L)
+
+        assertTrue(engine.insideIds.isEmpty())
+        assertTrue(engine.at(1_000L, 500.0).isEmpty())
+        assertEquals(0, engine.size)
+    }
+
+    @Test
+    fun replaceAll_keepsVisitsOfUnchangedFences() {
+        val engine = GeofenceEngine(exitMargin = 30.0, dwellMs = Long.MAX_VALUE)
+        engine.add(Geofence.Circle(1L, 48.0, 11.0, 100.0))
+        engine.add(Geofence.Circle(2L, 48.0, 11.0, 200.0))
+        engine.add(Geofence.Circle(3L, 48.0, 11.0, 300.0))
+        assertEquals(setOf(1L, 2L, 3L), engine.at(0L, 0.0).map { it.fenceId }.toSet())
+
+        // 1 unverändert (neue Instanz), 2 mit anderem Radius, 3 entfernt, 4 neu
+        engine.replaceAll(
+            listOf(
+                Geofence.Circle(1L, 48.0, 11.0, 100.0),
+                Geofence.Circle(2L, 48.0, 11.0, 250.0),
+                Geofence.Circle(4L, 48.0, 11.0, 50.0)
+            )
+        )
+
+        assertEquals(3, engine.size)
+        assertEquals(setOf(1L), engine.insideIds)
+        // Nur geänderte und neue Geofences werden betreten, keine Ereignisse für 1 und 3
+        val events = engine.at(1_000L, 0.0)
+        assertEquals(setOf(2L, 4L), events.map { it.fenceId }.toSet())
+        assertTrue(events.all { it.transition == GeofenceEngine.Transition.ENTER })
+    }
+
+    @Test
+    fun sameShape_comparesGeometryNotIdentity() {
+        val square = Geofence.Polygon(1L, doubleArrayOf(48.0, 48.0, 48.01, 48.01), doubleArrayOf(11.0, 11.01, 11.01, 11.0))
+        val copy = Geofence.Polygon(9L, doubleArrayOf(48.0, 48.0, 48.01, 48.01), doubleArrayOf(11.0, 11.01, 11.01, 11.0))
+        val moved = Geofence.Polygon(1L, doubleArrayOf(48.0, 48.0, 48.02, 48.01), doubleArrayOf(11.0, 11.01, 11.01, 11.0))
+
+        assertTrue(square.sameShape(copy))
+        assertFalse(square.sameShape(moved))
+        assertFalse(square.sameShape(Geofence.Circle(1L, 48.0, 11.0, 100.0)))
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.trackerapp.data.geofence
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class GeofenceTest {
+
+    // ~1 m nach Norden bzw. Osten bei 48°
+    private val latPerMeter = 1.0 / 111_195.0
+    private val lonPerMeter = latPerMeter / Math.cos(Math.toRadians(48.0))
+
+    // Quadrat 200 x 200 m
+    private val square = Geofence.Polygon(
+        3L,
+        doubleArrayOf(48.0, 48.0, 48.0 + 200 * latPerMeter, 48.0 + 200 * latPerMeter),
+        doubleArrayOf(11.0, 11.0 + 200 * lonPerMeter, 11.0 + 200 * lonPerMeter, 11.0)
+    )
+
+    @Test
+    fun circle_containsAndDistance() {
+        val circle = Geofence.Circle(1L, 48.0, 11.0, 100.0)
+        assertTrue(circle.contains(48.0 + 90 * latPerMeter, 11.0))
+        assertFalse(circle.contains(48.0, 11.0 + 110 * lonPerMeter))
+        assertEquals(0.0, circle.distanceOutside(48.0, 11.0), 0.0)
+        assertEquals(50.0, circle.distanceOutside(48.0 + 150 * latPerMeter, 11.0), 0.5)
+        // Bounding Box umschließt den Kreis
+        assertTrue(circle.maxLatitude >= 48.0 + 100 * latPerMeter)
+        assertTrue(circle.maxLongitude >= 11.0 + 100 * lonPerMeter)
+    }
+
+    @Test
+    fun polygon_square() {
+        assertTrue(square.contains(48.0 + 100 * latPerMeter, 11.0 + 100 * lonPerMeter))
+        assertTrue(square.contains(48.0 + 1 * latPerMeter, 11.0 + 199 * lonPerMeter))
+        assertFalse(square.contains(48.0 - 1 * latPerMeter, 11.0 + 100 * lonPerMeter))
+        assertFalse(square.contains(48.0 + 100 * latPerMeter, 11.0 + 201 * lonPerMeter))
+
+        assertEquals(0.0, square.distanceOutside(48.0 + 100 * latPerMeter, 11.0 + 100 * lonPerMeter), 0.0)
+        assertEquals(40.0, square.distanceOutside(48.0 + 100 * latPerMeter, 11.0 - 40 * lonPerMeter), 0.5)
+        // Diagonal an der Ecke: 30/40/50
+        assertEquals(50.0, square.distanceOutside(48.0 - 30 * latPerMeter, 11.0 - 40 * lonPerMeter), 0.5)
+    }
+
+    @Test
+    fun polygon_concave() {
+        // U-Form: 300 m breit, Einschnitt in der Mitte (100 - 200 m) bis 200 m Höhe
+        val lats = doubleArrayOf(0.0, 0.0, 300.0, 300.0, 100.0, 100.0, 300.0, 300.0).map { 48.0 + it * latPerMeter }
+        val lons = doubleArrayOf(0.0, 300.0, 300.0, 200.0, 200.0, 100.0, 100.0, 0.0).map { 11.0 + it * lonPerMeter }
+        val u = Geofence.Polygon(2L, lats.toDoubleArray(), lons.toDoubleArray())
+
+        assertTrue(u.contains(48.0 + 50 * latPerMeter, 11.0 + 150 * lonPerMeter))
+        assertTrue(u.contains(48.0 + 250 * latPerMeter, 11.0 + 50 * lonPerMeter))
+        assertTrue(u.contains(48.0 + 250 * latPerMeter, 11.0 + 250 * lonPerMeter))
+        // Im Einschnitt: innerhalb der Bounding Box, aber außerhalb
+        assertFalse(u.contains(48.0 + 250 * latPerMeter, 11.0 + 150 * lonPerMeter))
+        assertEquals(50.0, u.distanceOutside(48.0 + 250 * latPerMeter, 11.0 + 150 * lonPerMeter), 0.5)
+    }
+
+    @Test
+    fun index_returnsOnlyNearbyFences() {
+        val index = GeofenceIndex(cellDegrees = 0.01, margin = 30.0)
+        val near = Geofence.Circle(1L, 48.0005, 11.0005, 50.0)
+        val far = Geofence.Circle(2L, 48.5, 11.5, 50.0)
+        index.add(near)
+        index.add(far)
+        index.add(square)
+
+        val out = ArrayList<Geofence>()
+        index.candidates(48.0005, 11.0005, out)
+        assertTrue(near in out)
+        assertTrue(square in out)
+        assertFalse(far in out)
+
+        index.remove(1L)
+        out.clear()
+        index.candidates(48.0005, 11.0005, out)
+        assertFalse(near in out)
+        assertEquals(2, index.size)
+    }
+
+    @Test
+    fun index_fenceAcrossCellBorder_isFoundFromBothSides() {
+        val index = GeofenceIndex(cellDegrees = 0.01, margin = 30.0)
+        // Kreis genau auf der Zellgrenze bei 48.01 / 11.01
+        val fence = Geofence.Circle(1L, 48.01, 11.01, 200.0)
+        index.add(fence)
+        for (lat in doubleArrayOf(48.009, 48.011)) {
+            for (lon in doubleArrayOf(11.009, 11.011)) {
+                val out = ArrayList<Geofence>()
+                index.candidates(lat, lon, out)
+                assertEquals(listOf(fence), out)
+            }
+        }
+    }
+
+    @Test
+    fun index_largeFence_isAlwaysCandidate() {
+        val index = GeofenceIndex(cellDegrees = 0.01, margin = 30.0, maxCellsPerFence = 100)
+        val large = Geofence.Circle(1L, 48.0, 11.0, 20_000.0)
+        index.add(large)
+        val out = ArrayList<Geofence>()
+        index.candidates(48.1, 11.1, out)
+        assertEquals(listOf(large), out)
+    }
+}
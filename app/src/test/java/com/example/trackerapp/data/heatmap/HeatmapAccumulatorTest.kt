@@ -0,0 +1,68 @@
+package com.example.trackerapp.data.heatmap
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class HeatmapAccumulatorTest {
+
+    private val levels = intArrayOf(10, 20)
+
+    @Test
+    fun countsEveryPointOnEveryLevel() {
+        val accumulator = HeatmapAccumulator(levels, maxGapMs = 60_000)
+
+        accumulator.add(48.137, 11.575, 0)
+        accumulator.add(48.137, 11.575, 10_000)
+        accumulator.add(48.137, 11.575, 20_000)
+
+        val cells = accumulator.cells()
+        assertEquals(2, cells.size)
+        assertEquals(setOf(10, 20), cells.map { it.level }.toSet())
+        assertTrue(cells.all { it.count == 3 })
+        // Dwell: 2 Abstände à 10 s
+        assertTrue(cells.all { it.dwellMs == 20_000L })
+    }
+
+    @Test
+    fun dwellGoesToEarlierCellAndSkipsLongGaps() {
+        val accumulator = HeatmapAccumulator(intArrayOf(20), maxGapMs = 60_000)
+
+        accumulator.add(48.137, 11.575, 0)
+        // ~1 km weiter: eigene Zelle auf Stufe 20
+        accumulator.add(48.146, 11.575, 30_000)
+        // Lücke über maxGapMs: kein Aufenthalt
+        accumulator.add(48.146, 11.575, 30_000 + 120_000)
+
+        val byY = accumulator.cells().sortedBy { it.y }
+        assertEquals(2, byY.size)
+        val north = byY[0]
+        val south = byY[1]
+        assertEquals(1, south.count)
+        assertEquals(30_000L, south.dwellMs)
+        assertEquals(2, north.count)
+        assertEquals(0L, north.dwellMs)
+    }
+
+    @Test
+    fun startAfter_carriesDwellAcrossBatches() {
+        val accumulator = HeatmapAccumulator(intArrayOf(20), maxGapMs = 60_000)
+
+        accumulator.startAfter(48.137, 11.575, 0)
+        accumulator.add(48.137, 11.575, 15_000)
+
+        val cell = accumulator.cells().single()
+        assertEquals(1, cell.count)
+        assertEquals(15_000L, cell.dwellMs)
+    }
+
+    @Test
+    fun cellCoordinates_matchLevelResolution() {
+        val accumulator = HeatmapAccumulator(intArrayOf(1))
+
+        accumulator.add(45.0, -90.0, 0) // Nordwest-Viertel
+        accumulator.add(-45.0, 90.0, 1) // Südost-Viertel
+
+        val cells = accumulator.cells().map { it.x to it.y }.toSet()
+        assertEquals(setOf(0 to 0, 1 to 1), cells)
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.trackerapp.data.heatmap
+
+import com.example.trackerapp.core.constants.AppConstants
+import org.junit.Assert.*
+import org.junit.Test
+
+class HeatmapGridTest {
+
+    @Test
+    fun levels_followZoomUpToMaxLevel() {
+        assertEquals(AppConstants.Heatmap.MIN_ZOOM + AppConstants.Heatmap.CELL_SHIFT, HeatmapGrid.levelFor(AppConstants.Heatmap.MIN_ZOOM))
+        assertEquals(AppConstants.Heatmap.MAX_LEVEL, HeatmapGrid.levelFor(AppConstants.Tiles.MAX_ZOOM))
+        assertEquals(HeatmapGrid.LEVELS.toSet().size, HeatmapGrid.LEVELS.size)
+        assertEquals(AppConstants.Heatmap.MAX_LEVEL, HeatmapGrid.LEVELS.last())
+    }
+
+    @Test
+    fun intensity_isMonotonicAndSaturates() {
+        val metric = HeatmapMetric.DWELL
+        val minute = HeatmapGrid.intensity(1, 60_000, metric)
+        val hour = HeatmapGrid.intensity(1, 3_600_000, metric)
+        assertTrue(minute > 0.0)
+        assertTrue(hour > minute)
+        assertEquals(1.0, HeatmapGrid.intensity(1, AppConstants.Heatmap.SATURATION_DWELL_MS * 10, metric), 0.0)
+        assertEquals(0.0, HeatmapGrid.intensity(0, 0, HeatmapMetric.COUNT), 0.0)
+    }
+
+    @Test
+    fun color_getsMoreOpaqueWithIntensity() {
+        val low = HeatmapGrid.color(0.0)
+        val high = HeatmapGrid.color(1.0)
+        assertTrue((low ushr 24) < (high ushr 24))
+        assertEquals(0x1E88E5, low and 0xFFFFFF)
+        assertEquals(0xE53935, high and 0xFFFFFF)
+    }
+}
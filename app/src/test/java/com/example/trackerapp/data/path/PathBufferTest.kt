@@ -0,0 +1,73 @@
+package com.example.trackerapp.data.path
+
+import com.example.trackerapp.core.utils.Geodesy
+import com.example.trackerapp.core.utils.MercatorProjection
+import com.example.trackerapp.core.utils.ProjectedTrackCache
+import com.example.trackerapp.data.local.entity.TrackPoint
+import org.junit.Assert.*
+import org.junit.Test
+
+class PathBufferTest {
+
+    private fun points(from: Int, count: Int) = (from until from + count).map { i ->
+        TrackPoint(
+            id = i + 1L,
+            latitude = 48.0 + i * 0.0001,
+            longitude = 11.0 + (i % 7) * 0.0001,
+            timestamp = i * 1_000L,
+            altitude = if (i % 5 == 0) null else 500.0 + i,
+            speed = if (i % 3 == 0) null else 1.5f
+        )
+    }
+
+    @Test
+    fun appendInBatches_keepsRunningDistanceAndCenter() {
+        val buffer = PathBuffer()
+        buffer.append(points(0, 1))
+        buffer.append(points(1, 999))
+        val snapshot = buffer.append(points(1_000, 500))
+
+        val all = points(0, 1_500)
+        val latitudes = DoubleArray(all.size) { all[it].latitude }
+        val longitudes = DoubleArray(all.size) { all[it].longitude }
+        assertEquals(1_500, snapshot.size)
+        assertEquals(1_500L, buffer.lastId)
+        assertEquals(Geodesy.pathLength(latitudes, longitudes, Geodesy.Mode.FAST), snapshot.distance, 1e-6)
+        assertEquals(latitudes.average(), snapshot.centerLatitude, 1e-9)
+        assertEquals(longitudes.average(), snapshot.centerLongitude, 1e-9)
+        assertTrue(snapshot.altitudes[0].isNaN())
+        assertEquals(501.0, snapshot.altitudes[1], 0.0)
+        assertTrue(snapshot.speeds[3].isNaN())
+    }
+
+    @Test
+    fun snapshot_staysValidAfterFurtherAppends() {
+        val buffer = PathBuffer()
+        val first = buffer.append(points(0, 100))
+        val firstIds = first.ids.copyOf(first.size)
+        val firstDistance = first.distance
+
+        repeat(10) { buffer.append(points(100 + it * 100, 100)) }
+
+        assertEquals(100, first.size)
+        assertArrayEquals(firstIds, first.ids.copyOf(first.size))
+        assertEquals(firstDistance, first.distance, 0.0)
+    }
+
+    @Test
+    fun snapshots_projectOnlyAppendedPoints() {
+        val buffer = PathBuffer()
+        val cache = ProjectedTrackCache()
+        val first = buffer.append(points(0, 1_000))
+        val before = cache.project("path", first.ids, first.latitudes, first.longitudes, first.size)
+        val second = buffer.append(points(1_000, 10))
+        val after = cache.project("path", second.ids, second.latitudes, second.longitudes, second.size)
+
+        assertEquals(1_000, before.size)
+        assertEquals(1_010, after.size)
+        assertSame(after, cache.project("path", second.ids, second.latitudes, second.longitudes, second.size))
+        val expected = MercatorProjection.project(second.latitudes[1_005], second.longitudes[1_005])
+        assertEquals(expected.x, after.xs[1_005], 1e-12)
+        assertEquals(expected.y, after.ys[1_005], 1e-12)
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.trackerapp.data.places
+
+import com.example.trackerapp.core.utils.Geodesy
+import org.junit.Assert.*
+import org.junit.Test
+
+class PlaceClustererTest {
+
+    // ~1 m nach Norden
+    private val degreesPerMeter = 1.0 / 111_195.0
+
+    private fun PlaceClusterer.visit(lat: Double, lon: Double, start: Long = 0L, minutes: Int = 30): PlaceClusterer.Place =
+        add(lat, lon, start, start + minutes * 60_000L, ArrayList())
+
+    @Test
+    fun nearbyStays_sharePlace() {
+        val clusterer = PlaceClusterer(radius = 150.0)
+        val first = clusterer.visit(48.0, 11.0, start = 0L)
+        val second = clusterer.visit(48.0 + 50 * degreesPerMeter, 11.0, start = 3_600_000L)
+
+        assertSame(first, second)
+        assertEquals(1, clusterer.size)
+        assertEquals(2, second.visitCount)
+        assertEquals(60 * 60_000L, second.dwellMs)
+        assertEquals(0L, second.firstVisit)
+        assertEquals(3_600_000L + 30 * 60_000L, second.lastVisit)
+        // Mittelpunkt zwischen beiden Aufenthalten
+        assertEquals(48.0 + 25 * degreesPerMeter, second.latitude, 1e-9)
+    }
+
+    @Test
+    fun distantStays_separatePlaces() {
+        val clusterer = PlaceClusterer(radius = 150.0)
+        clusterer.visit(48.0, 11.0)
+        clusterer.visit(48.0 + 400 * degreesPerMeter, 11.0)
+        clusterer.visit(48.0, 11.01)
+
+        assertEquals(3, clusterer.size)
+    }
+
+    @Test
+    fun stayNearCellBorder_findsPlaceInNeighbourCell() {
+        val clusterer = PlaceClusterer(radius = 150.0)
+        // Beide Seiten mehrerer Zellgrenzen, jeweils 100 m auseinander
+        for (i in 0 until 20) {
+            val lat = 48.0 + i * 1_000 * degreesPerMeter
+            val lon = 11.0 + i * 0.0137
+            val place = clusterer.visit(lat, lon)
+            val again = clusterer.visit(lat + 70 * degreesPerMeter, lon + 70 * degreesPerMeter / Math.cos(Math.toRadians(lat)))
+            assertSame(place, again)
+        }
+        assertEquals(20, clusterer.size)
+    }
+
+    @Test
+    fun driftingPlaces_areMerged() {
+        val clusterer = PlaceClusterer(radius = 150.0)
+        val a = clusterer.visit(48.0, 11.0)
+        val b = clusterer.visit(48.0 + 280 * degreesPerMeter, 11.0)
+        assertEquals(2, clusterer.size)
+
+        // Aufenthalte dazwischen ziehen b Richtung a, bis beide näher als der Radius sind
+        val merged = ArrayList<PlaceClusterer.Place>()
+        var place: PlaceClusterer.Place? = null
+        repeat(15) { place = clusterer.add(48.0 + 140 * degreesPerMeter, 11.0, 0L, 60_000L, merged) }
+
+        assertEquals(1, clusterer.size)
+        assertEquals(1, merged.size)
+        val survivor = place!!
+        assertTrue(survivor === a || survivor === b)
+        assertSame(if (survivor === a) b else a, merged[0])
+        assertEquals(17, survivor.visitCount)
+        assertTrue(Geodesy.fast(48.0, 11.0, survivor.latitude, survivor.longitude) < 150.0)
+    }
+
+    @Test
+    fun loadedPlaces_areMatched() {
+        val clusterer = PlaceClusterer(radius = 150.0)
+        val stored = PlaceClusterer.Place(7L, 48.0, 11.0, 4, 3_600_000L, 0L, 1_000L)
+        clusterer.load(stored)
+
+        val place = clusterer.visit(48.0 + 30 * degreesPerMeter, 11.0, start = 5_000L)
+        assertSame(stored, place)
+        assertEquals(7L, place.id)
+        assertEquals(5, place.visitCount)
+        assertEquals(1, clusterer.places().size)
+    }
+
+    @Test
+    fun highLatitude_columnsStillCoverRadius() {
+        val clusterer = PlaceClusterer(radius = 150.0)
+        val lat = 78.0
+        val place = clusterer.visit(lat, 20.0)
+        // 140 m nach Osten: bei 78° sind das deutlich mehr Längengrad als am Äquator
+        val east = 20.0 + 140 * degreesPerMeter / Math.cos(Math.toRadians(lat))
+        assertSame(place, clusterer.visit(lat, east))
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.trackerapp.data.places
+
+import com.example.trackerapp.Benchmark
+import com.example.trackerapp.data.trips.TripSegmenter
+import org.junit.Assert.*
+import org.junit.Test
+
+/**
+ * Benchmark: Orte aus einer synthetischen History mit Millionen Fixes
+ *
+ * Ein Fix alle 10 s, rund ein Jahr lang: Aufenthalte an [PLACES] festen Orten (GPS-Rauschen
+ * ~5 m) und Fahrten mit 10 m/s dazwischen. Gemessen werden die beiden Stufen getrennt:
+ * Rohpunkte zu Stay-Points ([TripSegmenter]) und Stay-Points zu Orten ([PlaceClusterer]).
+ * Läuft nur mit `-Pbenchmark`.
+ */
+class PlaceClusteringBenchmarkTest {
+
+    @Test
+    fun multiMillionFixHistory_findsPlaces() {
+        Benchmark.assumeEnabled()
+        val random = java.util.Random(47)
+        // Orte in ~20 x 20 km, mindestens 1 km auseinander
+        val placeLats = ArrayList<Double>()
+        val placeLons = ArrayList<Double>()
+        while (placeLats.size < PLACES) {
+            val lat = 48.05 + random.nextDouble() * 0.18
+            val lon = 11.45 + random.nextDouble() * 0.27
+            if (placeLats.indices.all { distance(lat, lon, placeLats[it], placeLons[it]) > 1_000.0 }) {
+                placeLats += lat
+                placeLons += lon
+            }
+        }
+
+        val segmenter = TripSegmenter()
+        val stops = ArrayList<TripSegmenter.Segment>()
+        val closed = ArrayList<TripSegmenter.Segment>()
+        var id = 0L
+        var time = 0L
+        var current = 0
+        var lat = placeLats[0]
+        var lon = placeLons[0]
+
+        val segmentStart = System.nanoTime()
+        while (id < FIXES) {
+            // Aufenthalt 20 min bis 3 h
+            repeat(120 + random.nextInt(960)) {
+                val noiseLat = random.nextGaussian() * 5 / 111_195.0
+                val noiseLon = random.nextGaussian() * 5 / 74_400.0
+                segmenter.add(++id, time, placeLats[current] + noiseLat, placeLons[current] + noiseLon, closed)
+                time += 10_000
+            }
+            // Fahrt zum nächsten Ort
+            val next = (current + 1 + random.nextInt(PLACES - 1)) % PLACES
+            val steps = (distance(lat, lon, placeLats[next], placeLons[next]) / 100).toInt()
+            for (step in 1..steps) {
+                val f = step.toDouble() / steps
+                segmenter.add(++id, time, lat + (placeLats[next] - lat) * f, lon + (placeLons[next] - lon) * f, closed)
+                time += 10_000
+            }
+            current = next
+            lat = placeLats[next]
+            lon = placeLons[next]
+            for (segment in closed) if (segment.type == TripSegmenter.Type.STOP) stops += segment
+            closed.clear()
+        }
+        val segmentMs = (System.nanoTime() - segmentStart) / 1_000_000
+
+        val clusterer = PlaceClusterer()
+        val merged = ArrayList<PlaceClusterer.Place>()
+        val clusterStart = System.nanoTime()
+        for (stop in stops) clusterer.add(stop.centerLatitude, stop.centerLongitude, stop.startTime, stop.endTime, merged)
+        val clusterMs = (System.nanoTime() - clusterStart) / 1e6
+
+        val report = "fixes=$id stops=${stops.size} places=${clusterer.size} segment=$segmentMs ms cluster=${"%.1f".format(clusterMs)} ms"
+        assertEquals(report, PLACES, clusterer.size)
+        assertTrue(report, merged.isEmpty())
+        assertEquals(report, stops.size, clusterer.places().sumOf { it.visitCount })
+        // Jeder Ort liegt nahe an einem vorgegebenen Ort
+        for (place in clusterer.places()) {
+            assertTrue(placeLats.indices.any { distance(place.latitude, place.longitude, placeLats[it], placeLons[it]) < 20.0 })
+        }
+    }
+
+    @Test
+    fun millionStayPoints_nearLinear() {
+        Benchmark.assumeEnabled()
+        // Viele Orte (z.B. Kundenstandorte): 1 Mio. Stay-Points über 20.000 Orte in ganz Europa
+        val random = java.util.Random(7)
+        val centers = Array(20_000) { doubleArrayOf(36.0 + random.nextDouble() * 24, -8.0 + random.nextDouble() * 36) }
+        val lats = DoubleArray(STAY_POINTS)
+        val lons = DoubleArray(STAY_POINTS)
+        for (i in 0 until STAY_POINTS) {
+            val c = centers[random.nextInt(centers.size)]
+            lats[i] = c[0] + random.nextGaussian() * 20 / 111_195.0
+            lons[i] = c[1] + random.nextGaussian() * 20 / 111_195.0
+        }
+
+        var clusterer = PlaceClusterer()
+        val merged = ArrayList<PlaceClusterer.Place>()
+        val timings = StringBuilder()
+        for (n in intArrayOf(STAY_POINTS / 4, STAY_POINTS / 2, STAY_POINTS)) {
+            clusterer = PlaceClusterer()
+            val start = System.nanoTime()
+            for (i in 0 until n) clusterer.add(lats[i], lons[i], i * 1_000L, i * 1_000L + 500L, merged)
+            timings.append(" n=$n: ${(System.nanoTime() - start) / 1_000_000} ms")
+        }
+        val report = "places=${clusterer.size}$timings"
+
+        // Zufällige Zentren können näher als der Radius liegen und verschmelzen
+        assertTrue(report, clusterer.size in 18_000..20_000)
+        assertEquals(report, STAY_POINTS, clusterer.places().sumOf { it.visitCount })
+    }
+
+    private fun distance(lat1: Double, lon1: Double, lat2: Double, lon2: Double): Double =
+        com.example.trackerapp.core.utils.Geodesy.fast(lat1, lon1, lat2, lon2)
+
+    companion object {
+        private const val PLACES = 30
+        private const val FIXES = 3_000_000L
+        private const val STAY_POINTS = 1_000_000
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.trackerapp.data.profile
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class ProfileSeriesCacheTest {
+
+    private class Track(n: Int) {
+        val ids = LongArray(n) { it + 1L }
+        val timestamps = LongArray(n) { it * 1_000L }
+        // ~11 m pro Punkt nach Norden
+        val lats = DoubleArray(n) { 48.0 + it * 0.0001 }
+        val lons = DoubleArray(n) { 11.0 }
+        val altitudes = DoubleArray(n) { 500.0 + 50 * Math.sin(it / 100.0) }
+        val speeds = DoubleArray(n) { if (it % 10 == 0) Double.NaN else 1.0 + (it % 7) }
+
+        fun prefix(size: Int) = Track(size).also {
+            System.arraycopy(altitudes, 0, it.altitudes, 0, size)
+            System.arraycopy(speeds, 0, it.speeds, 0, size)
+        }
+    }
+
+    private fun ProfileSeriesCache.altitude(track: Track, width: Int) =
+        series("path", ProfileSeriesCache.Metric.ALTITUDE, width, track.ids, track.timestamps, track.lats, track.lons, track.altitudes)
+
+    private fun ProfileSeriesCache.speed(track: Track, width: Int) =
+        series("path", ProfileSeriesCache.Metric.SPEED, width, track.ids, track.timestamps, track.lats, track.lons, track.speeds)
+
+    @Test
+    fun sameTrack_returnsCachedResult() {
+        val cache = ProfileSeriesCache()
+        val track = Track(10_000)
+        val first = cache.altitude(track, 400)
+        assertSame(first, cache.altitude(track, 400))
+        assertTrue(first.size in 200..400)
+        assertEquals(10_000, first.sourceSize)
+    }
+
+    @Test
+    fun altitude_overDistance() {
+        val cache = ProfileSeriesCache()
+        val track = Track(1_000)
+        val series = cache.altitude(track, 2_000)
+
+        // Weniger Punkte als Pixel: alle Werte, x ist die fortlaufende Strecke
+        assertEquals(1_000, series.size)
+        assertEquals(0.0, series.xs[0], 0.0)
+        assertEquals(999 * 11.12, series.maxX, 5.0)
+        assertEquals(track.altitudes[500], series.ys[500], 0.0)
+    }
+
+    @Test
+    fun speed_skipsMissingValues() {
+        val cache = ProfileSeriesCache()
+        val series = cache.speed(Track(1_000), 2_000)
+        assertEquals(900, series.size)
+        assertEquals(1.0, series.xs[0], 0.0)
+        assertFalse(series.ys.any { it.isNaN() })
+    }
+
+    @Test
+    fun appendedPoints_extendSeries() {
+        val full = Track(20_000)
+        val cache = ProfileSeriesCache()
+        var size = 5_000
+        while (size <= 20_000) {
+            val grown = cache.altitude(full.prefix(size), 300)
+            // Strecke läuft über die angehängten Punkte weiter, Auflösung im erlaubten Bereich
+            assertEquals(0.0, grown.xs[0], 0.0)
+            assertEquals((size - 1) * 11.12, grown.maxX, size * 0.01)
+            assertEquals(size, grown.sourceSize)
+            assertTrue(grown.size in 150..300)
+            size += 1_250
+        }
+    }
+
+    @Test
+    fun changedTrack_isRebuilt() {
+        val cache = ProfileSeriesCache()
+        cache.altitude(Track(5_000), 300)
+
+        val other = Track(3_000)
+        for (i in other.ids.indices) other.ids[i] += 100_000L
+        val series = cache.altitude(other, 300)
+        assertEquals(3_000, series.sourceSize)
+        assertEquals(0.0, series.xs[0], 0.0)
+    }
+
+    @Test
+    fun widths_areCachedSeparately() {
+        val cache = ProfileSeriesCache()
+        val track = Track(10_000)
+        val narrow = cache.altitude(track, 100)
+        val wide = cache.altitude(track, 1_000)
+        assertTrue(narrow.size <= 100)
+        assertTrue(wide.size > 100)
+        assertSame(narrow, cache.altitude(track, 100))
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.trackerapp.data.routes
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class RouteMatcherTest {
+
+    // ~1 m nach Norden
+    private val degreesPerMeter = 1.0 / 111_195.0
+
+    /**
+     * L-förmige Fahrt: [north] Meter nach Norden, dann [east] Meter nach Osten,
+     * seitlich um [offset] Meter verschoben
+     */
+    private fun trip(north: Double, east: Double, offset: Double = 0.0, startLat: Double = 48.0): RouteShape {
+        val lats = ArrayList<Double>()
+        val lons = ArrayList<Double>()
+        val lonPerMeter = degreesPerMeter / Math.cos(Math.toRadians(startLat))
+        var m = 0.0
+        while (m <= north) {
+            lats += startLat + m * degreesPerMeter
+            lons += 11.0 + offset * lonPerMeter
+            m += 20.0
+        }
+        m = 0.0
+        while (m <= east) {
+            lats += startLat + north * degreesPerMeter
+            lons += 11.0 + (m + offset) * lonPerMeter
+            m += 20.0
+        }
+        return RouteShape.of(lats.toDoubleArray(), lons.toDoubleArray())!!
+    }
+
+    @Test
+    fun sameRoute_isGrouped() {
+        val matcher = RouteMatcher(maxDistance = 200.0)
+        val first = matcher.add(trip(3_000.0, 2_000.0), 0L, 600_000L)
+        val second = matcher.add(trip(3_000.0, 2_000.0, offset = 40.0), 1_000_000L, 1_720_000L)
+
+        assertSame(first, second)
+        assertEquals(1, matcher.size)
+        assertEquals(2, second.tripCount)
+        assertEquals(1_320_000L, second.totalDurationMs)
+        assertEquals(1_720_000L, second.lastTripTime)
+    }
+
+    @Test
+    fun sameEndpoints_differentPath_isNewRoute() {
+        val matcher = RouteMatcher(maxDistance = 200.0)
+        matcher.add(trip(3_000.0, 2_000.0), 0L, 1L)
+        // Gleicher Start und gleiches Ziel, aber erst nach Osten, dann nach Norden
+        val lats = ArrayList<Double>()
+        val lons = ArrayList<Double>()
+        val lonPerMeter = degreesPerMeter / Math.cos(Math.toRadians(48.0))
+        for (m in 0..2_000 step 20) { lats += 48.0; lons += 11.0 + m * lonPerMeter }
+        for (m in 0..3_000 step 20) { lats += 48.0 + m * degreesPerMeter; lons += 11.0 + 2_000 * lonPerMeter }
+        val other = RouteShape.of(lats.toDoubleArray(), lons.toDoubleArray())!!
+
+        assertNull(matcher.match(other))
+        matcher.add(other, 0L, 1L)
+        assertEquals(2, matcher.size)
+    }
+
+    @Test
+    fun farAwayRoutes_areNotCompared() {
+        val matcher = RouteMatcher(maxDistance = 200.0)
+        matcher.add(trip(3_000.0, 2_000.0), 0L, 1L)
+        matcher.add(trip(3_000.0, 2_000.0, startLat = 48.1), 0L, 1L)
+        matcher.add(trip(3_000.0, 500.0), 0L, 1L)
+
+        // Start in anderer Zelle bzw. anderes Ziel: keine Fréchet-Berechnung
+        assertEquals(3, matcher.size)
+        assertEquals(0L, matcher.comparisons)
+    }
+
+    @Test
+    fun closestRoute_wins() {
+        val matcher = RouteMatcher(maxDistance = 200.0)
+        val left = matcher.add(trip(3_000.0, 2_000.0), 0L, 1L)
+        val right = matcher.add(trip(3_000.0, 2_000.0, offset = 300.0), 0L, 1L)
+        assertNotSame(left, right)
+
+        assertSame(right, matcher.add(trip(3_000.0, 2_000.0, offset = 190.0), 0L, 1L))
+        assertSame(left, matcher.add(trip(3_000.0, 2_000.0, offset = 110.0), 0L, 1L))
+    }
+
+    @Test
+    fun loadedRoutes_areMatched() {
+        val matcher = RouteMatcher(maxDistance = 200.0)
+        val stored = RouteMatcher.Route(9L, trip(3_000.0, 2_000.0), 4, 2_400_000L, 5_000L)
+        matcher.load(stored)
+
+        val route = matcher.add(trip(3_000.0, 2_000.0, offset = 20.0), 6_000L, 606_000L)
+        assertSame(stored, route)
+        assertEquals(9L, route.id)
+        assertEquals(5, route.tripCount)
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.trackerapp.data.routes
+
+import com.example.trackerapp.Benchmark
+import org.junit.Assert.*
+import org.junit.Test
+
+/**
+ * Benchmark: Trips zu Routen gruppieren, mit Vorauswahl gegen jeder-mit-jedem
+ *
+ * [ROUTES] feste Strecken (Random Walks zwischen Zielen in ~30 x 30 km) werden [TRIPS] mal
+ * mit GPS-Rauschen und seitlichem Versatz gefahren, ein Fix alle 20 m. Gemessen werden
+ * [RouteMatcher] (Index, Endpunkte, Bounding Box, Fréchet mit Abbruch) und der direkte
+ * Vergleich eines Trips mit allen bisherigen Trips (volle Fréchet-Tabelle).
+ * Läuft nur mit `-Pbenchmark`.
+ */
+class RouteMatchingBenchmarkTest {
+
+    @Test
+    fun thousandsOfTrips_prunedMatching() {
+        Benchmark.assumeEnabled()
+        val random = java.util.Random(48)
+        val templates = Array(ROUTES) { template(random) }
+        val trips = Array(TRIPS) { i -> drive(templates[i % ROUTES], random) }
+
+        val matcher = RouteMatcher()
+        val start = System.nanoTime()
+        val assigned = trips.map { matcher.add(it, 0L, 1L) }
+        val matcherMs = (System.nanoTime() - start) / 1_000_000
+
+        // Jeder gegen jeden (nur ein Teil der Trips, hochgerechnet)
+        val sample = 100
+        val bruteStart = System.nanoTime()
+        var bruteComparisons = 0L
+        for (i in 0 until sample) {
+            for (j in 0 until i) {
+                RouteShape.frechet(trips[i], trips[j])
+                bruteComparisons++
+            }
+        }
+        val bruteMs = (System.nanoTime() - bruteStart) / 1_000_000
+        val allPairs = TRIPS.toLong() * (TRIPS - 1) / 2
+        val report = "trips=$TRIPS routes=${matcher.size} matcher=$matcherMs ms frechet=${matcher.comparisons} | " +
+            "all pairs=$allPairs (~${bruteMs * allPairs / bruteComparisons} ms)"
+
+        assertEquals(report, ROUTES, matcher.size)
+        // Trips derselben Vorlage landen auf derselben Route
+        for (i in ROUTES until TRIPS) assertSame(report, assigned[i % ROUTES], assigned[i])
+        assertTrue(report, matcher.comparisons < TRIPS * 3L)
+    }
+
+    // Strecke: Random Walk über ~5 - 15 km
+    private fun template(random: java.util.Random): Pair<DoubleArray, DoubleArray> {
+        val n = 250 + random.nextInt(500)
+        val lats = DoubleArray(n)
+        val lons = DoubleArray(n)
+        var lat = 48.0 + random.nextDouble() * 0.27
+        var lon = 11.3 + random.nextDouble() * 0.4
+        var heading = random.nextDouble() * 2 * Math.PI
+        for (i in 0 until n) {
+            heading += random.nextGaussian() * 0.1
+            lat += Math.cos(heading) * 20 / 111_195.0
+            lon += Math.sin(heading) * 20 / 74_400.0
+            lats[i] = lat
+            lons[i] = lon
+        }
+        return lats to lons
+    }
+
+    // Fahrt auf der Strecke: Rauschen ~5 m, Spurversatz bis 30 m, jeder zweite Fix fehlt zufällig
+    private fun drive(template: Pair<DoubleArray, DoubleArray>, random: java.util.Random): RouteShape {
+        val (lats, lons) = template
+        val offset = (random.nextDouble() - 0.5) * 60 / 111_195.0
+        val keepLats = ArrayList<Double>()
+        val keepLons = ArrayList<Double>()
+        for (i in lats.indices) {
+            if (i != 0 && i != lats.size - 1 && random.nextBoolean()) continue
+            keepLats += lats[i] + offset + random.nextGaussian() * 5 / 111_195.0
+            keepLons += lons[i] + random.nextGaussian() * 5 / 74_400.0
+        }
+        return RouteShape.of(keepLats.toDoubleArray(), keepLons.toDoubleArray())!!
+    }
+
+    companion object {
+        private const val ROUTES = 40
+        private const val TRIPS = 4_000
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.trackerapp.data.routes
+
+import com.example.trackerapp.core.utils.Geodesy
+import org.junit.Assert.*
+import org.junit.Test
+
+class RouteShapeTest {
+
+    // ~1 m nach Norden
+    private val degreesPerMeter = 1.0 / 111_195.0
+
+    /**
+     * Gerade nach Norden, [points] Fixes über [meters]
+     */
+    private fun line(meters: Double, points: Int, offsetMeters: Double = 0.0): RouteShape {
+        val lats = DoubleArray(points) { 48.0 + meters * it / (points - 1) * degreesPerMeter }
+        val lons = DoubleArray(points) { 11.0 + offsetMeters * degreesPerMeter / Math.cos(Math.toRadians(48.0)) }
+        return RouteShape.of(lats, lons, 16)!!
+    }
+
+    @Test
+    fun resample_equalSpacing() {
+        // Ungleichmäßige Fixes: dichter am Anfang
+        val lats = doubleArrayOf(0.0, 10.0, 20.0, 30.0, 1_000.0).map { 48.0 + it * degreesPerMeter }.toDoubleArray()
+        val lons = DoubleArray(5) { 11.0 }
+        val shape = RouteShape.of(lats, lons, 11)!!
+
+        assertEquals(11, shape.size)
+        assertEquals(1_000.0, shape.lengthMeters, 1.0)
+        for (k in 0 until 10) {
+            val step = Geodesy.fast(shape.latitudes[k], shape.longitudes[k], shape.latitudes[k + 1], shape.longitudes[k + 1])
+            assertEquals(100.0, step, 0.5)
+        }
+        assertEquals(lats.last(), shape.endLatitude, 1e-12)
+    }
+
+    @Test
+    fun degenerateTrip_hasNoShape() {
+        assertNull(RouteShape.of(doubleArrayOf(48.0), doubleArrayOf(11.0)))
+        assertNull(RouteShape.of(doubleArrayOf(48.0, 48.0), doubleArrayOf(11.0, 11.0)))
+    }
+
+    @Test
+    fun bytes_roundTrip() {
+        val shape = line(2_000.0, 50)
+        val copy = RouteShape.fromBytes(shape.toBytes())
+        assertArrayEquals(shape.latitudes, copy.latitudes, 0.0)
+        assertArrayEquals(shape.longitudes, copy.longitudes, 0.0)
+        assertEquals(shape.lengthMeters, copy.lengthMeters, 0.0)
+    }
+
+    @Test
+    fun frechet_parallelLines_isOffset() {
+        val a = line(5_000.0, 200)
+        val b = line(5_000.0, 37, offsetMeters = 80.0)
+        assertEquals(80.0, RouteShape.frechet(a, b), 1.0)
+        assertEquals(RouteShape.frechet(a, b), RouteShape.frechet(b, a), 1e-9)
+    }
+
+    @Test
+    fun frechet_oppositeDirection_isLarge() {
+        val a = line(5_000.0, 100)
+        val lats = a.latitudes.reversedArray()
+        val lons = a.longitudes.reversedArray()
+        val back = RouteShape.of(lats, lons, 16)!!
+        assertEquals(5_000.0, RouteShape.frechet(a, back), 10.0)
+    }
+
+    @Test
+    fun frechet_earlyAbandon_matchesFullResult() {
+        val random = java.util.Random(3)
+        repeat(200) {
+            val a = walk(random)
+            val b = walk(random)
+            val full = RouteShape.frechet(a, b)
+            for (limit in doubleArrayOf(50.0, 200.0, 1_000.0, 5_000.0)) {
+                val bounded = RouteShape.frechet(a, b, limit)
+                if (full <= limit) assertEquals(full, bounded, 1e-9) else assertTrue(bounded.isInfinite())
+            }
+        }
+    }
+
+    private fun walk(random: java.util.Random): RouteShape {
+        val n = 30 + random.nextInt(50)
+        val lats = DoubleArray(n)
+        val lons = DoubleArray(n)
+        var lat = 48.0 + random.nextDouble() * 0.005
+        var lon = 11.0 + random.nextDouble() * 0.005
+        for (i in 0 until n) {
+            lat += random.nextGaussian() * 50 * degreesPerMeter
+            lon += random.nextGaussian() * 50 * degreesPerMeter
+            lats[i] = lat
+            lons[i] = lon
+        }
+        return RouteShape.of(lats, lons, 16)!!
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.trackerapp.data.stats
+
+import com.example.trackerapp.Benchmark
+import org.junit.Assert.*
+import org.junit.Test
+
+/**
+ * Benchmark: 1M Fixes fortschreiben
+ *
+ * Die Kosten pro Fix bleiben konstant, egal wie lang die Session schon läuft.
+ * Läuft nur mit `-Pbenchmark`.
+ */
+class TrackStatsAccumulatorBenchmarkTest {
+
+    // ~1 m nach Norden
+    private val degreesPerMeter = 1.0 / 111_195.0
+
+    @Test
+    fun millionFixes_constantTimePerFix() {
+        Benchmark.assumeEnabled()
+        val stats = TrackStatsAccumulator()
+        val start = System.nanoTime()
+        for (i in 0 until 1_000_000) {
+            stats.add(i * 1000L, 48.0 + i * 1.4 * degreesPerMeter * 0.001, 11.0 + (i % 7) * 1e-6, 5f, 500.0 + (i % 100) * 0.1, Float.NaN)
+        }
+        val ms = (System.nanoTime() - start) / 1_000_000
+
+        assertEquals(1_000_000, stats.snapshot().fixCount)
+        assertTrue("1M fixes took $ms ms", ms < 5_000)
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.trackerapp.data.stats
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class TrackStatsAccumulatorTest {
+
+    // ~1 m nach Norden
+    private val degreesPerMeter = 1.0 / 111_195.0
+
+    @Test
+    fun constantWalk_distanceTimeAndPace() {
+        val stats = TrackStatsAccumulator()
+        // 1.5 m/s, ein Fix pro Sekunde, 10 Minuten
+        for (i in 0..600) {
+            stats.add(i * 1000L, 48.0 + i * 1.5 * degreesPerMeter, 11.0)
+        }
+        val s = stats.snapshot()
+        assertEquals(900.0, s.distanceMeters, 1.0)
+        assertEquals(600_000L, s.movingMs)
+        assertEquals(0L, s.stoppedMs)
+        assertEquals(1.5, s.averageSpeed, 0.01)
+        assertEquals(1.5, s.maxSpeed, 0.01)
+        assertEquals(1000 / 1.5, s.currentPace!!, 1.0)
+        assertEquals(0L, s.startTime)
+        assertEquals(600_000L, s.endTime)
+        assertEquals(601, s.fixCount)
+    }
+
+    @Test
+    fun jitterWhileStopped_addsNoDistance() {
+        val stats = TrackStatsAccumulator()
+        val random = java.util.Random(1)
+        for (i in 0..300) {
+            // +-1 m Rauschen um einen festen Punkt, alle 10 s
+            stats.add(
+                i * 10_000L,
+                48.0 + random.nextGaussian() * degreesPerMeter,
+                11.0 + random.nextGaussian() * degreesPerMeter
+            )
+        }
+        val s = stats.snapshot()
+        assertEquals(0.0, s.distanceMeters, 0.0)
+        assertEquals(3_000_000L, s.stoppedMs)
+        assertNull(s.currentPace)
+    }
+
+    @Test
+    fun reportedSpeed_decidesMoving() {
+        val stats = TrackStatsAccumulator()
+        stats.add(0L, 48.0, 11.0, speed = 0f)
+        stats.add(1000L, 48.0 + 0.3 * degreesPerMeter, 11.0, speed = 2f)
+        val s = stats.snapshot()
+        assertEquals(1000L, s.movingMs)
+        assertEquals(0.3, s.distanceMeters, 0.01)
+        assertEquals(2.0, s.maxSpeed, 0.0)
+    }
+
+    @Test
+    fun elevation_hysteresisIgnoresNoise() {
+        val stats = TrackStatsAccumulator(elevationHysteresis = 5.0)
+        val random = java.util.Random(2)
+        // 100 Fixes mit +-2 m Rauschen, danach 30 m Anstieg und 10 m Abstieg
+        // (ein angefangener Schritt unter der Hysterese zählt nicht)
+        var t = 0L
+        for (i in 0 until 100) stats.add(t++ * 1000, 48.0, 11.0, altitude = 500.0 + random.nextDouble() * 4 - 2)
+        assertEquals(0.0, stats.snapshot().elevationGain, 0.0)
+        assertEquals(0.0, stats.snapshot().elevationLoss, 0.0)
+        for (i in 1..30) stats.add(t++ * 1000, 48.0, 11.0, altitude = 500.0 + i)
+        for (i in 1..10) stats.add(t++ * 1000, 48.0, 11.0, altitude = 530.0 - i)
+        val s = stats.snapshot()
+        assertEquals(30.0, s.elevationGain, 5.0)
+        assertEquals(10.0, s.elevationLoss, 5.0)
+    }
+
+    @Test
+    fun gapsAndInaccurateFixes_areSkipped() {
+        val stats = TrackStatsAccumulator(maxGapMs = 60_000, maxAccuracy = 50f)
+        stats.add(0L, 48.0, 11.0)
+        stats.add(10_000L, 48.0 + 20 * degreesPerMeter, 11.0)
+        // Ungenauer Fix weit weg
+        stats.add(20_000L, 48.1, 11.0, accuracy = 200f)
+        // Lücke von 10 Minuten
+        stats.add(620_000L, 48.0 + 1000 * degreesPerMeter, 11.0)
+        stats.add(630_000L, 48.0 + 1020 * degreesPerMeter, 11.0)
+        val s = stats.snapshot()
+        assertEquals(40.0, s.distanceMeters, 0.1)
+        assertEquals(20_000L, s.movingMs)
+        assertEquals(5, s.fixCount)
+    }
+
+    @Test
+    fun outOfOrderFix_isIgnored() {
+        val stats = TrackStatsAccumulator()
+        stats.add(10_000L, 48.0, 11.0)
+        stats.add(5_000L, 48.1, 11.0)
+        stats.add(20_000L, 48.0 + 20 * degreesPerMeter, 11.0)
+        assertEquals(20.0, stats.snapshot().distanceMeters, 0.1)
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.trackerapp.data.tile
+
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.awaitCancellation
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import org.junit.After
+import org.junit.Assert.*
+import org.junit.Test
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+class BlockingTileLoadTest {
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+
+    @After
+    fun tearDown() {
+        scope.cancel()
+    }
+
+    @Test
+    fun run_returnsResultOfTheLoad() {
+        assertArrayEquals(byteArrayOf(1, 2), BlockingTileLoad.run(scope) { byteArrayOf(1, 2) })
+        assertNull(BlockingTileLoad.run<ByteArray>(scope) { null })
+    }
+
+    @Test
+    fun failedOrCancelledLoad_returnsNull() {
+        assertNull(BlockingTileLoad.run<ByteArray>(scope) { throw IllegalStateException("render failed") })
+
+        val cancelled = CompletableFuture<ByteArray?>()
+        cancelled.cancel(true)
+        assertNull(BlockingTileLoad.await(cancelled))
+    }
+
+    @Test
+    fun interruptedWorker_cancelsLoadAndKeepsInterruptFlag() {
+        val started = CompletableDeferred<Unit>()
+        val cancelled = CompletableDeferred<Unit>()
+        var interrupted = false
+        var result: ByteArray? = byteArrayOf(0)
+
+        // Worker wartet auf einen Load, der nie fertig wird
+        val worker = Thread {
+            result = BlockingTileLoad.run(scope) {
+                try {
+                    started.complete(Unit)
+                    awaitCancellation()
+                } finally {
+                    cancelled.complete(Unit)
+                }
+            }
+            interrupted = Thread.currentThread().isInterrupted
+        }
+        worker.start()
+        runBlocking { withTimeout(5_000) { started.await() } }
+
+        worker.interrupt()
+        worker.join(TimeUnit.SECONDS.toMillis(5))
+
+        assertFalse(worker.isAlive)
+        assertNull(result)
+        assertTrue(interrupted)
+        // Load im Scope wurde abgebrochen
+        runBlocking { withTimeout(5_000) { cancelled.await() } }
+    }
+}
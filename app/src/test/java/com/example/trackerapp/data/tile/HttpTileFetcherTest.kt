@@ -0,0 +1,164 @@
+package com.example.trackerapp.data.tile
+
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.test.runTest
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okhttp3.mockwebserver.SocketPolicy
+import okio.Buffer
+import org.junit.After
+import org.junit.Assert.*
+import org.junit.Before
+import org.junit.Test
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Tests für den gepoolten Tile-Client gegen MockWebServer:
+ * Connection-Reuse, Conditional Requests (304), Limit pro Host und Meldung an den Selector.
+ */
+class HttpTileFetcherTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var provider: TileProvider
+    private var now = 1_000_000L
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        provider = TileProvider(
+            id = "mock",
+            urlTemplates = listOf("http://${server.hostName}:${server.port}/{z}/{x}/{y}.png")
+        )
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun tileResponse(body: String = "tile") = MockResponse()
+        .setResponseCode(200)
+        .setBody(body)
+        .setHeader("ETag", "\"v1\"")
+        .setHeader("Last-Modified", LAST_MODIFIED)
+
+    @Test
+    fun sequentialTiles_reuseOneConnection() = runTest {
+        val fetcher = HttpTileFetcher()
+        repeat(3) { server.enqueue(tileResponse()) }
+
+        repeat(3) { col ->
+            assertTrue(fetcher.fetch(provider, 10, col, 0) is HttpTileFetcher.FetchResult.Success)
+        }
+
+        // sequenceNumber = Index des Requests auf seiner Verbindung
+        assertEquals(0, server.takeRequest().sequenceNumber)
+        assertEquals(1, server.takeRequest().sequenceNumber)
+        assertEquals(2, server.takeRequest().sequenceNumber)
+    }
+
+    @Test
+    fun staleTile_isRevalidatedWith304() = runTest {
+        val repository = TileRepository(
+            TileCache(MemoryTileCache(1024 * 1024), disk = null, ttlMs = TTL, clock = { now })
+        )
+        server.enqueue(tileResponse("original"))
+        server.enqueue(MockResponse().setResponseCode(304))
+
+        val first = repository.loadTile(provider, 8, 1, 2)
+        now += TTL + 1
+        val revalidated = repository.loadTile(provider, 8, 1, 2)
+
+        assertArrayEquals("original".toByteArray(), first)
+        assertArrayEquals("original".toByteArray(), revalidated)
+
+        server.takeRequest()
+        val conditional = server.takeRequest()
+        assertEquals("\"v1\"", conditional.getHeader("If-None-Match"))
+        assertEquals(LAST_MODIFIED, conditional.getHeader("If-Modified-Since"))
+        assertEquals(1, conditional.sequenceNumber)  // gleiche Verbindung
+
+        // 304 hat die TTL erneuert: kein weiterer Request
+        repository.loadTile(provider, 8, 1, 2)
+        assertEquals(2, server.requestCount)
+    }
+
+    @Test
+    fun revalidation_onDisk_keepsBytesAndRefreshesTtl() = runTest {
+        val dir = kotlin.io.path.createTempDirectory("tiles").toFile()
+        try {
+            val cache = TileCache(
+                MemoryTileCache(1024 * 1024),
+                DiskTileCache(dir, 1024 * 1024) { now },
+                ttlMs = TTL,
+                clock = { now }
+            )
+            server.enqueue(tileResponse("on-disk"))
+            server.enqueue(MockResponse().setResponseCode(304))
+
+            TileRepository(cache).loadTile(provider, 8, 1, 2)
+            now += TTL + 1
+            cache.memory.clear()
+            TileRepository(cache).loadTile(provider, 8, 1, 2)
+
+            val stored = DiskTileCache(dir, 1024 * 1024) { now }.get(TileKey("mock", 8, 1, 2))!!
+            assertArrayEquals("on-disk".toByteArray(), stored.data)
+            assertEquals(now, stored.fetchedAt)
+            assertEquals("\"v1\"", stored.etag)
+        } finally {
+            dir.deleteRecursively()
+        }
+    }
+
+    @Test
+    fun truncatedBody_isRecordedOnceAsFailure() = runTest {
+        val selector = TileServerSelector(failureThreshold = 2)
+        val fetcher = HttpTileFetcher(selector = selector)
+        repeat(2) {
+            server.enqueue(
+                tileResponse("x".repeat(64 * 1024))
+                    .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY)
+            )
+        }
+
+        repeat(2) { col ->
+            assertSame(HttpTileFetcher.FetchResult.Failed, fetcher.fetch(provider, 10, col, 0))
+        }
+
+        // Kein zusätzlicher Erfolg vor dem Body: zwei Fehler in Folge öffnen den Breaker
+        assertEquals(TileServerSelector.BreakerState.OPEN, selector.stateOf(provider.urlsFor(10, 0, 0).first()))
+    }
+
+    @Test
+    fun parallelRequests_areLimitedPerHost() {
+        val inFlight = AtomicInteger()
+        val maxInFlight = AtomicInteger()
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val current = inFlight.incrementAndGet()
+                maxInFlight.accumulateAndGet(current) { a, b -> maxOf(a, b) }
+                Thread.sleep(20)
+                inFlight.decrementAndGet()
+                return MockResponse().setBody(Buffer().write(ByteArray(1024)))
+            }
+        }
+        val fetcher = HttpTileFetcher(HttpTileFetcher.createClient(maxRequests = 16, maxRequestsPerHost = 2))
+
+        val results = runBlocking {
+            (0 until 20).map { col -> async { fetcher.fetch(provider, 10, col, 0) } }.awaitAll()
+        }
+
+        assertTrue(results.all { it is HttpTileFetcher.FetchResult.Success })
+        assertTrue("max parallel: ${maxInFlight.get()}", maxInFlight.get() <= 2)
+    }
+
+    companion object {
+        private const val TTL = 60_000L
+        private const val LAST_MODIFIED = "Wed, 01 Jan 2025 00:00:00 GMT"
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.trackerapp.data.tile
+
+import org.junit.Assert.*
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.util.zip.GZIPOutputStream
+
+class MvtDecoderTest {
+
+    /**
+     * Minimaler Protobuf-Writer für Test-Tiles
+     */
+    private class Proto {
+        val out = ByteArrayOutputStream()
+
+        fun varint(value: Long): Proto {
+            var v = value
+            while (v and 0x7FL.inv() != 0L) {
+                out.write(((v and 0x7F) or 0x80).toInt())
+                v = v ushr 7
+            }
+            out.write(v.toInt())
+            return this
+        }
+
+        fun tag(field: Int, wireType: Int) = varint(((field shl 3) or wireType).toLong())
+
+        fun uint(field: Int, value: Long) = tag(field, 0).varint(value)
+
+        fun bytes(field: Int, data: ByteArray): Proto {
+            tag(field, 2).varint(data.size.toLong())
+            out.write(data)
+            return this
+        }
+
+        fun string(field: Int, value: String) = bytes(field, value.toByteArray())
+
+        fun message(field: Int, message: Proto) = bytes(field, message.toByteArray())
+
+        fun packed(field: Int, values: IntArray): Proto {
+            val body = Proto()
+            values.forEach { body.varint(it.toLong()) }
+            return bytes(field, body.toByteArray())
+        }
+
+        fun toByteArray(): ByteArray = out.toByteArray()
+    }
+
+    private fun command(id: Int, count: Int) = (id and 0x7) or (count shl 3)
+    private fun zigZag(n: Int) = (n shl 1) xor (n shr 31)
+
+    private fun sampleTile(): ByteArray {
+        // Quadrat (10,10)-(20,20) als Polygon, Linie (0,0) → (4096,4096)
+        val square = intArrayOf(
+            command(1, 1), zigZag(10), zigZag(10),
+            command(2, 3), zigZag(10), zigZag(0), zigZag(0), zigZag(10), zigZag(-10), zigZag(0),
+            command(7, 1)
+        )
+        val line = intArrayOf(command(1, 1), zigZag(0), zigZag(0), command(2, 1), zigZag(4096), zigZag(4096))
+
+        val water = Proto()
+            .string(1, "water")
+            .message(2, Proto().uint(1, 7).packed(2, intArrayOf(0, 0)).uint(3, 3).packed(4, square))
+            .string(3, "class")
+            .message(4, Proto().string(1, "lake"))
+            .uint(5, 4096)
+            .uint(15, 2)
+        val roads = Proto()
+            .string(1, "transportation")
+            // Feature vor Keys/Values: Reihenfolge im Protobuf ist frei
+            .message(2, Proto().packed(2, intArrayOf(0, 0, 1, 1)).uint(3, 2).packed(4, line))
+            .string(3, "class")
+            .string(3, "lanes")
+            .message(4, Proto().string(1, "primary"))
+            .message(4, Proto().tag(6, 0).varint(zigZag(-2).toLong()))
+            .uint(5, 4096)
+        return Proto().message(3, water).message(3, roads).toByteArray()
+    }
+
+    @Test
+    fun decode_readsLayersPropertiesAndGeometry() {
+        val tile = MvtDecoder.decode(sampleTile())
+
+        assertEquals(listOf("water", "transportation"), tile.layers.map { it.name })
+
+        val lake = tile.layer("water")!!.features.single()
+        assertEquals(7L, lake.id)
+        assertEquals(VectorTile.GeometryType.POLYGON, lake.type)
+        assertEquals("lake", lake.properties["class"])
+        assertArrayEquals(intArrayOf(10, 10, 20, 10, 20, 20, 10, 20), lake.geometry.single())
+
+        val road = tile.layer("transportation")!!.features.single()
+        assertEquals(VectorTile.GeometryType.LINESTRING, road.type)
+        assertEquals("primary", road.properties["class"])
+        assertEquals(-2L, road.properties["lanes"])
+        assertArrayEquals(intArrayOf(0, 0, 4096, 4096), road.geometry.single())
+        assertEquals(4096, tile.layer("transportation")!!.extent)
+    }
+
+    @Test
+    fun decode_acceptsGzippedTiles() {
+        val raw = sampleTile()
+        val gzipped = ByteArrayOutputStream().also { out ->
+            GZIPOutputStream(out).use { it.write(raw) }
+        }.toByteArray()
+
+        assertTrue(MvtDecoder.isGzip(gzipped))
+        assertEquals(2, MvtDecoder.decode(gzipped).layers.size)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun decode_rejectsTruncatedData() {
+        val raw = sampleTile()
+        MvtDecoder.decode(raw.copyOf(raw.size - 5))
+    }
+}
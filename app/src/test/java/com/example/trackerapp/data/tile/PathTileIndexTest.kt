@@ -0,0 +1,109 @@
+package com.example.trackerapp.data.tile
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class PathTileIndexTest {
+
+    // Mitte von Tile (col 100, row 200) auf Zoom 14, in MapCompose-Koordinaten
+    private fun center(col: Int, row: Int, zoom: Int = 14): Pair<Double, Double> {
+        val tiles = (1 shl zoom).toDouble()
+        return (col + 0.5) / tiles to (row + 0.5) / tiles
+    }
+
+    private fun index() = PathTileIndex("path", minZoom = 12, maxZoom = 14, indexZoom = 14, marginPx = 3.0)
+
+    @Test
+    fun firstPoint_touchesNothing() {
+        val (x, y) = center(100, 200)
+        assertEquals(emptySet<TileKey>(), index().append(1, x, y))
+    }
+
+    @Test
+    fun shortSegment_touchesOneTilePerZoom() {
+        val index = index()
+        val (x, y) = center(100, 200)
+        index.append(1, x, y)
+
+        val touched = index.append(2, x + 1e-7, y + 1e-7)
+
+        assertEquals(
+            setOf(
+                TileKey("path", 12, 25, 50),
+                TileKey("path", 13, 50, 100),
+                TileKey("path", 14, 100, 200)
+            ),
+            touched
+        )
+    }
+
+    @Test
+    fun lineWidth_reachesIntoNeighbourTile() {
+        val index = index()
+        // 1 Pixel vor der rechten Tile-Kante auf Zoom 14
+        val tiles = (1 shl 14).toDouble()
+        val x = (101 - 1.0 / 256) / tiles
+        val y = 200.5 / tiles
+        index.append(1, x, y)
+
+        val touched = index.append(2, x, y + 1e-8)!!
+
+        assertTrue(TileKey("path", 14, 100, 200) in touched)
+        assertTrue(TileKey("path", 14, 101, 200) in touched)
+    }
+
+    @Test
+    fun segmentsFor_returnsOnlyNearbySegments() {
+        val index = index()
+        val (ax, ay) = center(100, 200)
+        val (bx, by) = center(110, 200)
+        index.append(1, ax, ay)
+        index.append(2, ax + 1e-7, ay)
+        // Segment 1 springt zum zweiten Cluster und berührt die Tiles dazwischen
+        index.append(3, bx, by)
+        index.append(4, bx + 1e-7, by)
+
+        assertArrayEquals(intArrayOf(0, 1), index.segmentsFor(14, 100, 200))
+        assertArrayEquals(intArrayOf(1, 2), index.segmentsFor(14, 110, 200))
+        assertArrayEquals(intArrayOf(1), index.segmentsFor(14, 105, 200))
+        assertArrayEquals(intArrayOf(), index.segmentsFor(14, 105, 210))
+    }
+
+    @Test
+    fun segmentsFor_belowMinZoomIsEmpty() {
+        val index = index()
+        val (x, y) = center(100, 200)
+        index.append(1, x, y)
+        index.append(2, x + 1e-7, y)
+
+        assertEquals(0, index.segmentsFor(11, 12, 25).size)
+    }
+
+    @Test
+    fun gap_isIndexedAsLongSegmentAndInvalidatesEverything() {
+        val index = index()
+        index.append(1, 0.1, 0.1)
+
+        // Sprung über den halben Globus: zu viele Tiles für einzelnes Verwerfen
+        val touched = index.append(2, 0.6, 0.7)
+
+        assertNull(touched)
+        // Lange Segmente prüft jedes Tile
+        assertArrayEquals(intArrayOf(0), index.segmentsFor(14, 0, 0))
+        assertEquals(2L, index.lastId())
+    }
+
+    @Test
+    fun clear_dropsAllPoints() {
+        val index = index()
+        val (x, y) = center(100, 200)
+        index.append(1, x, y)
+        index.append(2, x + 1e-7, y)
+
+        index.clear()
+
+        assertEquals(0, index.size)
+        assertNull(index.lastId())
+        assertEquals(0, index.segmentsFor(14, 100, 200).size)
+    }
+}
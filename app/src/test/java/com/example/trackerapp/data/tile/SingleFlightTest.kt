@@ -0,0 +1,111 @@
+package com.example.trackerapp.data.tile
+
+import com.sun.net.httpserver.HttpServer
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import kotlinx.coroutines.yield
+import org.junit.Assert.*
+import org.junit.Test
+import java.net.InetSocketAddress
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class SingleFlightTest {
+
+    @Test
+    fun concurrentLoadsOfSameTile_shareOneDownload() = runBlocking {
+        val hits = AtomicInteger()
+        // Server antwortet erst, wenn sich alle Loads angeschlossen haben
+        val release = CountDownLatch(1)
+        val server = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/") { exchange ->
+            hits.incrementAndGet()
+            release.await(10, TimeUnit.SECONDS)
+            val body = "tile".toByteArray()
+            exchange.sendResponseHeaders(200, body.size.toLong())
+            exchange.responseBody.use { it.write(body) }
+        }
+        server.start()
+        try {
+            val provider = TileProvider("test", listOf("http://127.0.0.1:${server.address.port}/{z}/{x}/{y}.png"))
+            val repository = TileRepository(TileCache(MemoryTileCache(1024 * 1024), null, Long.MAX_VALUE))
+
+            val loads = (0 until 10).map {
+                async(Dispatchers.IO) { repository.loadTile(provider, 14, 100, 200) }
+            }
+            withTimeout(10_000) {
+                while (repository.metrics.coalescedRequests.get() < 9) delay(1)
+            }
+            release.countDown()
+            val results = loads.awaitAll()
+
+            assertTrue(results.all { it.contentEquals("tile".toByteArray()) })
+            assertEquals(1, hits.get())
+            // Alle außer dem ersten haben sich dem laufenden Download angeschlossen
+            val metrics = repository.metrics.snapshot()
+            assertEquals(10, metrics.requests)
+            assertEquals(1, metrics.networkFetches)
+            assertEquals(9, metrics.coalescedRequests)
+            assertEquals(0, metrics.cacheHits)
+        } finally {
+            release.countDown()
+            server.stop(0)
+        }
+    }
+
+    @Test
+    fun cancelledWaiter_doesNotCancelSharedExecution() = runBlocking {
+        val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+        val coalesced = AtomicInteger()
+        val singleFlight = SingleFlight<String, Int>(scope) { coalesced.incrementAndGet() }
+        val gate = CompletableDeferred<Unit>()
+        val executions = AtomicInteger()
+
+        val first = launch {
+            singleFlight.run("k") { executions.incrementAndGet(); gate.await(); 42 }
+        }
+        yield()
+        val second = async {
+            singleFlight.run("k") { executions.incrementAndGet(); -1 }
+        }
+        yield()
+
+        first.cancel()
+        gate.complete(Unit)
+
+        assertEquals(42, second.await())
+        assertEquals(1, executions.get())
+        assertEquals(1, coalesced.get())
+        assertEquals(0, singleFlight.inFlightCount)
+    }
+
+    @Test
+    fun lastWaiterCancelled_abortsExecutionWhenRequested() = runBlocking {
+        val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+        val abandoned = AtomicInteger()
+        val singleFlight = SingleFlight<String, Int>(scope, onAbandoned = { abandoned.incrementAndGet(); true })
+        val started = CompletableDeferred<Unit>()
+        val never = CompletableDeferred<Unit>()
+
+        val waiter = launch {
+            singleFlight.run("k") { started.complete(Unit); never.await(); 1 }
+        }
+        started.await()
+        waiter.cancel()
+        waiter.join()
+
+        assertEquals(1, abandoned.get())
+        assertEquals(0, singleFlight.inFlightCount)
+        // Neuer Aufrufer startet eine neue Ausführung
+        assertEquals(2, singleFlight.run("k") { 2 })
+    }
+}
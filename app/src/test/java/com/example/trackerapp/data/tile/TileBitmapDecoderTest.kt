@@ -0,0 +1,29 @@
+package com.example.trackerapp.data.tile
+
+import org.junit.Assert.*
+import org.junit.Test
+import java.awt.image.BufferedImage
+import java.io.ByteArrayOutputStream
+import javax.imageio.ImageIO
+
+class TileBitmapDecoderTest {
+
+    private fun encode(image: BufferedImage, format: String): ByteArray {
+        val out = ByteArrayOutputStream()
+        ImageIO.write(image, format, out)
+        return out.toByteArray()
+    }
+
+    @Test
+    fun opaqueRasterTiles_areDetected() {
+        assertTrue(TileBitmapDecoder.isOpaque(encode(BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB), "png")))
+        assertTrue(TileBitmapDecoder.isOpaque(encode(BufferedImage(256, 256, BufferedImage.TYPE_BYTE_GRAY), "png")))
+        assertTrue(TileBitmapDecoder.isOpaque(encode(BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB), "jpg")))
+    }
+
+    @Test
+    fun tilesWithAlpha_areNotOpaque() {
+        assertFalse(TileBitmapDecoder.isOpaque(encode(BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB), "png")))
+        assertFalse(TileBitmapDecoder.isOpaque(ByteArray(64)))
+    }
+}
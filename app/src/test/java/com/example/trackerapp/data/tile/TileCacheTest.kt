@@ -0,0 +1,176 @@
+package com.example.trackerapp.data.tile
+
+import com.sun.net.httpserver.HttpServer
+import kotlinx.coroutines.test.runTest
+import org.junit.After
+import org.junit.Assert.*
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.net.InetSocketAddress
+import java.nio.file.Files
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Tests für den zweistufigen Tile-Cache gegen einen lokalen HTTP-Server,
+ * der die Anzahl der Tile-Downloads zählt.
+ */
+class TileCacheTest {
+
+    private lateinit var server: HttpServer
+    private lateinit var provider: TileProvider
+    private lateinit var cacheDir: File
+    private val hits = AtomicInteger()
+    private var now = 1_000_000L
+
+    @Before
+    fun setUp() {
+        server = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/") { exchange ->
+            hits.incrementAndGet()
+            val body = exchange.requestURI.path.toByteArray()
+            exchange.sendResponseHeaders(200, body.size.toLong())
+            exchange.responseBody.use { it.write(body) }
+        }
+        server.start()
+
+        provider = TileProvider(
+            id = "test",
+            urlTemplates = listOf("http://127.0.0.1:${server.address.port}/{z}/{x}/{y}.png")
+        )
+        cacheDir = Files.createTempDirectory("tiles").toFile()
+    }
+
+    @After
+    fun tearDown() {
+        server.stop(0)
+        cacheDir.deleteRecursively()
+    }
+
+    private fun repository(memoryBytes: Long = 1024 * 1024, diskBytes: Long = 1024 * 1024) =
+        TileRepository(
+            TileCache(
+                memory = MemoryTileCache(memoryBytes),
+                disk = DiskTileCache(cacheDir, diskBytes) { now },
+                ttlMs = TTL,
+                clock = { now }
+            )
+        )
+
+    @Test
+    fun secondRequest_isServedFromMemory() = runTest {
+        val repository = repository()
+
+        val first = repository.loadTile(provider, 5, 10, 12)
+        val second = repository.loadTile(provider, 5, 10, 12)
+
+        assertArrayEquals("/5/10/12.png".toByteArray(), first)
+        assertArrayEquals(first, second)
+        assertEquals(1, hits.get())
+    }
+
+    @Test
+    fun diskCache_survivesRestart() = runTest {
+        repository().loadTile(provider, 5, 10, 12)
+
+        // Neuer Prozess: leerer Memory-Cache, gleiches Verzeichnis
+        val restarted = repository()
+        val tile = restarted.loadTile(provider, 5, 10, 12)
+
+        assertArrayEquals("/5/10/12.png".toByteArray(), tile)
+        assertEquals(1, hits.get())
+        assertNotNull(restarted.cache.memory.get(TileKey("test", 5, 10, 12)))
+    }
+
+    @Test
+    fun expiredTile_isRefetched() = runTest {
+        val repository = repository()
+        repository.loadTile(provider, 3, 1, 2)
+
+        now += TTL - 1
+        repository.loadTile(provider, 3, 1, 2)
+        assertEquals(1, hits.get())
+
+        now += 1
+        repository.loadTile(provider, 3, 1, 2)
+        assertEquals(2, hits.get())
+    }
+
+    @Test
+    fun expiredTile_isServedWhenNetworkFails() = runTest {
+        val repository = repository()
+        repository.loadTile(provider, 3, 1, 2)
+
+        server.stop(0)
+        now += TTL * 2
+
+        assertArrayEquals("/3/1/2.png".toByteArray(), repository.loadTile(provider, 3, 1, 2))
+    }
+
+    @Test
+    fun memoryCache_evictsLeastRecentlyUsedByBytes() {
+        val cache = MemoryTileCache(maxBytes = 300)
+        val a = TileKey("p", 1, 0, 0)
+        val b = TileKey("p", 1, 0, 1)
+        val c = TileKey("p", 1, 1, 0)
+
+        cache.put(a, CachedTile(ByteArray(100), 0))
+        cache.put(b, CachedTile(ByteArray(100), 0))
+        cache.get(a)  // a ist jetzt jünger als b
+        cache.put(c, CachedTile(ByteArray(150), 0))
+
+        assertNotNull(cache.get(a))
+        assertNull(cache.get(b))
+        assertNotNull(cache.get(c))
+        assertEquals(250, cache.sizeBytes)
+    }
+
+    @Test
+    fun diskCache_evictsLeastRecentlyUsedAcrossRestart() {
+        val a = TileKey("p", 1, 0, 0)
+        val b = TileKey("p", 1, 0, 1)
+        val c = TileKey("p", 1, 1, 0)
+        val entrySize = 100 + HEADER_BYTES
+        val maxBytes = entrySize * 2L
+
+        val disk = DiskTileCache(cacheDir, maxBytes) { now }
+        disk.put(a, CachedTile(ByteArray(100), 0))
+        now += 1000
+        disk.put(b, CachedTile(ByteArray(100), 0))
+        now += 1000
+        disk.get(a)
+
+        // Neustart: Reihenfolge kommt aus lastModified
+        val restarted = DiskTileCache(cacheDir, maxBytes) { now }
+        restarted.put(c, CachedTile(ByteArray(100), 0))
+
+        assertNotNull(restarted.get(a))
+        assertNull(restarted.get(b))
+        assertNotNull(restarted.get(c))
+        assertEquals(maxBytes, restarted.sizeBytes)
+    }
+
+    @Test
+    fun diskCache_corruptLength_isMissAndDeleted() {
+        val disk = DiskTileCache(cacheDir, 1024 * 1024) { now }
+        for ((index, length) in listOf(-1, Int.MAX_VALUE, 101).withIndex()) {
+            val key = TileKey("p", 1, 0, index)
+            disk.put(key, CachedTile(ByteArray(100), 0))
+            val file = File(cacheDir, key.relativePath() + ".tile")
+            // Längenfeld direkt hinter dem Header überschreiben
+            java.io.RandomAccessFile(file, "rw").use { raf ->
+                raf.seek(HEADER_BYTES - 4L)
+                raf.writeInt(length)
+            }
+
+            assertNull("length $length", disk.get(key))
+            assertFalse("length $length", file.exists())
+        }
+        assertEquals(0L, disk.sizeBytes)
+    }
+
+    companion object {
+        private const val TTL = 60_000L
+        private const val HEADER_BYTES = 20  // magic + fetchedAt + 2x leerer UTF-String + length
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.trackerapp.data.tile
+
+import com.sun.net.httpserver.HttpServer
+import org.junit.After
+import org.junit.Assert.*
+import org.junit.Before
+import org.junit.Test
+import java.net.InetSocketAddress
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Abbruch nicht mehr sichtbarer Tiles: vor der Antwort wird abgebrochen,
+ * laufende Bodies werden nur noch in den Cache geladen.
+ */
+class TileCancellationTest {
+
+    private lateinit var server: HttpServer
+    private lateinit var provider: TileProvider
+    private lateinit var repository: TileRepository
+
+    private val requestArrived = CountDownLatch(1)
+    private val tileBody = ByteArray(4096) { it.toByte() }
+
+    // Server hält die Antwort vor den Headern bzw. zwischen Headern und Body an
+    private val headerGate = CountDownLatch(1)
+    private val bodyGate = CountDownLatch(1)
+
+    @Before
+    fun setUp() {
+        server = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0)
+        server.executor = Executors.newCachedThreadPool()
+        server.createContext("/") { exchange ->
+            requestArrived.countDown()
+            try {
+                headerGate.await(5, TimeUnit.SECONDS)
+                exchange.sendResponseHeaders(200, tileBody.size.toLong())
+                exchange.responseBody.flush()
+                bodyGate.await(5, TimeUnit.SECONDS)
+                exchange.responseBody.use { it.write(tileBody) }
+            } catch (e: Exception) {
+                // Client hat abgebrochen
+            }
+        }
+        server.start()
+        provider = TileProvider("test", listOf("http://127.0.0.1:${server.address.port}/{z}/{x}/{y}"))
+        repository = TileRepository(TileCache(MemoryTileCache(1024 * 1024), null, Long.MAX_VALUE))
+    }
+
+    @After
+    fun tearDown() {
+        headerGate.countDown()
+        bodyGate.countDown()
+        server.stop(0)
+    }
+
+    private fun loadInBackground(zoom: Int, col: Int, row: Int): CompletableFuture<ByteArray?> =
+        CompletableFuture.supplyAsync { repository.loadTileBlocking(provider, zoom, col, row) }
+
+    @Test
+    fun tileOutsideViewport_beforeResponse_isAborted() {
+        bodyGate.countDown()
+        val load = loadInBackground(14, 100, 100)
+        assertTrue(requestArrived.await(2, TimeUnit.SECONDS))
+
+        // Nutzer hat weggescrollt
+        val cancelled = repository.cancelOutside(TileViewport(14, 200..205, 200..205))
+
+        assertEquals(1, cancelled)
+        assertNull(load.get(500, TimeUnit.MILLISECONDS))
+        waitFor { repository.metrics.abortedTiles.get() == 1L }
+        assertEquals(0L, repository.metrics.wastedBytes.get())
+        assertNull(repository.cache.get(TileKey("test", 14, 100, 100)))
+    }
+
+    @Test
+    fun tileOutsideViewport_duringBody_completesIntoCache() {
+        headerGate.countDown()
+        val load = loadInBackground(14, 100, 100)
+        waitFor { repository.receivingLoads == 1 }  // Header sind angekommen
+
+        repository.cancelOutside(TileViewport(15, 0..5, 0..5))
+
+        assertNull(load.get(200, TimeUnit.MILLISECONDS))
+        waitFor { repository.metrics.backgroundCompletions.get() == 1L }
+        bodyGate.countDown()
+        waitFor { repository.cache.get(TileKey("test", 14, 100, 100)) != null }
+        assertEquals(tileBody.size.toLong(), repository.metrics.wastedBytes.get())
+    }
+
+    @Test
+    fun tileInsideViewport_keepsLoading() {
+        bodyGate.countDown()
+        val load = loadInBackground(14, 100, 100)
+        assertTrue(requestArrived.await(2, TimeUnit.SECONDS))
+
+        val cancelled = repository.cancelOutside(TileViewport(14, 99..101, 99..101))
+        headerGate.countDown()
+
+        assertEquals(0, cancelled)
+        assertArrayEquals(tileBody, load.get(2, TimeUnit.SECONDS))
+        assertEquals(0L, repository.metrics.wastedBytes.get())
+    }
+
+    private fun waitFor(condition: () -> Boolean) {
+        val deadline = System.currentTimeMillis() + 3_000
+        while (!condition()) {
+            assertTrue("timeout", System.currentTimeMillis() < deadline)
+            Thread.sleep(10)
+        }
+    }
+}
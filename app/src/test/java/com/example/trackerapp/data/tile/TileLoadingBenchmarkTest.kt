@@ -0,0 +1,158 @@
+package com.example.trackerapp.data.tile
+
+import com.example.trackerapp.Benchmark
+import com.sun.net.httpserver.HttpServer
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withContext
+import org.junit.After
+import org.junit.Assert.*
+import org.junit.Before
+import org.junit.Test
+import java.lang.management.ManagementFactory
+import java.net.HttpURLConnection
+import java.net.InetSocketAddress
+import java.net.URL
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Benchmark: Tile-Loading unter einem langsamen lokalen Tile-Server
+ *
+ * Simuliert viele gleichzeitig blockierte MapCompose-Worker und vergleicht
+ * das alte Muster (runBlocking(Dispatchers.IO) pro Tile) mit dem begrenzten
+ * Dispatcher des [TileRepository]. Gemessen werden zusätzliche JVM-Threads
+ * und die maximale Parallelität am Server. Läuft nur mit `-Pbenchmark`.
+ */
+class TileLoadingBenchmarkTest {
+
+    private lateinit var server: HttpServer
+    private lateinit var serverPool: ThreadPoolExecutor
+    private lateinit var provider: TileProvider
+    private val inFlight = AtomicInteger()
+    private val maxInFlight = AtomicInteger()
+
+    @Before
+    fun setUp() {
+        Benchmark.assumeEnabled()
+
+        // Server-Threads vorab starten, damit sie die Thread-Messung nicht verfälschen
+        serverPool = Executors.newFixedThreadPool(CALLERS) as ThreadPoolExecutor
+        serverPool.prestartAllCoreThreads()
+
+        server = HttpServer.create(InetSocketAddress("127.0.0.1", 0), CALLERS)
+        server.executor = serverPool
+        server.createContext("/") { exchange ->
+            val current = inFlight.incrementAndGet()
+            maxInFlight.accumulateAndGet(current) { a, b -> maxOf(a, b) }
+            Thread.sleep(SERVER_LATENCY_MS)
+            inFlight.decrementAndGet()
+
+            val body = ByteArray(TILE_BYTES)
+            exchange.sendResponseHeaders(200, body.size.toLong())
+            exchange.responseBody.use { it.write(body) }
+        }
+        server.start()
+
+        provider = TileProvider(
+            id = "bench",
+            urlTemplates = listOf("http://127.0.0.1:${server.address.port}/{z}/{x}/{y}.png")
+        )
+    }
+
+    @After
+    fun tearDown() {
+        if (!::server.isInitialized) return
+        server.stop(0)
+        serverPool.shutdownNow()
+    }
+
+    @Test
+    fun boundedDispatcher_threadCountIndependentOfInFlightRequests() {
+        val repository = TileRepository(
+            cache = TileCache(MemoryTileCache(64L * 1024 * 1024), disk = null, ttlMs = Long.MAX_VALUE),
+            maxParallelRequests = PARALLEL
+        )
+
+        // Einmalige Threads (OkHttp-Watchdog, Connection-Pool, Scheduler) nicht mitzählen
+        repository.loadTileBlocking(provider, 11, 0, 0)
+
+        val result = measure { col ->
+            repository.loadTileBlocking(provider, 12, col, 0)
+        }
+
+        assertEquals(result.toString(), TILES, result.loaded)
+        assertTrue("server saw ${result.maxInFlight} parallel requests", result.maxInFlight <= PARALLEL)
+        // Zusätzliche Threads: Dispatcher-Slots + OkHttp-Callback-Threads,
+        // nicht ein Thread pro wartendem Worker
+        assertTrue("extra threads: ${result.extraThreads}", result.extraThreads <= 2 * PARALLEL + THREAD_SLACK)
+    }
+
+    @Test
+    fun legacyRunBlocking_forComparison() {
+        val result = measure { col ->
+            runBlocking(Dispatchers.IO) {
+                withContext(Dispatchers.IO) { legacyFetch(provider.urlsFor(12, col, 0).first()) }
+            }
+        }
+
+        assertEquals(result.toString(), TILES, result.loaded)
+    }
+
+    /**
+     * Das frühere loadTile: eine HttpURLConnection pro Tile, blockierend gelesen
+     */
+    private fun legacyFetch(url: String): ByteArray? {
+        val connection = URL(url).openConnection() as HttpURLConnection
+        connection.connectTimeout = 15000
+        connection.readTimeout = 15000
+        return if (connection.responseCode == 200) connection.inputStream.use { it.readBytes() } else null
+    }
+
+    private class Result(val loaded: Int, val maxInFlight: Int, val extraThreads: Int, val elapsedMs: Long) {
+        override fun toString() =
+            "$TILES tiles, $CALLERS waiting workers, ${SERVER_LATENCY_MS}ms latency: ${elapsedMs}ms, " +
+                "server parallelism=$maxInFlight, extra threads=$extraThreads"
+    }
+
+    /**
+     * Startet [CALLERS] Worker-Threads (wie MapCompose), die zusammen [TILES] Tiles laden
+     */
+    private fun measure(load: (col: Int) -> ByteArray?): Result {
+        val threads = ManagementFactory.getThreadMXBean()
+        val workers = Executors.newFixedThreadPool(CALLERS) as ThreadPoolExecutor
+        workers.prestartAllCoreThreads()
+
+        val baseline = threads.threadCount
+        threads.resetPeakThreadCount()
+        maxInFlight.set(0)
+
+        val loaded = AtomicInteger()
+        val done = CountDownLatch(TILES)
+        val start = System.nanoTime()
+        repeat(TILES) { col ->
+            workers.execute {
+                if (load(col) != null) loaded.incrementAndGet()
+                done.countDown()
+            }
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS))
+        val elapsedMs = (System.nanoTime() - start) / 1_000_000
+        val extraThreads = threads.peakThreadCount - baseline
+        workers.shutdownNow()
+
+        return Result(loaded.get(), maxInFlight.get(), extraThreads, elapsedMs)
+    }
+
+    companion object {
+        private const val CALLERS = 64
+        private const val TILES = 256
+        private const val PARALLEL = 8
+        private const val THREAD_SLACK = 8
+        private const val SERVER_LATENCY_MS = 50L
+        private const val TILE_BYTES = 16 * 1024
+    }
+}
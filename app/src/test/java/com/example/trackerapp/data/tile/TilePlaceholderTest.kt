@@ -0,0 +1,97 @@
+package com.example.trackerapp.data.tile
+
+import com.sun.net.httpserver.HttpServer
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.runInterruptible
+import kotlinx.coroutines.withTimeout
+import org.junit.Assert.*
+import org.junit.Test
+import java.net.InetSocketAddress
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Platzhalter-Ablauf: sofort liefern, echtes Tile im Hintergrund, dann Ersatz melden
+ */
+class TilePlaceholderTest {
+
+    @Test
+    fun staleTile_isServedImmediatelyAndReplacedWhenFresh() = runBlocking {
+        // Server antwortet erst nach dem Platzhalter: würde loadTileBlocking auf das
+        // Netzwerk warten, käme der Aufruf nie zurück (Timeout statt Zeitmessung)
+        val release = CountDownLatch(1)
+        val server = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0)
+        server.executor = Executors.newCachedThreadPool()
+        server.createContext("/") { exchange ->
+            release.await(5, TimeUnit.SECONDS)
+            val body = "fresh".toByteArray()
+            exchange.sendResponseHeaders(200, body.size.toLong())
+            exchange.responseBody.use { it.write(body) }
+        }
+        server.start()
+        try {
+            var now = 1_000_000L
+            val cache = TileCache(MemoryTileCache(1024 * 1024), null, ttlMs = 60_000L) { now }
+            val repository = TileRepository(cache, placeholdersEnabled = true)
+            val provider = TileProvider("test", listOf("http://127.0.0.1:${server.address.port}/{z}/{x}/{y}"))
+            val key = TileKey("test", 12, 5, 6)
+            cache.put(key, "stale".toByteArray())
+            now += 60_001L
+
+            val placeholder = withTimeout(3_000) {
+                runInterruptible(Dispatchers.IO) { repository.loadTileBlocking(provider, 12, 5, 6) }
+            }
+
+            assertArrayEquals("stale".toByteArray(), placeholder)
+            assertEquals(1L, repository.metrics.placeholderTiles.get())
+            // Abgelaufenes Tile ist schon da, es wird nichts erzeugt
+            assertEquals(0L, repository.metrics.synthesizedPlaceholders.get())
+
+            // Echtes Tile kommt im Hintergrund und wird gemeldet
+            val replaced = async(start = CoroutineStart.UNDISPATCHED) { repository.replacedTiles.first() }
+            release.countDown()
+            assertEquals(key, withTimeout(3_000) { replaced.await() })
+            assertArrayEquals("fresh".toByteArray(), repository.loadTileBlocking(provider, 12, 5, 6))
+        } finally {
+            release.countDown()
+            server.stop(0)
+        }
+    }
+
+    @Test
+    fun freshTileOnDisk_isServedWithoutPlaceholder() = runBlocking {
+        val dir = kotlin.io.path.createTempDirectory("tiles").toFile()
+        val server = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/") { exchange ->
+            exchange.sendResponseHeaders(500, -1)
+            exchange.close()
+        }
+        server.start()
+        try {
+            val cache = TileCache(MemoryTileCache(1024 * 1024), DiskTileCache(dir, 1024 * 1024), ttlMs = 60_000L)
+            val repository = TileRepository(cache, placeholdersEnabled = true)
+            val provider = TileProvider("test", listOf("http://127.0.0.1:${server.address.port}/{z}/{x}/{y}"))
+            cache.put(TileKey("test", 12, 5, 6), "disk".toByteArray())
+            cache.memory.clear()
+
+            assertArrayEquals("disk".toByteArray(), repository.loadTileBlocking(provider, 12, 5, 6))
+
+            // Hintergrund-Load trifft denselben Disk-Eintrag, das Netzwerk wird nicht gefragt
+            withTimeout(3_000) {
+                while (repository.metrics.cacheHits.get() < 1) delay(1)
+            }
+            assertEquals(0L, repository.metrics.placeholderTiles.get())
+            assertEquals(0L, repository.metrics.networkFetches.get())
+            assertEquals(0L, repository.metrics.failures.get())
+        } finally {
+            server.stop(0)
+            dir.deleteRecursively()
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.trackerapp.data.tile
+
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.MercatorProjection
+import com.example.trackerapp.domain.model.Location
+import com.sun.net.httpserver.HttpServer
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import org.junit.Assert.*
+import org.junit.Test
+import java.net.InetSocketAddress
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class TilePrefetcherTest {
+
+    private val repository = TileRepository(TileCache(MemoryTileCache(1024 * 1024), null, Long.MAX_VALUE))
+
+    @Test
+    fun movingEast_predictsTilesAheadOnTwoZoomLevels() {
+        val prefetcher = TilePrefetcher(repository, workers = 0)
+        val location = Location(latitude = 48.2082, longitude = 16.3738, bearing = 90f, speed = 30f)
+        val startCol = TileRegion.lonToCol(location.longitude, 14)
+
+        val tiles = prefetcher.predictTiles(location, 14)
+
+        assertEquals(setOf(14, 15), tiles.map { it.zoom }.toSet())
+        val cols = tiles.filter { it.zoom == 14 }.map { it.col }
+        // 30 m/s * 60 s = 1.8 km ≈ 1 Tile-Breite auf Zoom 14 (~1.6 km in Wien)
+        assertTrue(cols.max() > startCol + 1)
+        assertTrue(cols.min() >= startCol - 1)
+        // Nächste Tiles zuerst
+        assertEquals(TileKey("basemap", 14, startCol - 1, TileRegion.latToRow(location.latitude, 14) - 1), tiles.first())
+        prefetcher.close()
+    }
+
+    @Test
+    fun standingStill_predictsSurroundingsOnly() {
+        val prefetcher = TilePrefetcher(repository, workers = 0)
+
+        val tiles = prefetcher.predictTiles(Location(latitude = 48.2082, longitude = 16.3738, speed = 0f), 14)
+
+        // 3×3 Block auf Zoom 14 und 15
+        assertEquals(18, tiles.size)
+        prefetcher.close()
+    }
+
+    @Test
+    fun pathTiles_onlyAroundViewport_centerFirst() {
+        val prefetcher = TilePrefetcher(repository, workers = 0)
+        // Langer Pfad von Osten (Anfang der History) nach Wien (Ende, sichtbar)
+        val n = 10_000
+        val xs = DoubleArray(n) { MercatorProjection.x(30.0 - (30.0 - 16.3738) * it / (n - 1)) }
+        val ys = DoubleArray(n) { MercatorProjection.y(48.2082) }
+        val col = TileRegion.lonToCol(16.3738, 14)
+        val row = TileRegion.latToRow(48.2082, 14)
+        val viewport = TileViewport(14, col - 2..col + 2, row - 3..row + 3)
+
+        val tiles = prefetcher.pathTiles(xs, ys, viewport)
+
+        assertTrue(tiles.isNotEmpty())
+        assertEquals(setOf(14, 15), tiles.map { it.zoom }.toSet())
+        // Nur Ausschnitt plus Rand, nichts vom Anfang des Pfads
+        val margin = AppConstants.Tiles.PREFETCH_PATH_MARGIN
+        for (key in tiles.filter { it.zoom == 14 }) {
+            assertTrue(key.col in (col - 2 - margin)..(col + 2 + margin))
+        }
+        // Pfad verläuft durch die Mitte des Ausschnitts: dieses Tile kommt zuerst
+        assertEquals(TileKey("basemap", 14, col, row), tiles.first())
+        prefetcher.close()
+    }
+
+    @Test
+    fun pathTiles_outsideViewport_isEmpty() {
+        val prefetcher = TilePrefetcher(repository, workers = 0)
+        val xs = doubleArrayOf(MercatorProjection.x(0.0), MercatorProjection.x(1.0))
+        val ys = doubleArrayOf(MercatorProjection.y(0.0), MercatorProjection.y(1.0))
+
+        assertTrue(prefetcher.pathTiles(xs, ys, TileViewport(14, 100..104, 100..107)).isEmpty())
+        prefetcher.close()
+    }
+
+    @Test
+    fun bandwidthBudget_delaysAfterBurst() {
+        var now = 0L
+        val budget = BandwidthBudget(bytesPerSecond = 1000, burstBytes = 1000) { now }
+
+        assertEquals(0L, budget.waitTimeMs())
+        budget.consume(3000)
+        // 2000 Bytes Schulden bei 1000 B/s
+        assertTrue(budget.waitTimeMs() in 2000L..2001L)
+        now += 2001
+        assertEquals(0L, budget.waitTimeMs())
+    }
+
+    @Test
+    fun prefetch_waitsForForegroundRequests() = runBlocking {
+        val order = Collections.synchronizedList(mutableListOf<String>())
+        // Sichtbares Tile hängt, bis beide Prefetches von den Workern übernommen wurden
+        val release = CountDownLatch(1)
+        val server = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0)
+        server.executor = java.util.concurrent.Executors.newCachedThreadPool()
+        server.createContext("/") { exchange ->
+            val path = exchange.requestURI.path
+            if (path.startsWith("/18/")) release.await(10, TimeUnit.SECONDS)
+            order += path
+            val body = "tile".toByteArray()
+            exchange.sendResponseHeaders(200, body.size.toLong())
+            exchange.responseBody.use { it.write(body) }
+        }
+        server.start()
+        val provider = TileProvider("test", listOf("http://127.0.0.1:${server.address.port}/{z}/{x}/{y}"))
+        val prefetcher = TilePrefetcher(repository, provider, radius = 0)
+        try {
+            // Sichtbares Tile (langsam) läuft, dann kommt die Vorhersage
+            val visible = async(Dispatchers.IO) { repository.loadTile(provider, 18, 1, 1) }
+            while (repository.activeLoads == 0) delay(1)
+            prefetcher.onLocation(Location(latitude = 0.0, longitude = 0.0), 10)
+            withTimeout(5_000) {
+                while (prefetcher.queueSize > 0) delay(1)
+            }
+            release.countDown()
+
+            visible.await()
+            withTimeout(5_000) {
+                while (repository.metrics.prefetchedTiles.get() < 2) delay(10)
+            }
+
+            // Prefetches (Zoom 10 und 11) erst nach dem sichtbaren Tile
+            assertEquals("/18/1/1", order.first())
+            assertEquals(3, order.size)
+            assertEquals(0, prefetcher.queueSize)
+        } finally {
+            release.countDown()
+            prefetcher.close()
+            server.stop(0)
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.trackerapp.data.tile
+
+import com.example.trackerapp.core.utils.MercatorProjection
+import org.junit.Assert.*
+import org.junit.Test
+
+class TileRegionTest {
+
+    @Test
+    fun tileCoordinates_matchSlippyMapScheme() {
+        // Wien (48.2082, 16.3738) auf Zoom 10: Tile 558/355
+        assertEquals(558, TileRegion.lonToCol(16.3738, 10))
+        assertEquals(355, TileRegion.latToRow(48.2082, 10))
+
+        // Ränder werden auf gültige Tiles begrenzt
+        assertEquals(0, TileRegion.lonToCol(-180.0, 3))
+        assertEquals(7, TileRegion.lonToCol(180.0, 3))
+        assertEquals(0, TileRegion.latToRow(90.0, 3))
+        assertEquals(7, TileRegion.latToRow(-90.0, 3))
+    }
+
+    @Test
+    fun tileCount_sumsAllZoomLevels() {
+        val world = TileRegion(north = 85.0, south = -85.0, east = 180.0, west = -180.0, minZoom = 0, maxZoom = 3)
+
+        // 1 + 4 + 16 + 64
+        assertEquals(85L, world.tileCount())
+        assertEquals(85, world.tiles().count())
+    }
+
+    @Test
+    fun tiles_coverRegionCoarseFirst() {
+        val region = TileRegion(north = 48.25, south = 48.15, east = 16.45, west = 16.30, minZoom = 12, maxZoom = 14)
+
+        val tiles = region.tiles().toList()
+
+        assertEquals(region.tileCount(), tiles.size.toLong())
+        assertEquals(tiles.map { it.first }.sorted(), tiles.map { it.first })
+        assertTrue(tiles.contains(Triple(14, TileRegion.lonToCol(16.3738, 14), TileRegion.latToRow(48.2082, 14))))
+    }
+
+    @Test
+    fun fromNormalized_coversTheVisibleTiles() {
+        val left = MercatorProjection.x(11.5)
+        val right = MercatorProjection.x(11.7)
+        val top = MercatorProjection.y(48.2)
+        val bottom = MercatorProjection.y(48.1)
+
+        val region = TileRegion.fromNormalized(left, top, right, bottom, minZoom = 12, maxZoom = 14)
+
+        assertEquals(48.2, region.north, 1e-9)
+        assertEquals(48.1, region.south, 1e-9)
+        assertEquals(11.7, region.east, 1e-9)
+        assertEquals(11.5, region.west, 1e-9)
+        val viewport = TileViewport.fromNormalized(12, left, top, right, bottom)
+        assertEquals(viewport.cols, region.cols(12))
+        assertEquals(viewport.rows, region.rows(12))
+    }
+
+    @Test
+    fun fromNormalized_clampsBeyondTheWorld() {
+        val region = TileRegion.fromNormalized(-0.2, -0.1, 1.3, 1.1, minZoom = 0, maxZoom = 1)
+
+        assertEquals(-180.0, region.west, 1e-9)
+        assertEquals(180.0, region.east, 1e-9)
+        assertEquals(5L, region.tileCount())
+    }
+
+    @Test
+    fun limitedTo_dropsHighestZoomLevelsFirst() {
+        val region = TileRegion(north = 48.2, south = 48.1, east = 11.7, west = 11.5, minZoom = 12, maxZoom = 18)
+        val budget = region.copy(maxZoom = 15).tileCount()
+
+        val limited = region.limitedTo(budget)
+
+        assertEquals(15, limited?.maxZoom)
+        assertEquals(12, limited?.minZoom)
+        assertEquals(region, region.limitedTo(Long.MAX_VALUE))
+    }
+
+    @Test
+    fun limitedTo_returnsNullIfMinZoomAloneIsTooLarge() {
+        val region = TileRegion(north = 60.0, south = 40.0, east = 20.0, west = 0.0, minZoom = 14, maxZoom = 16)
+
+        assertNull(region.limitedTo(100))
+    }
+}
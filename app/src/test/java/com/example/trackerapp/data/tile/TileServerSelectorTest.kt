@@ -0,0 +1,144 @@
+package com.example.trackerapp.data.tile
+
+import com.sun.net.httpserver.HttpServer
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.*
+import org.junit.Test
+import java.net.InetSocketAddress
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Tests für die Server-Auswahl gegen lokale Stand-in-Server mit
+ * künstlicher Latenz und künstlichen Fehlern.
+ */
+class TileServerSelectorTest {
+
+    private val servers = mutableListOf<StandInServer>()
+    private var now = 1_000_000L
+
+    /**
+     * Lokaler Tile-Server: [latencyMs] Verzögerung, [failing] = true antwortet mit 503
+     */
+    private inner class StandInServer(var latencyMs: Long, @Volatile var failing: Boolean = false) {
+        val hits = AtomicInteger()
+        private val server = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0).apply {
+            executor = java.util.concurrent.Executors.newCachedThreadPool()
+            createContext("/") { exchange ->
+                hits.incrementAndGet()
+                Thread.sleep(latencyMs)
+                if (failing) {
+                    exchange.sendResponseHeaders(503, -1)
+                } else {
+                    val body = "tile".toByteArray()
+                    exchange.sendResponseHeaders(200, body.size.toLong())
+                    exchange.responseBody.use { it.write(body) }
+                }
+                exchange.close()
+            }
+            start()
+        }
+
+        val template = "http://127.0.0.1:${server.address.port}/{z}/{x}/{y}.png"
+        val url = template.replace("{z}", "0").replace("{x}", "0").replace("{y}", "0")
+
+        fun stop() = server.stop(0)
+    }
+
+    private fun server(latencyMs: Long, failing: Boolean = false) =
+        StandInServer(latencyMs, failing).also { servers += it }
+
+    @After
+    fun tearDown() {
+        servers.forEach { it.stop() }
+    }
+
+    @Test
+    fun requests_areRoutedToFastestServer() = runBlocking {
+        val slow = server(latencyMs = 150)
+        val fast = server(latencyMs = 5)
+        val provider = TileProvider("test", listOf(slow.template, fast.template))
+        val fetcher = HttpTileFetcher(selector = TileServerSelector(clock = { now }))
+
+        repeat(20) { col ->
+            assertTrue(fetcher.fetch(provider, 10, col, 0) is HttpTileFetcher.FetchResult.Success)
+        }
+
+        // Beide Server werden einmal gemessen, danach geht alles zum schnellen
+        assertEquals(1, slow.hits.get())
+        assertEquals(19, fast.hits.get())
+    }
+
+    @Test
+    fun failingServer_isDemoted() = runBlocking {
+        val broken = server(latencyMs = 0, failing = true)
+        val healthy = server(latencyMs = 20)
+        val fetcher = HttpTileFetcher(selector = TileServerSelector(failureThreshold = 3, clock = { now }))
+        // Kaputter Server ist schneller - nur Fehlerrate und Breaker dürfen ihn verdrängen
+        val provider = TileProvider("test", listOf(broken.template, healthy.template))
+
+        repeat(30) { col ->
+            assertTrue(fetcher.fetch(provider, 10, col, 0) is HttpTileFetcher.FetchResult.Success)
+        }
+
+        assertTrue("broken hits: ${broken.hits.get()}", broken.hits.get() <= 3)
+        assertEquals(30, healthy.hits.get())
+    }
+
+    @Test
+    fun openBreaker_failsFastWithoutRequests() = runBlocking {
+        val broken = server(latencyMs = 0, failing = true)
+        val selector = TileServerSelector(failureThreshold = 3, baseCooldownMs = 10_000L, clock = { now })
+        val fetcher = HttpTileFetcher(selector = selector)
+        val provider = TileProvider("test", listOf(broken.template))
+
+        repeat(10) { col ->
+            assertEquals(HttpTileFetcher.FetchResult.Failed, fetcher.fetch(provider, 10, col, 0))
+        }
+
+        assertEquals(3, broken.hits.get())
+        assertEquals(TileServerSelector.BreakerState.OPEN, selector.stateOf(broken.url))
+    }
+
+    @Test
+    fun halfOpenProbe_closesBreakerWhenServerRecovers() = runBlocking {
+        val flaky = server(latencyMs = 0, failing = true)
+        val backup = server(latencyMs = 20)
+        val selector = TileServerSelector(failureThreshold = 1, baseCooldownMs = 10_000L, clock = { now })
+        val fetcher = HttpTileFetcher(selector = selector)
+        val provider = TileProvider("test", listOf(flaky.template, backup.template))
+
+        fetcher.fetch(provider, 10, 0, 0)
+        assertEquals(TileServerSelector.BreakerState.OPEN, selector.stateOf(flaky.url))
+
+        // Während des Cooldowns: kein Request an den offenen Server
+        fetcher.fetch(provider, 10, 1, 0)
+        assertEquals(1, flaky.hits.get())
+
+        // Cooldown vorbei, Server wieder gesund: genau ein Probe, danach CLOSED
+        flaky.failing = false
+        now += 10_000L
+        assertTrue(fetcher.fetch(provider, 10, 2, 0) is HttpTileFetcher.FetchResult.Success)
+        assertEquals(2, flaky.hits.get())
+        assertEquals(TileServerSelector.BreakerState.CLOSED, selector.stateOf(flaky.url))
+    }
+
+    @Test
+    fun failedProbe_doublesCooldown() {
+        val selector = TileServerSelector(failureThreshold = 1, baseCooldownMs = 1_000L, clock = { now })
+        val url = "http://a.example/0/0/0.png"
+
+        selector.record(url, success = false, latencyMs = 10)
+        now += 1_000L
+        assertEquals(listOf(url), selector.rank(listOf(url)))
+        assertEquals(TileServerSelector.BreakerState.HALF_OPEN, selector.stateOf(url))
+        // Nur ein Probe gleichzeitig
+        assertEquals(emptyList<String>(), selector.rank(listOf(url)))
+
+        selector.record(url, success = false, latencyMs = 10)
+        now += 1_000L
+        assertEquals(emptyList<String>(), selector.rank(listOf(url)))
+        now += 1_000L
+        assertEquals(listOf(url), selector.rank(listOf(url)))
+    }
+}
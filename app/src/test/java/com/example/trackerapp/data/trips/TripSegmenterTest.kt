@@ -0,0 +1,160 @@
+package com.example.trackerapp.data.trips
+
+import com.example.trackerapp.core.constants.AppConstants
+import org.junit.Assert.*
+import org.junit.Test
+
+class TripSegmenterTest {
+
+    private class Point(val id: Long, val time: Long, val lat: Double, val lon: Double)
+
+    // ~1 m nach Norden
+    private val degreesPerMeter = 1.0 / 111_195.0
+
+    /**
+     * Synthetischer Tag: Aufenthalte und Fahrten, ein Fix alle 10 s
+     */
+    private class Day {
+        val points = ArrayList<Point>()
+        private val random = java.util.Random(5)
+        var time = 0L
+        var lat = 48.0
+        val lon = 11.0
+
+        fun stay(minutes: Int) {
+            repeat(minutes * 6) { fix(lat + random.nextGaussian() * 5 / 111_195.0) }
+        }
+
+        fun move(meters: Double, speed: Double = 1.4) {
+            val steps = (meters / speed / 10).toInt()
+            repeat(steps) {
+                lat += speed * 10 / 111_195.0
+                fix(lat)
+            }
+        }
+
+        fun gap(minutes: Int) {
+            time += minutes * 60_000L
+        }
+
+        private fun fix(latitude: Double) {
+            points += Point(points.size + 1L, time, latitude, lon)
+            time += 10_000
+        }
+    }
+
+    private fun segment(points: List<Point>, segmenter: TripSegmenter = TripSegmenter()): List<TripSegmenter.Segment> {
+        val closed = ArrayList<TripSegmenter.Segment>()
+        for (p in points) segmenter.add(p.id, p.time, p.lat, p.lon, closed)
+        return closed
+    }
+
+    @Test
+    fun stopTripStop() {
+        val day = Day().apply { stay(10); move(2_000.0); stay(10) }
+        val segmenter = TripSegmenter()
+        val closed = segment(day.points, segmenter)
+
+        assertEquals(listOf(TripSegmenter.Type.STOP, TripSegmenter.Type.TRIP), closed.map { it.type })
+        val trip = closed[1]
+        assertEquals(1_900.0, trip.distanceMeters, 50.0)
+        // Stop und Trip teilen sich den Grenzpunkt, der zweite Stop ist noch offen
+        assertEquals(closed[0].endId, trip.startId)
+        assertEquals(trip.endId, segmenter.openStartId)
+        assertEquals(48.0, closed[0].centerLatitude, 10 * degreesPerMeter)
+    }
+
+    @Test
+    fun jitterOnly_staysOneOpenStop() {
+        val day = Day().apply { stay(60) }
+        val segmenter = TripSegmenter()
+        assertTrue(segment(day.points, segmenter).isEmpty())
+        assertEquals(1L, segmenter.openStartId)
+    }
+
+    @Test
+    fun shortTrip_isMergedIntoStop() {
+        val day = Day().apply { stay(10); move(150.0); stay(10) }
+        val closed = segment(day.points)
+        assertTrue(closed.none { it.type == TripSegmenter.Type.TRIP })
+    }
+
+    @Test
+    fun gapAtSamePlace_endsTripWithStop() {
+        val day = Day().apply { stay(10); move(1_000.0); gap(60); stay(1) }
+        val segmenter = TripSegmenter()
+        val closed = segment(day.points, segmenter)
+        val trip = closed.last()
+        assertEquals(TripSegmenter.Type.TRIP, trip.type)
+        // Die ersten ~100 m liegen noch im Radius des Stops
+        assertEquals(900.0, trip.distanceMeters, 50.0)
+        assertEquals(trip.endId, segmenter.openStartId)
+    }
+
+    @Test
+    fun gapWithMovement_startsNewSegment() {
+        val day = Day().apply { stay(10); move(1_000.0); gap(60); lat += 0.1; move(1_000.0) }
+        val segmenter = TripSegmenter()
+        val closed = segment(day.points, segmenter)
+        val trip = closed.last()
+        assertEquals(TripSegmenter.Type.TRIP, trip.type)
+        // Strecke über die Lücke wird nicht geschätzt
+        assertTrue(trip.distanceMeters < 1_100)
+        assertEquals(trip.endId + 1, segmenter.openStartId)
+    }
+
+    @Test
+    fun fastJumpAfterGap_isNotAnOutlier() {
+        // 20 min ohne Fix, danach 111 km entfernt (~90 m/s über die Lücke)
+        val day = Day().apply { stay(10); move(1_000.0); gap(20); lat += 1.0; stay(10); move(1_000.0); stay(10) }
+        val firstAfterGap = day.points.first { it.lat > 48.5 }
+        val closed = segment(day.points)
+
+        // Ab dem ersten Punkt nach der Lücke wird weiter segmentiert
+        assertEquals(firstAfterGap.id, closed.first { it.startTime >= firstAfterGap.time }.startId)
+        val trips = closed.filter { it.type == TripSegmenter.Type.TRIP }
+        assertEquals(2, trips.size)
+        assertEquals(900.0, trips.last().distanceMeters, 50.0)
+    }
+
+    @Test
+    fun shortTripEndingInGap_isKept() {
+        val day = Day().apply { stay(10); move(150.0); gap(60); lat += 0.1; stay(10) }
+        val lastBeforeGap = day.points.last { it.lat < 48.05 }
+        val closed = segment(day.points)
+
+        assertEquals(listOf(TripSegmenter.Type.STOP, TripSegmenter.Type.TRIP), closed.map { it.type })
+        val trip = closed[1]
+        assertEquals(closed[0].endId, trip.startId)
+        assertEquals(lastBeforeGap.id, trip.endId)
+        assertTrue(trip.distanceMeters < AppConstants.Trips.MIN_TRIP_DISTANCE_M)
+    }
+
+    @Test
+    fun outlier_isSkipped() {
+        val day = Day().apply { stay(10); move(1_000.0); stay(10) }
+        val points = ArrayList(day.points)
+        val i = points.size / 2
+        // Sprung um 5 km zwischen zwei Fixes
+        points[i] = Point(points[i].id, points[i].time, points[i].lat + 0.045, points[i].lon)
+        val trip = segment(points).single { it.type == TripSegmenter.Type.TRIP }
+        assertEquals(900.0, trip.distanceMeters, 50.0)
+    }
+
+    @Test
+    fun resumeFromOpenSegment_givesSameSegments() {
+        val day = Day().apply {
+            stay(30); move(3_000.0); stay(20); move(1_500.0, speed = 8.0); stay(15); move(800.0); stay(10)
+        }
+        val all = segment(day.points)
+
+        // Nach jedem Punkt abbrechen können: ab dem offenen Segment neu einlesen
+        for (cut in listOf(50, 200, 400, day.points.size / 2, day.points.size - 5)) {
+            val first = TripSegmenter()
+            val closed = ArrayList(segment(day.points.subList(0, cut), first))
+            val resumeIndex = day.points.indexOfFirst { it.id == first.openStartId }
+            closed += segment(day.points.subList(resumeIndex, day.points.size))
+            assertEquals("cut $cut", all.map { Triple(it.type, it.startId, it.endId) }, closed.map { Triple(it.type, it.startId, it.endId) })
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.trackerapp.presentation.map
+
+import com.example.trackerapp.data.cluster.ClusterGrid
+import org.junit.Assert.*
+import org.junit.Test
+
+class ClusterMarkersTest {
+
+    @Test
+    fun update_reportsOnlyChangedClusters() {
+        val markers = ClusterMarkers()
+        val a = ClusterGrid.Cluster(1, 10, 0.1, 0.1)
+        val b = ClusterGrid.Cluster(2, 5, 0.2, 0.2)
+        markers.update(listOf(a, b))
+
+        // a unverändert, b hat einen Punkt mehr, c ist neu
+        val grownB = b.copy(count = 6)
+        val c = ClusterGrid.Cluster(3, 1, 0.3, 0.3)
+        val diff = markers.update(listOf(a, grownB, c))
+
+        assertEquals(listOf(2L), diff.removed)
+        assertEquals(setOf(grownB, c), diff.added.toSet())
+        assertEquals(3, markers.size)
+    }
+
+    @Test
+    fun clusterOutOfView_isRemoved() {
+        val markers = ClusterMarkers()
+        markers.update(listOf(ClusterGrid.Cluster(1, 10, 0.1, 0.1)))
+
+        val diff = markers.update(emptyList())
+
+        assertEquals(listOf(1L), diff.removed)
+        assertTrue(diff.added.isEmpty())
+        assertEquals(0, markers.size)
+    }
+}
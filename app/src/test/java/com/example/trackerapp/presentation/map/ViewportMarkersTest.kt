@@ -0,0 +1,106 @@
+package com.example.trackerapp.presentation.map
+
+import com.example.trackerapp.core.utils.latLonToMercator
+import com.example.trackerapp.data.local.entity.LocationPoint
+import org.junit.Assert.*
+import org.junit.Test
+
+class ViewportMarkersTest {
+
+    // Ausschnitt um München auf Zoom 16 (1000 x 1000 Pixel), Mitte in der Mitte einer 32-px-Zelle
+    private val zoom = 16
+    private val worldPx = 256.0 * (1 shl zoom)
+    private val centerX = (Math.floor(latLonToMercator(48.137, 11.575, 1).x * worldPx / 32) + 0.5) * 32 / worldPx
+    private val centerY = (Math.floor(latLonToMercator(48.137, 11.575, 1).y * worldPx / 32) + 0.5) * 32 / worldPx
+    private val half = 500.0 / worldPx
+    private val left = centerX - half
+    private val right = centerX + half
+    private val top = centerY - half
+    private val bottom = centerY + half
+
+    private fun point(id: Long, dxPx: Double, dyPx: Double): LocationPoint {
+        val x = centerX + dxPx / worldPx
+        val y = centerY + dyPx / worldPx
+        return LocationPoint(
+            id = id,
+            latitude = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y)))),
+            longitude = x * 360.0 - 180.0,
+            timestamp = 1_000_000L - id
+        )
+    }
+
+    @Test
+    fun boundsFor_includesPadding() {
+        val markers = ViewportMarkers(padding = 0.5)
+
+        val bounds = markers.boundsFor(left, top, right, bottom)
+
+        assertTrue(bounds.south < 48.137 && bounds.north > 48.137)
+        assertTrue(bounds.west < 11.575 && bounds.east > 11.575)
+        // Sichtbar 1000 px breit, abgefragt 2000 px
+        val visibleWidth = (right - left) * 360.0
+        assertEquals(visibleWidth * 2, bounds.east - bounds.west, 1e-9)
+    }
+
+    @Test
+    fun densityCap_keepsNewestPointPerCell() {
+        val markers = ViewportMarkers(cellPx = 32, maxMarkers = 100)
+        // 3 Punkte in derselben Zelle, neueste zuerst, und einer weit daneben
+        val points = listOf(point(1, 1.0, 1.0), point(2, -5.0, 6.0), point(3, 8.0, -3.0), point(4, 200.0, 0.0))
+
+        val diff = markers.update(points, zoom, left, top, right, bottom)
+
+        assertEquals(setOf(1L, 4L), diff.added.map { it.id }.toSet())
+        assertTrue(diff.removed.isEmpty())
+    }
+
+    @Test
+    fun maxMarkers_capsLiveMarkers() {
+        val markers = ViewportMarkers(cellPx = 16, maxMarkers = 10)
+        val points = (0 until 100).map { point(it.toLong(), it * 20.0 - 400.0, 0.0) }
+
+        val diff = markers.update(points, zoom, left, top, right, bottom)
+
+        assertEquals(10, diff.added.size)
+        assertEquals(10, markers.size)
+    }
+
+    @Test
+    fun panning_onlyReportsChanges() {
+        val markers = ViewportMarkers(padding = 0.0, cellPx = 16)
+        val points = (0 until 40).map { point(it.toLong(), it * 40.0 - 800.0, 0.0) }
+        markers.update(points, zoom, left, top, right, bottom)
+        val before = markers.size
+
+        // Um 200 px nach rechts verschieben
+        val shift = 200.0 / (256.0 * (1 shl zoom))
+        val diff = markers.update(points, zoom, left + shift, top, right + shift, bottom)
+
+        assertEquals(5, diff.removed.size)
+        assertEquals(5, diff.added.size)
+        assertEquals(before, markers.size)
+        assertTrue(diff.removed.all { it < 20 })
+        assertTrue(diff.added.all { it.id >= 20 })
+    }
+
+    @Test
+    fun covers_untilViewportLeavesPaddingOrZoomChanges() {
+        val markers = ViewportMarkers(padding = 0.5)
+        markers.update(emptyList(), zoom, left, top, right, bottom)
+        val shift = (right - left) * 0.4
+
+        assertTrue(markers.covers(zoom, left + shift, top, right + shift, bottom))
+        assertFalse(markers.covers(zoom, left + shift * 2, top, right + shift * 2, bottom))
+        assertFalse(markers.covers(zoom + 1, left, top, right, bottom))
+    }
+
+    @Test
+    fun clear_removesAllShownMarkers() {
+        val markers = ViewportMarkers()
+        markers.update(listOf(point(1, 0.0, 0.0), point(2, 100.0, 0.0)), zoom, left, top, right, bottom)
+
+        assertEquals(setOf(1L, 2L), markers.clear().toSet())
+        assertEquals(0, markers.size)
+        assertFalse(markers.covers(zoom, left, top, right, bottom))
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.trackerapp.presentation.path
+
+import com.example.trackerapp.Benchmark
+import com.example.trackerapp.core.constants.AppConstants
+import com.example.trackerapp.core.utils.latLonToMercator
+import org.junit.Assert.*
+import org.junit.Test
+
+/**
+ * Benchmark: Pfad mit 1 Mio. Punkten
+ *
+ * Simuliert eine lange History (Random Walk mit GPS-Rauschen, ein Punkt pro Sekunde)
+ * und misst Aufbau der LOD-Stufen und das "Zeichnen" (Punkte je Zoom-Level abholen).
+ * Verglichen wird die Anzahl gezeichneter Punkte mit dem naiven Ansatz (alle Punkte).
+ * Läuft nur mit `-Pbenchmark`.
+ */
+class PathLodBenchmarkTest {
+
+    @Test
+    fun millionPointTrack_drawsBoundedVertexCount() {
+        Benchmark.assumeEnabled()
+        val (xs, ys) = syntheticTrack(POINTS)
+
+        val buildStart = System.nanoTime()
+        val lod = PathLod.build(xs, ys)
+        val buildMs = (System.nanoTime() - buildStart) / 1_000_000
+
+        var drawn = 0L
+        val drawStart = System.nanoTime()
+        repeat(FRAMES) { frame ->
+            val zoom = frame % (AppConstants.Tiles.MAX_ZOOM + 1)
+            var checksum = 0.0
+            lod.forEachPoint(zoom) { x, y -> checksum += x + y }
+            drawn += lod.indicesFor(zoom).size
+            assertTrue(checksum > 0)
+        }
+        val drawMicros = (System.nanoTime() - drawStart) / 1_000 / FRAMES
+
+
+        // Aufzeichnung: ein neuer Punkt pro Update, nur der letzte Abschnitt wird neu berechnet
+        val ids = LongArray(POINTS) { it + 1L }
+        val builder = PathLod.Builder()
+        builder.update(ids.copyOf(POINTS - APPENDS), xs.copyOf(POINTS - APPENDS), ys.copyOf(POINTS - APPENDS))
+        var appendNanos = 0L
+        for (n in POINTS - APPENDS + 1..POINTS) {
+            // Neue Arrays wie aus ProjectedTrackCache, nicht mitgemessen
+            val grownIds = ids.copyOf(n)
+            val grownXs = xs.copyOf(n)
+            val grownYs = ys.copyOf(n)
+            val start = System.nanoTime()
+            builder.update(grownIds, grownXs, grownYs)
+            appendNanos += System.nanoTime() - start
+        }
+        val appendMicros = appendNanos / 1_000 / APPENDS
+
+        val report = "points=$POINTS build=$buildMs ms, " +
+            listOf(4, 8, 12, 14, 16, 18).joinToString { "zoom $it: ${lod.indicesFor(it).size}" } +
+            " vertices, avg per frame ${drawn / FRAMES} vertices in $drawMicros µs (naive: $POINTS), " +
+            "append one point $appendMicros µs"
+        for (zoom in 0..AppConstants.Tiles.MAX_ZOOM) {
+            assertTrue(report, lod.indicesFor(zoom).size <= AppConstants.Path.LOD_MAX_VERTICES)
+        }
+        assertTrue(report, buildMs < 20_000)
+    }
+
+    private fun syntheticTrack(n: Int): Pair<DoubleArray, DoubleArray> {
+        val random = java.util.Random(42)
+        val xs = DoubleArray(n)
+        val ys = DoubleArray(n)
+        var lat = 48.137
+        var lon = 11.575
+        var heading = 0.0
+        for (i in 0 until n) {
+            // ~1.4 m/s mit langsam driftender Richtung
+            heading += random.nextGaussian() * 0.05
+            lat += Math.cos(heading) * 1.4 / 111_320.0
+            lon += Math.sin(heading) * 1.4 / (111_320.0 * Math.cos(Math.toRadians(lat)))
+            // GPS-Rauschen ~3 m
+            val noisyLat = lat + random.nextGaussian() * 3.0 / 111_320.0
+            val noisyLon = lon + random.nextGaussian() * 3.0 / 111_320.0
+            val point = latLonToMercator(noisyLat, noisyLon, 1)
+            xs[i] = point.x
+            ys[i] = point.y
+        }
+        return xs to ys
+    }
+
+    companion object {
+        private const val POINTS = 1_000_000
+        private const val FRAMES = 190
+        private const val APPENDS = 20
+    }
+}
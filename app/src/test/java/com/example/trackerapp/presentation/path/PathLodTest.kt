@@ -0,0 +1,141 @@
+package com.example.trackerapp.presentation.path
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class PathLodTest {
+
+    @Test
+    fun straightLine_keepsOnlyEndpoints() {
+        val xs = DoubleArray(1000) { it / 1000.0 * 0.001 + 0.5 }
+        val ys = DoubleArray(1000) { 0.5 }
+
+        val lod = PathLod.build(xs, ys, maxZoom = 18)
+
+        for (zoom in 0..18) {
+            assertArrayEquals(intArrayOf(0, 999), lod.indicesFor(zoom))
+        }
+    }
+
+    @Test
+    fun levels_areNestedAndGetFinerWithZoom() {
+        // Zickzack mit abnehmender Amplitude: jede Zoomstufe zeigt mehr Zacken
+        val n = 2_000
+        val xs = DoubleArray(n) { 0.5 + it * 1e-6 }
+        val ys = DoubleArray(n) { 0.5 + (if (it % 2 == 0) 1 else -1) * 1e-4 / (1 + it) }
+
+        val lod = PathLod.build(xs, ys, maxZoom = 18)
+
+        var previous = lod.indicesFor(0)
+        for (zoom in 1..18) {
+            val current = lod.indicesFor(zoom)
+            assertTrue("zoom $zoom", current.size >= previous.size)
+            assertTrue("zoom $zoom", current.toSet().containsAll(previous.toList()))
+            previous = current
+        }
+        assertTrue(lod.indicesFor(18).size > lod.indicesFor(8).size)
+    }
+
+    @Test
+    fun simplifiedPath_staysWithinTolerance() {
+        val n = 5_000
+        val xs = DoubleArray(n) { 0.5 + it * 2e-7 }
+        val ys = DoubleArray(n) { 0.5 + Math.sin(it / 50.0) * 1e-5 }
+        val zoom = 14
+        val tolerance = 0.5 / (256.0 * (1 shl zoom))
+
+        val indices = PathLod.build(xs, ys, maxVertices = n).indicesFor(zoom)
+
+        // Jeder weggelassene Punkt liegt nah an der Strecke zwischen seinen Nachbarn
+        for (k in 0 until indices.size - 1) {
+            val a = indices[k]
+            val b = indices[k + 1]
+            for (i in a + 1 until b) {
+                assertTrue(distance(xs[i], ys[i], xs[a], ys[a], xs[b], ys[b]) <= tolerance)
+            }
+        }
+        assertTrue(indices.size < n / 4)
+    }
+
+    @Test
+    fun vertexBudget_isRespected() {
+        val n = 50_000
+        val random = java.util.Random(1)
+        val xs = DoubleArray(n) { 0.5 + random.nextDouble() * 0.01 }
+        val ys = DoubleArray(n) { 0.5 + random.nextDouble() * 0.01 }
+
+        val lod = PathLod.build(xs, ys, maxVertices = 500)
+
+        for (zoom in 0..18) {
+            val indices = lod.indicesFor(zoom)
+            assertTrue("zoom $zoom: ${indices.size}", indices.size <= 500)
+            assertEquals(0, indices.first())
+            assertEquals(n - 1, indices.last())
+        }
+    }
+
+    @Test
+    fun builder_appendedPoints_matchFullBuild() {
+        val (xs, ys) = randomWalk(12_000)
+        val builder = PathLod.Builder(maxVertices = 300, maxZoom = 18, chunkSize = 1_000)
+        val ids = LongArray(xs.size) { it + 1L }
+
+        // Verschieden große Zuwächse, auch genau auf und knapp über den Abschnittsgrenzen
+        var n = 0
+        for (step in listOf(1, 1, 7, 991, 1, 999, 1_000, 1_001, 2_500, 3, 5_496)) {
+            n += step
+            val lod = builder.update(ids.copyOf(n), xs.copyOf(n), ys.copyOf(n))
+            val full = PathLod.build(xs.copyOf(n), ys.copyOf(n), maxVertices = 300, maxZoom = 18, chunkSize = 1_000)
+            for (zoom in 0..18) {
+                assertArrayEquals("n=$n zoom $zoom", full.indicesFor(zoom), lod.indicesFor(zoom))
+            }
+        }
+        assertEquals(xs.size, n)
+    }
+
+    @Test
+    fun builder_changedTrack_startsOver() {
+        val (xs, ys) = randomWalk(5_000)
+        val builder = PathLod.Builder(maxVertices = 300, maxZoom = 18, chunkSize = 1_000)
+        builder.update(LongArray(5_000) { it + 1L }, xs, ys)
+
+        // Anfang gelöscht: andere IDs, andere Punkte
+        val lod = builder.update(LongArray(3_000) { it + 2_001L }, xs.copyOfRange(2_000, 5_000), ys.copyOfRange(2_000, 5_000))
+
+        val full = PathLod.build(xs.copyOfRange(2_000, 5_000), ys.copyOfRange(2_000, 5_000), maxVertices = 300, maxZoom = 18, chunkSize = 1_000)
+        for (zoom in 0..18) {
+            assertArrayEquals("zoom $zoom", full.indicesFor(zoom), lod.indicesFor(zoom))
+        }
+    }
+
+    @Test
+    fun builder_unchangedTrack_returnsSameLod() {
+        val (xs, ys) = randomWalk(2_000)
+        val ids = LongArray(2_000) { it + 1L }
+        val builder = PathLod.Builder(chunkSize = 1_000)
+
+        assertSame(builder.update(ids, xs, ys), builder.update(ids.copyOf(), xs, ys))
+    }
+
+    private fun randomWalk(n: Int): Pair<DoubleArray, DoubleArray> {
+        val random = java.util.Random(7)
+        val xs = DoubleArray(n)
+        val ys = DoubleArray(n)
+        var x = 0.5
+        var y = 0.5
+        for (i in 0 until n) {
+            x += random.nextGaussian() * 1e-6
+            y += random.nextGaussian() * 1e-6
+            xs[i] = x
+            ys[i] = y
+        }
+        return xs to ys
+    }
+
+    private fun distance(px: Double, py: Double, ax: Double, ay: Double, bx: Double, by: Double): Double {
+        val dx = bx - ax
+        val dy = by - ay
+        val t = (((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy)).coerceIn(0.0, 1.0)
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy))
+    }
+}